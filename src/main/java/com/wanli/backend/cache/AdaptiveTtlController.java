@@ -0,0 +1,252 @@
+package com.wanli.backend.cache;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.wanli.backend.util.CacheUtil;
+import com.wanli.backend.util.ConfigUtil;
+import com.wanli.backend.util.LogUtil;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 自适应TTL控制器 按键族的读写特征周期性调整TTL倍率，写入时以调用方请求的TTL为基准乘以倍率
+ *
+ * <p>每个周期取 {@link CacheOptimizer} 键族统计的增量：主动失效（含集合代际递增）占写入比例高的键族（频繁变化的列表）倍率减半；
+ * 命中率低且写入不少于读取的键族（写入后很少被读取的条目）倍率减半，命中率高且几乎没有失效的键族（稳定的参考数据）倍率增加一半。
+ * 倍率限制在 [0.25, 4]，调整后的TTL不超出配置的上下限。样本不足的周期不调整。
+ *
+ * <p>命中率低本身不足以缩短TTL：TTL过短同样导致命中率低，缩短后命中率更低，倍率会一路降到下限。未命中后的回填写入不会多于读取，
+ * 写入不少于读取说明有读取之外的写入，条目确实很少被复用。
+ */
+@Component
+public class AdaptiveTtlController implements TtlAdvisor {
+
+  // 一个周期内读写次数低于该值时不调整
+  private static final long MIN_SAMPLES = 100;
+  // 主动失效次数达到写入次数的该比例时缩短TTL
+  private static final double CHURN_SHRINK_RATIO = 0.5;
+  // 主动失效低于写入次数的该比例才视为稳定
+  private static final double STABLE_CHURN_RATIO = 0.05;
+  private static final double LOW_HIT_RATE = 0.3;
+  // 命中率低时写入至少达到读取的该比例才缩短TTL
+  private static final double LOW_REUSE_WRITE_RATIO = 1.0;
+  private static final double HIGH_HIT_RATE = 0.8;
+  private static final double SHRINK_STEP = 0.5;
+  private static final double GROW_STEP = 1.5;
+  private static final double MIN_FACTOR = 0.25;
+  private static final double MAX_FACTOR = 4.0;
+
+  private static final long DEFAULT_MIN_MINUTES = 1;
+  private static final long DEFAULT_MAX_MINUTES = 1440;
+
+  private final CacheOptimizer cacheOptimizer;
+  private final CacheUtil cacheUtil;
+  private final ConfigUtil configUtil;
+
+  private final ConcurrentHashMap<String, FamilyState> states = new ConcurrentHashMap<>();
+  private volatile long minTtlMillis = TimeUnit.MINUTES.toMillis(DEFAULT_MIN_MINUTES);
+  private volatile long maxTtlMillis = TimeUnit.MINUTES.toMillis(DEFAULT_MAX_MINUTES);
+  private volatile boolean enabled;
+
+  /** 键族的调整状态 */
+  private static final class FamilyState {
+    private final String family;
+    private volatile double factor = 1.0;
+    private volatile long lastRequestedMillis;
+    private volatile String reason = "未调整";
+    private volatile LocalDateTime updatedAt;
+    // 上一周期末的累计值，只在adjust中访问
+    private long lastReads;
+    private long lastHits;
+    private long lastWrites;
+    private long lastInvalidations;
+
+    FamilyState(String family) {
+      this.family = family;
+    }
+  }
+
+  public AdaptiveTtlController(
+      CacheOptimizer cacheOptimizer, CacheUtil cacheUtil, ConfigUtil configUtil) {
+    this.cacheOptimizer = cacheOptimizer;
+    this.cacheUtil = cacheUtil;
+    this.configUtil = configUtil;
+  }
+
+  /** 按配置启用，并注册为CacheUtil的TTL调整 */
+  @PostConstruct
+  public void init() {
+    Long minMinutes = configUtil.getCacheAdaptiveTtlMinMinutes();
+    Long maxMinutes = configUtil.getCacheAdaptiveTtlMaxMinutes();
+    if (minMinutes != null && maxMinutes != null && minMinutes <= maxMinutes) {
+      minTtlMillis = TimeUnit.MINUTES.toMillis(minMinutes);
+      maxTtlMillis = TimeUnit.MINUTES.toMillis(maxMinutes);
+    }
+    enabled = Boolean.TRUE.equals(configUtil.getCacheAdaptiveTtlEnabled());
+    cacheUtil.setTtlAdvisor(enabled ? this : null);
+  }
+
+  @Override
+  public long adviseTtlMillis(String key, long requestedMillis) {
+    FamilyState state = states.get(CacheOptimizer.keyFamily(key));
+    if (state == null) {
+      return requestedMillis;
+    }
+    state.lastRequestedMillis = requestedMillis;
+    return applyFactor(requestedMillis, state.factor);
+  }
+
+  /** 按倍率计算TTL，结果不超出配置的上下限（请求的TTL本身越界时以请求值为界） */
+  private long applyFactor(long requestedMillis, double factor) {
+    if (factor == 1.0) {
+      return requestedMillis;
+    }
+    long lower = Math.min(minTtlMillis, requestedMillis);
+    long upper = Math.max(maxTtlMillis, requestedMillis);
+    long adjusted = (long) (requestedMillis * factor);
+    return Math.max(lower, Math.min(upper, adjusted));
+  }
+
+  /** 按上一周期的键族统计调整倍率 */
+  @Scheduled(fixedRate = 600000) // 每10分钟执行一次
+  public synchronized void adjust() {
+    if (!enabled) {
+      return;
+    }
+    for (CacheOptimizer.KeyFamilyStats stats : cacheOptimizer.getKeyFamilyStats().values()) {
+      FamilyState state = states.computeIfAbsent(stats.getFamily(), FamilyState::new);
+      long reads = stats.getReadCount() - state.lastReads;
+      long hits = stats.getHitCount() - state.lastHits;
+      long writes = stats.getWriteCount() - state.lastWrites;
+      long invalidations = stats.getInvalidationCount() - state.lastInvalidations;
+      state.lastReads = stats.getReadCount();
+      state.lastHits = stats.getHitCount();
+      state.lastWrites = stats.getWriteCount();
+      state.lastInvalidations = stats.getInvalidationCount();
+      if (reads + writes < MIN_SAMPLES) {
+        continue;
+      }
+
+      double hitRate = reads == 0 ? 0.0 : (double) hits / reads;
+      double churn = (double) invalidations / Math.max(1, writes);
+      double factor;
+      String reason;
+      if (churn >= CHURN_SHRINK_RATIO) {
+        factor = state.factor * SHRINK_STEP;
+        reason = String.format("主动失效频繁（失效/写入=%.2f），缩短TTL", churn);
+      } else if (hitRate < LOW_HIT_RATE && writes >= reads * LOW_REUSE_WRITE_RATIO) {
+        factor = state.factor * SHRINK_STEP;
+        reason =
+            String.format(
+                "命中率低（%.0f%%）且写入不少于读取，条目很少被复用，缩短TTL以节省内存", hitRate * 100);
+      } else if (hitRate >= HIGH_HIT_RATE && churn < STABLE_CHURN_RATIO) {
+        factor = state.factor * GROW_STEP;
+        reason = String.format("数据稳定（命中率%.0f%%，几乎无失效），延长TTL", hitRate * 100);
+      } else {
+        continue;
+      }
+      factor = Math.max(MIN_FACTOR, Math.min(MAX_FACTOR, factor));
+      if (factor == state.factor) {
+        continue;
+      }
+
+      double previous = state.factor;
+      state.factor = factor;
+      state.reason = reason;
+      state.updatedAt = LocalDateTime.now();
+      Map<String, Object> context = new HashMap<>();
+      context.put("family", state.family);
+      context.put("previousFactor", previous);
+      context.put("factor", factor);
+      context.put("reason", reason);
+      LogUtil.logBusiness("CACHE_TTL_ADJUSTED", context);
+    }
+  }
+
+  /** 各键族当前生效的TTL及最近一次调整的原因 */
+  public List<TtlDecision> getEffectiveTtls() {
+    List<TtlDecision> decisions = new ArrayList<>();
+    for (FamilyState state : states.values()) {
+      long base = state.lastRequestedMillis;
+      decisions.add(
+          new TtlDecision(
+              state.family,
+              state.factor,
+              base,
+              base == 0 ? 0 : applyFactor(base, state.factor),
+              state.reason,
+              state.updatedAt));
+    }
+    decisions.sort((a, b) -> a.getFamily().compareTo(b.getFamily()));
+    return decisions;
+  }
+
+  /** 键族当前的TTL倍率，未调整时为1 */
+  public double getFactor(String family) {
+    FamilyState state = states.get(family);
+    return state == null ? 1.0 : state.factor;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** 键族的TTL调整结果 */
+  public static class TtlDecision {
+    private final String family;
+    private final double factor;
+    private final long baseTtlMillis;
+    private final long effectiveTtlMillis;
+    private final String reason;
+    private final LocalDateTime updatedAt;
+
+    public TtlDecision(
+        String family,
+        double factor,
+        long baseTtlMillis,
+        long effectiveTtlMillis,
+        String reason,
+        LocalDateTime updatedAt) {
+      this.family = family;
+      this.factor = factor;
+      this.baseTtlMillis = baseTtlMillis;
+      this.effectiveTtlMillis = effectiveTtlMillis;
+      this.reason = reason;
+      this.updatedAt = updatedAt;
+    }
+
+    public String getFamily() {
+      return family;
+    }
+
+    public double getFactor() {
+      return factor;
+    }
+
+    /** 最近一次写入请求的TTL（毫秒），尚无写入时为0 */
+    public long getBaseTtlMillis() {
+      return baseTtlMillis;
+    }
+
+    public long getEffectiveTtlMillis() {
+      return effectiveTtlMillis;
+    }
+
+    public String getReason() {
+      return reason;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+      return updatedAt;
+    }
+  }
+}
@@ -0,0 +1,751 @@
+package com.wanli.backend.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 有界本地缓存引擎 采用W-TinyLFU淘汰策略
+ *
+ * <p>数据存放在ConcurrentHashMap中，读操作无锁；淘汰策略由三段访问顺序队列组成： 窗口区(LRU，约1%容量)吸收突发新数据，
+ * 主区分为试用段和保护段(SLRU)。窗口溢出的候选者 与试用段最老的受害者按频率草图比较，频率更高者留下，所有淘汰操作均为O(1)。
+ *
+ * <p>读操作只把节点写入有损读缓冲区，由持有淘汰锁的线程批量重放，避免读路径争用同一把锁。
+ *
+ * <p>容量按总权重计量：默认每个条目权重为1（即条目数），也可传入 {@link Weigher} 按估算字节数限制内存占用，
+ * 窗口区、保护段与淘汰判断均以权重为单位。
+ *
+ * <p>所有条目按键的':'分段登记到命名空间索引，前缀失效只触及对应命名空间内的键。
+ *
+ * <p>过期由分层时间轮驱动：每次写入及定时 {@link #cleanUp()} 推进时间轮，只处理跨越的桶， 已过期条目无需等待读请求或全量扫描即可释放。
+ *
+ * <p>写入时间、过期判断与时间轮都读取构造时传入的时钟（毫秒），默认为系统时钟。
+ */
+public final class BoundedLocalCache {
+
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+
+  // 窗口区占总容量比例
+  private static final double WINDOW_PERCENTAGE = 0.01;
+  // 保护段占主区比例
+  private static final double PROTECTED_PERCENTAGE = 0.80;
+  // 读缓冲区槽位数（2的幂）
+  private static final int READ_BUFFER_SIZE = 128;
+  private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+  // 平均每32次读尝试一次重放
+  private static final int READ_DRAIN_MASK = 31;
+  // 高频候选者的随机准入，防止哈希碰撞攻击把热点挡在门外
+  private static final int ADMIT_HASHDOS_THRESHOLD = 6;
+  // 按权重计量时以预算除以估计的平均条目权重得出预期条目数，据此确定频率草图大小
+  private static final long ESTIMATED_ENTRY_WEIGHT = 1024;
+  private static final long MIN_SKETCH_CAPACITY = 1024;
+  private static final long MAX_SKETCH_CAPACITY = 1 << 20;
+
+  private final ConcurrentHashMap<String, Node> data = new ConcurrentHashMap<>();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final AtomicReferenceArray<Node> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+
+  // 以下字段受 evictionLock 保护
+  private final AccessOrderDeque windowDeque = new AccessOrderDeque();
+  private final AccessOrderDeque probationDeque = new AccessOrderDeque();
+  private final AccessOrderDeque protectedDeque = new AccessOrderDeque();
+  private final FrequencySketch sketch;
+  private final TimerWheel timerWheel;
+  private final NamespaceIndex namespaceIndex = new NamespaceIndex();
+  private long maximum;
+  private long windowMaximum;
+  private long protectedMaximum;
+  private long windowWeight;
+  private long protectedWeight;
+  private long weightedSize;
+  private long sketchCapacity;
+
+  private final Weigher weigher;
+  private final EvictionListener evictionListener;
+  private final LongSupplier clock;
+
+  /** 移除原因 */
+  public enum RemovalCause {
+    SIZE, // 超出容量
+    EXPIRED, // 过期
+    EXPLICIT, // 主动删除
+    REPLACED; // 被新值覆盖
+
+    /** 是否由容量或过期策略自动淘汰 */
+    public boolean wasEvicted() {
+      return this == SIZE || this == EXPIRED;
+    }
+  }
+
+  /** 移除回调 自动淘汰、主动删除与覆盖都会通知，便于释放条目关联的外部资源 */
+  @FunctionalInterface
+  public interface EvictionListener {
+    void onEviction(String key, Node node, RemovalCause cause);
+  }
+
+  public BoundedLocalCache(long maximumSize, EvictionListener evictionListener) {
+    this(maximumSize, Weigher.singleton(), evictionListener);
+  }
+
+  /**
+   * @param maximumWeight 最大总权重（按条目数计量时即最大条目数）
+   * @param weigher 权重计算器
+   * @param evictionListener 淘汰回调
+   */
+  public BoundedLocalCache(
+      long maximumWeight, Weigher weigher, EvictionListener evictionListener) {
+    this(maximumWeight, weigher, evictionListener, System::currentTimeMillis);
+  }
+
+  /**
+   * @param maximumWeight 最大总权重（按条目数计量时即最大条目数）
+   * @param weigher 权重计算器
+   * @param evictionListener 淘汰回调
+   * @param clock 毫秒时钟
+   */
+  public BoundedLocalCache(
+      long maximumWeight,
+      Weigher weigher,
+      EvictionListener evictionListener,
+      LongSupplier clock) {
+    this.weigher = weigher;
+    this.clock = clock;
+    this.timerWheel = new TimerWheel(clock.getAsLong());
+    this.sketchCapacity = expectedEntries(maximumWeight);
+    this.sketch = new FrequencySketch(sketchCapacity);
+    this.evictionListener = evictionListener;
+    setMaximum(maximumWeight);
+  }
+
+  private boolean isWeighted() {
+    return weigher != Weigher.singleton();
+  }
+
+  /** 缓存节点 值不可变，更新时整体替换节点 */
+  public static final class Node {
+    private final String key;
+    private final Object value;
+    private final long writeTime;
+    // 新鲜期截止时间，此后至expireTime之间的条目可作为旧值返回并触发重新加载
+    private final long freshUntil;
+    private final long expireTime;
+    // 上一次加载耗时（毫秒），用于概率提前过期
+    private final long loadMillis;
+    private final int weight;
+    private volatile long lastAccessTime;
+    private volatile int accessCount;
+    private volatile boolean alive = true;
+
+    // 策略字段，受 evictionLock 保护
+    private Node prev;
+    private Node next;
+    private int queueType = WINDOW;
+    private boolean linked;
+    // 时间轮字段，受 evictionLock 保护
+    Node prevInTimer;
+    Node nextInTimer;
+    // 所属命名空间，受 evictionLock 保护
+    NamespaceIndex.Namespace namespace;
+
+    Node(
+        String key,
+        Object value,
+        long writeTime,
+        long freshUntil,
+        long expireTime,
+        long loadMillis,
+        int weight) {
+      this.key = key;
+      this.weight = weight;
+      this.value = value;
+      this.writeTime = writeTime;
+      this.freshUntil = Math.min(freshUntil, expireTime);
+      this.expireTime = expireTime;
+      this.loadMillis = loadMillis;
+      this.lastAccessTime = writeTime;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public Object getValue() {
+      return value;
+    }
+
+    public long getWriteTime() {
+      return writeTime;
+    }
+
+    public long getFreshUntil() {
+      return freshUntil;
+    }
+
+    public long getExpireTime() {
+      return expireTime;
+    }
+
+    public long getLoadMillis() {
+      return loadMillis;
+    }
+
+    public int getWeight() {
+      return weight;
+    }
+
+    public boolean isExpired(long now) {
+      return now > expireTime;
+    }
+
+    /** 已过新鲜期（可能仍处于旧值窗口内） */
+    public boolean isStale(long now) {
+      return now > freshUntil;
+    }
+
+    public long getLastAccessTime() {
+      return lastAccessTime;
+    }
+
+    public int getAccessCount() {
+      return accessCount;
+    }
+
+    public boolean isAlive() {
+      return alive;
+    }
+
+    void touch(long now) {
+      lastAccessTime = now;
+      accessCount++;
+    }
+
+    /** 时间轮桶的哨兵节点 */
+    static Node sentinel() {
+      Node sentinel = new Node(null, null, 0, Long.MAX_VALUE, Long.MAX_VALUE, 0, 0);
+      sentinel.prevInTimer = sentinel;
+      sentinel.nextInTimer = sentinel;
+      return sentinel;
+    }
+  }
+
+  // ==================== 数据操作 ====================
+
+  /** 读取节点并记录访问 */
+  public Node get(String key) {
+    Node node = data.get(key);
+    if (node != null) {
+      node.touch(clock.getAsLong());
+      afterRead(node);
+    }
+    return node;
+  }
+
+  /** 读取节点但不影响淘汰顺序 */
+  public Node getQuietly(String key) {
+    return data.get(key);
+  }
+
+  /** 写入或替换节点 */
+  public Node put(String key, Object value, long expireTime) {
+    return put(key, value, expireTime, expireTime, 0);
+  }
+
+  /** 写入或替换节点，freshUntil之后条目进入过期前的旧值窗口，loadMillis记录本次加载耗时 */
+  public Node put(String key, Object value, long freshUntil, long expireTime, long loadMillis) {
+    return put(key, value, freshUntil, expireTime, loadMillis, weigh(key, value));
+  }
+
+  /** 写入或替换节点，权重由调用方按构造时的 {@link Weigher} 预先算出，避免重复估算 */
+  public Node put(
+      String key, Object value, long freshUntil, long expireTime, long loadMillis, int weight) {
+    Node node =
+        new Node(
+            key, value, clock.getAsLong(), freshUntil, expireTime, loadMillis, Math.max(0, weight));
+    Node prior = data.put(key, node);
+
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      if (prior != null) {
+        retire(prior);
+        notifyRemoval(prior, RemovalCause.REPLACED);
+      }
+      expireEntries();
+      if (node.alive) {
+        sketch.increment(key);
+        link(node);
+        evictEntries();
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+    return prior;
+  }
+
+  /** 仅当键不存在（或已过期）时写入，返回是否写入成功 */
+  public boolean putIfAbsent(String key, Object value, long expireTime) {
+    long now = clock.getAsLong();
+    Node node = new Node(key, value, now, expireTime, expireTime, 0, weigh(key, value));
+    Node prior;
+    while (true) {
+      prior = data.putIfAbsent(key, node);
+      if (prior == null) {
+        break;
+      }
+      if (!prior.isExpired(now)) {
+        return false;
+      }
+      if (data.replace(key, prior, node)) {
+        break;
+      }
+    }
+
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      if (prior != null) {
+        retire(prior);
+        notifyRemoval(prior, RemovalCause.EXPIRED);
+      }
+      expireEntries();
+      if (node.alive) {
+        sketch.increment(key);
+        link(node);
+        evictEntries();
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+    return true;
+  }
+
+  /** 删除键 */
+  public Node remove(String key) {
+    Node node = data.remove(key);
+    if (node != null) {
+      evictionLock.lock();
+      try {
+        retire(node);
+        notifyRemoval(node, RemovalCause.EXPLICIT);
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+    return node;
+  }
+
+  /** 仅当键仍映射到指定节点时删除，读取时发现已过期的节点按过期通知 */
+  public boolean remove(String key, Node node) {
+    if (!data.remove(key, node)) {
+      return false;
+    }
+    evictionLock.lock();
+    try {
+      retire(node);
+      notifyRemoval(
+          node, node.isExpired(clock.getAsLong()) ? RemovalCause.EXPIRED : RemovalCause.EXPLICIT);
+    } finally {
+      evictionLock.unlock();
+    }
+    return true;
+  }
+
+  /** 删除键以指定前缀开头的所有条目，代价为O(命名空间内的键数)，返回删除数量 */
+  public int removeByPrefix(String prefix) {
+    evictionLock.lock();
+    try {
+      int removed = 0;
+      for (Node node : namespaceIndex.collect(prefix)) {
+        retire(node);
+        if (data.remove(node.key, node)) {
+          removed++;
+          notifyRemoval(node, RemovalCause.EXPLICIT);
+        }
+      }
+      return removed;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /** 返回键以指定前缀开头的节点快照（可能包含尚未回收的过期条目） */
+  public List<Node> nodesWithPrefix(String prefix) {
+    evictionLock.lock();
+    try {
+      return namespaceIndex.collect(prefix);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /** 清空缓存 */
+  public void clear() {
+    evictionLock.lock();
+    try {
+      for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+        readBuffer.lazySet(i, null);
+      }
+      for (Node node : data.values()) {
+        if (data.remove(node.key, node)) {
+          retire(node);
+          notifyRemoval(node, RemovalCause.EXPLICIT);
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /** 当前映射条目数（可能包含尚未被时间轮回收的过期条目） */
+  public int size() {
+    return data.size();
+  }
+
+  /** 精确的存活条目数：先推进时间轮并清理当前时间片内已过期的条目 */
+  public int liveSize() {
+    evictionLock.lock();
+    try {
+      expireEntries();
+      timerWheel.expireCurrentBucket(this::evictExpired);
+      return data.size();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /** 推进时间轮，回收已过期条目（摊还O(1)，由调度器每秒调用） */
+  public void cleanUp() {
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      expireEntries();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  public boolean isEmpty() {
+    return data.isEmpty();
+  }
+
+  /** 键集合视图（弱一致） */
+  public Set<String> keySet() {
+    return Collections.unmodifiableSet(data.keySet());
+  }
+
+  /** 节点集合视图（弱一致） */
+  public Collection<Node> nodes() {
+    return Collections.unmodifiableCollection(data.values());
+  }
+
+  // ==================== 容量管理 ====================
+
+  /** 调整最大容量（总权重），超出部分立即淘汰 */
+  public void setMaximum(long maximumWeight) {
+    evictionLock.lock();
+    try {
+      long max = Math.max(0, maximumWeight);
+      this.maximum = max;
+      this.windowMaximum = Math.max(max > 0 ? 1 : 0, (long) (max * WINDOW_PERCENTAGE));
+      this.protectedMaximum = (long) ((max - windowMaximum) * PROTECTED_PERCENTAGE);
+      // 频率草图只随预算调高而扩大（会清空计数），堆内存紧张时的收缩与恢复不影响已有的访问历史
+      long expected = expectedEntries(max);
+      if (expected > sketchCapacity) {
+        sketchCapacity = expected;
+        sketch.ensureCapacity(expected);
+      }
+      evictEntries();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  public long getMaximum() {
+    return maximum;
+  }
+
+  /** 当前总权重 */
+  public long getWeightedSize() {
+    evictionLock.lock();
+    try {
+      return weightedSize;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /** 预算对应的预期条目数：按条目数计量时即预算本身 */
+  private long expectedEntries(long maximumWeight) {
+    if (!isWeighted()) {
+      return Math.max(1, maximumWeight);
+    }
+    return Math.max(
+        MIN_SKETCH_CAPACITY,
+        Math.min(MAX_SKETCH_CAPACITY, maximumWeight / ESTIMATED_ENTRY_WEIGHT));
+  }
+
+  /** 键在频率草图中的估计访问频率 */
+  int frequency(String key) {
+    evictionLock.lock();
+    try {
+      return sketch.frequency(key);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private int weigh(String key, Object value) {
+    return Math.max(0, weigher.weigh(key, value));
+  }
+
+  // ==================== 策略实现（需持有 evictionLock） ====================
+
+  private void afterRead(Node node) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    readBuffer.lazySet(random.nextInt() & READ_BUFFER_MASK, node);
+    if ((random.nextInt() & READ_DRAIN_MASK) == 0 && evictionLock.tryLock()) {
+      try {
+        drainReadBuffer();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  private void drainReadBuffer() {
+    for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+      Node node = readBuffer.get(i);
+      if (node != null && readBuffer.compareAndSet(i, node, null)) {
+        onAccess(node);
+      }
+    }
+  }
+
+  private void onAccess(Node node) {
+    if (!node.linked) {
+      return;
+    }
+    sketch.increment(node.key);
+    switch (node.queueType) {
+      case WINDOW:
+        windowDeque.moveToBack(node);
+        break;
+      case PROBATION:
+        // 试用段再次命中，晋升到保护段
+        probationDeque.remove(node);
+        node.queueType = PROTECTED;
+        protectedDeque.addLast(node);
+        protectedWeight += node.weight;
+        demoteFromProtected();
+        break;
+      default:
+        protectedDeque.moveToBack(node);
+        break;
+    }
+  }
+
+  private void link(Node node) {
+    node.queueType = WINDOW;
+    node.linked = true;
+    windowDeque.addLast(node);
+    windowWeight += node.weight;
+    weightedSize += node.weight;
+    timerWheel.schedule(node);
+    namespaceIndex.add(node);
+  }
+
+  /** 下线节点：从所在队列摘除，之后读缓冲区中的残留引用会被忽略 */
+  private void retire(Node node) {
+    node.alive = false;
+    if (!node.linked) {
+      return;
+    }
+    node.linked = false;
+    timerWheel.deschedule(node);
+    namespaceIndex.remove(node);
+    switch (node.queueType) {
+      case WINDOW:
+        windowDeque.remove(node);
+        windowWeight -= node.weight;
+        break;
+      case PROBATION:
+        probationDeque.remove(node);
+        break;
+      default:
+        protectedDeque.remove(node);
+        protectedWeight -= node.weight;
+        break;
+    }
+    weightedSize -= node.weight;
+  }
+
+  private void demoteFromProtected() {
+    while (protectedWeight > protectedMaximum) {
+      Node demoted = protectedDeque.pollFirst();
+      if (demoted == null) {
+        break;
+      }
+      protectedWeight -= demoted.weight;
+      demoted.queueType = PROBATION;
+      probationDeque.addLast(demoted);
+    }
+  }
+
+  private void evictEntries() {
+    // 窗口区溢出的节点进入试用段尾部成为候选者
+    while (windowWeight > windowMaximum) {
+      Node candidate = windowDeque.pollFirst();
+      if (candidate == null) {
+        break;
+      }
+      windowWeight -= candidate.weight;
+      candidate.queueType = PROBATION;
+      probationDeque.addLast(candidate);
+    }
+
+    while (weightedSize > maximum) {
+      Node victim = probationDeque.peekFirst();
+      Node candidate = probationDeque.peekLast();
+      Node evict;
+      if (victim == null) {
+        // 试用段为空时依次从保护段、窗口区淘汰
+        evict = protectedDeque.peekFirst();
+        if (evict == null) {
+          evict = windowDeque.peekFirst();
+        }
+      } else if (victim == candidate) {
+        evict = victim;
+      } else if (candidate.weight > maximum) {
+        // 单个条目超过总容量，直接拒绝
+        evict = candidate;
+      } else {
+        evict = admit(candidate.key, victim.key) ? victim : candidate;
+      }
+      if (evict == null) {
+        break;
+      }
+      evict(evict, RemovalCause.SIZE);
+    }
+  }
+
+  private boolean admit(String candidateKey, String victimKey) {
+    int victimFreq = sketch.frequency(victimKey);
+    int candidateFreq = sketch.frequency(candidateKey);
+    if (candidateFreq > victimFreq) {
+      return true;
+    } else if (candidateFreq >= ADMIT_HASHDOS_THRESHOLD) {
+      return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+    return false;
+  }
+
+  private void expireEntries() {
+    timerWheel.advance(clock.getAsLong(), this::evictExpired);
+  }
+
+  private boolean evictExpired(Node node) {
+    evict(node, RemovalCause.EXPIRED);
+    return true;
+  }
+
+  private void evict(Node node, RemovalCause cause) {
+    boolean removed = data.remove(node.key, node);
+    retire(node);
+    if (removed) {
+      notifyRemoval(node, cause);
+    }
+  }
+
+  private void notifyRemoval(Node node, RemovalCause cause) {
+    if (evictionListener != null) {
+      evictionListener.onEviction(node.key, node, cause);
+    }
+  }
+
+  /** 返回主区与窗口区的队列快照（诊断用，按淘汰优先级排序） */
+  public List<String> evictionOrderSnapshot() {
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      List<String> keys = new ArrayList<>(data.size());
+      windowDeque.collectKeys(keys);
+      probationDeque.collectKeys(keys);
+      protectedDeque.collectKeys(keys);
+      return keys;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /** 侵入式双向链表 头部为最久未访问 */
+  private static final class AccessOrderDeque {
+    private Node first;
+    private Node last;
+
+    void addLast(Node node) {
+      node.prev = last;
+      node.next = null;
+      if (last == null) {
+        first = node;
+      } else {
+        last.next = node;
+      }
+      last = node;
+    }
+
+    void remove(Node node) {
+      Node prev = node.prev;
+      Node next = node.next;
+      if (prev == null) {
+        first = next;
+      } else {
+        prev.next = next;
+      }
+      if (next == null) {
+        last = prev;
+      } else {
+        next.prev = prev;
+      }
+      node.prev = null;
+      node.next = null;
+    }
+
+    void moveToBack(Node node) {
+      if (node != last) {
+        remove(node);
+        addLast(node);
+      }
+    }
+
+    Node peekFirst() {
+      return first;
+    }
+
+    Node peekLast() {
+      return last;
+    }
+
+    Node pollFirst() {
+      Node node = first;
+      if (node != null) {
+        remove(node);
+      }
+      return node;
+    }
+
+    void collectKeys(List<String> keys) {
+      for (Node node = first; node != null; node = node.next) {
+        keys.add(node.key);
+      }
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package com.wanli.backend.cache;
+
+/** 缓存访问监听 读取按采样回调，写入与主动失效逐次回调，用于在缓存外部统计热点键与键族的读写特征 */
+public interface CacheAccessListener {
+
+  /**
+   * 采样的读取
+   *
+   * @param key 缓存键
+   * @param hit 是否命中
+   * @param weight 本次采样代表的读取次数（采样倍率）
+   */
+  void onRead(String key, boolean hit, int weight);
+
+  /** 写入（含未命中后的回填） */
+  default void onWrite(String key) {}
+
+  /** 主动删除，通常意味着底层数据发生了变化 */
+  default void onInvalidate(String key) {}
+}
@@ -0,0 +1,12 @@
+package com.wanli.backend.cache;
+
+/** 缓存值编解码 堆外存储与二级缓存按分区选用，解码只依赖编码结果本身 */
+public interface CacheCodec {
+
+  byte[] encode(Object value);
+
+  Object decode(byte[] bytes);
+
+  /** 编解码名称，用于日志与统计 */
+  String getName();
+}
@@ -0,0 +1,20 @@
+package com.wanli.backend.cache;
+
+/** 缓存事件类型 用于热路径计数与采样追踪 */
+public enum CacheEvent {
+  HIT, // 命中
+  HIT_NULL, // 命中空值标记
+  MISS, // 未命中
+  EXPIRED, // 过期
+  PUT, // 写入
+  PUT_NULL, // 写入空值标记
+  REMOVE, // 主动删除
+  EVICT, // 容量淘汰
+  PENETRATION_REJECT, // 防穿透过滤器拦截
+  LOAD, // 回源加载
+  LOAD_FAILURE, // 回源加载失败
+  COALESCED_LOAD, // 合并到进行中的加载
+  REFRESH, // 异步刷新
+  OFFHEAP_INVALIDATED, // 堆外记录已被回收
+  DISABLED // 缓存关闭时的调用
+}
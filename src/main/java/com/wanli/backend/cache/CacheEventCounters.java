@@ -0,0 +1,42 @@
+package com.wanli.backend.cache;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/** 缓存事件计数器 每种事件一个分段累加的LongAdder，记录时不加锁、不分配对象 */
+public final class CacheEventCounters {
+
+  private static final CacheEvent[] EVENTS = CacheEvent.values();
+
+  private final LongAdder[] counters = new LongAdder[EVENTS.length];
+
+  public CacheEventCounters() {
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] = new LongAdder();
+    }
+  }
+
+  public void increment(CacheEvent event) {
+    counters[event.ordinal()].increment();
+  }
+
+  public long get(CacheEvent event) {
+    return counters[event.ordinal()].sum();
+  }
+
+  /** 所有事件计数的快照 */
+  public Map<CacheEvent, Long> snapshot() {
+    Map<CacheEvent, Long> snapshot = new EnumMap<>(CacheEvent.class);
+    for (CacheEvent event : EVENTS) {
+      snapshot.put(event, counters[event.ordinal()].sum());
+    }
+    return snapshot;
+  }
+
+  public void reset() {
+    for (LongAdder counter : counters) {
+      counter.reset();
+    }
+  }
+}
@@ -1,50 +1,149 @@
 package com.wanli.backend.cache;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.wanli.backend.exception.BusinessException;
 import com.wanli.backend.util.CacheUtil;
 import com.wanli.backend.util.LogUtil;
 
-/** 缓存管理器 提供统一的缓存管理功能，包括缓存策略、过期时间管理、缓存预热等 */
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 缓存管理器 提供统一的缓存管理功能，包括缓存策略、过期时间管理、缓存预热等
+ *
+ * <p>配置了 {@link RemoteCacheStore}（cache.l2.enabled=true）时作为两级缓存工作：CacheUtil为L1，Redis为L2，
+ * 写入与失效经 {@link TwoTierCache} 同步到L2并广播给其他实例。
+ */
 @Component
 public class CacheManager {
 
   private final CacheUtil cacheUtil;
 
+  // 二级缓存，未配置远端存储时为null，所有操作只作用于本地
+  private volatile TwoTierCache twoTierCache;
+
+  // 逻辑集合的代际计数器：代际写入缓存键，失效时只需递增一次
+  private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+  // L2不可用期间在本地递增过代际的集合，本地代际可能领先于共享计数，待L2恢复后同步
+  private final Set<String> unsyncedGenerations = ConcurrentHashMap.newKeySet();
+
   // 缓存过期时间配置（分钟）
   private static final int SHORT_CACHE_EXPIRE = 5; // 短期缓存：5分钟
   private static final int MEDIUM_CACHE_EXPIRE = 30; // 中期缓存：30分钟
   private static final int LONG_CACHE_EXPIRE = 120; // 长期缓存：2小时
   private static final int PERSISTENT_CACHE_EXPIRE = 1440; // 持久缓存：24小时
 
+  // 异步刷新线程池（有界队列，饱和时放弃本次刷新）
+  private static final int REFRESH_THREADS = 2;
+  private static final int REFRESH_QUEUE_CAPACITY = 256;
+
+  // CacheUtil等待合并加载失败时的错误码前缀
+  private static final String LOAD_WAIT_ERROR_PREFIX = "CACHE_LOAD_";
+
+  private final ThreadPoolExecutor refreshExecutor =
+      new ThreadPoolExecutor(
+          REFRESH_THREADS,
+          REFRESH_THREADS,
+          60,
+          TimeUnit.SECONDS,
+          new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY),
+          runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+          });
+
   public CacheManager(CacheUtil cacheUtil) {
     this.cacheUtil = cacheUtil;
+    refreshExecutor.allowCoreThreadTimeOut(true);
   }
 
-  /** 缓存策略枚举 */
+  /** 启用二级缓存 */
+  @Autowired(required = false)
+  public void setRemoteCacheStore(RemoteCacheStore remoteCacheStore) {
+    this.twoTierCache = new TwoTierCache(remoteCacheStore, cacheUtil, this::onRemoteGeneration);
+    LogUtil.logBusinessOperation("CACHE_L2_ENABLED", "", "nodeId=" + twoTierCache.getNodeId());
+  }
+
+  /** 二级缓存，未启用时返回null */
+  public TwoTierCache getTwoTierCache() {
+    return twoTierCache;
+  }
+
+  /** 关闭异步刷新线程池 */
+  @PreDestroy
+  public void shutdown() {
+    refreshExecutor.shutdown();
+  }
+
+  /**
+   * 缓存策略枚举 过期时间、过期后返回旧值的窗口（分钟）、概率提前过期系数β与写入时TTL抖动比例
+   *
+   * <p>不设固定的提前刷新点：固定比例总会先于XFetch触发，使提前刷新退化为确定性的批量回源。新鲜期内由XFetch
+   * 按上次加载耗时概率性地提前刷新，过期后在旧值窗口内异步刷新。
+   */
   public enum CacheStrategy {
-    SHORT(SHORT_CACHE_EXPIRE), // 频繁变化的数据
-    MEDIUM(MEDIUM_CACHE_EXPIRE), // 一般业务数据
-    LONG(LONG_CACHE_EXPIRE), // 相对稳定的数据
-    PERSISTENT(PERSISTENT_CACHE_EXPIRE); // 基础配置数据
+    SHORT(SHORT_CACHE_EXPIRE, 1, 1.0, 0.10), // 频繁变化的数据
+    MEDIUM(MEDIUM_CACHE_EXPIRE, 5, 1.0, 0.10), // 一般业务数据
+    LONG(LONG_CACHE_EXPIRE, 15, 1.0, 0.10), // 相对稳定的数据
+    PERSISTENT(PERSISTENT_CACHE_EXPIRE, 60, 1.0, 0.05); // 基础配置数据
 
     private final int expireMinutes;
+    private final RefreshPolicy refreshPolicy;
 
-    CacheStrategy(int expireMinutes) {
+    CacheStrategy(
+        int expireMinutes,
+        int staleWhileRevalidateMinutes,
+        double earlyExpirationBeta,
+        double ttlJitter) {
       this.expireMinutes = expireMinutes;
+      this.refreshPolicy =
+          RefreshPolicy.of(
+                  Duration.ofMinutes(expireMinutes),
+                  1.0,
+                  Duration.ofMinutes(staleWhileRevalidateMinutes))
+              .withEarlyExpiration(earlyExpirationBeta, ttlJitter);
     }
 
     public int getExpireMinutes() {
       return expireMinutes;
     }
+
+    public RefreshPolicy getRefreshPolicy() {
+      return refreshPolicy;
+    }
   }
 
   /**
    * 获取缓存数据，如果不存在则加载并缓存 包含防缓存穿透、击穿优化
    *
+   * <p>条目被XFetch判定提前过期后仍直接返回，并在有界线程池上异步重新加载；过期后的旧值窗口内同样返回旧值， 避免热点数据在TTL边界上同步回源。
+   *
+   * <p>数据加载器的异常与等待合并加载超时原样抛出，合并的调用方不再各自回源；只有缓存自身故障时才直接调用加载器。
+   *
    * @param cacheKey 缓存键
    * @param dataLoader 数据加载器
    * @param strategy 缓存策略
@@ -53,15 +152,7 @@ public class CacheManager {
    */
   @SuppressWarnings("unchecked")
   public <T> T getOrLoad(String cacheKey, Supplier<T> dataLoader, CacheStrategy strategy) {
-    try {
-      // 使用CacheUtil的优化方法，包含防穿透和击穿机制
-      return cacheUtil.getOrCompute(cacheKey, dataLoader, strategy.getExpireMinutes());
-
-    } catch (Exception e) {
-      LogUtil.logError("CACHE_ERROR", "", "CACHE_OPERATION_FAILED", "缓存操作失败: " + cacheKey, e);
-      // 缓存操作失败时，直接从数据源加载
-      return dataLoader.get();
-    }
+    return getOrLoad(cacheKey, dataLoader, strategy, (Class<T>) Object.class);
   }
 
   /**
@@ -78,16 +169,71 @@ public class CacheManager {
   public <T> T getOrLoad(
       String cacheKey, Supplier<T> dataLoader, CacheStrategy strategy, Class<T> type) {
     try {
-      // 使用CacheUtil的优化方法，包含防穿透和击穿机制
-      return cacheUtil.getOrCompute(cacheKey, type, dataLoader, strategy.getExpireMinutes());
-
-    } catch (Exception e) {
+      // 使用CacheUtil的优化方法，包含防穿透、击穿机制与提前刷新
+      // 提前刷新跳过L2直接回源，否则会把L2中即将过期的旧值重新计时写入L1
+      TwoTierCache l2 = twoTierCache;
+      Supplier<T> loader =
+          l2 == null
+              ? () -> callLoader(dataLoader)
+              : () -> (T) loadThroughL2(l2, cacheKey, dataLoader, strategy);
+      Supplier<T> refresher =
+          l2 == null ? loader : () -> reloadIntoL2(l2, cacheKey, dataLoader, strategy);
+      return cacheUtil.getOrCompute(
+          cacheKey, type, loader, refresher, strategy.getRefreshPolicy(), refreshExecutor);
+
+    } catch (LoaderFailure e) {
+      // 加载器本身失败，合并的等待方收到同一个异常，不再各自回源
+      throw (RuntimeException) e.getCause();
+    } catch (RuntimeException e) {
+      if (isLoadWaitFailure(e)) {
+        throw e;
+      }
       LogUtil.logError("CACHE_ERROR", "", "CACHE_OPERATION_FAILED", "缓存操作失败: " + cacheKey, e);
       // 缓存操作失败时，直接从数据源加载
       return dataLoader.get();
     }
   }
 
+  /** 调用数据加载器，异常包装为 {@link LoaderFailure} 与缓存自身的故障区分 */
+  private static <T> T callLoader(Supplier<T> dataLoader) {
+    try {
+      return dataLoader.get();
+    } catch (RuntimeException e) {
+      throw new LoaderFailure(e);
+    }
+  }
+
+  /** 等待合并加载超时、被中断或失败，数据源此时多半已经过载 */
+  private static boolean isLoadWaitFailure(RuntimeException e) {
+    return e instanceof BusinessException
+        && ((BusinessException) e).getErrorCode().startsWith(LOAD_WAIT_ERROR_PREFIX);
+  }
+
+  /** 数据加载器抛出的异常，getOrLoad解包后原样抛出 */
+  private static final class LoaderFailure extends RuntimeException {
+    LoaderFailure(RuntimeException cause) {
+      super(cause.getMessage(), cause, false, false);
+    }
+  }
+
+  /** L1未命中（单飞）后的加载：先查L2，命中时带上L2的剩余TTL作为L1的TTL上限；未命中再回源并写入L2 */
+  private Object loadThroughL2(
+      TwoTierCache l2, String cacheKey, Supplier<?> dataLoader, CacheStrategy strategy) {
+    TtlBoundedValue remote = l2.get(cacheKey);
+    if (remote != null) {
+      return remote;
+    }
+    return reloadIntoL2(l2, cacheKey, dataLoader, strategy);
+  }
+
+  /** 回源并写入L2，提前刷新也走这里 */
+  private static <T> T reloadIntoL2(
+      TwoTierCache l2, String cacheKey, Supplier<T> dataLoader, CacheStrategy strategy) {
+    T value = callLoader(dataLoader);
+    l2.fill(cacheKey, value, strategy.getRefreshPolicy().nextTtlMillis());
+    return value;
+  }
+
   /**
    * 存储数据到缓存
    *
@@ -98,7 +244,11 @@ public class CacheManager {
    */
   public <T> void put(String cacheKey, T data, CacheStrategy strategy) {
     if (data != null) {
-      cacheUtil.put(cacheKey, data, strategy.getExpireMinutes());
+      cacheUtil.put(cacheKey, data, strategy.getRefreshPolicy());
+      TwoTierCache l2 = twoTierCache;
+      if (l2 != null) {
+        l2.put(cacheKey, data, strategy.getRefreshPolicy().nextTtlMillis());
+      }
     }
   }
 
@@ -120,8 +270,23 @@ public class CacheManager {
    * @param <T> 数据类型
    * @return 缓存数据，如果不存在返回null
    */
+  @SuppressWarnings("unchecked")
   public <T> T get(String cacheKey) {
-    return cacheUtil.get(cacheKey);
+    T value = cacheUtil.get(cacheKey);
+    TwoTierCache l2 = twoTierCache;
+    if (value != null || l2 == null) {
+      return value;
+    }
+    TtlBoundedValue remote = l2.get(cacheKey);
+    if (remote == null) {
+      return null;
+    }
+    cacheUtil.put(
+        cacheKey,
+        remote.getValue(),
+        CacheStrategy.MEDIUM.getRefreshPolicy(),
+        remote.getMaxTtlMillis());
+    return (T) remote.getValue();
   }
 
   /**
@@ -133,32 +298,77 @@ public class CacheManager {
    * @return 缓存数据，如果不存在返回null
    */
   public <T> T get(String cacheKey, Class<T> type) {
-    return cacheUtil.get(cacheKey, type);
+    T value = cacheUtil.get(cacheKey, type);
+    TwoTierCache l2 = twoTierCache;
+    if (value != null || l2 == null) {
+      return value;
+    }
+    TtlBoundedValue remote = l2.get(cacheKey);
+    if (remote == null || !type.isInstance(remote.getValue())) {
+      return null;
+    }
+    cacheUtil.put(
+        cacheKey,
+        remote.getValue(),
+        CacheStrategy.MEDIUM.getRefreshPolicy(),
+        remote.getMaxTtlMillis());
+    return type.cast(remote.getValue());
   }
 
   /**
    * 删除缓存
    *
+   * <p>在事务中调用时提交后再删除一次：提交前并发读取到旧行的请求可能已把旧值写回L1或L2，第二次删除将其清除。
+   *
    * @param cacheKey 缓存键
    */
   public void evict(String cacheKey) {
-    cacheUtil.remove(cacheKey);
+    removeKeys(Collections.singletonList(cacheKey));
+    evictAgainAfterCommit(() -> removeKeys(Collections.singletonList(cacheKey)));
     java.util.Map<String, Object> context = new java.util.HashMap<>();
     context.put("cacheKey", cacheKey);
     LogUtil.logBusiness("CACHE_EVICT", context);
   }
 
   /**
-   * 批量删除缓存
+   * 批量删除缓存，在事务中调用时提交后再删除一次
    *
    * @param cacheKeys 缓存键数组
    */
   public void evictAll(String... cacheKeys) {
+    List<String> keys = Arrays.asList(cacheKeys);
+    removeKeys(keys);
+    evictAgainAfterCommit(() -> removeKeys(keys));
+    java.util.Map<String, Object> context = new java.util.HashMap<>();
+    context.put("cacheKeys", cacheKeys.length);
+    LogUtil.logBusiness("CACHE_EVICT", context);
+  }
+
+  /** 删除L1中的键，启用L2时合并为一次删除与一条广播 */
+  private void removeKeys(List<String> cacheKeys) {
     for (String cacheKey : cacheKeys) {
-      evict(cacheKey);
+      cacheUtil.remove(cacheKey);
+    }
+    TwoTierCache l2 = twoTierCache;
+    if (l2 != null) {
+      l2.invalidate(cacheKeys);
     }
   }
 
+  /** 当前线程处于事务中时，在提交后再执行一次失效 */
+  private static void evictAgainAfterCommit(Runnable eviction) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            eviction.run();
+          }
+        });
+  }
+
   /**
    * 清除匹配模式的缓存
    *
@@ -167,6 +377,10 @@ public class CacheManager {
   public void evictByPattern(String pattern) {
     try {
       cacheUtil.removeByPattern(pattern);
+      TwoTierCache l2 = twoTierCache;
+      if (l2 != null) {
+        l2.invalidatePattern(pattern);
+      }
       java.util.Map<String, Object> context = new java.util.HashMap<>();
       context.put("pattern", pattern);
       LogUtil.logBusiness("CACHE_EVICT_PATTERN", context);
@@ -175,6 +389,148 @@ public class CacheManager {
     }
   }
 
+  /**
+   * 清除命名空间（键前缀）下的所有缓存，启用L2时同时删除L2中的键并通知其他实例，在事务中调用时提交后再清除一次
+   *
+   * @param namespace 命名空间，如 lesson:detail:
+   */
+  public void evictNamespace(String namespace) {
+    removeNamespace(namespace);
+    evictAgainAfterCommit(() -> removeNamespace(namespace));
+    java.util.Map<String, Object> context = new java.util.HashMap<>();
+    context.put("namespace", namespace);
+    LogUtil.logBusiness("CACHE_EVICT_NAMESPACE", context);
+  }
+
+  private void removeNamespace(String namespace) {
+    cacheUtil.removeNamespace(namespace);
+    TwoTierCache l2 = twoTierCache;
+    if (l2 != null) {
+      l2.invalidateNamespace(namespace);
+    }
+  }
+
+  /**
+   * 获取逻辑集合（如全部课程、某课程的课时列表）的当前代际
+   *
+   * @param collection 集合命名空间，如 course:list:page:
+   * @return 当前代际
+   */
+  public long currentGeneration(String collection) {
+    AtomicLong generation = generations.get(collection);
+    if (generation != null) {
+      return generation.get();
+    }
+    TwoTierCache l2 = twoTierCache;
+    if (l2 == null) {
+      return 0L;
+    }
+    // 启用L2时首次使用从共享计数器读取，之后由失效广播保持同步
+    return generations
+        .computeIfAbsent(collection, key -> new AtomicLong(Math.max(0L, l2.readGeneration(key))))
+        .get();
+  }
+
+  /**
+   * 构建带代际的缓存键，格式为 {collection}g{generation}:{suffix}
+   *
+   * @param collection 集合命名空间
+   * @param suffix 集合内的键后缀
+   * @return 缓存键
+   */
+  public String generationKey(String collection, String suffix) {
+    return collection + "g" + currentGeneration(collection) + ":" + suffix;
+  }
+
+  /**
+   * 是否为带代际的缓存键（某个以':'结尾的段为 g{数字}）
+   *
+   * <p>代际计数只在内存（或L2）中，重启后从0开始，这类键不能写入或恢复自本地快照，否则旧代际的分页会被当作当前数据返回。
+   *
+   * @param key 缓存键
+   * @return 是否带代际
+   */
+  public static boolean isGenerationKey(String key) {
+    int start = 0;
+    for (int end = key.indexOf(':'); end >= 0; end = key.indexOf(':', start)) {
+      if (end - start >= 2 && key.charAt(start) == 'g' && isDigits(key, start + 1, end)) {
+        return true;
+      }
+      start = end + 1;
+    }
+    return false;
+  }
+
+  private static boolean isDigits(String value, int from, int to) {
+    for (int i = from; i < to; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 失效整个逻辑集合 代际加一后旧代际的键不再被读取，随容量淘汰或过期自然回收，失效代价为O(1)
+   *
+   * <p>旧键没有被删除，代际递增另作为集合所属键族的一次主动失效上报，供TTL调整识别频繁变化的列表。
+   *
+   * <p>每次失效都使本地代际严格前进：L2不可用时只在本地递增；本地因此领先于共享计数时，L2恢复后的下一次失效
+   * 或收到的代际广播把共享计数抬到本地值，其他实例随广播同步。
+   *
+   * @param collection 集合命名空间
+   * @return 新的代际
+   */
+  public long invalidateGeneration(String collection) {
+    TwoTierCache l2 = twoTierCache;
+    long shared = l2 == null ? -1L : l2.incrementGeneration(collection);
+    AtomicLong counter = generations.computeIfAbsent(collection, key -> new AtomicLong());
+    long generation = counter.updateAndGet(current -> Math.max(current + 1, shared));
+    if (l2 != null) {
+      if (shared < 0) {
+        unsyncedGenerations.add(collection);
+      } else if (generation > shared) {
+        generation = syncGeneration(l2, collection, generation);
+      } else {
+        unsyncedGenerations.remove(collection);
+      }
+    }
+    cacheUtil.recordInvalidation(collection);
+    java.util.Map<String, Object> context = new java.util.HashMap<>();
+    context.put("collection", collection);
+    context.put("generation", generation);
+    LogUtil.logBusiness("CACHE_GENERATION_INVALIDATE", context);
+    return generation;
+  }
+
+  /** 其他实例递增了集合代际 */
+  private void onRemoteGeneration(String collection, long generation) {
+    AtomicLong counter = generations.computeIfAbsent(collection, key -> new AtomicLong());
+    TwoTierCache l2 = twoTierCache;
+    if (l2 != null && unsyncedGenerations.contains(collection) && generation <= counter.get()) {
+      // 本地代际领先期间其他实例的失效不能被本地的旧代际吞掉：再前进一步并同步到共享计数
+      syncGeneration(l2, collection, counter.incrementAndGet());
+      cacheUtil.recordInvalidation(collection);
+      return;
+    }
+    long previous = counter.getAndAccumulate(generation, Math::max);
+    if (generation > previous) {
+      cacheUtil.recordInvalidation(collection);
+    }
+  }
+
+  /** 把共享代际抬到不小于本地代际并广播，返回同步后的本地代际；L2仍不可用时保持未同步 */
+  private long syncGeneration(TwoTierCache l2, String collection, long generation) {
+    long shared = l2.raiseGeneration(collection, generation);
+    if (shared < 0) {
+      unsyncedGenerations.add(collection);
+      return generation;
+    }
+    unsyncedGenerations.remove(collection);
+    return generations.get(collection).accumulateAndGet(shared, Math::max);
+  }
+
   /**
    * 检查缓存是否存在
    *
@@ -241,7 +597,30 @@ public class CacheManager {
    * @return 缓存数据映射
    */
   public <T> java.util.Map<String, T> multiGet(java.util.List<String> cacheKeys, Class<T> type) {
-    return cacheUtil.multiGet(cacheKeys, type);
+    java.util.Map<String, T> result = cacheUtil.multiGet(cacheKeys, type);
+    TwoTierCache l2 = twoTierCache;
+    if (l2 == null || result.size() == cacheKeys.size()) {
+      return result;
+    }
+    // L1缺失的键一次性从L2批量读取并回填
+    List<String> missing = new ArrayList<>();
+    for (String cacheKey : cacheKeys) {
+      if (!result.containsKey(cacheKey)) {
+        missing.add(cacheKey);
+      }
+    }
+    for (java.util.Map.Entry<String, TtlBoundedValue> entry : l2.getAll(missing).entrySet()) {
+      TtlBoundedValue remote = entry.getValue();
+      if (type.isInstance(remote.getValue())) {
+        cacheUtil.put(
+            entry.getKey(),
+            remote.getValue(),
+            CacheStrategy.MEDIUM.getRefreshPolicy(),
+            remote.getMaxTtlMillis());
+        result.put(entry.getKey(), type.cast(remote.getValue()));
+      }
+    }
+    return result;
   }
 
   /**
@@ -251,7 +630,103 @@ public class CacheManager {
    * @param strategy 缓存策略
    */
   public void multiPut(java.util.Map<String, Object> keyValues, CacheStrategy strategy) {
-    cacheUtil.multiPut(keyValues, strategy.getExpireMinutes());
+    cacheUtil.multiPut(keyValues, strategy.getRefreshPolicy());
+    TwoTierCache l2 = twoTierCache;
+    if (l2 != null) {
+      l2.putAll(keyValues, strategy.getRefreshPolicy().nextTtlMillis());
+    }
+  }
+
+  /**
+   * 批量获取，未命中的键合并为一次批量加载（使用默认中期策略）
+   *
+   * @param cacheKeys 缓存键
+   * @param bulkLoader 按未命中的键批量加载，返回值中缺失的键视为不存在
+   * @param <V> 数据类型
+   * @return 按输入顺序排列的存在的键值
+   */
+  public <V> Map<String, V> getAll(
+      Collection<String> cacheKeys, Function<Set<String>, Map<String, V>> bulkLoader) {
+    return getAll(cacheKeys, Function.identity(), bulkLoader, CacheStrategy.MEDIUM);
+  }
+
+  /**
+   * 批量获取，未命中的ID合并为一次批量加载
+   *
+   * <p>先在L1中一次遍历取出已缓存的值；启用L2时其余键以一次往返从L2读取，按L2剩余TTL回填L1；仍缺失的ID只调用一次bulkLoader，
+   * 结果批量写入L1与L2（一个pipeline）。加载结果中没有的ID不缓存，也不出现在返回值中。并发的getAll之间不合并加载。
+   *
+   * @param ids 业务ID，如课程ID
+   * @param keyMapper ID到缓存键的映射
+   * @param bulkLoader 按未命中的ID批量加载，如 CourseRepository.findByIdsAndNotDeletedUnlimited
+   * @param strategy 缓存策略
+   * @param <K> ID类型
+   * @param <V> 数据类型
+   * @return 按输入顺序排列的存在的ID与值
+   */
+  @SuppressWarnings("unchecked")
+  public <K, V> Map<K, V> getAll(
+      Collection<K> ids,
+      Function<K, String> keyMapper,
+      Function<Set<K>, Map<K, V>> bulkLoader,
+      CacheStrategy strategy) {
+    Map<String, K> idsByKey = new LinkedHashMap<>();
+    for (K id : ids) {
+      idsByKey.put(keyMapper.apply(id), id);
+    }
+    Map<K, V> found = new HashMap<>();
+    List<String> missingKeys = new ArrayList<>();
+    for (Map.Entry<String, K> entry : idsByKey.entrySet()) {
+      Object value = cacheUtil.get(entry.getKey());
+      if (value != null) {
+        found.put(entry.getValue(), (V) value);
+      } else {
+        missingKeys.add(entry.getKey());
+      }
+    }
+
+    TwoTierCache l2 = twoTierCache;
+    if (l2 != null && !missingKeys.isEmpty()) {
+      Map<String, TtlBoundedValue> remote = l2.getAll(missingKeys);
+      for (Map.Entry<String, TtlBoundedValue> entry : remote.entrySet()) {
+        TtlBoundedValue value = entry.getValue();
+        cacheUtil.put(
+            entry.getKey(), value.getValue(), strategy.getRefreshPolicy(), value.getMaxTtlMillis());
+        found.put(idsByKey.get(entry.getKey()), (V) value.getValue());
+      }
+      missingKeys.removeIf(remote::containsKey);
+    }
+
+    if (!missingKeys.isEmpty()) {
+      Set<K> missingIds = new LinkedHashSet<>();
+      for (String key : missingKeys) {
+        missingIds.add(idsByKey.get(key));
+      }
+      Map<K, V> loaded = bulkLoader.apply(missingIds);
+      Map<String, Object> toCache = new HashMap<>();
+      for (K id : missingIds) {
+        V value = loaded == null ? null : loaded.get(id);
+        if (value != null) {
+          found.put(id, value);
+          toCache.put(keyMapper.apply(id), value);
+        }
+      }
+      if (!toCache.isEmpty()) {
+        cacheUtil.multiPut(toCache, strategy.getRefreshPolicy());
+        if (l2 != null) {
+          l2.fillAll(toCache, strategy.getRefreshPolicy().nextTtlMillis());
+        }
+      }
+    }
+
+    Map<K, V> result = new LinkedHashMap<>();
+    for (K id : idsByKey.values()) {
+      V value = found.get(id);
+      if (value != null) {
+        result.put(id, value);
+      }
+    }
+    return result;
   }
 
   /**
@@ -278,14 +753,24 @@ public class CacheManager {
    * @return 缓存统计信息
    */
   public CacheStats getStats() {
-    CacheUtil.CacheStats utilStats = cacheUtil.getStats();
     CacheStats stats = new CacheStats();
-    stats.setHitCount(utilStats.getTotalAccessCount());
-    stats.setMissCount(utilStats.getTotalEntries() - utilStats.getTotalAccessCount());
-    stats.setEvictionCount(utilStats.getExpiredEntries());
+    stats.setHitCount(
+        cacheUtil.getEventCount(CacheEvent.HIT) + cacheUtil.getEventCount(CacheEvent.HIT_NULL));
+    stats.setMissCount(cacheUtil.getEventCount(CacheEvent.MISS));
+    stats.setEvictionCount(
+        cacheUtil.getEventCount(CacheEvent.EVICT) + cacheUtil.getEventCount(CacheEvent.EXPIRED));
     return stats;
   }
 
+  /**
+   * 获取各缓存分区的统计（命中、未命中、加载耗时、按原因区分的移除次数）
+   *
+   * @return 分区名到统计的映射
+   */
+  public java.util.Map<String, CacheRegionStats> getRegionStats() {
+    return cacheUtil.getRegionStats();
+  }
+
   /** 缓存统计信息类 */
   public static class CacheStats {
     private long hitCount = 0;
@@ -1,13 +1,21 @@
 package com.wanli.backend.cache;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.LongAdder;
-import java.util.stream.Collectors;
 
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -15,24 +23,82 @@ import org.springframework.stereotype.Component;
 
 import com.wanli.backend.config.ApplicationConfigManager;
 import com.wanli.backend.monitor.MetricsCollector;
+import com.wanli.backend.util.CacheUtil;
 import com.wanli.backend.util.LogUtil;
 
-/** 缓存性能优化器 分析缓存使用模式并提供优化建议 */
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 缓存性能优化器 分析缓存使用模式并提供优化建议
+ *
+ * <p>统计占用固定内存，与键的总数无关：访问次数由Count-Min Sketch估算，热点Key与低效Key各由一个Space-Saving Top-K
+ * 结构跟踪，只有被跟踪的键才保留明细统计。所有计数定期减半，报告反映的是近期而非启动以来的访问情况。
+ *
+ * <p>本地缓存的读取按采样上报到这里。键的访问次数越过热点阈值时自动提升到 {@link HotKeyNearCache}（写密集的键除外），
+ * 衰减后低于阈值一半时取消提升，阈值之间的滞回避免键在两种状态间反复切换。采样读取在调用线程上只更新无锁的Sketch与键族计数，
+ * 键本身写入有损环形缓冲区，由后台线程每秒计入Top-K结构；缓冲区写满时新读取覆盖旧读取，Top-K的明细统计因此是读取的再抽样，
+ * 报告中的访问次数仍取自Sketch。
+ *
+ * <p>另按键族（键的前两段，如 course:detail）累计读取、命中、写入与主动失效次数，供 {@link AdaptiveTtlController} 调整TTL。
+ * 键族数有上限，超出的键族合并统计。
+ */
 @Component
-public class CacheOptimizer {
+public class CacheOptimizer implements CacheAccessListener {
+
+  // 访问次数超过该值认为是热点Key（按衰减后的计数）
+  private static final long HOT_KEY_THRESHOLD = 1000;
+  // 报告中的热点Key数量
+  private static final int HOT_KEY_REPORT_LIMIT = 20;
+  // Count-Min Sketch 4行×8192列，约256KB
+  private static final int SKETCH_WIDTH = 8192;
+  private static final int SKETCH_DEPTH = 4;
+  // Top-K结构跟踪的键数
+  private static final int TRACKED_KEY_CAPACITY = 128;
+  // 响应时间超过该值（毫秒）的访问计为低效访问
+  private static final long SLOW_RESPONSE_MILLIS = 100;
+  // 衰减后访问次数低于该值的键取消近端缓存提升
+  private static final long NEAR_CACHE_DEMOTE_THRESHOLD = HOT_KEY_THRESHOLD / 2;
+  // 分别统计的键族数上限，超出的键族计入OTHER_KEY_FAMILY
+  private static final int MAX_KEY_FAMILIES = 64;
+  public static final String OTHER_KEY_FAMILY = "other";
+  // 采样读取缓冲区大小（2的幂），命中与未命中各一个
+  private static final int READ_BUFFER_SIZE = 1024;
+  private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+  // 后台计入缓冲读取的间隔（毫秒）
+  private static final long READ_DRAIN_INTERVAL_MILLIS = 1000;
 
   private final ApplicationConfigManager configManager;
   private final MetricsCollector metricsCollector;
   private final RedisTemplate<String, Object> redisTemplate;
+  private final HotKeyNearCache nearCache;
 
-  // 缓存访问统计
-  private final ConcurrentHashMap<String, CacheAccessStats> accessStats = new ConcurrentHashMap<>();
+  // 全部键的访问次数估算
+  private final CountMinSketch accessSketch = new CountMinSketch(SKETCH_WIDTH, SKETCH_DEPTH);
 
-  // 缓存模式分析
-  private final ConcurrentHashMap<String, CachePattern> cachePatterns = new ConcurrentHashMap<>();
+  // 热点数据追踪：按访问次数
+  private final SpaceSavingTopK<HotKeyStats> hotKeys =
+      new SpaceSavingTopK<>(TRACKED_KEY_CAPACITY, HotKeyStats::new);
 
-  // 热点数据追踪
-  private final ConcurrentHashMap<String, HotKeyStats> hotKeyStats = new ConcurrentHashMap<>();
+  // 低效Key候选：按未命中、慢响应与写入次数
+  private final SpaceSavingTopK<CacheAccessStats> inefficientCandidates =
+      new SpaceSavingTopK<>(TRACKED_KEY_CAPACITY, CacheAccessStats::new);
+
+  // 键族读写统计
+  private final ConcurrentHashMap<String, KeyFamilyStats> keyFamilyStats =
+      new ConcurrentHashMap<>();
+
+  // 已登记键族的写时复制副本，读路径按前缀比较查找，不截取子串
+  private volatile KeyFamilyStats[] families = new KeyFamilyStats[0];
+
+  // 待计入Top-K的采样读取，槽位随机选取，后写覆盖先写
+  private final AtomicReferenceArray<String> hitReads =
+      new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+  private final AtomicReferenceArray<String> missReads =
+      new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+  // 缓冲读取的采样倍率，随最近一次采样更新
+  private volatile int readWeight = 1;
+  private ScheduledExecutorService readDrainer;
 
   // 优化建议缓存
   private volatile CacheOptimizationReport lastOptimizationReport;
@@ -40,10 +106,37 @@ public class CacheOptimizer {
   public CacheOptimizer(
       ApplicationConfigManager configManager,
       MetricsCollector metricsCollector,
-      RedisTemplate<String, Object> redisTemplate) {
+      RedisTemplate<String, Object> redisTemplate,
+      CacheUtil cacheUtil) {
     this.configManager = configManager;
     this.metricsCollector = metricsCollector;
     this.redisTemplate = redisTemplate;
+    this.nearCache = cacheUtil.getNearCache();
+    cacheUtil.setAccessListener(this);
+  }
+
+  /** 启动后台线程，定期把缓冲的采样读取计入Top-K */
+  @PostConstruct
+  public void startReadDrainer() {
+    readDrainer =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "cache-optimizer-drain");
+              thread.setDaemon(true);
+              return thread;
+            });
+    readDrainer.scheduleWithFixedDelay(
+        this::drainSampledReads,
+        READ_DRAIN_INTERVAL_MILLIS,
+        READ_DRAIN_INTERVAL_MILLIS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stopReadDrainer() {
+    if (readDrainer != null) {
+      readDrainer.shutdownNow();
+    }
   }
 
   /** 记录缓存访问 */
@@ -53,48 +146,218 @@ public class CacheOptimizer {
       return;
     }
 
-    // 更新访问统计
-    CacheAccessStats stats = accessStats.computeIfAbsent(key, k -> new CacheAccessStats(k));
-    stats.recordAccess(operation, hit, responseTime);
-
-    // 更新热点统计
-    updateHotKeyStats(key, operation);
+    // 更新热点统计与访问模式
+    updateHotKeyStats(key, operation, 1);
+    KeyFamilyStats familyStats = familyStatsFor(key);
+    if (operation == CacheOperation.GET) {
+      familyStats.recordRead(hit, 1);
+    } else if (operation == CacheOperation.SET) {
+      familyStats.recordWrite();
+    } else if (operation == CacheOperation.DELETE) {
+      familyStats.recordInvalidation();
+    }
 
-    // 分析访问模式
-    analyzeAccessPattern(key, operation, hit);
+    // 低效访问计入权重；正常访问只更新已跟踪键的统计，不会顶替其他候选
+    long weight = isInefficientAccess(operation, hit, responseTime) ? 1 : 0;
+    SpaceSavingTopK.Entry<CacheAccessStats> candidate = inefficientCandidates.offer(key, weight);
+    if (candidate != null) {
+      candidate.getStats().recordAccess(operation, hit, responseTime);
+    }
 
     // 记录指标
     metricsCollector.recordCacheOperation(operation.name(), hit);
     metricsCollector.recordOperationTime("cache_" + operation.name().toLowerCase(), responseTime);
   }
 
+  /**
+   * 记录本地缓存的采样读取（由CacheUtil回调）
+   *
+   * @param key 缓存键
+   * @param hit 是否命中
+   * @param weight 采样比例，即本次采样代表的读取次数
+   */
+  @Override
+  public void onRead(String key, boolean hit, int weight) {
+    if (!configManager.getCacheConfig().isOptimizationEnabled()) {
+      return;
+    }
+    familyStatsFor(key).recordRead(hit, weight);
+    long estimate = accessSketch.add(key, weight);
+    if (crossedHotThreshold(estimate, weight)) {
+      SpaceSavingTopK.Entry<HotKeyStats> tracked = hotKeys.get(key);
+      onHotKeyDetected(
+          key,
+          estimate,
+          tracked == null ? PatternType.UNKNOWN : tracked.getStats().analyzePattern());
+    }
+
+    if (readWeight != weight) {
+      readWeight = weight;
+    }
+    AtomicReferenceArray<String> buffer = hit ? hitReads : missReads;
+    buffer.lazySet(ThreadLocalRandom.current().nextInt() & READ_BUFFER_MASK, key);
+  }
+
+  /** 把缓冲的采样读取计入热点与低效Key的Top-K结构 */
+  public void drainSampledReads() {
+    int weight = readWeight;
+    drainReads(hitReads, true, weight);
+    drainReads(missReads, false, weight);
+  }
+
+  private void drainReads(AtomicReferenceArray<String> buffer, boolean hit, int weight) {
+    for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+      String key = buffer.get(i);
+      if (key != null && buffer.compareAndSet(i, key, null)) {
+        trackHotKey(key, CacheOperation.GET, weight);
+        SpaceSavingTopK.Entry<CacheAccessStats> candidate =
+            inefficientCandidates.offer(key, hit ? 0 : weight);
+        if (candidate != null) {
+          candidate.getStats().recordAccess(CacheOperation.GET, hit, 0);
+        }
+      }
+    }
+  }
+
+  /** 记录本地缓存写入（由CacheUtil回调） */
+  @Override
+  public void onWrite(String key) {
+    familyStatsFor(key).recordWrite();
+  }
+
+  /** 记录本地缓存的主动删除（由CacheUtil回调） */
+  @Override
+  public void onInvalidate(String key) {
+    familyStatsFor(key).recordInvalidation();
+  }
+
+  /** 键族：键的前两段，如 course:detail:42 属于 course:detail */
+  public static String keyFamily(String key) {
+    return key.substring(0, keyFamilyLength(key));
+  }
+
+  private static int keyFamilyLength(String key) {
+    int first = key.indexOf(':');
+    if (first < 0) {
+      return key.length();
+    }
+    int second = key.indexOf(':', first + 1);
+    return second < 0 ? first : second;
+  }
+
+  private KeyFamilyStats familyStatsFor(String key) {
+    int length = keyFamilyLength(key);
+    for (KeyFamilyStats stats : families) {
+      String family = stats.getFamily();
+      if (family.length() == length && key.startsWith(family)) {
+        return stats;
+      }
+    }
+    return registerFamily(key.substring(0, length));
+  }
+
+  /** 首次出现的键族登记统计，超出上限的键族计入OTHER_KEY_FAMILY且不进入前缀查找表 */
+  private synchronized KeyFamilyStats registerFamily(String family) {
+    KeyFamilyStats stats = keyFamilyStats.get(family);
+    if (stats != null) {
+      return stats;
+    }
+    if (keyFamilyStats.size() >= MAX_KEY_FAMILIES) {
+      return keyFamilyStats.computeIfAbsent(OTHER_KEY_FAMILY, KeyFamilyStats::new);
+    }
+    stats = new KeyFamilyStats(family);
+    keyFamilyStats.put(family, stats);
+    KeyFamilyStats[] current = families;
+    KeyFamilyStats[] grown = Arrays.copyOf(current, current.length + 1);
+    grown[current.length] = stats;
+    families = grown;
+    return stats;
+  }
+
+  /** 各键族的累计读写统计 */
+  public Map<String, KeyFamilyStats> getKeyFamilyStats() {
+    return Collections.unmodifiableMap(keyFamilyStats);
+  }
+
   /** 更新热点Key统计 */
-  private void updateHotKeyStats(String key, CacheOperation operation) {
-    HotKeyStats stats = hotKeyStats.computeIfAbsent(key, k -> new HotKeyStats(k));
+  private void updateHotKeyStats(String key, CacheOperation operation, int weight) {
+    long estimate = accessSketch.add(key, weight);
+    HotKeyStats stats = trackHotKey(key, operation, weight);
+    if (crossedHotThreshold(estimate, weight)) {
+      onHotKeyDetected(key, estimate, stats.analyzePattern());
+    }
+  }
+
+  /** 计入Top-K并更新被跟踪键的读写统计与访问模式指标 */
+  private HotKeyStats trackHotKey(String key, CacheOperation operation, int weight) {
+    HotKeyStats stats = hotKeys.offer(key, weight).getStats();
     stats.incrementAccess(operation);
 
-    // 检查是否成为热点Key
-    if (stats.isHotKey()) {
-      metricsCollector.incrementCounter("cache_hot_key_detected");
+    PatternType patternType = stats.analyzePattern();
+    if (patternType != PatternType.UNKNOWN) {
+      metricsCollector.incrementCounter(patternType.getMetricName());
+    }
+    return stats;
+  }
+
+  /** 刚越过阈值时记录一次，衰减后再次越过会再次记录 */
+  private static boolean crossedHotThreshold(long estimate, int weight) {
+    return estimate > HOT_KEY_THRESHOLD && estimate - weight <= HOT_KEY_THRESHOLD;
+  }
+
+  private void onHotKeyDetected(String key, long estimate, PatternType patternType) {
+    metricsCollector.incrementCounter("cache_hot_key_detected");
+    Map<String, Object> context = new HashMap<>();
+    context.put("key", key);
+    context.put("accessCount", estimate);
+    LogUtil.logBusiness("CACHE_HOT_KEY", context);
+    if (patternType != PatternType.WRITE_HEAVY) {
+      promoteToNearCache(key);
+    }
+  }
+
+  /** 单次访问是否低效：读未命中、响应过慢或写入 */
+  private static boolean isInefficientAccess(
+      CacheOperation operation, boolean hit, long responseTime) {
+    return (operation == CacheOperation.GET && !hit)
+        || operation == CacheOperation.SET
+        || responseTime > SLOW_RESPONSE_MILLIS;
+  }
+
+  /** 把热点键提升到近端缓存 */
+  private void promoteToNearCache(String key) {
+    if (nearCache.isPromoted(key)) {
+      return;
+    }
+    if (nearCache.promote(key)) {
+      metricsCollector.incrementCounter("cache_near_cache_promoted");
       Map<String, Object> context = new HashMap<>();
       context.put("key", key);
-      context.put("accessCount", stats.getTotalAccess());
-      LogUtil.logBusiness("CACHE_HOT_KEY", context);
+      LogUtil.logBusiness("CACHE_NEAR_CACHE_PROMOTE", context);
+    } else {
+      metricsCollector.incrementCounter("cache_near_cache_full");
     }
   }
 
-  /** 分析访问模式 */
-  private void analyzeAccessPattern(String key, CacheOperation operation, boolean hit) {
-    CachePattern pattern = cachePatterns.computeIfAbsent(key, k -> new CachePattern(k));
-    pattern.recordAccess(operation, hit);
-
-    // 分析模式类型
-    PatternType patternType = pattern.analyzePattern();
-    if (patternType != PatternType.UNKNOWN) {
-      metricsCollector.incrementCounter("cache_pattern_" + patternType.name().toLowerCase());
+  /** 取消近期访问已回落的键的提升 */
+  private void demoteCooledKeys() {
+    for (String key : nearCache.getPromotedKeys()) {
+      long estimate = accessSketch.estimate(key);
+      if (estimate < NEAR_CACHE_DEMOTE_THRESHOLD && nearCache.demote(key)) {
+        metricsCollector.incrementCounter("cache_near_cache_demoted");
+        Map<String, Object> context = new HashMap<>();
+        context.put("key", key);
+        context.put("accessCount", estimate);
+        LogUtil.logBusiness("CACHE_NEAR_CACHE_DEMOTE", context);
+      }
     }
   }
 
+  /** 估算键的近期访问次数 */
+  public long estimateAccessCount(String key) {
+    return accessSketch.estimate(key);
+  }
+
   /** 执行缓存优化分析 */
   public CacheOptimizationReport performOptimizationAnalysis() {
     CacheOptimizationReport report = new CacheOptimizationReport();
@@ -105,6 +368,8 @@ public class CacheOptimizer {
     report.patternAnalysis = new HashMap<>();
 
     try {
+      drainSampledReads();
+
       // 分析热点Key
       analyzeHotKeys(report);
 
@@ -136,17 +401,16 @@ public class CacheOptimizer {
 
   /** 分析热点Key */
   private void analyzeHotKeys(CacheOptimizationReport report) {
-    List<HotKeyStats> hotKeys =
-        hotKeyStats.values().stream()
-            .filter(HotKeyStats::isHotKey)
-            .sorted((a, b) -> Long.compare(b.getTotalAccess(), a.getTotalAccess()))
-            .limit(20) // 取前20个热点Key
-            .collect(Collectors.toList());
-
-    for (HotKeyStats hotKey : hotKeys) {
+    for (SpaceSavingTopK.Entry<HotKeyStats> entry : hotKeys.top(HOT_KEY_REPORT_LIMIT)) {
+      // 以Sketch估算判断：Top-K计数对缓冲区覆盖掉的读取偏小，顶替进来的冷门键的Sketch估算也不会越过阈值
+      long accessCount = accessSketch.estimate(entry.getKey());
+      if (accessCount <= HOT_KEY_THRESHOLD) {
+        continue;
+      }
+      HotKeyStats hotKey = entry.getStats();
       HotKeyInfo info = new HotKeyInfo();
       info.key = hotKey.getKey();
-      info.accessCount = hotKey.getTotalAccess();
+      info.accessCount = accessCount;
       info.readCount = hotKey.getReadCount();
       info.writeCount = hotKey.getWriteCount();
       info.lastAccessTime = hotKey.getLastAccessTime();
@@ -157,7 +421,9 @@ public class CacheOptimizer {
 
   /** 分析低效Key */
   private void analyzeInefficientKeys(CacheOptimizationReport report) {
-    for (CacheAccessStats stats : accessStats.values()) {
+    for (SpaceSavingTopK.Entry<CacheAccessStats> entry :
+        inefficientCandidates.top(TRACKED_KEY_CAPACITY)) {
+      CacheAccessStats stats = entry.getStats();
       if (stats.isInefficient()) {
         InefficientKeyInfo info = new InefficientKeyInfo();
         info.key = stats.getKey();
@@ -171,12 +437,12 @@ public class CacheOptimizer {
     }
   }
 
-  /** 分析访问模式 */
+  /** 分析访问模式（按被跟踪的热点Key统计） */
   private void analyzeAccessPatterns(CacheOptimizationReport report) {
     Map<PatternType, Long> patternCounts = new HashMap<>();
 
-    for (CachePattern pattern : cachePatterns.values()) {
-      PatternType type = pattern.analyzePattern();
+    for (SpaceSavingTopK.Entry<HotKeyStats> entry : hotKeys.top(TRACKED_KEY_CAPACITY)) {
+      PatternType type = entry.getStats().analyzePattern();
       patternCounts.merge(type, 1L, Long::sum);
     }
 
@@ -301,8 +567,12 @@ public class CacheOptimizer {
 
   /** 应用单个优化建议 */
   private void applySingleOptimization(String suggestionId) {
-    // 这里实现具体的优化逻辑
-    // 例如：清理过期Key、调整TTL、优化数据结构等
+    // 热点Key建议：把报告中的热点键提升到近端缓存
+    if (suggestionId.startsWith(SuggestionType.HOT_KEY_OPTIMIZATION.name())) {
+      for (HotKeyInfo hotKey : lastOptimizationReport.hotKeys) {
+        promoteToNearCache(hotKey.key);
+      }
+    }
     Map<String, Object> context = new HashMap<>();
     context.put("suggestionId", suggestionId);
     LogUtil.logBusiness("CACHE_OPTIMIZATION_APPLIED", context);
@@ -315,15 +585,33 @@ public class CacheOptimizer {
 
   /** 重置统计数据 */
   public void resetStatistics() {
-    accessStats.clear();
-    cachePatterns.clear();
-    hotKeyStats.clear();
+    for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+      hitReads.set(i, null);
+      missReads.set(i, null);
+    }
+    accessSketch.clear();
+    hotKeys.clear();
+    inefficientCandidates.clear();
+    synchronized (this) {
+      keyFamilyStats.clear();
+      families = new KeyFamilyStats[0];
+    }
     lastOptimizationReport = null;
 
     Map<String, Object> context = new HashMap<>();
     LogUtil.logBusiness("CACHE_STATS_RESET", context);
   }
 
+  /** 定期衰减访问计数，使统计反映近期热度 */
+  @Scheduled(fixedRate = 600000) // 每10分钟执行一次
+  public void decayStatistics() {
+    drainSampledReads();
+    accessSketch.decay();
+    hotKeys.decay();
+    inefficientCandidates.decay();
+    demoteCooledKeys();
+  }
+
   /** 定期执行优化分析 */
   @Scheduled(fixedRate = 1800000) // 每30分钟执行一次
   public void scheduledOptimizationAnalysis() {
@@ -363,7 +651,14 @@ public class CacheOptimizer {
     BALANCED, // 平衡型
     CACHE_ASIDE, // 缓存旁路
     WRITE_THROUGH, // 写透
-    UNKNOWN // 未知
+    UNKNOWN; // 未知
+
+    // 访问模式指标名，预先拼好避免每次统计时拼接
+    private final String metricName = "cache_pattern_" + name().toLowerCase();
+
+    public String getMetricName() {
+      return metricName;
+    }
   }
 
   public enum SuggestionType {
@@ -389,7 +684,7 @@ public class CacheOptimizer {
     private final LongAdder misses = new LongAdder();
     private final LongAdder writes = new LongAdder();
     private final LongAdder totalResponseTime = new LongAdder();
-    private volatile LocalDateTime lastAccess;
+    private volatile long lastAccessMillis;
 
     public CacheAccessStats(String key) {
       this.key = key;
@@ -398,7 +693,7 @@ public class CacheOptimizer {
     public void recordAccess(CacheOperation operation, boolean hit, long responseTime) {
       totalAccess.increment();
       totalResponseTime.add(responseTime);
-      lastAccess = LocalDateTime.now();
+      lastAccessMillis = System.currentTimeMillis();
 
       if (operation == CacheOperation.GET) {
         if (hit) {
@@ -439,39 +734,37 @@ public class CacheOptimizer {
     }
   }
 
-  public static class CachePattern {
+  public static class HotKeyStats {
     private final String key;
-    private final LongAdder reads = new LongAdder();
-    private final LongAdder writes = new LongAdder();
-    private final List<LocalDateTime> accessTimes = new ArrayList<>();
+    private final LongAdder totalAccess = new LongAdder();
+    private final LongAdder readCount = new LongAdder();
+    private final LongAdder writeCount = new LongAdder();
+    // 记录毫秒时间戳，读取时才转换为LocalDateTime
+    private volatile long lastAccessMillis;
 
-    public CachePattern(String key) {
+    public HotKeyStats(String key) {
       this.key = key;
     }
 
-    public void recordAccess(CacheOperation operation, boolean hit) {
-      synchronized (accessTimes) {
-        accessTimes.add(LocalDateTime.now());
-        if (accessTimes.size() > 100) {
-          accessTimes.remove(0);
-        }
-      }
+    public void incrementAccess(CacheOperation operation) {
+      totalAccess.increment();
+      lastAccessMillis = System.currentTimeMillis();
 
       if (operation == CacheOperation.GET) {
-        reads.increment();
+        readCount.increment();
       } else if (operation == CacheOperation.SET) {
-        writes.increment();
+        writeCount.increment();
       }
     }
 
     public PatternType analyzePattern() {
-      long readCount = reads.sum();
-      long writeCount = writes.sum();
-      long total = readCount + writeCount;
+      long reads = readCount.sum();
+      long writes = writeCount.sum();
+      long total = reads + writes;
 
       if (total == 0) return PatternType.UNKNOWN;
 
-      double readRatio = (double) readCount / total;
+      double readRatio = (double) reads / total;
 
       if (readRatio > 0.8) {
         return PatternType.READ_HEAVY;
@@ -481,52 +774,76 @@ public class CacheOptimizer {
         return PatternType.BALANCED;
       }
     }
-  }
 
-  public static class HotKeyStats {
-    private final String key;
-    private final LongAdder totalAccess = new LongAdder();
-    private final LongAdder readCount = new LongAdder();
-    private final LongAdder writeCount = new LongAdder();
-    private volatile LocalDateTime lastAccessTime;
+    public String getKey() {
+      return key;
+    }
 
-    public HotKeyStats(String key) {
-      this.key = key;
+    public long getTotalAccess() {
+      return totalAccess.sum();
     }
 
-    public void incrementAccess(CacheOperation operation) {
-      totalAccess.increment();
-      lastAccessTime = LocalDateTime.now();
+    public long getReadCount() {
+      return readCount.sum();
+    }
 
-      if (operation == CacheOperation.GET) {
-        readCount.increment();
-      } else if (operation == CacheOperation.SET) {
-        writeCount.increment();
+    public long getWriteCount() {
+      return writeCount.sum();
+    }
+
+    public LocalDateTime getLastAccessTime() {
+      long millis = lastAccessMillis;
+      return millis == 0
+          ? null
+          : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+  }
+
+  /** 键族累计统计，读取次数按采样比例计权 */
+  public static class KeyFamilyStats {
+    private final String family;
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public KeyFamilyStats(String family) {
+      this.family = family;
+    }
+
+    public void recordRead(boolean hit, int weight) {
+      reads.add(weight);
+      if (hit) {
+        hits.add(weight);
       }
     }
 
-    public boolean isHotKey() {
-      return totalAccess.sum() > 1000; // 访问次数超过1000认为是热点Key
+    public void recordWrite() {
+      writes.increment();
     }
 
-    public String getKey() {
-      return key;
+    public void recordInvalidation() {
+      invalidations.increment();
     }
 
-    public long getTotalAccess() {
-      return totalAccess.sum();
+    public String getFamily() {
+      return family;
     }
 
     public long getReadCount() {
-      return readCount.sum();
+      return reads.sum();
+    }
+
+    public long getHitCount() {
+      return hits.sum();
     }
 
     public long getWriteCount() {
-      return writeCount.sum();
+      return writes.sum();
     }
 
-    public LocalDateTime getLastAccessTime() {
-      return lastAccessTime;
+    public long getInvalidationCount() {
+      return invalidations.sum();
     }
   }
 
@@ -0,0 +1,159 @@
+package com.wanli.backend.cache;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存分区统计 命中、未命中、加载、加载失败、按原因区分的移除次数以及加载耗时直方图
+ *
+ * <p>全部基于LongAdder，记录时不加锁、不分配对象。加载耗时按固定的毫秒桶累计，以累计桶计数导出为直方图，
+ * 分位数由监控系统按时间窗口计算，可跨实例聚合。
+ */
+public final class CacheRegionStats {
+
+  /** 加载耗时直方图的桶上界（毫秒），最后一个桶收纳更慢的加载 */
+  private static final long[] LOAD_BUCKET_BOUNDS_MILLIS = {
+    1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000
+  };
+
+  private static final BoundedLocalCache.RemovalCause[] CAUSES =
+      BoundedLocalCache.RemovalCause.values();
+
+  private final String region;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder loadFailures = new LongAdder();
+  private final LongAdder totalLoadNanos = new LongAdder();
+  private final LongAdder[] removals = new LongAdder[CAUSES.length];
+  private final LongAdder[] loadBuckets = new LongAdder[LOAD_BUCKET_BOUNDS_MILLIS.length + 1];
+
+  public CacheRegionStats(String region) {
+    this.region = region;
+    for (int i = 0; i < removals.length; i++) {
+      removals[i] = new LongAdder();
+    }
+    for (int i = 0; i < loadBuckets.length; i++) {
+      loadBuckets[i] = new LongAdder();
+    }
+  }
+
+  public void recordHit() {
+    hits.increment();
+  }
+
+  public void recordMiss() {
+    misses.increment();
+  }
+
+  /** 记录一次加载，失败的加载同样计入耗时直方图 */
+  public void recordLoad(long nanos, boolean success) {
+    if (success) {
+      loads.increment();
+    } else {
+      loadFailures.increment();
+    }
+    totalLoadNanos.add(nanos);
+    loadBuckets[bucketOf(TimeUnit.NANOSECONDS.toMillis(nanos))].increment();
+  }
+
+  public void recordRemoval(BoundedLocalCache.RemovalCause cause) {
+    removals[cause.ordinal()].increment();
+  }
+
+  private static int bucketOf(long millis) {
+    for (int i = 0; i < LOAD_BUCKET_BOUNDS_MILLIS.length; i++) {
+      if (millis <= LOAD_BUCKET_BOUNDS_MILLIS[i]) {
+        return i;
+      }
+    }
+    return LOAD_BUCKET_BOUNDS_MILLIS.length;
+  }
+
+  // ==================== 读取 ====================
+
+  public String getRegion() {
+    return region;
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public double getHitRate() {
+    long hitCount = hits.sum();
+    long total = hitCount + misses.sum();
+    return total == 0 ? 0.0 : (double) hitCount / total;
+  }
+
+  public long getLoadCount() {
+    return loads.sum();
+  }
+
+  public long getLoadFailureCount() {
+    return loadFailures.sum();
+  }
+
+  /** 全部加载（含失败）的累计耗时 */
+  public long getTotalLoadNanos() {
+    return totalLoadNanos.sum();
+  }
+
+  public long getRemovalCount(BoundedLocalCache.RemovalCause cause) {
+    return removals[cause.ordinal()].sum();
+  }
+
+  /** 容量与过期策略自动淘汰的次数 */
+  public long getEvictionCount() {
+    long evicted = 0;
+    for (BoundedLocalCache.RemovalCause cause : CAUSES) {
+      if (cause.wasEvicted()) {
+        evicted += removals[cause.ordinal()].sum();
+      }
+    }
+    return evicted;
+  }
+
+  /** 按原因区分的移除次数 */
+  public Map<BoundedLocalCache.RemovalCause, Long> getRemovalCounts() {
+    Map<BoundedLocalCache.RemovalCause, Long> counts =
+        new EnumMap<>(BoundedLocalCache.RemovalCause.class);
+    for (BoundedLocalCache.RemovalCause cause : CAUSES) {
+      counts.put(cause, removals[cause.ordinal()].sum());
+    }
+    return counts;
+  }
+
+  /**
+   * 耗时不超过指定桶上界的累计加载次数，对应Prometheus直方图中 le 桶的计数
+   *
+   * @param bucket 桶下标，等于桶上界个数时为全部加载（le="+Inf"）
+   * @return 累计加载次数（含失败）
+   */
+  public long getCumulativeLoadCount(int bucket) {
+    long count = 0;
+    for (int i = 0; i <= bucket; i++) {
+      count += loadBuckets[i].sum();
+    }
+    return count;
+  }
+
+  /** 各桶的加载次数，与 {@link #getLoadTimeBucketBoundsMillis()} 一一对应，最后一项为超出最大上界的次数 */
+  public long[] getLoadTimeBucketCounts() {
+    long[] counts = new long[loadBuckets.length];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = loadBuckets[i].sum();
+    }
+    return counts;
+  }
+
+  public static long[] getLoadTimeBucketBoundsMillis() {
+    return LOAD_BUCKET_BOUNDS_MILLIS.clone();
+  }
+}
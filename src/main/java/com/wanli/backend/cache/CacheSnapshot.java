@@ -0,0 +1,237 @@
+package com.wanli.backend.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.wanli.backend.util.LogUtil;
+
+/**
+ * 缓存快照 把存活条目及其剩余TTL写入紧凑的二进制文件，重启时通过内存映射读回，避免发布后的冷缓存
+ *
+ * <p>文件格式：头部为魔数、格式版本、模式版本、写入时间与条目数；随后每个条目依次为键、新鲜期剩余毫秒、过期剩余毫秒
+ * 与JSONB编码的值；末尾是条目区的CRC32。格式版本或模式版本（由缓存实体的字段结构计算）不一致、校验失败的文件整体跳过，
+ * 单个条目解码失败时只跳过该条目。读取时扣除快照写入后经过的时间，停机期间已过期的条目不会恢复。
+ */
+public final class CacheSnapshot {
+
+  private static final int MAGIC = 0x574C4353; // "WLCS"
+  private static final int FORMAT_VERSION = 1;
+  // 魔数 + 格式版本 + 模式版本 + 写入时间 + 条目数
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+  private static final int COUNT_OFFSET = HEADER_SIZE - 4;
+  private static final int TRAILER_SIZE = 8;
+
+  private CacheSnapshot() {}
+
+  /** 快照条目 */
+  public static final class Entry {
+    private final String key;
+    private final Object value;
+    private final long freshRemainingMillis;
+    private final long expireRemainingMillis;
+
+    public Entry(String key, Object value, long freshRemainingMillis, long expireRemainingMillis) {
+      this.key = key;
+      this.value = value;
+      this.freshRemainingMillis = freshRemainingMillis;
+      this.expireRemainingMillis = expireRemainingMillis;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public Object getValue() {
+      return value;
+    }
+
+    public long getFreshRemainingMillis() {
+      return freshRemainingMillis;
+    }
+
+    public long getExpireRemainingMillis() {
+      return expireRemainingMillis;
+    }
+  }
+
+  /**
+   * 写入快照 先写临时文件再原子替换，写入过程中崩溃不会留下半个快照
+   *
+   * @param file 快照文件
+   * @param schemaVersion 模式版本，见 {@link #schemaVersion(Class[])}
+   * @param entries 待写入的条目
+   * @return 实际写入的条目数（无法序列化的条目被跳过）
+   */
+  public static int write(Path file, long schemaVersion, Iterable<Entry> entries)
+      throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    int count = 0;
+    try (FileChannel channel =
+        FileChannel.open(
+            temp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(schemaVersion);
+      header.putLong(System.currentTimeMillis()).putInt(0).flip();
+      channel.write(header);
+
+      CRC32 crc = new CRC32();
+      DataOutputStream out =
+          new DataOutputStream(
+              new CheckedOutputStream(
+                  new BufferedOutputStream(Channels.newOutputStream(channel)), crc));
+      for (Entry entry : entries) {
+        byte[] value;
+        try {
+          value = JsonbCodec.INSTANCE.encode(entry.getValue());
+        } catch (RuntimeException e) {
+          continue;
+        }
+        byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(key.length);
+        out.write(key);
+        out.writeLong(entry.getFreshRemainingMillis());
+        out.writeLong(entry.getExpireRemainingMillis());
+        out.writeInt(value.length);
+        out.write(value);
+        count++;
+      }
+      out.flush();
+      channel.write(ByteBuffer.allocate(TRAILER_SIZE).putLong(0, crc.getValue()));
+
+      // 回填条目数
+      channel.write(ByteBuffer.allocate(4).putInt(0, count), COUNT_OFFSET);
+      channel.force(true);
+    }
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return count;
+  }
+
+  /**
+   * 通过内存映射读取快照
+   *
+   * @param file 快照文件
+   * @param schemaVersion 当前模式版本，与快照不一致时跳过整个文件
+   * @param consumer 条目回调，剩余TTL已扣除停机时间
+   * @return 恢复的条目数，文件不存在或被跳过时为0
+   */
+  public static int read(Path file, long schemaVersion, Consumer<Entry> consumer)
+      throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return 0;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE + TRAILER_SIZE || size > Integer.MAX_VALUE) {
+        return skip(file, "文件大小异常: " + size);
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      if (buffer.getInt() != MAGIC) {
+        return skip(file, "魔数不匹配");
+      }
+      int formatVersion = buffer.getInt();
+      if (formatVersion != FORMAT_VERSION) {
+        return skip(file, "格式版本不兼容: " + formatVersion);
+      }
+      long snapshotSchema = buffer.getLong();
+      if (snapshotSchema != schemaVersion) {
+        return skip(file, "模式版本不兼容，缓存实体结构已变化");
+      }
+      long elapsed = Math.max(0, System.currentTimeMillis() - buffer.getLong());
+      int count = buffer.getInt();
+
+      int entriesEnd = (int) size - TRAILER_SIZE;
+      CRC32 crc = new CRC32();
+      crc.update(buffer.slice(HEADER_SIZE, entriesEnd - HEADER_SIZE));
+      if (crc.getValue() != buffer.getLong(entriesEnd)) {
+        return skip(file, "校验和不匹配");
+      }
+
+      int restored = 0;
+      for (int i = 0; i < count; i++) {
+        String key = new String(readBytes(buffer), StandardCharsets.UTF_8);
+        long freshRemaining = buffer.getLong() - elapsed;
+        long expireRemaining = buffer.getLong() - elapsed;
+        byte[] value = readBytes(buffer);
+        if (expireRemaining <= 0) {
+          continue;
+        }
+        Object decoded;
+        try {
+          decoded = JsonbCodec.INSTANCE.decode(value);
+        } catch (RuntimeException e) {
+          // 值中的类型已不存在或字段不兼容
+          continue;
+        }
+        if (decoded != null) {
+          consumer.accept(new Entry(key, decoded, freshRemaining, expireRemaining));
+          restored++;
+        }
+      }
+      return restored;
+    }
+  }
+
+  private static byte[] readBytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  private static int skip(Path file, String reason) {
+    LogUtil.logWarn(
+        "CACHE_SNAPSHOT_LOAD", "CACHE_SNAPSHOT_SKIPPED", "跳过缓存快照 " + file + ": " + reason);
+    return 0;
+  }
+
+  /**
+   * 计算模式版本 由各类型及其父类的实例字段名与字段类型计算，实体字段增删或改类型后旧快照自动失效
+   *
+   * @param types 会出现在缓存值中的类型
+   * @return 模式版本
+   */
+  public static long schemaVersion(Class<?>... types) {
+    StringBuilder signature = new StringBuilder();
+    for (Class<?> type : types) {
+      signature.append(type.getName()).append('{');
+      for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : current.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers())) {
+            fields.add(field);
+          }
+        }
+        fields.sort(Comparator.comparing(Field::getName));
+        for (Field field : fields) {
+          signature.append(field.getName()).append(':').append(field.getGenericType()).append(';');
+        }
+      }
+      signature.append('}');
+    }
+    return ScalableBloomFilter.murmur3(signature.toString())[0];
+  }
+}
@@ -0,0 +1,102 @@
+package com.wanli.backend.cache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.wanli.backend.entity.Course;
+import com.wanli.backend.entity.Lesson;
+import com.wanli.backend.util.CacheUtil;
+import com.wanli.backend.util.ConfigUtil;
+import com.wanli.backend.util.LogUtil;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 缓存快照管理器 启动时（应用就绪前）从快照恢复本地缓存，停机时及按配置的间隔定时写入快照
+ *
+ * <p>模式版本由Course、Lesson的字段结构计算，实体结构变化后的首次启动会跳过旧快照。
+ */
+@Component
+public class CacheSnapshotManager {
+
+  private final CacheUtil cacheUtil;
+  private final ConfigUtil configUtil;
+  private final long schemaVersion = CacheSnapshot.schemaVersion(Course.class, Lesson.class);
+  private ScheduledExecutorService scheduler;
+
+  public CacheSnapshotManager(CacheUtil cacheUtil, ConfigUtil configUtil) {
+    this.cacheUtil = cacheUtil;
+    this.configUtil = configUtil;
+  }
+
+  /** 恢复快照并启动定时写入 */
+  @PostConstruct
+  public void restore() {
+    if (!isEnabled()) {
+      return;
+    }
+    long start = System.currentTimeMillis();
+    try {
+      int restored = cacheUtil.loadSnapshot(snapshotPath(), schemaVersion);
+      java.util.Map<String, Object> context = new java.util.HashMap<>();
+      context.put("entries", restored);
+      context.put("durationMs", System.currentTimeMillis() - start);
+      LogUtil.logBusiness("CACHE_SNAPSHOT_RESTORE", context);
+    } catch (IOException | RuntimeException e) {
+      // 快照只是优化，恢复失败时以空缓存启动
+      LogUtil.logError("CACHE_SNAPSHOT", "", "CACHE_SNAPSHOT_RESTORE_FAILED", "缓存快照恢复失败", e);
+    }
+
+    Integer interval = configUtil.getCacheSnapshotIntervalMinutes();
+    if (interval != null && interval > 0) {
+      scheduler =
+          Executors.newSingleThreadScheduledExecutor(
+              runnable -> {
+                Thread thread = new Thread(runnable, "cache-snapshot");
+                thread.setDaemon(true);
+                return thread;
+              });
+      scheduler.scheduleWithFixedDelay(this::save, interval, interval, TimeUnit.MINUTES);
+    }
+  }
+
+  /** 停机时写入快照 */
+  @PreDestroy
+  public void saveOnShutdown() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+    if (isEnabled()) {
+      save();
+    }
+  }
+
+  /**
+   * 立即写入快照
+   *
+   * @return 写入的条目数，失败时为0
+   */
+  public synchronized int save() {
+    try {
+      return cacheUtil.saveSnapshot(snapshotPath(), schemaVersion);
+    } catch (IOException | RuntimeException e) {
+      LogUtil.logError("CACHE_SNAPSHOT", "", "CACHE_SNAPSHOT_SAVE_FAILED", "缓存快照写入失败", e);
+      return 0;
+    }
+  }
+
+  private boolean isEnabled() {
+    return Boolean.TRUE.equals(configUtil.isCacheSnapshotEnabled());
+  }
+
+  private Path snapshotPath() {
+    return Paths.get(configUtil.getCacheSnapshotPath());
+  }
+}
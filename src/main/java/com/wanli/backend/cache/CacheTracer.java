@@ -0,0 +1,52 @@
+package com.wanli.backend.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.wanli.backend.util.LogUtil;
+
+/**
+ * 缓存采样追踪器 默认关闭；开启后按1/N的比例（可限定键前缀）输出单次缓存操作的日志，用于排查问题
+ *
+ * <p>调用方应先用 {@link #isSampled(String)} 判断，再拼接日志内容，关闭时热路径上只有一次volatile读。
+ */
+public final class CacheTracer {
+
+  private volatile int sampleRate;
+  private volatile String keyPrefix = "";
+
+  /**
+   * 配置采样
+   *
+   * @param sampleRate 每N次操作追踪一次，0表示关闭，1表示全部追踪
+   * @param keyPrefix 只追踪该前缀的键，空字符串表示不限
+   */
+  public void configure(int sampleRate, String keyPrefix) {
+    this.keyPrefix = keyPrefix == null ? "" : keyPrefix;
+    this.sampleRate = Math.max(0, sampleRate);
+  }
+
+  public boolean isEnabled() {
+    return sampleRate > 0;
+  }
+
+  /** 本次操作是否需要追踪 */
+  public boolean isSampled(String key) {
+    int rate = sampleRate;
+    if (rate <= 0 || !key.startsWith(keyPrefix)) {
+      return false;
+    }
+    return rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0;
+  }
+
+  public void trace(CacheEvent event, String key) {
+    LogUtil.logBusinessOperation("CACHE_TRACE", "", "event=" + event + ", key=" + key);
+  }
+
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  public String getKeyPrefix() {
+    return keyPrefix;
+  }
+}
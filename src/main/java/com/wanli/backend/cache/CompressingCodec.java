@@ -0,0 +1,158 @@
+package com.wanli.backend.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 压缩编解码 包装另一个编解码，编码结果达到阈值时以deflate压缩
+ *
+ * <p>输出首字节为格式标记：0为未压缩，其后是原编码结果；1为deflate，其后4字节为原长度，再后是压缩数据。
+ * 压缩后节省不足10%时保留未压缩结果，已压缩过的图片链接、随机ID等不会白白付出解压开销。Deflater/Inflater按线程复用。
+ */
+public final class CompressingCodec implements CacheCodec {
+
+  private static final byte RAW = 0;
+  private static final byte DEFLATE = 1;
+  private static final int DEFLATE_HEADER = 5;
+  // 压缩结果不超过原长度的该比例才采用
+  private static final double MAX_COMPRESSED_RATIO = 0.9;
+
+  private final CacheCodec delegate;
+  private final int thresholdBytes;
+  private final ThreadLocal<Deflater> deflaters;
+  private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(() -> new Inflater(true));
+
+  private final LongAdder compressedCount = new LongAdder();
+  private final LongAdder uncompressedCount = new LongAdder();
+  private final LongAdder bytesBeforeCompression = new LongAdder();
+  private final LongAdder bytesAfterCompression = new LongAdder();
+
+  /** 使用最快压缩级别 */
+  public CompressingCodec(CacheCodec delegate, int thresholdBytes) {
+    this(delegate, thresholdBytes, Deflater.BEST_SPEED);
+  }
+
+  /**
+   * @param delegate 被包装的编解码
+   * @param thresholdBytes 编码结果达到该字节数才尝试压缩
+   * @param level deflate压缩级别（1-9）
+   */
+  public CompressingCodec(CacheCodec delegate, int thresholdBytes, int level) {
+    this.delegate = delegate;
+    this.thresholdBytes = thresholdBytes;
+    this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level, true));
+  }
+
+  @Override
+  public byte[] encode(Object value) {
+    byte[] plain = delegate.encode(value);
+    if (plain.length >= thresholdBytes) {
+      byte[] compressed = deflate(plain);
+      if (compressed != null) {
+        compressedCount.increment();
+        bytesBeforeCompression.add(plain.length);
+        bytesAfterCompression.add(compressed.length);
+        return compressed;
+      }
+    }
+    uncompressedCount.increment();
+    byte[] framed = new byte[plain.length + 1];
+    framed[0] = RAW;
+    System.arraycopy(plain, 0, framed, 1, plain.length);
+    return framed;
+  }
+
+  @Override
+  public Object decode(byte[] bytes) {
+    if (bytes.length == 0) {
+      throw new IllegalArgumentException("编码结果为空");
+    }
+    switch (bytes[0]) {
+      case RAW:
+        byte[] plain = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 1, plain, 0, plain.length);
+        return delegate.decode(plain);
+      case DEFLATE:
+        return delegate.decode(inflate(bytes));
+      default:
+        throw new IllegalArgumentException("未知的压缩格式标记: " + bytes[0]);
+    }
+  }
+
+  /** 压缩，结果不够小时返回null */
+  private byte[] deflate(byte[] plain) {
+    int limit = (int) (plain.length * MAX_COMPRESSED_RATIO);
+    byte[] out = new byte[DEFLATE_HEADER + limit];
+    Deflater deflater = deflaters.get();
+    deflater.reset();
+    deflater.setInput(plain);
+    deflater.finish();
+    int length = deflater.deflate(out, DEFLATE_HEADER, limit);
+    if (!deflater.finished()) {
+      return null;
+    }
+    out[0] = DEFLATE;
+    out[1] = (byte) (plain.length >>> 24);
+    out[2] = (byte) (plain.length >>> 16);
+    out[3] = (byte) (plain.length >>> 8);
+    out[4] = (byte) plain.length;
+    byte[] result = new byte[DEFLATE_HEADER + length];
+    System.arraycopy(out, 0, result, 0, result.length);
+    return result;
+  }
+
+  private byte[] inflate(byte[] bytes) {
+    int length =
+        ((bytes[1] & 0xFF) << 24)
+            | ((bytes[2] & 0xFF) << 16)
+            | ((bytes[3] & 0xFF) << 8)
+            | (bytes[4] & 0xFF);
+    byte[] plain = new byte[length];
+    Inflater inflater = inflaters.get();
+    inflater.reset();
+    inflater.setInput(bytes, DEFLATE_HEADER, bytes.length - DEFLATE_HEADER);
+    try {
+      int offset = 0;
+      while (offset < length && !inflater.finished()) {
+        int read = inflater.inflate(plain, offset, length - offset);
+        if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        offset += read;
+      }
+      if (offset != length) {
+        throw new IllegalArgumentException("压缩数据不完整: " + offset + "/" + length);
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalArgumentException("压缩数据损坏", e);
+    }
+    return plain;
+  }
+
+  @Override
+  public String getName() {
+    return delegate.getName() + "+deflate";
+  }
+
+  public int getThresholdBytes() {
+    return thresholdBytes;
+  }
+
+  // ==================== 统计 ====================
+
+  public long getCompressedCount() {
+    return compressedCount.sum();
+  }
+
+  public long getUncompressedCount() {
+    return uncompressedCount.sum();
+  }
+
+  /** 已压缩值的压缩后/压缩前字节比，尚无压缩时为1 */
+  public double getCompressionRatio() {
+    long before = bytesBeforeCompression.sum();
+    return before == 0 ? 1.0 : (double) bytesAfterCompression.sum() / before;
+  }
+}
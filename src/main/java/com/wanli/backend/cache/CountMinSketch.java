@@ -0,0 +1,90 @@
+package com.wanli.backend.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 并发Count-Min Sketch 以固定内存估算任意多个键的访问次数，估算值只会偏大不会偏小
+ *
+ * <p>与用于缓存准入的 {@link FrequencySketch} 不同，这里的计数器为64位、可并发更新，适合统计上千次以上的访问。
+ * 行下标由键的hashCode扩散成64位后按双重哈希法生成：String缓存了hashCode，统计读取时不再逐字符计算哈希、不分配数组。
+ * hashCode相同的键计数合并，只会使估算偏大。{@link #decay()} 把所有计数减半，定期调用即可让统计反映近期热度。
+ */
+public final class CountMinSketch {
+
+  private final int depth;
+  private final int widthMask;
+  private final AtomicLongArray counters;
+
+  /**
+   * @param width 每行计数器个数，向上取整为2的幂；误差约为 总次数 × e / width
+   * @param depth 行数；误差超出上界的概率约为 e^-depth
+   */
+  public CountMinSketch(int width, int depth) {
+    if (width <= 0 || depth <= 0) {
+      throw new IllegalArgumentException("width与depth必须大于0: " + width + ", " + depth);
+    }
+    int roundedWidth = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+    this.depth = depth;
+    this.widthMask = roundedWidth - 1;
+    this.counters = new AtomicLongArray(roundedWidth * depth);
+  }
+
+  /** 计数加一，返回加一后的估算值 */
+  public long increment(String key) {
+    return add(key, 1);
+  }
+
+  /** 计数增加delta，返回增加后的估算值 */
+  public long add(String key, long delta) {
+    long hash = spread(key.hashCode());
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      estimate = Math.min(estimate, counters.addAndGet(indexOf(hash, row), delta));
+    }
+    return estimate;
+  }
+
+  /** 估算访问次数 */
+  public long estimate(String key) {
+    long hash = spread(key.hashCode());
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      estimate = Math.min(estimate, counters.get(indexOf(hash, row)));
+    }
+    return estimate;
+  }
+
+  /** 所有计数减半，实现热度老化；与并发递增交错时个别计数可能少减，不影响估算上界 */
+  public void decay() {
+    for (int i = 0; i < counters.length(); i++) {
+      long value = counters.get(i);
+      if (value != 0) {
+        counters.compareAndSet(i, value, value >>> 1);
+      }
+    }
+  }
+
+  public void clear() {
+    for (int i = 0; i < counters.length(); i++) {
+      counters.set(i, 0);
+    }
+  }
+
+  /** 计数器总数，即占用内存的long个数 */
+  public int capacity() {
+    return counters.length();
+  }
+
+  private int indexOf(long hash, int row) {
+    int combined = (int) hash + row * (int) (hash >>> 32);
+    return row * (widthMask + 1) + (combined & widthMask);
+  }
+
+  /** splitmix64的终结函数，把32位hashCode扩散到64位，高低两半分别作为双重哈希的h1、h2 */
+  private static long spread(int hashCode) {
+    long z = hashCode + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
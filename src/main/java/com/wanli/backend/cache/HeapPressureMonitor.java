@@ -0,0 +1,208 @@
+package com.wanli.backend.cache;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.wanli.backend.util.CacheUtil;
+import com.wanli.backend.util.ConfigUtil;
+import com.wanli.backend.util.LogUtil;
+import com.wanli.backend.util.PerformanceMonitor;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 堆内存压力监控 按老年代GC后的占用比例缩放缓存容量，内存紧张时把空间让给其他业务（如批量导入）
+ *
+ * <p>老年代内存池设置集合使用阈值，超过时JVM发出通知；同时监听每次GC结束。占用超过阈值比例后容量系数随占用线性下降，
+ * 达到临界比例时降到最小；收缩立即生效，由 {@link CacheUtil#applyCapacityScale(double)} 从价值最低的分区开始扣减。
+ * 压力解除后每30秒最多恢复0.1，避免在阈值附近来回抖动。看GC后的占用而不是瞬时占用，未回收的垃圾不会触发收缩。
+ */
+@Component
+public class HeapPressureMonitor {
+
+  private static final double DEFAULT_THRESHOLD_RATIO = 0.75;
+  private static final double DEFAULT_CRITICAL_RATIO = 0.95;
+  // 容量系数下限
+  private static final double MIN_SCALE = 0.1;
+  // 每次恢复的步长与最小间隔
+  private static final double GROW_STEP = 0.1;
+  private static final long GROW_INTERVAL_MILLIS = 30_000;
+  // 系数变化小于该值时不调整
+  private static final double MIN_CHANGE = 0.01;
+
+  private final CacheUtil cacheUtil;
+  private final ConfigUtil configUtil;
+
+  private final List<Runnable> unregisterActions = new ArrayList<>();
+  private volatile MemoryPoolMXBean tenuredPool;
+  private volatile double thresholdRatio = DEFAULT_THRESHOLD_RATIO;
+  private volatile double criticalRatio = DEFAULT_CRITICAL_RATIO;
+  private volatile boolean enabled;
+  private long lastGrowAt;
+
+  private final NotificationListener listener =
+      (notification, handback) -> onNotification(notification);
+
+  public HeapPressureMonitor(CacheUtil cacheUtil, ConfigUtil configUtil) {
+    this.cacheUtil = cacheUtil;
+    this.configUtil = configUtil;
+  }
+
+  /** 按配置启用，注册内存阈值与GC通知 */
+  @PostConstruct
+  public void start() {
+    Double threshold = configUtil.getCacheHeapPressureThresholdRatio();
+    Double critical = configUtil.getCacheHeapPressureCriticalRatio();
+    if (threshold != null && critical != null && threshold < critical) {
+      thresholdRatio = threshold;
+      criticalRatio = critical;
+    }
+    enabled = Boolean.TRUE.equals(configUtil.getCacheHeapPressureEnabled());
+    if (!enabled) {
+      return;
+    }
+
+    tenuredPool = findTenuredPool();
+    if (tenuredPool != null) {
+      long max = tenuredPool.getUsage().getMax();
+      if (max > 0) {
+        tenuredPool.setCollectionUsageThreshold((long) (max * thresholdRatio));
+      }
+      register((NotificationEmitter) ManagementFactory.getMemoryMXBean());
+    }
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (collector instanceof NotificationEmitter) {
+        register((NotificationEmitter) collector);
+      }
+    }
+
+    Map<String, Object> context = new HashMap<>();
+    context.put("pool", tenuredPool == null ? "heap" : tenuredPool.getName());
+    context.put("thresholdRatio", thresholdRatio);
+    context.put("criticalRatio", criticalRatio);
+    LogUtil.logBusiness("CACHE_HEAP_PRESSURE_MONITOR_STARTED", context);
+  }
+
+  @PreDestroy
+  public void stop() {
+    for (Runnable action : unregisterActions) {
+      action.run();
+    }
+    unregisterActions.clear();
+  }
+
+  private void register(NotificationEmitter emitter) {
+    emitter.addNotificationListener(listener, null, null);
+    unregisterActions.add(
+        () -> {
+          try {
+            emitter.removeNotificationListener(listener);
+          } catch (ListenerNotFoundException e) {
+            // 已移除
+          }
+        });
+  }
+
+  /** 同时支持使用阈值与集合使用阈值的堆内存池即老年代（G1 Old Gen、PS Old Gen等） */
+  private static MemoryPoolMXBean findTenuredPool() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP
+          && pool.isUsageThresholdSupported()
+          && pool.isCollectionUsageThresholdSupported()) {
+        return pool;
+      }
+    }
+    return null;
+  }
+
+  private void onNotification(Notification notification) {
+    String type = notification.getType();
+    if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)
+        || GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(type)) {
+      evaluate();
+    }
+  }
+
+  /** 定期评估，空闲时没有GC通知也能恢复容量 */
+  @Scheduled(fixedRate = GROW_INTERVAL_MILLIS)
+  public void evaluate() {
+    if (enabled) {
+      onHeapUsage(currentUsageRatio(), System.currentTimeMillis());
+    }
+  }
+
+  /** 老年代最近一次GC后的占用比例，无法获取时退回整个堆的当前占用 */
+  private double currentUsageRatio() {
+    MemoryPoolMXBean pool = tenuredPool;
+    if (pool != null) {
+      MemoryUsage usage = pool.getCollectionUsage();
+      if (usage != null && usage.getMax() > 0) {
+        return (double) usage.getUsed() / usage.getMax();
+      }
+    }
+    return (double) PerformanceMonitor.getUsedMemory() / PerformanceMonitor.getMaxMemory();
+  }
+
+  /**
+   * 按占用比例调整容量系数
+   *
+   * @param usageRatio 老年代GC后的占用比例
+   * @param nowMillis 当前时间
+   */
+  synchronized void onHeapUsage(double usageRatio, long nowMillis) {
+    double target = targetScale(usageRatio);
+    double current = cacheUtil.getCapacityScale();
+    double next;
+    if (target < current) {
+      next = target;
+    } else if (target > current && nowMillis - lastGrowAt >= GROW_INTERVAL_MILLIS) {
+      next = Math.min(target, current + GROW_STEP);
+      lastGrowAt = nowMillis;
+    } else {
+      return;
+    }
+    if (Math.abs(next - current) < MIN_CHANGE && next != 1.0) {
+      return;
+    }
+
+    cacheUtil.applyCapacityScale(next);
+    Map<String, Object> context = new HashMap<>();
+    context.put("usageRatio", String.format("%.3f", usageRatio));
+    context.put("previousScale", current);
+    context.put("scale", next);
+    context.put("regionMaxBytes", cacheUtil.getRegionMaxBytes());
+    LogUtil.logBusiness(
+        next < current ? "CACHE_CAPACITY_SHRUNK" : "CACHE_CAPACITY_RESTORED", context);
+  }
+
+  /** 阈值以下为1，阈值到临界之间线性下降，临界以上为最小值 */
+  double targetScale(double usageRatio) {
+    if (usageRatio <= thresholdRatio) {
+      return 1.0;
+    }
+    double scale = 1.0 - (usageRatio - thresholdRatio) / (criticalRatio - thresholdRatio);
+    return Math.max(MIN_SCALE, Math.min(1.0, scale));
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+}
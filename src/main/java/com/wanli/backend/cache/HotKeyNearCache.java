@@ -0,0 +1,163 @@
+package com.wanli.backend.cache;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点Key近端缓存 只保存被显式提升的少量热点键，按线程分组各持一份短TTL副本
+ *
+ * <p>单个爆款键的读取会集中在主缓存的同一个节点上（访问记录、堆外反序列化）。提升后每组线程读取自己那份已解码的副本，
+ * 互不争用同一缓存行；副本过期后由下一次主缓存命中重新填充。主缓存中的条目被替换或移除时调用方应调用
+ * {@link #invalidate(String)}，与之并发的填充最多使旧值多存活一个TTL。
+ */
+public final class HotKeyNearCache {
+
+  /** 不可变的副本 */
+  private static final class Holder {
+    private final Object value;
+    private final long expireAt;
+
+    Holder(Object value, long expireAt) {
+      this.value = value;
+      this.expireAt = expireAt;
+    }
+  }
+
+  private final ConcurrentHashMap<String, AtomicReferenceArray<Holder>> promoted =
+      new ConcurrentHashMap<>();
+  private final int stripeMask;
+  private volatile int maxKeys;
+  private volatile long ttlMillis;
+  // 没有提升任何键时读取只做一次volatile读；只在提升、取消提升时（持有对象锁）修改
+  private volatile boolean active;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder promotions = new LongAdder();
+  private final LongAdder demotions = new LongAdder();
+
+  /**
+   * @param maxKeys 最多同时提升的键数
+   * @param ttlMillis 副本存活时间（毫秒）
+   * @param stripes 线程分组数，向上取整为2的幂
+   */
+  public HotKeyNearCache(int maxKeys, long ttlMillis, int stripes) {
+    int rounded = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+    this.stripeMask = rounded - 1;
+    this.maxKeys = maxKeys;
+    this.ttlMillis = ttlMillis;
+  }
+
+  /** 提升键，已达上限时返回false */
+  public synchronized boolean promote(String key) {
+    if (promoted.containsKey(key)) {
+      return true;
+    }
+    if (promoted.size() >= maxKeys) {
+      return false;
+    }
+    promoted.put(key, new AtomicReferenceArray<>(stripeMask + 1));
+    promotions.increment();
+    active = true;
+    return true;
+  }
+
+  /** 取消提升，丢弃所有副本 */
+  public synchronized boolean demote(String key) {
+    if (promoted.remove(key) == null) {
+      return false;
+    }
+    demotions.increment();
+    active = !promoted.isEmpty();
+    return true;
+  }
+
+  public boolean isPromoted(String key) {
+    return active && promoted.containsKey(key);
+  }
+
+  /** 读取当前线程分组的副本，未提升或已过期时返回null */
+  public Object get(String key) {
+    if (!active) {
+      return null;
+    }
+    AtomicReferenceArray<Holder> stripes = promoted.get(key);
+    if (stripes == null) {
+      return null;
+    }
+    Holder holder = stripes.get(stripe());
+    if (holder == null || holder.expireAt <= System.currentTimeMillis()) {
+      return null;
+    }
+    hits.increment();
+    return holder.value;
+  }
+
+  /** 主缓存命中后为当前线程分组填充副本，键未提升时忽略 */
+  public void fill(String key, Object value) {
+    if (!active) {
+      return;
+    }
+    AtomicReferenceArray<Holder> stripes = promoted.get(key);
+    if (stripes != null) {
+      stripes.set(stripe(), new Holder(value, System.currentTimeMillis() + ttlMillis));
+    }
+  }
+
+  /** 丢弃键在所有线程分组中的副本，键仍保持提升 */
+  public void invalidate(String key) {
+    if (!active) {
+      return;
+    }
+    AtomicReferenceArray<Holder> stripes = promoted.get(key);
+    if (stripes != null) {
+      for (int i = 0; i < stripes.length(); i++) {
+        stripes.set(i, null);
+      }
+    }
+  }
+
+  /** 丢弃所有副本，已提升的键保持不变 */
+  public void invalidateAll() {
+    for (String key : promoted.keySet()) {
+      invalidate(key);
+    }
+  }
+
+  public void configure(int maxKeys, long ttlMillis) {
+    this.maxKeys = maxKeys;
+    this.ttlMillis = ttlMillis;
+  }
+
+  private int stripe() {
+    return (int) Thread.currentThread().getId() & stripeMask;
+  }
+
+  // ==================== 统计 ====================
+
+  /** 当前提升的键（快照） */
+  public Set<String> getPromotedKeys() {
+    return Set.copyOf(promoted.keySet());
+  }
+
+  public int getPromotedCount() {
+    return promoted.size();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getPromotionCount() {
+    return promotions.sum();
+  }
+
+  public long getDemotionCount() {
+    return demotions.sum();
+  }
+
+  public long getTtlMillis() {
+    return ttlMillis;
+  }
+}
@@ -0,0 +1,57 @@
+package com.wanli.backend.cache;
+
+import java.util.UUID;
+
+import com.alibaba.fastjson2.JSONB;
+import com.alibaba.fastjson2.JSONReader;
+import com.alibaba.fastjson2.JSONWriter;
+import com.alibaba.fastjson2.filter.Filter;
+import com.alibaba.fastjson2.writer.ObjectWriter;
+import com.alibaba.fastjson2.writer.ObjectWriterProvider;
+
+/** 缓存值的fastjson2 JSONB编解码 写入类型名，读回后保持原有的Map/List/实体/时间类型 */
+public final class JsonbCodec implements CacheCodec {
+
+  public static final JsonbCodec INSTANCE = new JsonbCodec();
+
+  // 反序列化时只允许基础类型与以下包前缀的自动类型
+  private static final Filter AUTO_TYPE_FILTER =
+      JSONReader.autoTypeFilter(true, "java.util.", "java.time.", "com.wanli.backend.");
+  private static final ObjectWriterProvider WRITER_PROVIDER = new ObjectWriterProvider();
+
+  static {
+    // JSONB默认把UUID写成不带类型的16字节，Map中的UUID读回后会变成byte[]；
+    // 声明类型不是UUID时（如Map的值）改为带类型名的字符串，实体的UUID字段保持原样
+    WRITER_PROVIDER.register(
+        UUID.class,
+        (ObjectWriter<UUID>)
+            (writer, object, fieldName, fieldType, features) -> {
+              if (fieldType != UUID.class) {
+                writer.writeTypeName("java.util.UUID");
+              }
+              writer.writeString(object.toString());
+            });
+  }
+
+  private JsonbCodec() {}
+
+  @Override
+  public byte[] encode(Object value) {
+    JSONWriter.Context context =
+        new JSONWriter.Context(WRITER_PROVIDER, JSONWriter.Feature.WriteClassName);
+    try (JSONWriter writer = JSONWriter.ofJSONB(context)) {
+      writer.writeAny(value);
+      return writer.getBytes();
+    }
+  }
+
+  @Override
+  public Object decode(byte[] bytes) {
+    return JSONB.parseObject(bytes, Object.class, AUTO_TYPE_FILTER);
+  }
+
+  @Override
+  public String getName() {
+    return "jsonb";
+  }
+}
@@ -0,0 +1,125 @@
+package com.wanli.backend.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 缓存命名空间索引 以':'分段的前缀树组织缓存节点
+ *
+ * <p>键的最后一段之前的各段构成其命名空间路径，例如 {@code course:user:42:page:0} 归属命名空间 {@code course:user:42:page:}。
+ * 前缀失效只需定位到前缀对应的子树，代价为O(命名空间内的键数)，无需扫描全部缓存或执行正则匹配。
+ * 空的命名空间随最后一个键的移除而回收。非线程安全，调用方需在淘汰锁内访问。
+ */
+final class NamespaceIndex {
+
+  static final char DELIMITER = ':';
+
+  private final Namespace root = new Namespace(null, null);
+
+  /** 命名空间节点 */
+  static final class Namespace {
+    private final Namespace parent;
+    private final String name;
+    private Map<String, Namespace> children;
+    private Set<BoundedLocalCache.Node> nodes;
+
+    Namespace(Namespace parent, String name) {
+      this.parent = parent;
+      this.name = name;
+    }
+
+    boolean isEmpty() {
+      return (children == null || children.isEmpty()) && (nodes == null || nodes.isEmpty());
+    }
+  }
+
+  /** 登记节点到其命名空间 */
+  void add(BoundedLocalCache.Node node) {
+    String key = node.getKey();
+    Namespace namespace = root;
+    int start = 0;
+    int end;
+    while ((end = key.indexOf(DELIMITER, start)) >= 0) {
+      String segment = key.substring(start, end);
+      if (namespace.children == null) {
+        namespace.children = new HashMap<>();
+      }
+      Namespace parent = namespace;
+      namespace = parent.children.computeIfAbsent(segment, name -> new Namespace(parent, name));
+      start = end + 1;
+    }
+    if (namespace.nodes == null) {
+      namespace.nodes = new HashSet<>();
+    }
+    namespace.nodes.add(node);
+    node.namespace = namespace;
+  }
+
+  /** 从命名空间摘除节点，并回收空的命名空间 */
+  void remove(BoundedLocalCache.Node node) {
+    Namespace namespace = node.namespace;
+    if (namespace == null) {
+      return;
+    }
+    node.namespace = null;
+    namespace.nodes.remove(node);
+    while (namespace != root && namespace.isEmpty()) {
+      namespace.parent.children.remove(namespace.name);
+      namespace = namespace.parent;
+    }
+  }
+
+  /** 收集键以指定前缀开头的所有节点 */
+  List<BoundedLocalCache.Node> collect(String prefix) {
+    List<BoundedLocalCache.Node> result = new ArrayList<>();
+    Namespace namespace = root;
+    int start = 0;
+    int end;
+    while ((end = prefix.indexOf(DELIMITER, start)) >= 0) {
+      namespace =
+          namespace.children == null ? null : namespace.children.get(prefix.substring(start, end));
+      if (namespace == null) {
+        return result;
+      }
+      start = end + 1;
+    }
+
+    if (start == prefix.length()) {
+      collectAll(namespace, result);
+      return result;
+    }
+
+    // 前缀的最后一段不完整：筛选本层的键及名称匹配的子命名空间
+    String partial = prefix.substring(start);
+    if (namespace.nodes != null) {
+      for (BoundedLocalCache.Node node : namespace.nodes) {
+        if (node.getKey().startsWith(prefix)) {
+          result.add(node);
+        }
+      }
+    }
+    if (namespace.children != null) {
+      for (Namespace child : namespace.children.values()) {
+        if (child.name.startsWith(partial)) {
+          collectAll(child, result);
+        }
+      }
+    }
+    return result;
+  }
+
+  private void collectAll(Namespace namespace, List<BoundedLocalCache.Node> result) {
+    if (namespace.nodes != null) {
+      result.addAll(namespace.nodes);
+    }
+    if (namespace.children != null) {
+      for (Namespace child : namespace.children.values()) {
+        collectAll(child, result);
+      }
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package com.wanli.backend.cache;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.wanli.backend.entity.Course;
+import com.wanli.backend.entity.Lesson;
+
+/**
+ * 对象大小估算器 按64位JVM（压缩指针）的常见布局粗略估算缓存值占用的堆内存字节数，作为缓存的默认权重
+ *
+ * <p>内置字符串、装箱类型、UUID、时间、Map/Collection响应结构以及Course、Lesson实体的估算； 其他类型可通过 {@link #register}
+ * 注册自定义估算。实体的懒加载关联（如Course.lessons）不计入，避免触发数据库加载。
+ */
+public final class ObjectSizeEstimator implements Weigher {
+
+  /** 单一类型的估算函数，可通过sizer递归估算字段 */
+  @FunctionalInterface
+  public interface Estimator<T> {
+    long estimate(T value, ObjectSizeEstimator sizer);
+  }
+
+  private static final int OBJECT_HEADER = 16;
+  private static final int REFERENCE = 4;
+  private static final int ARRAY_HEADER = 16;
+  // 缓存节点、哈希表条目及访问队列指针的固定开销
+  private static final int ENTRY_OVERHEAD = 96;
+  // 未知类型的默认估算
+  private static final int DEFAULT_SIZE = 64;
+  // 递归深度上限，防止循环引用
+  private static final int MAX_DEPTH = 8;
+
+  private final Map<Class<?>, Estimator<?>> estimators = new ConcurrentHashMap<>();
+
+  public ObjectSizeEstimator() {
+    register(UUID.class, (value, sizer) -> 32);
+    register(LocalDateTime.class, (value, sizer) -> 72);
+    register(
+        Course.class,
+        (course, sizer) ->
+            OBJECT_HEADER
+                + 9 * REFERENCE
+                + sizer.sizeOf(course.getId())
+                + sizer.sizeOf(course.getCreatorId())
+                + sizer.sizeOf(course.getTitle())
+                + sizer.sizeOf(course.getDescription())
+                + sizer.sizeOf(course.getStatus())
+                + sizer.sizeOf(course.getCreatedAt())
+                + sizer.sizeOf(course.getUpdatedAt())
+                + sizer.sizeOf(course.getDeletedAt()));
+    register(
+        Lesson.class,
+        (lesson, sizer) ->
+            OBJECT_HEADER
+                + 15 * REFERENCE
+                + sizer.sizeOf(lesson.getId())
+                + sizer.sizeOf(lesson.getCourseId())
+                + sizer.sizeOf(lesson.getCreatorId())
+                + sizer.sizeOf(lesson.getTitle())
+                + sizer.sizeOf(lesson.getContent())
+                + sizer.sizeOf(lesson.getDescription())
+                + sizer.sizeOf(lesson.getVideoUrl())
+                + sizer.sizeOf(lesson.getDuration())
+                + sizer.sizeOf(lesson.getOrderIndex())
+                + sizer.sizeOf(lesson.getCreatedAt())
+                + sizer.sizeOf(lesson.getUpdatedAt())
+                + sizer.sizeOf(lesson.getDeletedAt()));
+  }
+
+  /** 注册（或覆盖）某类型的估算函数，对其子类（如Hibernate代理）同样生效 */
+  public <T> void register(Class<T> type, Estimator<? super T> estimator) {
+    estimators.put(type, estimator);
+  }
+
+  @Override
+  public int weigh(String key, Object value) {
+    return weighSized(key, sizeOf(value));
+  }
+
+  /** 值的大小已估算时计算条目权重，不再遍历值的对象图 */
+  public int weighSized(String key, long valueSize) {
+    long size = ENTRY_OVERHEAD + sizeOf(key) + valueSize;
+    return (int) Math.min(size, Integer.MAX_VALUE);
+  }
+
+  /** 估算对象占用字节数 */
+  public long sizeOf(Object value) {
+    return sizeOf(value, 0);
+  }
+
+  @SuppressWarnings("unchecked")
+  private long sizeOf(Object value, int depth) {
+    if (value == null) {
+      return 0;
+    }
+    if (depth > MAX_DEPTH) {
+      return DEFAULT_SIZE;
+    }
+    for (Class<?> type = value.getClass(); type != null; type = type.getSuperclass()) {
+      Estimator<Object> estimator = (Estimator<Object>) estimators.get(type);
+      if (estimator != null) {
+        return estimator.estimate(value, this);
+      }
+    }
+
+    if (value instanceof String) {
+      return sizeOfString((String) value);
+    }
+    if (value instanceof Long || value instanceof Double) {
+      return 24;
+    }
+    if (value instanceof Number || value instanceof Character) {
+      return 16;
+    }
+    if (value instanceof Boolean || value instanceof Enum) {
+      // 共享实例，只计引用
+      return 0;
+    }
+    if (value instanceof Map) {
+      return sizeOfMap((Map<?, ?>) value, depth);
+    }
+    if (value instanceof Collection) {
+      return sizeOfCollection((Collection<?>) value, depth);
+    }
+    return DEFAULT_SIZE;
+  }
+
+  private static long sizeOfString(String value) {
+    // 紧凑字符串：全部字符在Latin-1范围内时每字符占1字节
+    int bytesPerChar = 1;
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) > 0xFF) {
+        bytesPerChar = 2;
+        break;
+      }
+    }
+    return 24 + ARRAY_HEADER + align((long) value.length() * bytesPerChar);
+  }
+
+  private long sizeOfMap(Map<?, ?> map, int depth) {
+    // HashMap本身 + 桶数组（负载因子0.75） + 每个条目节点
+    long buckets = Integer.highestOneBit(Math.max(1, (int) (map.size() / 0.75f)) * 2 - 1);
+    long size = 48 + ARRAY_HEADER + buckets * REFERENCE;
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      size += 32 + sizeOf(entry.getKey(), depth + 1) + sizeOf(entry.getValue(), depth + 1);
+    }
+    return size;
+  }
+
+  private long sizeOfCollection(Collection<?> collection, int depth) {
+    long size = 24 + ARRAY_HEADER + align((long) collection.size() * REFERENCE);
+    for (Object element : collection) {
+      size += sizeOf(element, depth + 1);
+    }
+    return size;
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+}
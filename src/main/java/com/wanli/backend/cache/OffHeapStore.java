@@ -0,0 +1,291 @@
+package com.wanli.backend.cache;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 堆外值存储 把大体积缓存值按 {@link CacheCodec}（默认fastjson2 JSONB）序列化后写入直接内存，堆上只保留 {@link Ref} 索引，命中时再反序列化
+ *
+ * <p>直接内存按固定大小的slab分配，slab内顺序追加写入。记录释放后slab的存活字节数减少，已写满且全部释放的slab回到空闲列表复用；
+ * 达到内存上限时回收存活字节最少的slab，其上仍被引用的记录随之失效，读取时按未命中处理。slab每次复用都会递增纪元，
+ * 读取在复制前后比对纪元，因此无需加锁即可发现并发回收。
+ */
+public final class OffHeapStore {
+
+  private final int slabSize;
+  private volatile long maxBytes;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final List<Slab> slabs = new ArrayList<>();
+  private final ArrayDeque<Slab> freeSlabs = new ArrayDeque<>();
+  private Slab current;
+
+  private final LongAdder storedCount = new LongAdder();
+  private final LongAdder rejectedCount = new LongAdder();
+  private final LongAdder reclaimedSlabCount = new LongAdder();
+  private final LongAdder invalidatedCount = new LongAdder();
+
+  /** 直接内存中的一个分配单元 */
+  private static final class Slab {
+    private final ByteBuffer buffer;
+    private volatile int epoch;
+    // 以下字段只在持有锁时修改
+    private int writeOffset;
+    private long liveBytes;
+    private int liveRecords;
+
+    Slab(int size) {
+      this.buffer = ByteBuffer.allocateDirect(size);
+    }
+
+    void reset() {
+      epoch++;
+      writeOffset = 0;
+      liveBytes = 0;
+      liveRecords = 0;
+    }
+  }
+
+  /** 堆上索引，指向slab中的一条记录 */
+  public static final class Ref {
+    private final Slab slab;
+    private final CacheCodec codec;
+    private final int epoch;
+    private final int offset;
+    private final int length;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Ref(Slab slab, CacheCodec codec, int epoch, int offset, int length) {
+      this.slab = slab;
+      this.codec = codec;
+      this.epoch = epoch;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    /** 序列化后的字节数 */
+    public int getLength() {
+      return length;
+    }
+  }
+
+  /**
+   * @param maxBytes 直接内存上限
+   * @param slabSize 单个slab的字节数，超过该大小的值不写入堆外
+   */
+  public OffHeapStore(long maxBytes, int slabSize) {
+    if (slabSize <= 0) {
+      throw new IllegalArgumentException("slabSize必须大于0: " + slabSize);
+    }
+    this.slabSize = slabSize;
+    this.maxBytes = maxBytes;
+  }
+
+  /** 以JSONB序列化并写入堆外，值过大、内存不足或无法序列化时返回null，由调用方保留在堆上 */
+  public Ref store(Object value) {
+    return store(value, JsonbCodec.INSTANCE);
+  }
+
+  /** 以指定编解码序列化并写入堆外，读取时使用同一编解码 */
+  public Ref store(Object value, CacheCodec codec) {
+    byte[] bytes;
+    try {
+      bytes = codec.encode(value);
+    } catch (RuntimeException e) {
+      // 例如实体的懒加载关联在会话外无法序列化
+      rejectedCount.increment();
+      return null;
+    }
+    if (bytes.length > slabSize) {
+      rejectedCount.increment();
+      return null;
+    }
+
+    lock.lock();
+    try {
+      Slab slab = slabFor(bytes.length);
+      if (slab == null) {
+        rejectedCount.increment();
+        return null;
+      }
+      int offset = slab.writeOffset;
+      slab.buffer.put(offset, bytes);
+      slab.writeOffset += bytes.length;
+      slab.liveBytes += bytes.length;
+      slab.liveRecords++;
+      storedCount.increment();
+      return new Ref(slab, codec, slab.epoch, offset, bytes.length);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** 读取并反序列化，记录已被回收时返回null */
+  public Object load(Ref ref) {
+    Slab slab = ref.slab;
+    if (slab.epoch != ref.epoch) {
+      return null;
+    }
+    byte[] bytes = new byte[ref.length];
+    slab.buffer.get(ref.offset, bytes);
+    // 复制完成后再确认纪元未变，期间被回收复用则丢弃读到的数据
+    VarHandle.loadLoadFence();
+    if (slab.epoch != ref.epoch) {
+      return null;
+    }
+    return ref.codec.decode(bytes);
+  }
+
+  /** 释放记录（幂等），slab写满且全部释放后回到空闲列表 */
+  public void release(Ref ref) {
+    if (!ref.released.compareAndSet(false, true)) {
+      return;
+    }
+    lock.lock();
+    try {
+      Slab slab = ref.slab;
+      if (slab.epoch != ref.epoch) {
+        return;
+      }
+      slab.liveBytes -= ref.length;
+      slab.liveRecords--;
+      if (slab.liveRecords == 0 && slab != current) {
+        slab.reset();
+        freeSlabs.add(slab);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** 使所有记录失效并回收全部slab */
+  public void clear() {
+    lock.lock();
+    try {
+      freeSlabs.clear();
+      for (Slab slab : slabs) {
+        slab.reset();
+        freeSlabs.add(slab);
+      }
+      current = null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** 调整直接内存上限，超出部分的空闲slab立即归还，仍在使用的slab在回收时归还 */
+  public void setMaxBytes(long maxBytes) {
+    lock.lock();
+    try {
+      this.maxBytes = maxBytes;
+      while (allocatedBytes() > maxBytes && !freeSlabs.isEmpty()) {
+        slabs.remove(freeSlabs.poll());
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** 取得能容纳length字节的slab，必要时分配新slab或回收旧slab（持有锁时调用） */
+  private Slab slabFor(int length) {
+    if (current != null && slabSize - current.writeOffset >= length) {
+      return current;
+    }
+    Slab sealed = current;
+    current = null;
+    if (sealed != null && sealed.liveRecords == 0) {
+      sealed.reset();
+      freeSlabs.add(sealed);
+    }
+
+    Slab next = freeSlabs.poll();
+    if (next == null && allocatedBytes() + slabSize <= maxBytes) {
+      next = new Slab(slabSize);
+      slabs.add(next);
+    }
+    if (next == null) {
+      next = reclaimVictim();
+    }
+    current = next;
+    return next;
+  }
+
+  /** 回收存活字节最少的slab，其上的记录全部失效 */
+  private Slab reclaimVictim() {
+    Slab victim = null;
+    for (Slab slab : slabs) {
+      if (victim == null || slab.liveBytes < victim.liveBytes) {
+        victim = slab;
+      }
+    }
+    if (victim == null) {
+      return null;
+    }
+    invalidatedCount.add(victim.liveRecords);
+    reclaimedSlabCount.increment();
+    victim.reset();
+    if (allocatedBytes() > maxBytes) {
+      // 上限已被调小，归还该slab
+      slabs.remove(victim);
+      return null;
+    }
+    return victim;
+  }
+
+  private long allocatedBytes() {
+    return (long) slabs.size() * slabSize;
+  }
+
+  // ==================== 统计 ====================
+
+  /** 已分配的直接内存字节数 */
+  public long getAllocatedBytes() {
+    lock.lock();
+    try {
+      return allocatedBytes();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** 存活记录占用的字节数 */
+  public long getLiveBytes() {
+    lock.lock();
+    try {
+      long live = 0;
+      for (Slab slab : slabs) {
+        live += slab.liveBytes;
+      }
+      return live;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  public long getStoredCount() {
+    return storedCount.sum();
+  }
+
+  /** 未能写入堆外（过大、内存不足或无法序列化）的次数 */
+  public long getRejectedCount() {
+    return rejectedCount.sum();
+  }
+
+  public long getReclaimedSlabCount() {
+    return reclaimedSlabCount.sum();
+  }
+
+  /** 因slab回收而失效的记录数 */
+  public long getInvalidatedCount() {
+    return invalidatedCount.sum();
+  }
+}
@@ -0,0 +1,66 @@
+package com.wanli.backend.cache;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.wanli.backend.repository.CourseRepository;
+import com.wanli.backend.repository.LessonRepository;
+import com.wanli.backend.util.CacheUtil;
+import com.wanli.backend.util.LogUtil;
+
+/**
+ * 详情防穿透过滤器注册 应用就绪后把数据库中未删除的课程、课时ID登记到各自详情命名空间的过滤器
+ *
+ * <p>过滤器只在本实例内存中，其他实例新建的数据不会登记到这里。启用二级缓存即多实例部署，此时不注册， 以免把其他实例刚创建的课程当作不存在拒绝。
+ */
+@Component
+@ConditionalOnProperty(name = "cache.l2.enabled", havingValue = "false", matchIfMissing = true)
+public class PenetrationGuardRegistrar {
+
+  public static final String COURSE_DETAIL_NAMESPACE = "course:detail:";
+  public static final String LESSON_DETAIL_NAMESPACE = "lesson:detail:";
+  // 过滤器目标误判率，误判的键照常回源
+  private static final double TARGET_FPP = 0.01;
+
+  private final CacheUtil cacheUtil;
+  private final CourseRepository courseRepository;
+  private final LessonRepository lessonRepository;
+
+  public PenetrationGuardRegistrar(
+      CacheUtil cacheUtil, CourseRepository courseRepository, LessonRepository lessonRepository) {
+    this.cacheUtil = cacheUtil;
+    this.courseRepository = courseRepository;
+    this.lessonRepository = lessonRepository;
+  }
+
+  /** 注册课程、课时详情的过滤器 */
+  @EventListener(ApplicationReadyEvent.class)
+  public void registerDetailGuards() {
+    register(COURSE_DETAIL_NAMESPACE, courseRepository::findAllNotDeletedIds);
+    register(LESSON_DETAIL_NAMESPACE, lessonRepository::findAllNotDeletedIds);
+  }
+
+  private void register(String namespace, Supplier<List<UUID>> idsLoader) {
+    try {
+      cacheUtil.registerPenetrationGuard(
+          namespace,
+          () -> idsLoader.get().stream().map(id -> namespace + id).collect(Collectors.toList()),
+          TARGET_FPP);
+    } catch (RuntimeException e) {
+      // 注册失败时该命名空间不做拦截，读取照常回源
+      LogUtil.logError(
+          "CACHE_PENETRATION_GUARD",
+          "",
+          "CACHE_PENETRATION_GUARD_FAILED",
+          "防穿透过滤器注册失败: " + namespace,
+          e);
+    }
+  }
+}
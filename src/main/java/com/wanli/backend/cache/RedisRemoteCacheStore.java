@@ -0,0 +1,207 @@
+package com.wanli.backend.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Redis二级缓存存储 批量读取在一个pipeline内逐键 GET 与 PTTL，批量写入在一个pipeline内逐键 SET PX，失效消息走pub/sub
+ *
+ * <p>键统一加 wanli:cache: 前缀，与分布式锁等其他Redis数据隔离。只在 cache.l2.enabled=true 时创建。
+ */
+@Component
+@ConditionalOnProperty(name = "cache.l2.enabled", havingValue = "true")
+public class RedisRemoteCacheStore implements RemoteCacheStore {
+
+  private static final String KEY_PREFIX = "wanli:cache:";
+  private static final int SCAN_BATCH = 500;
+  private static final byte[] RAISE_COUNTER_SCRIPT =
+      ("local current = tonumber(redis.call('GET', KEYS[1]) or '0')\n"
+              + "local target = tonumber(ARGV[1])\n"
+              + "if current < target then\n"
+              + "  redis.call('SET', KEYS[1], ARGV[1])\n"
+              + "  return target\n"
+              + "end\n"
+              + "return current")
+          .getBytes(StandardCharsets.UTF_8);
+
+  private final RedisConnectionFactory connectionFactory;
+  private final RedisMessageListenerContainer listenerContainer;
+
+  public RedisRemoteCacheStore(RedisConnectionFactory connectionFactory) {
+    this.connectionFactory = connectionFactory;
+    this.listenerContainer = new RedisMessageListenerContainer();
+    listenerContainer.setConnectionFactory(connectionFactory);
+    listenerContainer.afterPropertiesSet();
+    listenerContainer.start();
+  }
+
+  @PreDestroy
+  public void shutdown() throws Exception {
+    listenerContainer.destroy();
+  }
+
+  @Override
+  public Map<String, RemoteValue> multiGet(List<String> keys) {
+    Map<String, RemoteValue> result = new HashMap<>();
+    if (keys.isEmpty()) {
+      return result;
+    }
+    // 同一pipeline内逐键GET与PTTL，一次往返同时取得值和剩余TTL
+    List<Object> replies;
+    try (RedisConnection connection = connectionFactory.getConnection()) {
+      connection.openPipeline();
+      try {
+        for (String key : keys) {
+          byte[] rawKey = rawKey(key);
+          connection.stringCommands().get(rawKey);
+          connection.keyCommands().pTtl(rawKey);
+        }
+      } finally {
+        replies = connection.closePipeline();
+      }
+    }
+    for (int i = 0; i < keys.size() && 2 * i + 1 < replies.size(); i++) {
+      Object value = replies.get(2 * i);
+      Object ttl = replies.get(2 * i + 1);
+      // PTTL为-2表示两条命令之间键已过期，-1表示未设置过期
+      if (!(value instanceof byte[]) || !(ttl instanceof Long) || (Long) ttl == -2L) {
+        continue;
+      }
+      long ttlMillis = (Long) ttl < 0 ? Long.MAX_VALUE : (Long) ttl;
+      result.put(keys.get(i), new RemoteValue((byte[]) value, ttlMillis));
+    }
+    return result;
+  }
+
+  @Override
+  public void multiSet(Map<String, byte[]> values, long ttlMillis) {
+    if (values.isEmpty()) {
+      return;
+    }
+    // MSET不支持TTL，改为同一pipeline内逐键SET PX，仍只有一次往返
+    Expiration expiration = Expiration.milliseconds(ttlMillis);
+    try (RedisConnection connection = connectionFactory.getConnection()) {
+      connection.openPipeline();
+      try {
+        for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+          connection
+              .stringCommands()
+              .set(
+                  rawKey(entry.getKey()),
+                  entry.getValue(),
+                  expiration,
+                  RedisStringCommands.SetOption.upsert());
+        }
+      } finally {
+        connection.closePipeline();
+      }
+    }
+  }
+
+  @Override
+  public void delete(Collection<String> keys) {
+    if (keys.isEmpty()) {
+      return;
+    }
+    byte[][] rawKeys = new byte[keys.size()][];
+    int i = 0;
+    for (String key : keys) {
+      rawKeys[i++] = rawKey(key);
+    }
+    try (RedisConnection connection = connectionFactory.getConnection()) {
+      connection.keyCommands().del(rawKeys);
+    }
+  }
+
+  @Override
+  public void deleteByPattern(String pattern) {
+    // SCAN分批删除，不使用会阻塞Redis的KEYS
+    ScanOptions options =
+        ScanOptions.scanOptions().match(KEY_PREFIX + pattern).count(SCAN_BATCH).build();
+    try (RedisConnection connection = connectionFactory.getConnection();
+        Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+      List<byte[]> batch = new ArrayList<>(SCAN_BATCH);
+      while (cursor.hasNext()) {
+        batch.add(cursor.next());
+        if (batch.size() >= SCAN_BATCH) {
+          connection.keyCommands().del(batch.toArray(new byte[0][]));
+          batch.clear();
+        }
+      }
+      if (!batch.isEmpty()) {
+        connection.keyCommands().del(batch.toArray(new byte[0][]));
+      }
+    }
+  }
+
+  @Override
+  public long increment(String key) {
+    try (RedisConnection connection = connectionFactory.getConnection()) {
+      Long value = connection.stringCommands().incr(rawKey(key));
+      return value == null ? 0L : value;
+    }
+  }
+
+  @Override
+  public long getCounter(String key) {
+    try (RedisConnection connection = connectionFactory.getConnection()) {
+      byte[] value = connection.stringCommands().get(rawKey(key));
+      return value == null ? 0L : Long.parseLong(new String(value, StandardCharsets.UTF_8));
+    }
+  }
+
+  @Override
+  public long raiseCounter(String key, long value) {
+    try (RedisConnection connection = connectionFactory.getConnection()) {
+      Long raised =
+          connection
+              .scriptingCommands()
+              .eval(
+                  RAISE_COUNTER_SCRIPT,
+                  ReturnType.INTEGER,
+                  1,
+                  rawKey(key),
+                  Long.toString(value).getBytes(StandardCharsets.UTF_8));
+      return raised == null ? value : raised;
+    }
+  }
+
+  @Override
+  public void publish(String channel, String message) {
+    try (RedisConnection connection = connectionFactory.getConnection()) {
+      connection.publish(
+          channel.getBytes(StandardCharsets.UTF_8), message.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  @Override
+  public void subscribe(String channel, Consumer<String> listener) {
+    listenerContainer.addMessageListener(
+        (message, pattern) ->
+            listener.accept(new String(message.getBody(), StandardCharsets.UTF_8)),
+        new ChannelTopic(channel));
+  }
+
+  private static byte[] rawKey(String key) {
+    return (KEY_PREFIX + key).getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,129 @@
+package com.wanli.backend.cache;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 缓存刷新策略 描述条目的新鲜期、提前刷新点与过期后仍可返回旧值的窗口
+ *
+ * <p>条目存活超过 TTL×refreshAheadFactor 后，读请求照常返回缓存值并触发一次异步重新加载； 超过TTL但仍在stale-while-revalidate窗口内时，
+ * 继续返回旧值直到重新加载完成。窗口结束后条目才真正过期，由调用方同步加载。
+ *
+ * <p>概率提前过期（XFetch）：每次读取以 now - loadMillis×β×ln(rand) ≥ 新鲜期截止 判断是否提前重新加载，
+ * 越接近过期、上次加载越慢，提前刷新的概率越高；写入时TTL再按比例随机缩短，避免批量写入的条目同时过期。
+ */
+public final class RefreshPolicy {
+
+  private final long ttlMillis;
+  private final double refreshAheadFactor;
+  private final long staleMillis;
+  private final double earlyExpirationBeta;
+  private final double ttlJitter;
+
+  private RefreshPolicy(
+      long ttlMillis,
+      double refreshAheadFactor,
+      long staleMillis,
+      double earlyExpirationBeta,
+      double ttlJitter) {
+    if (refreshAheadFactor <= 0 || refreshAheadFactor > 1) {
+      throw new IllegalArgumentException("refreshAheadFactor必须在(0, 1]之间: " + refreshAheadFactor);
+    }
+    if (earlyExpirationBeta < 0) {
+      throw new IllegalArgumentException("earlyExpirationBeta不能为负数: " + earlyExpirationBeta);
+    }
+    if (ttlJitter < 0 || ttlJitter >= 1) {
+      throw new IllegalArgumentException("ttlJitter必须在[0, 1)之间: " + ttlJitter);
+    }
+    this.ttlMillis = Math.max(0, ttlMillis);
+    this.refreshAheadFactor = refreshAheadFactor;
+    this.staleMillis = Math.max(0, staleMillis);
+    this.earlyExpirationBeta = earlyExpirationBeta;
+    this.ttlJitter = ttlJitter;
+  }
+
+  /** 固定TTL，不提前刷新 */
+  public static RefreshPolicy of(Duration ttl) {
+    return new RefreshPolicy(ttl.toMillis(), 1.0, 0, 0, 0);
+  }
+
+  /** 提前刷新 + stale-while-revalidate */
+  public static RefreshPolicy of(
+      Duration ttl, double refreshAheadFactor, Duration staleWhileRevalidate) {
+    return new RefreshPolicy(
+        ttl.toMillis(), refreshAheadFactor, staleWhileRevalidate.toMillis(), 0, 0);
+  }
+
+  /**
+   * 启用概率提前过期
+   *
+   * @param beta XFetch系数，越大越倾向于提前刷新，0表示关闭
+   * @param ttlJitter 写入时TTL随机缩短的最大比例
+   */
+  public RefreshPolicy withEarlyExpiration(double beta, double ttlJitter) {
+    return new RefreshPolicy(ttlMillis, refreshAheadFactor, staleMillis, beta, ttlJitter);
+  }
+
+  public long getTtlMillis() {
+    return ttlMillis;
+  }
+
+  public double getRefreshAheadFactor() {
+    return refreshAheadFactor;
+  }
+
+  public long getStaleMillis() {
+    return staleMillis;
+  }
+
+  public double getEarlyExpirationBeta() {
+    return earlyExpirationBeta;
+  }
+
+  public double getTtlJitter() {
+    return ttlJitter;
+  }
+
+  /** 本次写入使用的TTL（按抖动比例随机缩短） */
+  public long nextTtlMillis() {
+    if (ttlJitter == 0) {
+      return ttlMillis;
+    }
+    return ttlMillis - (long) (ttlMillis * ttlJitter * ThreadLocalRandom.current().nextDouble());
+  }
+
+  /** 是否启用异步刷新 */
+  public boolean isRefreshable() {
+    return refreshAheadFactor < 1.0 || staleMillis > 0 || earlyExpirationBeta > 0;
+  }
+
+  /** 按条目自身的写入时间、新鲜期与加载耗时判断是否需要重新加载 */
+  public boolean shouldRefresh(BoundedLocalCache.Node node, long now) {
+    if (!isRefreshable()) {
+      return false;
+    }
+    long freshUntil = node.getFreshUntil();
+    long age = now - node.getWriteTime();
+    long freshMillis = freshUntil - node.getWriteTime();
+    if (age >= (long) (freshMillis * refreshAheadFactor) || now >= freshUntil) {
+      return true;
+    }
+    return shouldExpireEarly(node.getLoadMillis(), freshUntil, now);
+  }
+
+  private boolean shouldExpireEarly(long loadMillis, long freshUntil, long now) {
+    if (earlyExpirationBeta == 0 || loadMillis <= 0) {
+      return false;
+    }
+    // 1 - nextDouble() 取值(0, 1]，避免ln(0)
+    double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+    return now - loadMillis * earlyExpirationBeta * Math.log(random) >= freshUntil;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "RefreshPolicy{ttl=%dms, refreshAhead=%.2f, stale=%dms, beta=%.2f, jitter=%.2f}",
+        ttlMillis, refreshAheadFactor, staleMillis, earlyExpirationBeta, ttlJitter);
+  }
+}
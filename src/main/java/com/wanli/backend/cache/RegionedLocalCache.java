@@ -0,0 +1,244 @@
+package com.wanli.backend.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 分区本地缓存 按键前缀把条目路由到各自的 {@link BoundedLocalCache}，每个分区有独立的权重预算
+ *
+ * <p>例如课程与课时各占一个分区，大体积的列表响应只会挤占本分区的预算，不会把其他业务的热点数据挤出缓存。 未匹配任何前缀的键进入默认分区。分区在构造时确定，之后只允许调整预算。
+ */
+public final class RegionedLocalCache {
+
+  public static final String DEFAULT_REGION = "default";
+
+  private final String[] names;
+  private final String[] prefixes;
+  private final BoundedLocalCache[] engines;
+  private final BoundedLocalCache defaultEngine;
+  private final Map<String, BoundedLocalCache> regionsByName = new LinkedHashMap<>();
+
+  /** 分区定义 */
+  public static final class Region {
+    private final String name;
+    private final String prefix;
+    private final long maximumWeight;
+
+    private Region(String name, String prefix, long maximumWeight) {
+      this.name = name;
+      this.prefix = prefix;
+      this.maximumWeight = maximumWeight;
+    }
+
+    public static Region of(String name, String prefix, long maximumWeight) {
+      return new Region(name, prefix, maximumWeight);
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getPrefix() {
+      return prefix;
+    }
+
+    public long getMaximumWeight() {
+      return maximumWeight;
+    }
+  }
+
+  public RegionedLocalCache(
+      List<Region> regions,
+      long defaultMaximumWeight,
+      Weigher weigher,
+      BoundedLocalCache.EvictionListener evictionListener) {
+    this(regions, defaultMaximumWeight, weigher, evictionListener, System::currentTimeMillis);
+  }
+
+  /** 各分区引擎共用同一个毫秒时钟 */
+  public RegionedLocalCache(
+      List<Region> regions,
+      long defaultMaximumWeight,
+      Weigher weigher,
+      BoundedLocalCache.EvictionListener evictionListener,
+      LongSupplier clock) {
+    this.names = new String[regions.size()];
+    this.prefixes = new String[regions.size()];
+    this.engines = new BoundedLocalCache[regions.size()];
+    for (int i = 0; i < regions.size(); i++) {
+      Region region = regions.get(i);
+      names[i] = region.getName();
+      prefixes[i] = region.getPrefix();
+      engines[i] =
+          new BoundedLocalCache(region.getMaximumWeight(), weigher, evictionListener, clock);
+      regionsByName.put(region.getName(), engines[i]);
+    }
+    this.defaultEngine =
+        new BoundedLocalCache(defaultMaximumWeight, weigher, evictionListener, clock);
+    regionsByName.put(DEFAULT_REGION, defaultEngine);
+  }
+
+  /** 键所属的分区引擎 */
+  private BoundedLocalCache engineFor(String key) {
+    for (int i = 0; i < prefixes.length; i++) {
+      if (key.startsWith(prefixes[i])) {
+        return engines[i];
+      }
+    }
+    return defaultEngine;
+  }
+
+  /** 键所属的分区名 */
+  public String regionOf(String key) {
+    for (int i = 0; i < prefixes.length; i++) {
+      if (key.startsWith(prefixes[i])) {
+        return names[i];
+      }
+    }
+    return DEFAULT_REGION;
+  }
+
+  // ==================== 数据操作 ====================
+
+  public BoundedLocalCache.Node get(String key) {
+    return engineFor(key).get(key);
+  }
+
+  public BoundedLocalCache.Node getQuietly(String key) {
+    return engineFor(key).getQuietly(key);
+  }
+
+  public BoundedLocalCache.Node put(String key, Object value, long expireTime) {
+    return engineFor(key).put(key, value, expireTime);
+  }
+
+  public BoundedLocalCache.Node put(
+      String key, Object value, long freshUntil, long expireTime, long loadMillis) {
+    return engineFor(key).put(key, value, freshUntil, expireTime, loadMillis);
+  }
+
+  /** 写入预先算出权重的条目 */
+  public BoundedLocalCache.Node put(
+      String key, Object value, long freshUntil, long expireTime, long loadMillis, int weight) {
+    return engineFor(key).put(key, value, freshUntil, expireTime, loadMillis, weight);
+  }
+
+  public boolean putIfAbsent(String key, Object value, long expireTime) {
+    return engineFor(key).putIfAbsent(key, value, expireTime);
+  }
+
+  public BoundedLocalCache.Node remove(String key) {
+    return engineFor(key).remove(key);
+  }
+
+  public boolean remove(String key, BoundedLocalCache.Node node) {
+    return engineFor(key).remove(key, node);
+  }
+
+  /** 前缀失效：只访问可能包含该前缀键的分区 */
+  public int removeByPrefix(String prefix) {
+    int removed = 0;
+    for (BoundedLocalCache engine : enginesFor(prefix)) {
+      removed += engine.removeByPrefix(prefix);
+    }
+    return removed;
+  }
+
+  public List<BoundedLocalCache.Node> nodesWithPrefix(String prefix) {
+    List<BoundedLocalCache.Node> nodes = new ArrayList<>();
+    for (BoundedLocalCache engine : enginesFor(prefix)) {
+      nodes.addAll(engine.nodesWithPrefix(prefix));
+    }
+    return nodes;
+  }
+
+  private List<BoundedLocalCache> enginesFor(String prefix) {
+    List<BoundedLocalCache> matched = new ArrayList<>(2);
+    boolean coveredByRegion = false;
+    for (int i = 0; i < prefixes.length; i++) {
+      if (prefix.startsWith(prefixes[i])) {
+        matched.add(engines[i]);
+        coveredByRegion = true;
+        break;
+      }
+      if (prefixes[i].startsWith(prefix)) {
+        matched.add(engines[i]);
+      }
+    }
+    if (!coveredByRegion) {
+      matched.add(defaultEngine);
+    }
+    return matched;
+  }
+
+  public void clear() {
+    for (BoundedLocalCache engine : regionsByName.values()) {
+      engine.clear();
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (BoundedLocalCache engine : regionsByName.values()) {
+      size += engine.size();
+    }
+    return size;
+  }
+
+  public int liveSize() {
+    int size = 0;
+    for (BoundedLocalCache engine : regionsByName.values()) {
+      size += engine.liveSize();
+    }
+    return size;
+  }
+
+  public void cleanUp() {
+    for (BoundedLocalCache engine : regionsByName.values()) {
+      engine.cleanUp();
+    }
+  }
+
+  public boolean isEmpty() {
+    for (BoundedLocalCache engine : regionsByName.values()) {
+      if (!engine.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** 所有分区的节点快照 */
+  public Collection<BoundedLocalCache.Node> nodes() {
+    List<BoundedLocalCache.Node> nodes = new ArrayList<>(size());
+    for (BoundedLocalCache engine : regionsByName.values()) {
+      nodes.addAll(engine.nodes());
+    }
+    return nodes;
+  }
+
+  // ==================== 分区管理 ====================
+
+  /** 分区名列表（含默认分区） */
+  public Collection<String> regionNames() {
+    return regionsByName.keySet();
+  }
+
+  /** 获取分区引擎，不存在时返回null */
+  public BoundedLocalCache region(String name) {
+    return regionsByName.get(name);
+  }
+
+  /** 调整分区的权重预算 */
+  public void setMaximum(String regionName, long maximumWeight) {
+    BoundedLocalCache engine = regionsByName.get(regionName);
+    if (engine == null) {
+      throw new IllegalArgumentException("未知的缓存分区: " + regionName);
+    }
+    engine.setMaximum(maximumWeight);
+  }
+}
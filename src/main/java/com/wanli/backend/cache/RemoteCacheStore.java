@@ -0,0 +1,58 @@
+package com.wanli.backend.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/** 二级缓存存储 多个应用实例共享的远端键值存储与消息通道，生产环境由Redis实现 */
+public interface RemoteCacheStore {
+
+  /** 批量读取值与剩余TTL，结果只包含存在的键 */
+  Map<String, RemoteValue> multiGet(List<String> keys);
+
+  /** 批量写入，所有键使用同一TTL（毫秒） */
+  void multiSet(Map<String, byte[]> values, long ttlMillis);
+
+  void delete(Collection<String> keys);
+
+  /** 删除匹配glob模式的键 */
+  void deleteByPattern(String pattern);
+
+  /** 计数器加一并返回新值 */
+  long increment(String key);
+
+  /** 读取计数器，不存在时返回0 */
+  long getCounter(String key);
+
+  /** 计数器小于给定值时设为该值，返回调整后的值 */
+  long raiseCounter(String key, long value);
+
+  void publish(String channel, String message);
+
+  /** 订阅频道，回调在存储的消息线程上执行 */
+  void subscribe(String channel, Consumer<String> listener);
+
+  /** 远端存储中的值及其剩余TTL */
+  final class RemoteValue {
+    private final byte[] value;
+    private final long ttlMillis;
+
+    /**
+     * @param value 序列化后的值
+     * @param ttlMillis 剩余TTL（毫秒），未设置过期时为 {@link Long#MAX_VALUE}
+     */
+    public RemoteValue(byte[] value, long ttlMillis) {
+      this.value = value;
+      this.ttlMillis = ttlMillis;
+    }
+
+    public byte[] getValue() {
+      return value;
+    }
+
+    public long getTtlMillis() {
+      return ttlMillis;
+    }
+  }
+}
@@ -0,0 +1,243 @@
+package com.wanli.backend.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 可扩容布隆过滤器 无锁实现，位图基于AtomicLongArray，按CAS置位
+ *
+ * <p>键经murmur3 x64 128位哈希得到h1、h2，第i个位置取 h1 + i×h2（双重哈希）。过滤器由若干级组成， 当前级写满预期容量后追加一个容量翻倍、误判率减半的新级，
+ * 各级误判率之和收敛于目标误判率，因此元素数量增长时整体误判率仍受控。
+ */
+public final class ScalableBloomFilter {
+
+  private static final int GROWTH_FACTOR = 2;
+  // 每新增一级误判率收紧的比例
+  private static final double TIGHTENING_RATIO = 0.5;
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+
+  private final double targetFpp;
+  private final AtomicReference<Stage[]> stages;
+
+  /** 过滤器的一级 */
+  private static final class Stage {
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int numHashes;
+    private final long capacity;
+    private final double fpp;
+    private final AtomicLong count = new AtomicLong();
+
+    Stage(long capacity, double fpp) {
+      long numBits = optimalNumBits(capacity, fpp);
+      this.bits = new AtomicLongArray((int) ((numBits + 63) >>> 6));
+      this.bitSize = (long) bits.length() << 6;
+      this.numHashes = optimalNumHashes(capacity, bitSize);
+      this.capacity = capacity;
+      this.fpp = fpp;
+    }
+
+    boolean mightContain(long h1, long h2) {
+      long combined = h1;
+      for (int i = 0; i < numHashes; i++) {
+        long index = (combined & Long.MAX_VALUE) % bitSize;
+        if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+          return false;
+        }
+        combined += h2;
+      }
+      return true;
+    }
+
+    /** 置位，返回是否有位由0变为1 */
+    boolean put(long h1, long h2) {
+      boolean changed = false;
+      long combined = h1;
+      for (int i = 0; i < numHashes; i++) {
+        long index = (combined & Long.MAX_VALUE) % bitSize;
+        changed |= setBit((int) (index >>> 6), 1L << index);
+        combined += h2;
+      }
+      return changed;
+    }
+
+    private boolean setBit(int word, long mask) {
+      while (true) {
+        long current = bits.get(word);
+        if ((current & mask) != 0) {
+          return false;
+        }
+        if (bits.compareAndSet(word, current, current | mask)) {
+          return true;
+        }
+      }
+    }
+  }
+
+  /**
+   * @param expectedInsertions 首级预期容量
+   * @param targetFpp 目标误判率，如0.01
+   */
+  public ScalableBloomFilter(long expectedInsertions, double targetFpp) {
+    if (targetFpp <= 0 || targetFpp >= 1) {
+      throw new IllegalArgumentException("targetFpp必须在(0, 1)之间: " + targetFpp);
+    }
+    this.targetFpp = targetFpp;
+    Stage first = new Stage(Math.max(expectedInsertions, 64), targetFpp * (1 - TIGHTENING_RATIO));
+    this.stages = new AtomicReference<>(new Stage[] {first});
+  }
+
+  /** 是否可能包含该键（false表示一定未写入过） */
+  public boolean mightContain(String key) {
+    long[] hash = murmur3(key);
+    for (Stage stage : stages.get()) {
+      if (stage.mightContain(hash[0], hash[1])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** 写入键，返回是否为新元素 */
+  public boolean put(String key) {
+    long[] hash = murmur3(key);
+    Stage[] current = stages.get();
+    for (Stage stage : current) {
+      if (stage.mightContain(hash[0], hash[1])) {
+        return false;
+      }
+    }
+    Stage last = current[current.length - 1];
+    if (!last.put(hash[0], hash[1])) {
+      return false;
+    }
+    if (last.count.incrementAndGet() == last.capacity) {
+      grow(current, last);
+    }
+    return true;
+  }
+
+  private void grow(Stage[] current, Stage last) {
+    Stage[] next = new Stage[current.length + 1];
+    System.arraycopy(current, 0, next, 0, current.length);
+    next[current.length] = new Stage(last.capacity * GROWTH_FACTOR, last.fpp * TIGHTENING_RATIO);
+    // 只有写满当前级的那个线程会扩容，CAS失败说明已被替换，无需重试
+    stages.compareAndSet(current, next);
+  }
+
+  /** 已写入的元素数（近似） */
+  public long approximateElementCount() {
+    long total = 0;
+    for (Stage stage : stages.get()) {
+      total += stage.count.get();
+    }
+    return total;
+  }
+
+  /** 当前误判率上界（各级误判率之和） */
+  public double expectedFpp() {
+    double fpp = 0;
+    for (Stage stage : stages.get()) {
+      double fill = Math.min(1.0, (double) stage.count.get() / stage.capacity);
+      fpp += stage.fpp * fill;
+    }
+    return fpp;
+  }
+
+  public double getTargetFpp() {
+    return targetFpp;
+  }
+
+  public int getStageCount() {
+    return stages.get().length;
+  }
+
+  private static long optimalNumBits(long n, double p) {
+    return (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+  }
+
+  private static int optimalNumHashes(long n, long m) {
+    return Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+  }
+
+  /** murmur3 x64 128位哈希，按UTF-16LE字节序直接处理字符，无需编码成字节数组 */
+  static long[] murmur3(String key) {
+    int length = key.length();
+    long h1 = 0;
+    long h2 = 0;
+    int i = 0;
+    for (; i + 8 <= length; i += 8) {
+      long k1 = packChars(key, i);
+      long k2 = packChars(key, i + 4);
+      h1 ^= mixK1(k1);
+      h1 = Long.rotateLeft(h1, 27);
+      h1 += h2;
+      h1 = h1 * 5 + 0x52dce729;
+      h2 ^= mixK2(k2);
+      h2 = Long.rotateLeft(h2, 31);
+      h2 += h1;
+      h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    int remaining = length - i;
+    if (remaining > 0) {
+      long k1 = 0;
+      long k2 = 0;
+      for (int j = 0; j < remaining; j++) {
+        long c = key.charAt(i + j);
+        if (j < 4) {
+          k1 |= c << (j << 4);
+        } else {
+          k2 |= c << ((j - 4) << 4);
+        }
+      }
+      if (remaining > 4) {
+        h2 ^= mixK2(k2);
+      }
+      h1 ^= mixK1(k1);
+    }
+
+    long byteLength = (long) length << 1;
+    h1 ^= byteLength;
+    h2 ^= byteLength;
+    h1 += h2;
+    h2 += h1;
+    h1 = fmix64(h1);
+    h2 = fmix64(h2);
+    h1 += h2;
+    h2 += h1;
+    return new long[] {h1, h2};
+  }
+
+  private static long packChars(String key, int offset) {
+    return key.charAt(offset)
+        | ((long) key.charAt(offset + 1) << 16)
+        | ((long) key.charAt(offset + 2) << 32)
+        | ((long) key.charAt(offset + 3) << 48);
+  }
+
+  private static long mixK1(long k1) {
+    k1 *= C1;
+    k1 = Long.rotateLeft(k1, 31);
+    k1 *= C2;
+    return k1;
+  }
+
+  private static long mixK2(long k2) {
+    k2 *= C2;
+    k2 = Long.rotateLeft(k2, 33);
+    k2 *= C1;
+    return k2;
+  }
+
+  private static long fmix64(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+}
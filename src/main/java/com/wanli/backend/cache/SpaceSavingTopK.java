@@ -0,0 +1,135 @@
+package com.wanli.backend.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Space-Saving 近似Top-K 最多监控capacity个键，新键在表满时顶替计数最小的键并继承其计数作为误差上界
+ *
+ * <p>频次超过 总权重/capacity 的键一定在表中。每个被监控的键附带一个统计对象S，键被顶替后统计随之丢弃。
+ * 表内操作在同一把锁下完成，顶替时线性查找最小计数（capacity通常只有几十到几百）；统计对象应自行保证并发安全，在锁外更新。
+ * 高频路径不应直接调用 {@link #offer}，宜先缓冲再由后台线程批量计入。
+ *
+ * @param <S> 附带的统计类型
+ */
+public final class SpaceSavingTopK<S> {
+
+  private final int capacity;
+  private final Function<String, S> statsFactory;
+  private final Map<String, Entry<S>> entries;
+
+  /** 被监控的键 */
+  public static final class Entry<S> {
+    private final String key;
+    private final S stats;
+    // 只在持有锁时修改
+    private volatile long count;
+    private volatile long error;
+
+    private Entry(String key, S stats, long count, long error) {
+      this.key = key;
+      this.stats = stats;
+      this.count = count;
+      this.error = error;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public S getStats() {
+      return stats;
+    }
+
+    /** 估算权重（偏大），真实值不小于 count - error */
+    public long getCount() {
+      return count;
+    }
+
+    public long getError() {
+      return error;
+    }
+  }
+
+  public SpaceSavingTopK(int capacity, Function<String, S> statsFactory) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity必须大于0: " + capacity);
+    }
+    this.capacity = capacity;
+    this.statsFactory = statsFactory;
+    this.entries = new HashMap<>(capacity * 2);
+  }
+
+  /**
+   * 记录一次权重
+   *
+   * @param key 键
+   * @param weight 权重；为0时只更新已监控的键，不会顶替其他键
+   * @return 键对应的条目，未被监控时返回null
+   */
+  public synchronized Entry<S> offer(String key, long weight) {
+    Entry<S> entry = entries.get(key);
+    if (entry != null) {
+      entry.count += weight;
+      return entry;
+    }
+    if (weight <= 0) {
+      return null;
+    }
+    long inherited = 0;
+    if (entries.size() >= capacity) {
+      Entry<S> min = null;
+      for (Entry<S> candidate : entries.values()) {
+        if (min == null || candidate.count < min.count) {
+          min = candidate;
+        }
+      }
+      entries.remove(min.key);
+      inherited = min.count;
+    }
+    entry = new Entry<>(key, statsFactory.apply(key), inherited + weight, inherited);
+    entries.put(key, entry);
+    return entry;
+  }
+
+  /** 取被监控的键，不改变计数；未被监控时返回null */
+  public synchronized Entry<S> get(String key) {
+    return entries.get(key);
+  }
+
+  /** 按计数降序返回前n个条目 */
+  public synchronized List<Entry<S>> top(int n) {
+    List<Entry<S>> sorted = new ArrayList<>(entries.values());
+    sorted.sort((a, b) -> Long.compare(b.count, a.count));
+    return sorted.size() > n ? new ArrayList<>(sorted.subList(0, n)) : sorted;
+  }
+
+  /** 计数与误差减半，减到0的条目移出监控 */
+  public synchronized void decay() {
+    Iterator<Entry<S>> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      Entry<S> entry = iterator.next();
+      entry.count >>>= 1;
+      entry.error >>>= 1;
+      if (entry.count == 0) {
+        iterator.remove();
+      }
+    }
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+}
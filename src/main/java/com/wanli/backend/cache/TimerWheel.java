@@ -0,0 +1,134 @@
+package com.wanli.backend.cache;
+
+/**
+ * 分层时间轮 按过期时间组织缓存节点，实现O(1)调度与摊还O(1)过期
+ *
+ * <p>共5层，每层桶的时间跨度依次约为1秒、1分钟、1小时、1天和6天（均取2的幂毫秒）。时间推进时只处理跨越的桶：
+ * 已到期的节点被淘汰，未到期的节点按剩余时间重新落入更低层的桶。非线程安全，调用方需在淘汰锁内访问。
+ */
+final class TimerWheel {
+
+  private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+  private static final long[] SPANS = {
+    Long.highestOneBit(1000L) << 1, // 1.02秒
+    Long.highestOneBit(60_000L) << 1, // 1.09分钟
+    Long.highestOneBit(3_600_000L) << 1, // 1.17小时
+    Long.highestOneBit(86_400_000L) << 1, // 1.55天
+    BUCKETS[3] * (Long.highestOneBit(86_400_000L) << 1), // 6.2天
+    BUCKETS[3] * (Long.highestOneBit(86_400_000L) << 1), // 6.2天
+  };
+  private static final long[] SHIFT = {
+    Long.numberOfTrailingZeros(SPANS[0]),
+    Long.numberOfTrailingZeros(SPANS[1]),
+    Long.numberOfTrailingZeros(SPANS[2]),
+    Long.numberOfTrailingZeros(SPANS[3]),
+    Long.numberOfTrailingZeros(SPANS[4]),
+  };
+
+  /** 到期处理回调，返回true表示节点已被移除 */
+  @FunctionalInterface
+  interface Expirer {
+    boolean expire(BoundedLocalCache.Node node);
+  }
+
+  private final BoundedLocalCache.Node[][] wheel;
+  private long currentTime;
+
+  TimerWheel(long currentTime) {
+    this.currentTime = currentTime;
+    wheel = new BoundedLocalCache.Node[BUCKETS.length][];
+    for (int i = 0; i < wheel.length; i++) {
+      wheel[i] = new BoundedLocalCache.Node[BUCKETS[i]];
+      for (int j = 0; j < wheel[i].length; j++) {
+        wheel[i][j] = BoundedLocalCache.Node.sentinel();
+      }
+    }
+  }
+
+  long getCurrentTime() {
+    return currentTime;
+  }
+
+  /** 推进时间，处理所有跨越的桶 */
+  void advance(long time, Expirer expirer) {
+    long previousTime = currentTime;
+    if (time <= previousTime) {
+      return;
+    }
+    currentTime = time;
+    for (int i = 0; i < SHIFT.length; i++) {
+      long previousTicks = previousTime >>> SHIFT[i];
+      long currentTicks = time >>> SHIFT[i];
+      long delta = currentTicks - previousTicks;
+      if (delta <= 0L) {
+        break;
+      }
+      expire(i, previousTicks, delta, expirer);
+    }
+  }
+
+  /** 处理当前最细粒度的桶，使时间轮内不残留已到期节点 */
+  void expireCurrentBucket(Expirer expirer) {
+    long ticks = currentTime >>> SHIFT[0];
+    expire(0, ticks, 0, expirer);
+  }
+
+  private void expire(int index, long previousTicks, long delta, Expirer expirer) {
+    BoundedLocalCache.Node[] timerWheel = wheel[index];
+    int mask = timerWheel.length - 1;
+    int steps = (int) Math.min(1 + delta, timerWheel.length);
+    int start = (int) (previousTicks & mask);
+    int end = start + steps;
+
+    for (int i = start; i < end; i++) {
+      BoundedLocalCache.Node sentinel = timerWheel[i & mask];
+      BoundedLocalCache.Node node = sentinel.nextInTimer;
+      sentinel.prevInTimer = sentinel;
+      sentinel.nextInTimer = sentinel;
+
+      while (node != sentinel) {
+        BoundedLocalCache.Node next = node.nextInTimer;
+        node.prevInTimer = null;
+        node.nextInTimer = null;
+        if (node.getExpireTime() > currentTime || !expirer.expire(node)) {
+          schedule(node);
+        }
+        node = next;
+      }
+    }
+  }
+
+  /** 将节点放入对应的桶 */
+  void schedule(BoundedLocalCache.Node node) {
+    BoundedLocalCache.Node sentinel = findBucket(Math.max(node.getExpireTime(), currentTime));
+    BoundedLocalCache.Node last = sentinel.prevInTimer;
+    node.prevInTimer = last;
+    node.nextInTimer = sentinel;
+    last.nextInTimer = node;
+    sentinel.prevInTimer = node;
+  }
+
+  /** 从时间轮摘除节点 */
+  void deschedule(BoundedLocalCache.Node node) {
+    if (node.nextInTimer == null) {
+      return;
+    }
+    node.nextInTimer.prevInTimer = node.prevInTimer;
+    node.prevInTimer.nextInTimer = node.nextInTimer;
+    node.prevInTimer = null;
+    node.nextInTimer = null;
+  }
+
+  private BoundedLocalCache.Node findBucket(long time) {
+    long duration = time - currentTime;
+    int length = wheel.length - 1;
+    for (int i = 0; i < length; i++) {
+      if (duration < SPANS[i + 1]) {
+        long ticks = time >>> SHIFT[i];
+        int index = (int) (ticks & (wheel[i].length - 1));
+        return wheel[i][index];
+      }
+    }
+    return wheel[length][0];
+  }
+}
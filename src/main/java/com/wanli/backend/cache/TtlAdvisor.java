@@ -0,0 +1,13 @@
+package com.wanli.backend.cache;
+
+/** TTL调整建议 写入时按键给出实际使用的TTL，调用方请求的TTL作为基准 */
+@FunctionalInterface
+public interface TtlAdvisor {
+
+  /**
+   * @param key 缓存键
+   * @param requestedMillis 调用方请求的TTL（毫秒）
+   * @return 实际使用的TTL（毫秒）
+   */
+  long adviseTtlMillis(String key, long requestedMillis);
+}
@@ -0,0 +1,29 @@
+package com.wanli.backend.cache;
+
+/**
+ * 带TTL上限的加载结果 L1由L2回填时携带L2条目的剩余TTL，L1副本不会比L2中的原值活得更久
+ *
+ * <p>加载器可直接返回本类，{@link com.wanli.backend.util.CacheUtil} 写入时解包，TTL取策略TTL与上限中的较小者。
+ */
+public final class TtlBoundedValue {
+
+  private final Object value;
+  private final long maxTtlMillis;
+
+  /**
+   * @param value 缓存值
+   * @param maxTtlMillis TTL上限（毫秒），{@link Long#MAX_VALUE} 表示不限
+   */
+  public TtlBoundedValue(Object value, long maxTtlMillis) {
+    this.value = value;
+    this.maxTtlMillis = maxTtlMillis;
+  }
+
+  public Object getValue() {
+    return value;
+  }
+
+  public long getMaxTtlMillis() {
+    return maxTtlMillis;
+  }
+}
@@ -0,0 +1,280 @@
+package com.wanli.backend.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
+
+import com.wanli.backend.util.CacheUtil;
+import com.wanli.backend.util.LogUtil;
+
+/**
+ * 两级缓存的二级部分 L1为各实例进程内的CacheUtil，L2为共享的 {@link RemoteCacheStore}
+ *
+ * <p>读取L1未命中时先批量查L2，L2命中回填L1，仍未命中才回源并写入L2；写入与删除同时作用于L1和L2，并通过失效频道广播，
+ * 其他实例收到后只丢弃自己的L1副本，下次读取从L2获得新值。集合代际也存放在L2，新启动的实例不会读到已失效代际的键。
+ *
+ * <p>L2中的值统一采用 {@link CompressingCodec} 的格式（首字节为压缩标记，其后为JSONB）：分区配置了压缩编解码时按其压缩，
+ * 否则以不压缩的格式写入。解码只看标记，与本实例的分区配置无关，各实例压缩配置不同或滚动修改配置时仍能读取彼此写入的值。
+ *
+ * <p>L2不可用时读取按未命中处理、写入与广播跳过，只影响跨实例一致性与命中率，不影响请求本身。L1由L2回填时TTL不超过L2条目的剩余TTL，
+ * 提前刷新直接回源并重写L2，不会把L2中即将过期的旧值再续一轮；绕过本类直接修改数据源时，各实例最多滞后约一个TTL。
+ */
+public final class TwoTierCache {
+
+  static final String INVALIDATION_CHANNEL = "wanli:cache:invalidation";
+  private static final String GENERATION_KEY_PREFIX = "generation:";
+
+  // 消息格式：节点ID|类型|内容，多个键之间以换行分隔
+  private static final char SEPARATOR = '|';
+  private static final String TYPE_KEYS = "K";
+  private static final String TYPE_PATTERN = "P";
+  private static final String TYPE_NAMESPACE = "N";
+  private static final String TYPE_GENERATION = "G";
+
+  // 不压缩的L2编解码，也用于解码所有L2值（按首字节标记决定是否解压）
+  private static final CompressingCodec FRAMED_CODEC =
+      new CompressingCodec(JsonbCodec.INSTANCE, Integer.MAX_VALUE);
+
+  private final RemoteCacheStore store;
+  private final CacheUtil cacheUtil;
+  private final ObjLongConsumer<String> generationListener;
+  private final String nodeId = UUID.randomUUID().toString();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder invalidationsReceived = new LongAdder();
+
+  /**
+   * @param store 二级存储
+   * @param cacheUtil 本实例的一级缓存
+   * @param generationListener 收到其他实例的集合代际变化时回调（集合，新代际）
+   */
+  public TwoTierCache(
+      RemoteCacheStore store, CacheUtil cacheUtil, ObjLongConsumer<String> generationListener) {
+    this.store = store;
+    this.cacheUtil = cacheUtil;
+    this.generationListener = generationListener;
+    store.subscribe(INVALIDATION_CHANNEL, this::onInvalidationMessage);
+  }
+
+  /** 读取单个键的L2值及其剩余TTL，未命中或L2不可用时返回null */
+  public TtlBoundedValue get(String key) {
+    return getAll(Collections.singletonList(key)).get(key);
+  }
+
+  /** 批量读取L2，一次往返；结果只包含命中的键，TTL上限为各键在L2中的剩余TTL */
+  public Map<String, TtlBoundedValue> getAll(List<String> keys) {
+    Map<String, TtlBoundedValue> result = new HashMap<>();
+    if (keys.isEmpty()) {
+      return result;
+    }
+    Map<String, RemoteCacheStore.RemoteValue> raw;
+    try {
+      raw = store.multiGet(keys);
+    } catch (Exception e) {
+      recordError("L2_GET", e);
+      return result;
+    }
+    for (Map.Entry<String, RemoteCacheStore.RemoteValue> entry : raw.entrySet()) {
+      RemoteCacheStore.RemoteValue remote = entry.getValue();
+      try {
+        result.put(
+            entry.getKey(),
+            new TtlBoundedValue(FRAMED_CODEC.decode(remote.getValue()), remote.getTtlMillis()));
+      } catch (Exception e) {
+        // 类结构变化后的旧数据按未命中处理，随后回源覆盖
+        recordError("L2_DECODE", e);
+      }
+    }
+    hits.add(result.size());
+    misses.add(keys.size() - result.size());
+    return result;
+  }
+
+  /** 写入L2（不广播），用于未命中后的回填 */
+  public void fill(String key, Object value, long ttlMillis) {
+    if (value != null) {
+      fillAll(Collections.singletonMap(key, value), ttlMillis);
+    }
+  }
+
+  /** 批量写入L2（不广播），null值跳过 */
+  public void fillAll(Map<String, ?> values, long ttlMillis) {
+    Map<String, byte[]> encoded = new HashMap<>();
+    for (Map.Entry<String, ?> entry : values.entrySet()) {
+      if (entry.getValue() == null) {
+        continue;
+      }
+      try {
+        encoded.put(entry.getKey(), l2CodecFor(entry.getKey()).encode(entry.getValue()));
+      } catch (Exception e) {
+        recordError("L2_ENCODE", e);
+      }
+    }
+    if (encoded.isEmpty()) {
+      return;
+    }
+    try {
+      store.multiSet(encoded, ttlMillis);
+    } catch (Exception e) {
+      recordError("L2_SET", e);
+    }
+  }
+
+  /** 写入L2的编解码：分区配置了压缩时使用分区的压缩编解码，否则使用不压缩的格式 */
+  private CacheCodec l2CodecFor(String key) {
+    CacheCodec codec = cacheUtil.codecFor(key);
+    return codec instanceof CompressingCodec ? codec : FRAMED_CODEC;
+  }
+
+  /** 数据变更后的写入：写L2并通知其他实例丢弃L1副本 */
+  public void put(String key, Object value, long ttlMillis) {
+    putAll(Collections.singletonMap(key, value), ttlMillis);
+  }
+
+  /** 数据变更后的批量写入：写L2并通知其他实例丢弃L1副本 */
+  public void putAll(Map<String, ?> values, long ttlMillis) {
+    fillAll(values, ttlMillis);
+    publish(TYPE_KEYS, String.join("\n", values.keySet()));
+  }
+
+  /** 删除L2中的键并通知其他实例丢弃L1副本 */
+  public void invalidate(Collection<String> keys) {
+    if (keys.isEmpty()) {
+      return;
+    }
+    try {
+      store.delete(keys);
+    } catch (Exception e) {
+      recordError("L2_DELETE", e);
+    }
+    publish(TYPE_KEYS, String.join("\n", keys));
+  }
+
+  /** 按glob模式删除L2中的键并通知其他实例 */
+  public void invalidatePattern(String pattern) {
+    try {
+      store.deleteByPattern(pattern);
+    } catch (Exception e) {
+      recordError("L2_DELETE_PATTERN", e);
+    }
+    publish(TYPE_PATTERN, pattern);
+  }
+
+  /** 删除L2中某命名空间（键前缀）下的所有键并通知其他实例 */
+  public void invalidateNamespace(String namespace) {
+    try {
+      store.deleteByPattern(namespace + "*");
+    } catch (Exception e) {
+      recordError("L2_DELETE_NAMESPACE", e);
+    }
+    publish(TYPE_NAMESPACE, namespace);
+  }
+
+  /** 读取共享的集合代际，L2不可用时返回-1 */
+  public long readGeneration(String collection) {
+    try {
+      return store.getCounter(GENERATION_KEY_PREFIX + collection);
+    } catch (Exception e) {
+      recordError("L2_GENERATION", e);
+      return -1;
+    }
+  }
+
+  /** 递增共享的集合代际并广播，L2不可用时返回-1 */
+  public long incrementGeneration(String collection) {
+    long generation;
+    try {
+      generation = store.increment(GENERATION_KEY_PREFIX + collection);
+    } catch (Exception e) {
+      recordError("L2_GENERATION", e);
+      return -1;
+    }
+    publish(TYPE_GENERATION, collection + SEPARATOR + generation);
+    return generation;
+  }
+
+  /** 把共享的集合代际抬到不小于给定值并广播，返回共享代际；L2不可用时返回-1 */
+  public long raiseGeneration(String collection, long generation) {
+    long shared;
+    try {
+      shared = store.raiseCounter(GENERATION_KEY_PREFIX + collection, generation);
+    } catch (Exception e) {
+      recordError("L2_GENERATION", e);
+      return -1;
+    }
+    publish(TYPE_GENERATION, collection + SEPARATOR + shared);
+    return shared;
+  }
+
+  private void publish(String type, String payload) {
+    try {
+      store.publish(INVALIDATION_CHANNEL, nodeId + SEPARATOR + type + SEPARATOR + payload);
+    } catch (Exception e) {
+      recordError("L2_PUBLISH", e);
+    }
+  }
+
+  /** 处理其他实例的失效消息，只作用于本实例的L1 */
+  void onInvalidationMessage(String message) {
+    int first = message.indexOf(SEPARATOR);
+    int second = first < 0 ? -1 : message.indexOf(SEPARATOR, first + 1);
+    if (second < 0 || message.startsWith(nodeId + SEPARATOR)) {
+      return;
+    }
+    invalidationsReceived.increment();
+    String type = message.substring(first + 1, second);
+    String payload = message.substring(second + 1);
+    try {
+      if (TYPE_KEYS.equals(type)) {
+        for (String key : payload.split("\n")) {
+          cacheUtil.remove(key);
+        }
+      } else if (TYPE_PATTERN.equals(type)) {
+        cacheUtil.removeByPattern(payload);
+      } else if (TYPE_NAMESPACE.equals(type)) {
+        cacheUtil.removeNamespace(payload);
+      } else if (TYPE_GENERATION.equals(type)) {
+        int split = payload.lastIndexOf(SEPARATOR);
+        generationListener.accept(
+            payload.substring(0, split), Long.parseLong(payload.substring(split + 1)));
+      }
+    } catch (Exception e) {
+      recordError("L2_INVALIDATION", e);
+    }
+  }
+
+  private void recordError(String operation, Exception e) {
+    errors.increment();
+    LogUtil.logWarn(operation, "CACHE_L2_ERROR", "二级缓存操作失败: " + e.getMessage());
+  }
+
+  // ==================== 统计 ====================
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public long getErrorCount() {
+    return errors.sum();
+  }
+
+  public long getInvalidationsReceived() {
+    return invalidationsReceived.sum();
+  }
+
+  /** 本实例在失效频道上的标识 */
+  public String getNodeId() {
+    return nodeId;
+  }
+}
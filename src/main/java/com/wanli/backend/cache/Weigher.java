@@ -0,0 +1,23 @@
+package com.wanli.backend.cache;
+
+/** 缓存权重计算器 返回条目占用的权重（如估算字节数），用于按总权重限制缓存容量 */
+@FunctionalInterface
+public interface Weigher {
+
+  int weigh(String key, Object value);
+
+  /** 每个条目权重为1，即按条目数限制容量 */
+  static Weigher singleton() {
+    return SingletonWeigher.INSTANCE;
+  }
+}
+
+/** 条目数计量 */
+enum SingletonWeigher implements Weigher {
+  INSTANCE;
+
+  @Override
+  public int weigh(String key, Object value) {
+    return 1;
+  }
+}
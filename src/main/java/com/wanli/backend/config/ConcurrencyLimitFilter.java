@@ -0,0 +1,98 @@
+package com.wanli.backend.config;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.wanli.backend.ratelimit.RateLimitManager;
+import com.wanli.backend.util.ConfigUtil;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * 并发数限制过滤器 课程、课时接口按组限制同时处理的请求数，上限随响应延迟自适应调整
+ *
+ * <p>数据库变慢时请求耗时上升，上限随之下降，超出的请求立即返回503，而不是在Tomcat线程池里排队直到线程耗尽。
+ * 位于Spring Security之前，被拒绝的请求不再做JWT校验与用户查询。
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 10)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+  private static final String COURSE_PATH = "/api/courses";
+  private static final String LESSON_PATH = "/api/lessons";
+  private static final String COURSE_KEY =
+      RateLimitManager.buildLimitKey(RateLimitManager.LimitLevel.API, "course");
+  private static final String LESSON_KEY =
+      RateLimitManager.buildLimitKey(RateLimitManager.LimitLevel.API, "lesson");
+  private static final String REJECTED_BODY =
+      "{\"success\":false,\"message\":\"服务繁忙，请稍后重试\",\"errorCode\":\"CONCURRENCY_LIMITED\"}";
+
+  @Autowired private RateLimitManager rateLimitManager;
+
+  @Autowired private ConfigUtil configUtil;
+
+  private RateLimitManager.RateLimitConfig limitConfig;
+  private boolean enabled;
+
+  @PostConstruct
+  public void init() {
+    limitConfig = RateLimitManager.createDefaultConfig(RateLimitManager.LimitType.CONCURRENT);
+    Integer min = configUtil.getConcurrencyLimitMin();
+    Integer max = configUtil.getConcurrencyLimitMax();
+    if (min != null && max != null && 0 < min && min <= max) {
+      limitConfig.setMinConcurrent(min);
+      limitConfig.setMaxConcurrent(max);
+    }
+    enabled = Boolean.TRUE.equals(configUtil.getConcurrencyLimitEnabled());
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String key = limitKey(request);
+    if (!rateLimitManager.checkLimit(key, limitConfig).isAllowed()) {
+      response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      response.setHeader("Retry-After", "1");
+      response.setContentType("application/json");
+      response.setCharacterEncoding("UTF-8");
+      response.getWriter().write(REJECTED_BODY);
+      return;
+    }
+
+    long start = System.nanoTime();
+    boolean dropped = true;
+    try {
+      filterChain.doFilter(request, response);
+      dropped = response.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+    } finally {
+      rateLimitManager.releaseConcurrency(key, System.nanoTime() - start, dropped);
+    }
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
+    return !enabled || limitKey(request) == null;
+  }
+
+  /** 按应用内路径（去掉context-path）归入接口组，不受限制的路径返回null */
+  private static String limitKey(HttpServletRequest request) {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    if (path.startsWith(COURSE_PATH)) {
+      return COURSE_KEY;
+    }
+    if (path.startsWith(LESSON_PATH)) {
+      return LESSON_KEY;
+    }
+    return null;
+  }
+}
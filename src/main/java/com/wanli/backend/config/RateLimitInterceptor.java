@@ -0,0 +1,224 @@
+package com.wanli.backend.config;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import com.wanli.backend.ratelimit.RateLimitManager;
+import com.wanli.backend.ratelimit.RateLimited;
+import com.wanli.backend.util.ClientIpUtil;
+import com.wanli.backend.util.LogUtil;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * 接口限流拦截器 按控制器方法上的 {@link RateLimited} 限流，并返回 RateLimit-* 响应头
+ *
+ * <p>所有处理器方法的限流配置与限流器在启动时解析一次，请求时按方法取出，不再拼接限流器键、查找限流器。
+ * 用户、IP维度的限流键按路由缓存，同一用户或IP的后续请求不再拼接字符串。客户端IP由 {@link ClientIpUtil} 解析，
+ * 只信任可信代理转发的X-Forwarded-For，客户端无法靠伪造请求头换取新的令牌桶。
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor, SmartInitializingSingleton {
+
+  // 每个路由缓存的用户、IP限流键上限，超出后整体清空
+  private static final int MAX_CACHED_KEYS = 10000;
+  private static final String REJECTED_BODY =
+      "{\"success\":false,\"message\":\"请求过于频繁，请稍后重试\",\"errorCode\":\"RATE_LIMITED\"}";
+
+  @Autowired private RateLimitManager rateLimitManager;
+
+  @Autowired private ApplicationContext applicationContext;
+
+  @Autowired private ClientIpUtil clientIpUtil;
+
+  private volatile Map<Method, RouteLimit> routes = Collections.emptyMap();
+
+  /** 单个路由的限流配置，启动时解析 */
+  static final class RouteLimit {
+    private final String name;
+    private final RateLimitManager.RateLimitConfig config;
+    private final RateLimitManager.RateLimiter limiter;
+    private final String weightParam;
+    private final String limitHeader;
+    private final String policyHeader;
+    private final String routeKey;
+    private final Map<Object, String> clientKeys = new ConcurrentHashMap<>();
+
+    RouteLimit(
+        String name,
+        RateLimitManager.RateLimitConfig config,
+        RateLimitManager.RateLimiter limiter,
+        String weightParam) {
+      this.name = name;
+      this.config = config;
+      this.limiter = limiter;
+      this.weightParam = weightParam.isEmpty() ? null : weightParam;
+      this.limitHeader = Long.toString(config.getCapacity());
+      this.policyHeader = config.getCapacity() + ";w=" + policyWindowSeconds(config);
+      this.routeKey = RateLimitManager.buildLimitKey(config.getLimitLevel(), name);
+    }
+
+    /** 按客户端取限流键，首次出现时构建 */
+    String keyFor(Object client) {
+      String key = clientKeys.get(client);
+      if (key != null) {
+        return key;
+      }
+      if (clientKeys.size() >= MAX_CACHED_KEYS) {
+        clientKeys.clear();
+      }
+      return clientKeys.computeIfAbsent(
+          client,
+          c -> RateLimitManager.buildLimitKey(config.getLimitLevel(), name, c.toString()));
+    }
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    List<HandlerMethod> handlerMethods = new ArrayList<>();
+    for (RequestMappingHandlerMapping mapping :
+        applicationContext.getBeansOfType(RequestMappingHandlerMapping.class).values()) {
+      handlerMethods.addAll(mapping.getHandlerMethods().values());
+    }
+    registerRoutes(handlerMethods);
+  }
+
+  /** 解析带 {@link RateLimited} 的处理器方法，替换当前路由表 */
+  void registerRoutes(Collection<HandlerMethod> handlerMethods) {
+    Map<Method, RouteLimit> resolved = new HashMap<>();
+    for (HandlerMethod handlerMethod : handlerMethods) {
+      Method method = handlerMethod.getMethod();
+      RateLimited annotation = AnnotatedElementUtils.findMergedAnnotation(method, RateLimited.class);
+      if (annotation != null) {
+        resolved.put(method, createRoute(method, annotation));
+      }
+    }
+    routes = resolved;
+    LogUtil.logInfo(
+        "RATE_LIMIT_INTERCEPTOR", "", String.format("接口限流路由解析完成: %d个", resolved.size()));
+  }
+
+  private RouteLimit createRoute(Method method, RateLimited annotation) {
+    if (annotation.type() == RateLimitManager.LimitType.CONCURRENT) {
+      throw new IllegalStateException(
+          String.format(
+              "@RateLimited 不支持并发数限制: %s.%s",
+              method.getDeclaringClass().getSimpleName(), method.getName()));
+    }
+    String name =
+        annotation.name().isEmpty()
+            ? method.getDeclaringClass().getSimpleName() + "." + method.getName()
+            : annotation.name();
+
+    RateLimitManager.RateLimitConfig config = new RateLimitManager.RateLimitConfig();
+    config.setLimitType(annotation.type());
+    config.setLimitLevel(annotation.level());
+    config.setCapacity(annotation.capacity());
+    config.setRefillRate(annotation.refillRate());
+    config.setWindowSize(annotation.windowSize());
+    config.setDistributed(annotation.distributed());
+
+    return new RouteLimit(
+        name,
+        config,
+        rateLimitManager.registerRouteLimiter(name, config),
+        annotation.weightParam());
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+      throws Exception {
+    if (!(handler instanceof HandlerMethod)) {
+      return true;
+    }
+    RouteLimit route = routes.get(((HandlerMethod) handler).getMethod());
+    if (route == null) {
+      return true;
+    }
+
+    String key = limitKey(route, request);
+    int permits = route.weightParam == null ? 1 : permits(route, request);
+    RateLimitManager.RateLimitResult result =
+        rateLimitManager.checkLimit(route.limiter, key, permits, route.config);
+
+    long now = System.currentTimeMillis();
+    response.setHeader("RateLimit-Policy", route.policyHeader);
+    response.setHeader("RateLimit-Limit", route.limitHeader);
+    response.setHeader(
+        "RateLimit-Remaining", Long.toString(Math.max(0, result.getRemainingTokens())));
+    response.setHeader("RateLimit-Reset", Long.toString(secondsUntil(result.getResetTime(), now)));
+    if (result.isAllowed()) {
+      return true;
+    }
+
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(
+        "Retry-After", Long.toString(Math.max(1, (result.getWaitTime() + 999) / 1000)));
+    response.setContentType("application/json");
+    response.setCharacterEncoding("UTF-8");
+    response.getWriter().write(REJECTED_BODY);
+    return false;
+  }
+
+  /** 按限流维度取限流键 */
+  private String limitKey(RouteLimit route, HttpServletRequest request) {
+    switch (route.config.getLimitLevel()) {
+      case USER:
+        Object userId = request.getAttribute("currentUserId");
+        return route.keyFor(userId != null ? userId : clientIpUtil.resolve(request));
+      case IP:
+        return route.keyFor(clientIpUtil.resolve(request));
+      default:
+        return route.routeKey;
+    }
+  }
+
+  /** 许可数为批量参数的值个数，限制在 [1, 容量] 内，超大批量不会永远无法通过 */
+  private static int permits(RouteLimit route, HttpServletRequest request) {
+    String[] values = request.getParameterValues(route.weightParam);
+    long count = 0;
+    if (values != null) {
+      for (String value : values) {
+        count++;
+        for (int i = 0; i < value.length(); i++) {
+          if (value.charAt(i) == ',') {
+            count++;
+          }
+        }
+      }
+    }
+    return (int) Math.max(1, Math.min(route.config.getCapacity(), count));
+  }
+
+  private static long secondsUntil(long epochMillis, long now) {
+    return epochMillis <= now ? 0 : (epochMillis - now + 999) / 1000;
+  }
+
+  /** 策略窗口：窗口类算法为窗口大小，令牌桶类为从空到满的时间 */
+  private static long policyWindowSeconds(RateLimitManager.RateLimitConfig config) {
+    switch (config.getLimitType()) {
+      case SLIDING_WINDOW:
+      case FIXED_WINDOW:
+        return config.getWindowSize();
+      default:
+        return Math.max(1, config.getCapacity() / Math.max(1, config.getRefillRate()));
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.wanli.backend.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC配置类
+ *
+ * @author wanli-team
+ * @version 1.0.0
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+  @Autowired private RateLimitInterceptor rateLimitInterceptor;
+
+  /**
+   * 注册拦截器
+   *
+   * @param registry 拦截器注册表
+   */
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(rateLimitInterceptor).addPathPatterns("/api/**");
+  }
+}
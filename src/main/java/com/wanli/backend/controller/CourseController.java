@@ -1,5 +1,6 @@
 package com.wanli.backend.controller;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -7,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.wanli.backend.ratelimit.RateLimited;
 import com.wanli.backend.service.CourseService;
 import com.wanli.backend.util.AuthUtil;
 import com.wanli.backend.util.ControllerLogUtil;
@@ -27,6 +29,7 @@ public class CourseController {
   @Autowired private AuthUtil authUtil;
 
   @PostMapping
+  @RateLimited(capacity = 30, refillRate = 1)
   public ResponseEntity<Map<String, Object>> createCourse(
       @RequestBody CreateCourseRequest request, @RequestHeader("Authorization") String authHeader) {
 
@@ -63,6 +66,17 @@ public class CourseController {
     }
   }
 
+  @GetMapping("/batch")
+  @RateLimited(capacity = 200, refillRate = 50, weightParam = "ids")
+  public ResponseEntity<Map<String, Object>> getCoursesByIds(@RequestParam List<UUID> ids) {
+    try {
+      Map<String, Object> result = courseService.getCoursesByIds(ids);
+      return ResponseUtil.fromServiceResult(result);
+    } catch (Exception e) {
+      return ResponseUtil.internalServerError("批量获取课程详情失败：" + e.getMessage());
+    }
+  }
+
   @GetMapping("/{id}")
   public ResponseEntity<Map<String, Object>> getCourseById(@PathVariable UUID id) {
     try {
@@ -74,6 +88,7 @@ public class CourseController {
   }
 
   @PutMapping("/{courseId}")
+  @RateLimited(capacity = 30, refillRate = 1)
   public ResponseEntity<Map<String, Object>> updateCourse(
       @PathVariable UUID courseId,
       @RequestBody UpdateCourseRequest request,
@@ -108,6 +123,7 @@ public class CourseController {
   }
 
   @DeleteMapping("/{courseId}")
+  @RateLimited(capacity = 30, refillRate = 1)
   public ResponseEntity<Map<String, Object>> deleteCourse(
       @PathVariable UUID courseId, @RequestHeader("Authorization") String authHeader) {
 
@@ -9,6 +9,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.wanli.backend.ratelimit.RateLimited;
 import com.wanli.backend.service.LessonService;
 import com.wanli.backend.util.AuthUtil;
 import com.wanli.backend.util.ControllerLogUtil;
@@ -82,6 +83,7 @@ public class LessonController {
   }
 
   @PostMapping
+  @RateLimited(capacity = 30, refillRate = 1)
   public ResponseEntity<Map<String, Object>> createLesson(
       @RequestBody CreateLessonRequest request, @RequestHeader("Authorization") String authHeader) {
 
@@ -157,6 +159,7 @@ public class LessonController {
   }
 
   @PutMapping("/{id}")
+  @RateLimited(capacity = 30, refillRate = 1)
   public ResponseEntity<Map<String, Object>> updateLesson(
       @PathVariable String id,
       @RequestHeader("Authorization") String authHeader,
@@ -8,6 +8,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeoutException;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DuplicateKeyException;
@@ -25,11 +26,13 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 
+import com.wanli.backend.util.ClientIpUtil;
 import com.wanli.backend.util.LogUtil;
 import com.wanli.backend.util.ResponseUtil;
 
@@ -39,6 +42,8 @@ import jakarta.validation.ConstraintViolationException;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+  @Autowired private ClientIpUtil clientIpUtil;
+
   /** 处理业务异常 */
   @ExceptionHandler(BusinessException.class)
   public ResponseEntity<Map<String, Object>> handleBusinessException(
@@ -489,16 +494,9 @@ public class GlobalExceptionHandler {
 
   /** 获取客户端IP地址 */
   private String getClientIpAddress(WebRequest request) {
-    String xForwardedFor = request.getHeader("X-Forwarded-For");
-    if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-      return xForwardedFor.split(",")[0].trim();
-    }
-
-    String xRealIp = request.getHeader("X-Real-IP");
-    if (xRealIp != null && !xRealIp.isEmpty()) {
-      return xRealIp;
+    if (request instanceof ServletWebRequest) {
+      return clientIpUtil.resolve(((ServletWebRequest) request).getRequest());
     }
-
     return "unknown";
   }
 }
@@ -0,0 +1,30 @@
+package com.wanli.backend.monitor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.wanli.backend.cache.AdaptiveTtlController;
+
+/** 缓存TTL端点 通过 /actuator/cachettl 查看各键族当前生效的TTL与调整原因 */
+@Component
+@Endpoint(id = "cachettl")
+public class CacheTtlEndpoint {
+
+  private final AdaptiveTtlController ttlController;
+
+  public CacheTtlEndpoint(AdaptiveTtlController ttlController) {
+    this.ttlController = ttlController;
+  }
+
+  @ReadOperation
+  public Map<String, Object> ttls() {
+    Map<String, Object> result = new HashMap<>();
+    result.put("enabled", ttlController.isEnabled());
+    result.put("families", ttlController.getEffectiveTtls());
+    return result;
+  }
+}
@@ -0,0 +1,140 @@
+package com.wanli.backend.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应并发数限制 按请求延迟的变化自动调整同时处理的请求上限（梯度算法，失败时乘性退避）
+ *
+ * <p>短期延迟为最近一组（10个）请求的平均，长期延迟为最近约600组短期延迟的指数移动平均。每组结束时：
+ * 梯度 = clamp(1.5 × 长期延迟 / 短期延迟, 0.5, 1)，新上限 = 上限 × 梯度 + sqrt(上限)，再与旧上限按0.2平滑。
+ * 延迟稳定时上限缓慢增加，数据库变慢导致延迟上升时上限随之下降，多余的请求在排队之前就被拒绝。
+ * 组内出现失败（5xx、异常）时改为上限乘以0.9。在途请求不足上限一半时不调整，空闲期间上限不会虚涨。
+ * 短期延迟远低于长期延迟时长期延迟向下衰减，避免一次慢查询高峰之后长期偏高。
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+  private static final int WINDOW_SAMPLES = 10;
+  private static final double LONG_RTT_ALPHA = 2.0 / (600 + 1);
+  private static final double RTT_TOLERANCE = 1.5;
+  private static final double MIN_GRADIENT = 0.5;
+  private static final double SMOOTHING = 0.2;
+  private static final double BACKOFF_RATIO = 0.9;
+  private static final double LONG_RTT_DECAY = 0.95;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private volatile int limit;
+  private volatile double lastShortRttNanos;
+
+  // 以下状态只在同步块内访问
+  private double estimatedLimit;
+  private double longRttNanos;
+  private long windowLatencySum;
+  private int windowCount;
+  private boolean windowDropped;
+
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * @param minLimit 并发上限的下限
+   * @param maxLimit 并发上限的上限，也是初始值
+   */
+  public AdaptiveConcurrencyLimiter(int minLimit, int maxLimit) {
+    if (minLimit <= 0 || maxLimit < minLimit) {
+      throw new IllegalArgumentException(
+          String.format("并发数限制参数无效: minLimit=%d, maxLimit=%d", minLimit, maxLimit));
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = maxLimit;
+    this.estimatedLimit = maxLimit;
+  }
+
+  /** 尝试占用一个并发名额，成功后必须调用 {@link #release(long, boolean)} */
+  public boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit) {
+        rejected.increment();
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * 释放名额并记录本次请求
+   *
+   * @param latencyNanos 请求耗时
+   * @param dropped 请求是否因过载失败（5xx、异常）
+   */
+  public void release(long latencyNanos, boolean dropped) {
+    int inFlightAtCompletion = inFlight.getAndDecrement();
+    onSample(latencyNanos, dropped, inFlightAtCompletion);
+  }
+
+  private synchronized void onSample(long latencyNanos, boolean dropped, int inFlightNow) {
+    windowLatencySum += latencyNanos;
+    windowCount++;
+    windowDropped |= dropped;
+    if (windowCount < WINDOW_SAMPLES) {
+      return;
+    }
+
+    double shortRtt = (double) windowLatencySum / windowCount;
+    boolean anyDropped = windowDropped;
+    windowLatencySum = 0;
+    windowCount = 0;
+    windowDropped = false;
+    lastShortRttNanos = shortRtt;
+
+    if (longRttNanos == 0) {
+      longRttNanos = shortRtt;
+    } else {
+      longRttNanos += (shortRtt - longRttNanos) * LONG_RTT_ALPHA;
+      if (longRttNanos / shortRtt > 2) {
+        longRttNanos *= LONG_RTT_DECAY;
+      }
+    }
+
+    double next;
+    if (anyDropped) {
+      next = estimatedLimit * BACKOFF_RATIO;
+    } else if (inFlightNow < estimatedLimit / 2) {
+      return;
+    } else {
+      double gradient =
+          Math.max(MIN_GRADIENT, Math.min(1.0, RTT_TOLERANCE * longRttNanos / shortRtt));
+      double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+      next = estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING;
+    }
+    estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+    limit = (int) estimatedLimit;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  /** 长期平均延迟（毫秒） */
+  public synchronized double getLongRttMillis() {
+    return longRttNanos / 1_000_000;
+  }
+
+  /** 最近一组请求的平均延迟（毫秒） */
+  public double getShortRttMillis() {
+    return lastShortRttNanos / 1_000_000;
+  }
+}
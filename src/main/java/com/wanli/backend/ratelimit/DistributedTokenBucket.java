@@ -0,0 +1,264 @@
+package com.wanli.backend.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.wanli.backend.util.LogUtil;
+
+/**
+ * 集群范围的令牌桶 状态存放在 {@link RateLimitStore}，支持本地租借令牌
+ *
+ * <p>租借模式下本实例一次从存储取出一整块令牌（leaseSize个），之后的请求在本地以CAS扣减，用完才再访问存储，
+ * 高QPS时每个请求的存储往返接近于零。租借只在1秒内有效，未用完的余量随下一次租借一并放回存储（同一次往返），
+ * 或在 {@link #evictExpired()} 清理时放回，不会因作废而白白消耗全局令牌；同一键的补充在锁内进行，并发请求只产生一次往返。
+ * 被拒绝后在存储返回的等待时间内直接本地拒绝，限流期间也不会反复访问存储。
+ *
+ * <p>租借块越大往返越少，但余量放回之前其他实例看不到这部分令牌：各实例的租借块之和应明显小于容量，
+ * 否则空闲实例暂扣的令牌会让繁忙实例在全局仍有余量时被拒绝。存储不可用时放回的余量丢弃。
+ *
+ * <p>GCRA模式不租借，每个请求访问一次存储，用于需要严格平滑的场景。存储不可用时改用本实例的 {@link LocalTokenBucket}
+ * （限额变为单实例限额），5秒后再尝试存储。
+ */
+public final class DistributedTokenBucket {
+
+  private static final long LEASE_TTL_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final long REMOTE_RETRY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  private final RateLimitStore store;
+  private final RateLimitManager.LimitType algorithm;
+  private final long capacity;
+  private final long refillRate;
+  private final long leaseSize;
+  private final LongSupplier nanoClock;
+  private final LocalTokenBucket fallback;
+  private final ConcurrentHashMap<String, Lease> leases = new ConcurrentHashMap<>();
+
+  private final AtomicBoolean degraded = new AtomicBoolean(false);
+  private volatile long remoteRetryAt;
+  private final LongAdder remoteCalls = new LongAdder();
+  private final LongAdder remoteErrors = new LongAdder();
+
+  /** 本实例持有的租借令牌 */
+  private static final class Lease {
+    private final AtomicLong tokens = new AtomicLong();
+    private volatile long expiresAt;
+    private volatile long deniedUntil;
+    private volatile long waitMillis;
+    private volatile long remoteRemaining;
+
+    Lease(long now) {
+      this.expiresAt = now;
+      this.deniedUntil = now;
+    }
+
+    boolean take(int permits, long now) {
+      if (now - expiresAt >= 0) {
+        return false;
+      }
+      long current;
+      while ((current = tokens.get()) >= permits) {
+        if (tokens.compareAndSet(current, current - permits)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * @param store 分布式限流存储
+   * @param algorithm TOKEN_BUCKET 或 GCRA
+   * @param capacity 桶容量（允许的突发数）
+   * @param refillRate 每秒补充的令牌数
+   * @param leaseSize 每次租借的令牌数，不大于1时不租借；GCRA模式忽略
+   */
+  public DistributedTokenBucket(
+      RateLimitStore store,
+      RateLimitManager.LimitType algorithm,
+      long capacity,
+      long refillRate,
+      long leaseSize) {
+    this(store, algorithm, capacity, refillRate, leaseSize, System::nanoTime);
+  }
+
+  DistributedTokenBucket(
+      RateLimitStore store,
+      RateLimitManager.LimitType algorithm,
+      long capacity,
+      long refillRate,
+      long leaseSize,
+      LongSupplier nanoClock) {
+    if (algorithm != RateLimitManager.LimitType.TOKEN_BUCKET
+        && algorithm != RateLimitManager.LimitType.GCRA) {
+      throw new IllegalArgumentException("不支持的分布式限流算法: " + algorithm);
+    }
+    this.store = store;
+    this.algorithm = algorithm;
+    this.capacity = capacity;
+    this.refillRate = refillRate;
+    this.leaseSize = algorithm == RateLimitManager.LimitType.GCRA ? 1 : Math.max(1, leaseSize);
+    this.nanoClock = nanoClock;
+    this.fallback = new LocalTokenBucket(capacity, refillRate, nanoClock);
+    this.remoteRetryAt = nanoClock.getAsLong();
+  }
+
+  /** 尝试获取令牌，成功返回true */
+  public boolean tryAcquire(String key, int permits) {
+    long now = nanoClock.getAsLong();
+    Lease lease = leases.get(key);
+    if (lease == null) {
+      lease = leases.computeIfAbsent(key, k -> new Lease(now));
+    }
+    if (lease.take(permits, now)) {
+      return true;
+    }
+
+    synchronized (lease) {
+      if (lease.take(permits, now)) {
+        return true;
+      }
+      if (now - lease.deniedUntil < 0) {
+        return false;
+      }
+      if (now - remoteRetryAt < 0) {
+        return fallback.tryAcquire(key, permits);
+      }
+
+      // 租借余量（已过期或不够本次使用）随本次往返放回
+      long unused = lease.tokens.getAndSet(0);
+      RateLimitStore.Grant grant;
+      try {
+        remoteCalls.increment();
+        grant =
+            algorithm == RateLimitManager.LimitType.GCRA
+                ? store.acquireGcra(key, capacity, refillRate, permits)
+                : store.acquireTokens(
+                    key, capacity, refillRate, Math.max(leaseSize, permits), permits, unused);
+      } catch (Exception e) {
+        lease.tokens.addAndGet(unused);
+        onRemoteError(e, now);
+        return fallback.tryAcquire(key, permits);
+      }
+      if (degraded.compareAndSet(true, false)) {
+        LogUtil.logBusinessOperation("RATE_LIMIT_REMOTE_RECOVERED", "", "分布式限流存储已恢复");
+      }
+
+      lease.remoteRemaining = grant.getRemaining();
+      if (grant.getGranted() < permits) {
+        lease.waitMillis = grant.getWaitMillis();
+        lease.deniedUntil = now + TimeUnit.MILLISECONDS.toNanos(grant.getWaitMillis());
+        return false;
+      }
+      lease.waitMillis = 0;
+      lease.tokens.set(grant.getGranted() - permits);
+      lease.expiresAt = now + LEASE_TTL_NANOS;
+      return true;
+    }
+  }
+
+  private void onRemoteError(Exception e, long now) {
+    remoteErrors.increment();
+    remoteRetryAt = now + REMOTE_RETRY_NANOS;
+    if (degraded.compareAndSet(false, true)) {
+      LogUtil.logWarn(
+          "RATE_LIMIT_REMOTE",
+          "RATE_LIMIT_REMOTE_ERROR",
+          "分布式限流存储不可用，改用单实例限流: " + e.getMessage());
+    }
+  }
+
+  /** 剩余令牌估计：本地租借余量加上最近一次从存储得知的全局余量 */
+  public long estimateRemaining(String key) {
+    if (degraded.get()) {
+      return fallback.availablePermits(key);
+    }
+    Lease lease = leases.get(key);
+    if (lease == null) {
+      return capacity;
+    }
+    long leased = nanoClock.getAsLong() - lease.expiresAt < 0 ? lease.tokens.get() : 0;
+    return leased + lease.remoteRemaining;
+  }
+
+  /** 最近一次被拒绝时存储给出的等待毫秒数 */
+  public long getWaitMillis(String key) {
+    if (degraded.get()) {
+      return TimeUnit.NANOSECONDS.toMillis(fallback.nanosUntilAvailable(key, 1));
+    }
+    Lease lease = leases.get(key);
+    return lease == null ? 0 : lease.waitMillis;
+  }
+
+  /** 清除本地租借与存储中的状态 */
+  public void reset(String key) {
+    leases.remove(key);
+    fallback.reset(key);
+    try {
+      store.reset(key);
+    } catch (Exception e) {
+      onRemoteError(e, nanoClock.getAsLong());
+    }
+  }
+
+  /** 清除已过期且不在拒绝期内的租借并放回余量，返回清除数量 */
+  public int evictExpired() {
+    long now = nanoClock.getAsLong();
+    int evicted = 0;
+    for (Map.Entry<String, Lease> entry : leases.entrySet()) {
+      Lease lease = entry.getValue();
+      if (!isIdle(lease, now)) {
+        continue;
+      }
+      synchronized (lease) {
+        // 加锁后复查，期间可能已被请求续租
+        if (!isIdle(lease, now) || !leases.remove(entry.getKey(), lease)) {
+          continue;
+        }
+        evicted++;
+        long unused = lease.tokens.getAndSet(0);
+        if (unused > 0) {
+          returnUnused(entry.getKey(), unused, now);
+        }
+      }
+    }
+    fallback.evictIdle();
+    return evicted;
+  }
+
+  private static boolean isIdle(Lease lease, long now) {
+    return now - lease.expiresAt >= 0 && now - lease.deniedUntil >= 0;
+  }
+
+  /** 把租借余量放回存储，存储不可用时丢弃 */
+  private void returnUnused(String key, long unused, long now) {
+    if (now - remoteRetryAt < 0) {
+      return;
+    }
+    try {
+      remoteCalls.increment();
+      store.acquireTokens(key, capacity, refillRate, 0, 0, unused);
+    } catch (Exception e) {
+      onRemoteError(e, now);
+    }
+  }
+
+  // ==================== 统计 ====================
+
+  public long getRemoteCallCount() {
+    return remoteCalls.sum();
+  }
+
+  public long getRemoteErrorCount() {
+    return remoteErrors.sum();
+  }
+
+  /** 是否因存储不可用而使用单实例限流 */
+  public boolean isDegraded() {
+    return degraded.get();
+  }
+}
@@ -0,0 +1,121 @@
+package com.wanli.backend.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 进程内滑动窗口计数器 每个键只保存上一窗口与当前窗口两个计数
+ *
+ * <p>时间按窗口长度切分为固定窗口，滑动窗口内的请求数估计为 上一窗口计数 × 上一窗口仍在滑动窗口内的比例 + 当前窗口计数，
+ * 假设上一窗口的请求均匀分布。内存与请求速率无关，每个键固定三个long；跳过一个以上窗口的键两个计数都清零。
+ */
+public final class LocalSlidingWindowCounter {
+
+  private final long capacity;
+  private final long windowMillis;
+  private final LongSupplier clock;
+  private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+
+  /** 键的两个窗口计数，在自身锁内读写 */
+  private static final class Window {
+    private long index;
+    private long previous;
+    private long current;
+
+    Window(long index) {
+      this.index = index;
+    }
+
+    /** 滚动到指定窗口 */
+    void roll(long targetIndex) {
+      if (targetIndex == index) {
+        return;
+      }
+      previous = targetIndex == index + 1 ? current : 0;
+      current = 0;
+      index = targetIndex;
+    }
+  }
+
+  /**
+   * @param capacity 每个窗口长度内允许的请求数
+   * @param windowMillis 窗口长度（毫秒）
+   */
+  public LocalSlidingWindowCounter(long capacity, long windowMillis) {
+    this(capacity, windowMillis, System::currentTimeMillis);
+  }
+
+  LocalSlidingWindowCounter(long capacity, long windowMillis, LongSupplier clock) {
+    if (capacity <= 0 || windowMillis <= 0) {
+      throw new IllegalArgumentException(
+          String.format("滑动窗口参数无效: capacity=%d, windowMillis=%d", capacity, windowMillis));
+    }
+    this.capacity = capacity;
+    this.windowMillis = windowMillis;
+    this.clock = clock;
+  }
+
+  /** 尝试计入permits个请求 */
+  public RateLimitStore.Grant tryAcquire(String key, long permits) {
+    long now = clock.getAsLong();
+    long index = now / windowMillis;
+    long elapsed = now - index * windowMillis;
+    Window window = windows.get(key);
+    if (window == null) {
+      window = windows.computeIfAbsent(key, k -> new Window(index));
+    }
+
+    synchronized (window) {
+      window.roll(index);
+      double estimated =
+          (double) window.previous * (windowMillis - elapsed) / windowMillis + window.current;
+      if (estimated + permits > capacity) {
+        long wait =
+            waitMillis(capacity, windowMillis, elapsed, window.previous, window.current, permits);
+        return new RateLimitStore.Grant(0, (long) Math.max(0, capacity - estimated), wait);
+      }
+      window.current += permits;
+      return new RateLimitStore.Grant(
+          permits, (long) Math.max(0, capacity - estimated - permits), 0);
+    }
+  }
+
+  /**
+   * 距离可计入permits个请求的毫秒数：当前窗口计数已占满时等到窗口结束，否则等上一窗口的权重降到足够低
+   *
+   * <p>与Redis脚本使用同一公式。
+   */
+  static long waitMillis(
+      long capacity, long windowMillis, long elapsed, long previous, long current, long permits) {
+    long room = capacity - current - permits;
+    if (previous <= 0 || room < 0) {
+      return windowMillis - elapsed;
+    }
+    double allowedAt = windowMillis * (1.0 - (double) room / previous);
+    return Math.max(1, (long) Math.ceil(allowedAt - elapsed));
+  }
+
+  public void reset(String key) {
+    windows.remove(key);
+  }
+
+  /** 清除两个计数都已过期的键，返回清除数量 */
+  public int evictIdle() {
+    long index = clock.getAsLong() / windowMillis;
+    int before = windows.size();
+    windows
+        .values()
+        .removeIf(
+            window -> {
+              synchronized (window) {
+                return window.index < index - 1;
+              }
+            });
+    return before - windows.size();
+  }
+
+  /** 当前跟踪的键数 */
+  public int size() {
+    return windows.size();
+  }
+}
@@ -0,0 +1,119 @@
+package com.wanli.backend.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 进程内无锁令牌桶 每个键一个AtomicLong，以CAS更新
+ *
+ * <p>状态是一个纳秒时间点emptyAt：桶在该时刻恰好为空。当前令牌数为 (now - emptyAt) / 每令牌纳秒数，上限为容量，
+ * 令牌数与上次补充时间由这一个值同时表示，补充按纳秒连续进行，不再按整秒截断。获取n个令牌即把emptyAt
+ * （先对齐到不早于 now - 容量对应的纳秒数）后移n个令牌的纳秒数，结果不晚于now才成功。
+ *
+ * <p>判定只有一次哈希查找和一次CAS，不分配对象；桶已补满的键与新键等价，可由 {@link #evictIdle()} 清除。
+ */
+public final class LocalTokenBucket {
+
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private final long capacity;
+  private final long nanosPerToken;
+  private final long burstNanos;
+  private final LongSupplier nanoClock;
+  private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+  /**
+   * @param capacity 桶容量
+   * @param refillRate 每秒补充的令牌数
+   */
+  public LocalTokenBucket(long capacity, long refillRate) {
+    this(capacity, refillRate, System::nanoTime);
+  }
+
+  LocalTokenBucket(long capacity, long refillRate, LongSupplier nanoClock) {
+    if (capacity <= 0 || refillRate <= 0 || refillRate > NANOS_PER_SECOND) {
+      throw new IllegalArgumentException(
+          String.format("令牌桶参数无效: capacity=%d, refillRate=%d", capacity, refillRate));
+    }
+    this.capacity = capacity;
+    this.nanosPerToken = NANOS_PER_SECOND / refillRate;
+    this.burstNanos = capacity * nanosPerToken;
+    this.nanoClock = nanoClock;
+  }
+
+  /** 尝试获取令牌，成功返回true */
+  public boolean tryAcquire(String key, int permits) {
+    long now = nanoClock.getAsLong();
+    AtomicLong state = buckets.get(key);
+    if (state == null) {
+      state = buckets.computeIfAbsent(key, k -> new AtomicLong(now - burstNanos));
+    }
+    long cost = permits * nanosPerToken;
+    while (true) {
+      long emptyAt = state.get();
+      long next = alignedEmptyAt(emptyAt, now) + cost;
+      if (next - now > 0) {
+        return false;
+      }
+      if (state.compareAndSet(emptyAt, next)) {
+        return true;
+      }
+    }
+  }
+
+  /** 当前可用令牌数 */
+  public long availablePermits(String key) {
+    long now = nanoClock.getAsLong();
+    return (now - alignedEmptyAt(emptyAt(key, now), now)) / nanosPerToken;
+  }
+
+  /** 距离可获取指定数量令牌的纳秒数，现在即可获取时为0 */
+  public long nanosUntilAvailable(String key, int permits) {
+    long now = nanoClock.getAsLong();
+    long next = alignedEmptyAt(emptyAt(key, now), now) + permits * nanosPerToken;
+    return Math.max(0, next - now);
+  }
+
+  /** 距离桶补满的纳秒数 */
+  public long nanosUntilFull(String key) {
+    long now = nanoClock.getAsLong();
+    return Math.max(0, emptyAt(key, now) + burstNanos - now);
+  }
+
+  public void reset(String key) {
+    buckets.remove(key);
+  }
+
+  /**
+   * 清除已补满的桶，返回清除数量
+   *
+   * <p>清除的同时若有线程持有旧状态，最多多放行一次满桶，与清除后新建的桶效果相同。
+   */
+  public int evictIdle() {
+    long now = nanoClock.getAsLong();
+    int before = buckets.size();
+    buckets.values().removeIf(state -> now - state.get() >= burstNanos);
+    return before - buckets.size();
+  }
+
+  /** 当前跟踪的键数 */
+  public int size() {
+    return buckets.size();
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  private long emptyAt(String key, long now) {
+    AtomicLong state = buckets.get(key);
+    return state == null ? now - burstNanos : state.get();
+  }
+
+  /** 令牌数不超过容量：emptyAt不早于 now - 容量对应的纳秒数 */
+  private long alignedEmptyAt(long emptyAt, long now) {
+    long floor = now - burstNanos;
+    return emptyAt - floor < 0 ? floor : emptyAt;
+  }
+}
@@ -3,7 +3,9 @@ package com.wanli.backend.ratelimit;
 import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -23,23 +25,31 @@ public class RateLimitManager {
 
   @Autowired private ApplicationConfigManager configManager;
 
+  // 只在 rate-limit.redis.enabled=true 时存在
+  @Autowired(required = false)
+  private RateLimitStore rateLimitStore;
+
   private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+  // 按路由注册的限流器，由调用方持有引用，不参与整体清理
+  private final Map<String, RateLimiter> routeLimiters = new ConcurrentHashMap<>();
   private final AtomicLong requestCounter = new AtomicLong(0);
   private ScheduledExecutorService cleanupExecutor;
 
   // 限流前缀
   private static final String RATE_LIMIT_PREFIX = "rate_limit:";
-  private static final String TOKEN_BUCKET_PREFIX = "token_bucket:";
-  private static final String SLIDING_WINDOW_PREFIX = "sliding_window:";
   private static final String FIXED_WINDOW_PREFIX = "fixed_window:";
   private static final String LEAKY_BUCKET_PREFIX = "leaky_bucket:";
 
+  // 分布式限流存储失败后改用单实例限流的时长
+  private static final long REMOTE_RETRY_MILLIS = 5000;
+
   /** 限流算法类型 */
   public enum LimitType {
     TOKEN_BUCKET("token_bucket", "令牌桶"),
     SLIDING_WINDOW("sliding_window", "滑动窗口"),
     FIXED_WINDOW("fixed_window", "固定窗口"),
     LEAKY_BUCKET("leaky_bucket", "漏桶"),
+    GCRA("gcra", "通用信元速率算法"),
     CONCURRENT("concurrent", "并发数限制");
 
     private final String code;
@@ -91,10 +101,13 @@ public class RateLimitManager {
     private long capacity = 100; // 容量
     private long refillRate = 10; // 补充速率（每秒）
     private long windowSize = 60; // 窗口大小（秒）
-    private long maxConcurrent = 10; // 最大并发数
+    private long maxConcurrent = 10; // 最大并发数（自适应上限的上界与初始值）
+    private long minConcurrent = 1; // 自适应上限的下界
     private boolean enableBlacklist = false; // 启用黑名单
     private boolean enableWhitelist = false; // 启用白名单
     private long blockDuration = 300; // 阻塞时长（秒）
+    private boolean distributed = false; // 集群范围限流（需要分布式限流存储）
+    private long leaseSize = 0; // 每次租借的令牌数，不大于1时不租借
 
     // Getters and Setters
     public LimitType getLimitType() {
@@ -145,6 +158,14 @@ public class RateLimitManager {
       this.maxConcurrent = maxConcurrent;
     }
 
+    public long getMinConcurrent() {
+      return minConcurrent;
+    }
+
+    public void setMinConcurrent(long minConcurrent) {
+      this.minConcurrent = minConcurrent;
+    }
+
     public boolean isEnableBlacklist() {
       return enableBlacklist;
     }
@@ -168,6 +189,22 @@ public class RateLimitManager {
     public void setBlockDuration(long blockDuration) {
       this.blockDuration = blockDuration;
     }
+
+    public boolean isDistributed() {
+      return distributed;
+    }
+
+    public void setDistributed(boolean distributed) {
+      this.distributed = distributed;
+    }
+
+    public long getLeaseSize() {
+      return leaseSize;
+    }
+
+    public void setLeaseSize(long leaseSize) {
+      this.leaseSize = leaseSize;
+    }
   }
 
   /** 限流结果 */
@@ -217,171 +254,248 @@ public class RateLimitManager {
     RateLimitStatistics getStatistics();
   }
 
-  /** 令牌桶限流器 */
+  /** 令牌桶限流器 基于进程内无锁令牌桶，补充精确到纳秒 */
   public class TokenBucketLimiter implements RateLimiter {
     private final RateLimitConfig config;
+    private final LocalTokenBucket bucket;
+    private final LongAdder totalRequests = new LongAdder();
+    private final LongAdder blockedRequests = new LongAdder();
 
     public TokenBucketLimiter(RateLimitConfig config) {
       this.config = config;
+      this.bucket = new LocalTokenBucket(config.getCapacity(), config.getRefillRate());
     }
 
     @Override
     public RateLimitResult tryAcquire(String key, int permits) {
-      String bucketKey = TOKEN_BUCKET_PREFIX + key;
-      String tokensKey = bucketKey + ":tokens";
-      String lastRefillKey = bucketKey + ":last_refill";
-
-      try {
-        long currentTime = System.currentTimeMillis();
-
-        // 获取当前令牌数和上次补充时间
-        String tokensStr = cacheUtil.get(tokensKey);
-        String lastRefillStr = cacheUtil.get(lastRefillKey);
-
-        long currentTokens = tokensStr != null ? Long.parseLong(tokensStr) : config.getCapacity();
-        long lastRefillTime = lastRefillStr != null ? Long.parseLong(lastRefillStr) : currentTime;
+      totalRequests.increment();
+      long currentTime = System.currentTimeMillis();
+      if (bucket.tryAcquire(key, permits)) {
+        return new RateLimitResult(
+            true,
+            bucket.availablePermits(key),
+            currentTime + TimeUnit.NANOSECONDS.toMillis(bucket.nanosUntilFull(key)),
+            "令牌桶允许",
+            0);
+      }
 
-        // 计算需要补充的令牌数
-        long timePassed = currentTime - lastRefillTime;
-        long tokensToAdd = (timePassed / 1000) * config.getRefillRate();
+      // 令牌不足，拒绝请求；等待时间向上取整到毫秒
+      blockedRequests.increment();
+      long waitTime = (bucket.nanosUntilAvailable(key, permits) + 999_999) / 1_000_000;
+      return new RateLimitResult(
+          false, bucket.availablePermits(key), currentTime + waitTime, "令牌桶限流", waitTime);
+    }
 
-        // 更新令牌数（不超过容量）
-        currentTokens = Math.min(config.getCapacity(), currentTokens + tokensToAdd);
+    @Override
+    public void reset(String key) {
+      bucket.reset(key);
+    }
 
-        if (currentTokens >= permits) {
-          // 有足够令牌，扣除并允许请求
-          currentTokens -= permits;
+    /** 清除已补满的桶 */
+    int evictIdle() {
+      return bucket.evictIdle();
+    }
 
-          // 更新缓存
-          cacheUtil.setWithExpire(
-              tokensKey, String.valueOf(currentTokens), config.getWindowSize() * 2);
-          cacheUtil.setWithExpire(
-              lastRefillKey, String.valueOf(currentTime), config.getWindowSize() * 2);
+    @Override
+    public RateLimitStatistics getStatistics() {
+      long total = totalRequests.sum();
+      long blocked = blockedRequests.sum();
+      return new RateLimitStatistics("TokenBucket", total, total - blocked, blocked);
+    }
+  }
 
-          return new RateLimitResult(
-              true,
-              currentTokens,
-              currentTime + (config.getCapacity() - currentTokens) * 1000 / config.getRefillRate(),
-              "令牌桶允许",
-              0);
-        } else {
-          // 令牌不足，拒绝请求
-          long waitTime = (permits - currentTokens) * 1000 / config.getRefillRate();
-          return new RateLimitResult(
-              false, currentTokens, currentTime + waitTime, "令牌桶限流", waitTime);
-        }
+  /** 集群范围限流器 令牌桶（可租借）或GCRA，状态存放在分布式限流存储 */
+  public class DistributedLimiter implements RateLimiter {
+    private final DistributedTokenBucket bucket;
+    private final String name;
+    private final LongAdder totalRequests = new LongAdder();
+    private final LongAdder blockedRequests = new LongAdder();
+
+    public DistributedLimiter(RateLimitConfig config) {
+      this.bucket =
+          new DistributedTokenBucket(
+              rateLimitStore,
+              config.getLimitType(),
+              config.getCapacity(),
+              config.getRefillRate(),
+              config.getLeaseSize());
+      this.name =
+          config.getLimitType() == LimitType.GCRA ? "DistributedGcra" : "DistributedTokenBucket";
+    }
 
-      } catch (Exception e) {
-        LogUtil.logError(
-            "RATE_LIMIT_MANAGER", "", "TOKEN_BUCKET_ERROR", String.format("令牌桶限流检查失败: %s", key), e);
-        return new RateLimitResult(true, 0, 0, "限流检查异常，默认允许", 0);
+    @Override
+    public RateLimitResult tryAcquire(String key, int permits) {
+      totalRequests.increment();
+      long currentTime = System.currentTimeMillis();
+      if (bucket.tryAcquire(key, permits)) {
+        return new RateLimitResult(
+            true, bucket.estimateRemaining(key), currentTime, "分布式限流允许", 0);
       }
+
+      blockedRequests.increment();
+      long waitTime = bucket.getWaitMillis(key);
+      return new RateLimitResult(
+          false, bucket.estimateRemaining(key), currentTime + waitTime, "分布式限流", waitTime);
     }
 
     @Override
     public void reset(String key) {
-      String bucketKey = TOKEN_BUCKET_PREFIX + key;
-      cacheUtil.delete(bucketKey + ":tokens");
-      cacheUtil.delete(bucketKey + ":last_refill");
+      bucket.reset(key);
+    }
+
+    /** 清除过期的本地租借 */
+    int evictExpired() {
+      return bucket.evictExpired();
     }
 
     @Override
     public RateLimitStatistics getStatistics() {
-      return new RateLimitStatistics("TokenBucket", 0, 0, 0);
+      long total = totalRequests.sum();
+      long blocked = blockedRequests.sum();
+      return new RateLimitStatistics(name, total, total - blocked, blocked);
     }
   }
 
-  /** 滑动窗口限流器 */
+  /**
+   * 滑动窗口限流器 以上一窗口与当前窗口两个计数插值，每个键的内存固定
+   *
+   * <p>配置为分布式且存在分布式限流存储时计数放在存储中，存储不可用时改用本实例计数，5秒后再尝试存储。
+   */
   public class SlidingWindowLimiter implements RateLimiter {
     private final RateLimitConfig config;
+    private final LocalSlidingWindowCounter localCounter;
+    private final boolean distributed;
+    private volatile long remoteRetryAt;
+    private final LongAdder totalRequests = new LongAdder();
+    private final LongAdder blockedRequests = new LongAdder();
 
     public SlidingWindowLimiter(RateLimitConfig config) {
       this.config = config;
+      this.localCounter =
+          new LocalSlidingWindowCounter(config.getCapacity(), config.getWindowSize() * 1000);
+      this.distributed = config.isDistributed() && rateLimitStore != null;
     }
 
     @Override
     public RateLimitResult tryAcquire(String key, int permits) {
-      String windowKey = SLIDING_WINDOW_PREFIX + key;
+      totalRequests.increment();
       long currentTime = System.currentTimeMillis();
-      long windowStart = currentTime - config.getWindowSize() * 1000;
-
-      try {
-        // 使用Lua脚本实现原子操作
-        String script =
-            "local key = KEYS[1]\n"
-                + "local window_start = ARGV[1]\n"
-                + "local current_time = ARGV[2]\n"
-                + "local capacity = tonumber(ARGV[3])\n"
-                + "local permits = tonumber(ARGV[4])\n"
-                + "\n"
-                + "-- 清理过期记录\n"
-                + "redis.call('ZREMRANGEBYSCORE', key, 0, window_start)\n"
-                + "\n"
-                + "-- 获取当前窗口内的请求数\n"
-                + "local current_count = redis.call('ZCARD', key)\n"
-                + "\n"
-                + "if current_count + permits <= capacity then\n"
-                + "    -- 添加当前请求\n"
-                + "    for i = 1, permits do\n"
-                + "        redis.call('ZADD', key, current_time, current_time .. '-' .. i)\n"
-                + "    end\n"
-                + "    -- 设置过期时间\n"
-                + "    redis.call('EXPIRE', key, "
-                + (config.getWindowSize() * 2)
-                + ")\n"
-                + "    return {1, capacity - current_count - permits, 0}\n"
-                + "else\n"
-                + "    return {0, capacity - current_count, 1000}\n"
-                + "end";
-
-        Object result =
-            cacheUtil.executeScript(
-                script,
-                new String[] {windowKey},
-                new String[] {
-                  String.valueOf(windowStart),
-                  String.valueOf(currentTime),
-                  String.valueOf(config.getCapacity()),
-                  String.valueOf(permits)
-                });
-
-        if (result instanceof java.util.List) {
-          @SuppressWarnings("unchecked")
-          java.util.List<Object> resultList = (java.util.List<Object>) result;
-          boolean allowed = "1".equals(String.valueOf(resultList.get(0)));
-          long remaining = Long.parseLong(String.valueOf(resultList.get(1)));
-          long waitTime = Long.parseLong(String.valueOf(resultList.get(2)));
+      RateLimitStore.Grant grant = acquire(key, permits, currentTime);
+      if (grant.getGranted() >= permits) {
+        return new RateLimitResult(
+            true,
+            grant.getRemaining(),
+            currentTime + config.getWindowSize() * 1000,
+            "滑动窗口允许",
+            0);
+      }
 
-          return new RateLimitResult(
-              allowed,
-              remaining,
-              currentTime + config.getWindowSize() * 1000,
-              allowed ? "滑动窗口允许" : "滑动窗口限流",
-              waitTime);
+      blockedRequests.increment();
+      return new RateLimitResult(
+          false,
+          grant.getRemaining(),
+          currentTime + grant.getWaitMillis(),
+          "滑动窗口限流",
+          grant.getWaitMillis());
+    }
+
+    private RateLimitStore.Grant acquire(String key, int permits, long currentTime) {
+      if (distributed && currentTime >= remoteRetryAt) {
+        try {
+          return rateLimitStore.acquireSlidingWindow(
+              key, config.getCapacity(), config.getWindowSize() * 1000, permits);
+        } catch (Exception e) {
+          remoteRetryAt = currentTime + REMOTE_RETRY_MILLIS;
+          LogUtil.logWarn(
+              "RATE_LIMIT_MANAGER",
+              "RATE_LIMIT_REMOTE_ERROR",
+              String.format("滑动窗口分布式计数失败，改用单实例计数: %s", key));
         }
+      }
+      return localCounter.tryAcquire(key, permits);
+    }
 
-        return new RateLimitResult(true, 0, 0, "限流检查异常，默认允许", 0);
+    @Override
+    public void reset(String key) {
+      localCounter.reset(key);
+      if (distributed) {
+        rateLimitStore.reset(key);
+      }
+    }
 
-      } catch (Exception e) {
-        LogUtil.logError(
-            "RATE_LIMIT_MANAGER",
-            "",
-            "SLIDING_WINDOW_ERROR",
-            String.format("滑动窗口限流检查失败: %s", key),
-            e);
-        return new RateLimitResult(true, 0, 0, "限流检查异常，默认允许", 0);
+    /** 清除计数已过期的键 */
+    int evictIdle() {
+      return localCounter.evictIdle();
+    }
+
+    @Override
+    public RateLimitStatistics getStatistics() {
+      long total = totalRequests.sum();
+      long blocked = blockedRequests.sum();
+      return new RateLimitStatistics("SlidingWindow", total, total - blocked, blocked);
+    }
+  }
+
+  /**
+   * 并发数限制器 同时处理的请求数不超过自适应上限，上限按延迟在 [minConcurrent, maxConcurrent] 内调整
+   *
+   * <p>许可数不参与计算，每次获取占用一个名额；获取成功后须通过 {@link RateLimitManager#releaseConcurrency} 释放。
+   */
+  public class ConcurrencyLimiter implements RateLimiter {
+    private final RateLimitConfig config;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private final LongAdder totalRequests = new LongAdder();
+    private final LongAdder blockedRequests = new LongAdder();
+
+    public ConcurrencyLimiter(RateLimitConfig config) {
+      this.config = config;
+    }
+
+    private AdaptiveConcurrencyLimiter limiterFor(String key) {
+      return limiters.computeIfAbsent(
+          key,
+          k ->
+              new AdaptiveConcurrencyLimiter(
+                  (int) config.getMinConcurrent(), (int) config.getMaxConcurrent()));
+    }
+
+    @Override
+    public RateLimitResult tryAcquire(String key, int permits) {
+      totalRequests.increment();
+      AdaptiveConcurrencyLimiter limiter = limiterFor(key);
+      if (limiter.tryAcquire()) {
+        return new RateLimitResult(
+            true, limiter.getLimit() - limiter.getInFlight(), 0, "并发数允许", 0);
       }
+      blockedRequests.increment();
+      return new RateLimitResult(false, 0, 0, "并发数限制", 0);
+    }
+
+    /** 释放名额并记录请求耗时 */
+    void release(String key, long latencyNanos, boolean dropped) {
+      AdaptiveConcurrencyLimiter limiter = limiters.get(key);
+      if (limiter != null) {
+        limiter.release(latencyNanos, dropped);
+      }
+    }
+
+    /** 当前并发上限，尚未使用时为最大值 */
+    public int getLimit(String key) {
+      AdaptiveConcurrencyLimiter limiter = limiters.get(key);
+      return limiter == null ? (int) config.getMaxConcurrent() : limiter.getLimit();
     }
 
     @Override
     public void reset(String key) {
-      String windowKey = SLIDING_WINDOW_PREFIX + key;
-      cacheUtil.delete(windowKey);
+      // 仍有在途请求时保留，否则这些请求释放名额时找不到限制器
+      limiters.computeIfPresent(key, (k, old) -> old.getInFlight() == 0 ? null : old);
     }
 
     @Override
     public RateLimitStatistics getStatistics() {
-      return new RateLimitStatistics("SlidingWindow", 0, 0, 0);
+      long total = totalRequests.sum();
+      long blocked = blockedRequests.sum();
+      return new RateLimitStatistics("Concurrency", total, total - blocked, blocked);
     }
   }
 
@@ -594,6 +708,22 @@ public class RateLimitManager {
 
   /** 检查限流（指定许可数） */
   public RateLimitResult checkLimit(String key, int permits, RateLimitConfig config) {
+    // 获取或创建限流器
+    String limiterKey = config.getLimitType().getCode() + ":" + key;
+    RateLimiter limiter = rateLimiters.computeIfAbsent(limiterKey, k -> createLimiter(config));
+    return checkLimit(limiter, key, permits, config);
+  }
+
+  /**
+   * 使用已解析的限流器检查限流，省去按键查找限流器
+   *
+   * @param limiter {@link #registerRouteLimiter} 返回的限流器
+   * @param key 限流键
+   * @param permits 许可数
+   * @param config 创建该限流器时的配置
+   */
+  public RateLimitResult checkLimit(
+      RateLimiter limiter, String key, int permits, RateLimitConfig config) {
     // 检查白名单
     if (config.isEnableWhitelist() && isInWhitelist(key)) {
       return new RateLimitResult(true, Long.MAX_VALUE, 0, "白名单允许", 0);
@@ -609,10 +739,6 @@ public class RateLimitManager {
           config.getBlockDuration() * 1000);
     }
 
-    // 获取或创建限流器
-    String limiterKey = config.getLimitType().getCode() + ":" + key;
-    RateLimiter limiter = rateLimiters.computeIfAbsent(limiterKey, k -> createLimiter(config));
-
     // 执行限流检查
     RateLimitResult result = limiter.tryAcquire(key, permits);
 
@@ -635,6 +761,34 @@ public class RateLimitManager {
     return result;
   }
 
+  /**
+   * 注册路由级限流器，同一路由重复注册返回同一实例
+   *
+   * <p>限流器内部按键区分计数，调用方在启动时解析一次并持有引用，之后通过 {@link #checkLimit(RateLimiter, String,
+   * int, RateLimitConfig)} 检查。
+   *
+   * @param route 路由名称
+   * @param config 限流配置
+   */
+  public RateLimiter registerRouteLimiter(String route, RateLimitConfig config) {
+    return routeLimiters.computeIfAbsent(
+        "route:" + config.getLimitType().getCode() + ":" + route, k -> createLimiter(config));
+  }
+
+  /**
+   * 释放并发名额，与 {@link LimitType#CONCURRENT} 的 checkLimit 成对调用
+   *
+   * @param key 限流键
+   * @param latencyNanos 请求耗时
+   * @param dropped 请求是否因过载失败（5xx、异常）
+   */
+  public void releaseConcurrency(String key, long latencyNanos, boolean dropped) {
+    RateLimiter limiter = rateLimiters.get(LimitType.CONCURRENT.getCode() + ":" + key);
+    if (limiter instanceof ConcurrencyLimiter) {
+      ((ConcurrencyLimiter) limiter).release(key, latencyNanos, dropped);
+    }
+  }
+
   /** 重置限流 */
   public void resetLimit(String key, LimitType limitType) {
     String limiterKey = limitType.getCode() + ":" + key;
@@ -700,6 +854,11 @@ public class RateLimitManager {
   private RateLimiter createLimiter(RateLimitConfig config) {
     switch (config.getLimitType()) {
       case TOKEN_BUCKET:
+      case GCRA:
+        // 未配置分布式存储时退回进程内令牌桶（与GCRA判定结果相同）
+        if (config.isDistributed() && rateLimitStore != null) {
+          return new DistributedLimiter(config);
+        }
         return new TokenBucketLimiter(config);
       case SLIDING_WINDOW:
         return new SlidingWindowLimiter(config);
@@ -707,6 +866,8 @@ public class RateLimitManager {
         return new FixedWindowLimiter(config);
       case LEAKY_BUCKET:
         return new LeakyBucketLimiter(config);
+      case CONCURRENT:
+        return new ConcurrencyLimiter(config);
       default:
         return new TokenBucketLimiter(config);
     }
@@ -715,10 +876,13 @@ public class RateLimitManager {
   /** 清理过期的限流器 */
   private void cleanupExpiredLimiters() {
     try {
-      // 这里可以实现更复杂的清理逻辑
-      // 目前简单地清理一些不活跃的限流器
+      // 令牌桶补满的键与新键等价，清除以释放内存
+      rateLimiters.values().forEach(this::evictIdle);
+      routeLimiters.values().forEach(this::evictIdle);
+
+      // 限流器过多时整体清理；并发数限制器保留，否则在途请求无法释放名额
       if (rateLimiters.size() > 1000) {
-        rateLimiters.clear();
+        rateLimiters.values().removeIf(limiter -> !(limiter instanceof ConcurrencyLimiter));
         LogUtil.logInfo("RATE_LIMIT_MANAGER", "", "清理限流器缓存");
       }
     } catch (Exception e) {
@@ -726,12 +890,23 @@ public class RateLimitManager {
     }
   }
 
+  /** 清除限流器内已空闲的键 */
+  private void evictIdle(RateLimiter limiter) {
+    if (limiter instanceof TokenBucketLimiter) {
+      ((TokenBucketLimiter) limiter).evictIdle();
+    } else if (limiter instanceof DistributedLimiter) {
+      ((DistributedLimiter) limiter).evictExpired();
+    } else if (limiter instanceof SlidingWindowLimiter) {
+      ((SlidingWindowLimiter) limiter).evictIdle();
+    }
+  }
+
   /** 获取统计信息 */
   public GlobalRateLimitStatistics getGlobalStatistics() {
     return new GlobalRateLimitStatistics(
-        rateLimiters.size(),
+        rateLimiters.size() + routeLimiters.size(),
         requestCounter.get(),
-        rateLimiters.entrySet().stream()
+        Stream.concat(rateLimiters.entrySet().stream(), routeLimiters.entrySet().stream())
             .collect(
                 Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getStatistics())));
   }
@@ -797,6 +972,10 @@ public class RateLimitManager {
         config.setCapacity(100);
         config.setRefillRate(10);
         break;
+      case GCRA:
+        config.setCapacity(100);
+        config.setRefillRate(10);
+        break;
       case CONCURRENT:
         config.setMaxConcurrent(10);
         break;
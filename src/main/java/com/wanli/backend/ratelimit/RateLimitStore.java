@@ -0,0 +1,69 @@
+package com.wanli.backend.ratelimit;
+
+/** 分布式限流存储 多个应用实例共享的限流状态，每次调用在存储端原子执行，生产环境由Redis实现 */
+public interface RateLimitStore {
+
+  /**
+   * 令牌桶：按经过的时间补充令牌并放回returned个（合计不超过容量）后，若令牌不少于minimum则取出 min(requested, 当前令牌数) 个
+   *
+   * @param key 限流键
+   * @param capacity 桶容量
+   * @param refillRate 每秒补充的令牌数
+   * @param requested 希望取出的令牌数（租借时为整块大小）
+   * @param minimum 至少需要的令牌数，不足时一个也不取
+   * @param returned 先放回的令牌数（上一次租借未用完的余量），为0时不放回
+   */
+  Grant acquireTokens(
+      String key, long capacity, long refillRate, long requested, long minimum, long returned);
+
+  /**
+   * GCRA：以理论到达时间判定permits个请求，效果等同容量为capacity、速率为refillRate的令牌桶
+   *
+   * @param key 限流键
+   * @param capacity 允许的突发请求数
+   * @param refillRate 每秒允许的请求数
+   * @param permits 本次请求数
+   */
+  Grant acquireGcra(String key, long capacity, long refillRate, long permits);
+
+  /**
+   * 滑动窗口计数：按上一窗口与当前窗口两个计数插值估计窗口内请求数，不超过capacity时计入permits个请求
+   *
+   * @param key 限流键
+   * @param capacity 每个窗口长度内允许的请求数
+   * @param windowMillis 窗口长度（毫秒）
+   * @param permits 本次请求数
+   */
+  Grant acquireSlidingWindow(String key, long capacity, long windowMillis, long permits);
+
+  /** 清除键的限流状态 */
+  void reset(String key);
+
+  /** 一次判定的结果 */
+  final class Grant {
+    private final long granted;
+    private final long remaining;
+    private final long waitMillis;
+
+    public Grant(long granted, long remaining, long waitMillis) {
+      this.granted = granted;
+      this.remaining = remaining;
+      this.waitMillis = waitMillis;
+    }
+
+    /** 取得的令牌数，拒绝时为0 */
+    public long getGranted() {
+      return granted;
+    }
+
+    /** 判定后剩余的令牌数 */
+    public long getRemaining() {
+      return remaining;
+    }
+
+    /** 拒绝时距离可获取的毫秒数，允许时为0 */
+    public long getWaitMillis() {
+      return waitMillis;
+    }
+  }
+}
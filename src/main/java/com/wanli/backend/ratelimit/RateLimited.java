@@ -0,0 +1,47 @@
+package com.wanli.backend.ratelimit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 接口限流注解 标注在控制器方法上，由 {@link com.wanli.backend.config.RateLimitInterceptor} 在启动时解析
+ *
+ * <p>令牌桶、GCRA按 capacity/refillRate 限流，滑动窗口、固定窗口按 capacity/windowSize 限流。并发数限制由
+ * {@link com.wanli.backend.config.ConcurrencyLimitFilter} 负责，不能用于本注解。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimited {
+
+  /** 路由名称，默认为 类名.方法名；同名路由共用一个限流器 */
+  String name() default "";
+
+  /** 限流算法 */
+  RateLimitManager.LimitType type() default RateLimitManager.LimitType.TOKEN_BUCKET;
+
+  /** 限流维度：USER 按当前用户（未登录时按IP），IP 按客户端IP，API 整个路由共用 */
+  RateLimitManager.LimitLevel level() default RateLimitManager.LimitLevel.USER;
+
+  /** 容量（令牌桶容量或窗口内请求数） */
+  long capacity() default 100;
+
+  /** 补充速率（每秒） */
+  long refillRate() default 10;
+
+  /** 窗口大小（秒） */
+  long windowSize() default 60;
+
+  /** 集群范围限流（需要分布式限流存储） */
+  boolean distributed() default false;
+
+  /**
+   * 按批量大小计算许可数的请求参数名，许可数为该参数的值个数（逗号分隔的值逐个计数），至少为1、至多为容量
+   *
+   * <p>为空时每个请求占用一个许可。
+   */
+  String weightParam() default "";
+}
@@ -0,0 +1,180 @@
+package com.wanli.backend.ratelimit;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis分布式限流存储 令牌桶、GCRA与滑动窗口计数均为服务端Lua脚本，一次往返内完成读取、计算与写回
+ *
+ * <p>时间取自Redis的TIME命令（微秒），各实例的时钟偏差不影响判定。脚本以EVALSHA执行，Redis重启丢失脚本缓存时自动改用EVAL。
+ * Lua把数字转为字符串时只保留14位有效数字，微秒时间戳因此以 string.format 写入。键统一加 wanli:ratelimit: 前缀，
+ * 只在 rate-limit.redis.enabled=true 时创建。
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.redis.enabled", havingValue = "true")
+public class RedisRateLimitStore implements RateLimitStore {
+
+  private static final String TOKEN_BUCKET_PREFIX = "wanli:ratelimit:tb:";
+  private static final String GCRA_PREFIX = "wanli:ratelimit:gcra:";
+  private static final String SLIDING_WINDOW_PREFIX = "wanli:ratelimit:sw:";
+
+  // KEYS[1]=桶；ARGV=容量, 每秒补充数, 希望取出数, 至少需要数, 放回数；返回 {取得数, 剩余数, 等待毫秒}
+  // 拒绝时也写回状态，放回的令牌不会丢失
+  private static final String TOKEN_BUCKET_SCRIPT =
+      "local t = redis.call('TIME')\n"
+          + "local now = tonumber(t[1]) * 1000000 + tonumber(t[2])\n"
+          + "local capacity = tonumber(ARGV[1])\n"
+          + "local rate = tonumber(ARGV[2])\n"
+          + "local requested = tonumber(ARGV[3])\n"
+          + "local minimum = tonumber(ARGV[4])\n"
+          + "local returned = tonumber(ARGV[5])\n"
+          + "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')\n"
+          + "local tokens = tonumber(state[1])\n"
+          + "local ts = tonumber(state[2])\n"
+          + "if tokens == nil or ts == nil then\n"
+          + "  tokens = capacity\n"
+          + "elseif now > ts then\n"
+          + "  tokens = math.min(capacity, tokens + (now - ts) * rate / 1000000)\n"
+          + "end\n"
+          + "tokens = math.min(capacity, tokens + returned)\n"
+          + "local granted = 0\n"
+          + "local wait = 0\n"
+          + "if tokens < minimum then\n"
+          + "  wait = math.ceil((minimum - tokens) * 1000 / rate)\n"
+          + "else\n"
+          + "  granted = math.min(requested, math.floor(tokens))\n"
+          + "  tokens = tokens - granted\n"
+          + "end\n"
+          + "redis.call('HSET', KEYS[1], 'tokens', string.format('%.6f', tokens),"
+          + " 'ts', string.format('%.0f', now))\n"
+          + "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000)\n"
+          + "return {granted, math.floor(tokens), wait}";
+
+  // KEYS[1]=理论到达时间；ARGV=突发数, 每秒允许数, 请求数；返回 {取得数, 剩余数, 等待毫秒}
+  private static final String GCRA_SCRIPT =
+      "local t = redis.call('TIME')\n"
+          + "local now = tonumber(t[1]) * 1000000 + tonumber(t[2])\n"
+          + "local capacity = tonumber(ARGV[1])\n"
+          + "local interval = 1000000 / tonumber(ARGV[2])\n"
+          + "local permits = tonumber(ARGV[3])\n"
+          + "local tolerance = capacity * interval\n"
+          + "local tat = tonumber(redis.call('GET', KEYS[1]))\n"
+          + "if tat == nil or tat < now then\n"
+          + "  tat = now\n"
+          + "end\n"
+          + "local new_tat = tat + permits * interval\n"
+          + "local allow_at = new_tat - tolerance\n"
+          + "if allow_at > now then\n"
+          + "  return {0, math.floor((tolerance - (tat - now)) / interval),"
+          + " math.ceil((allow_at - now) / 1000)}\n"
+          + "end\n"
+          + "redis.call('SET', KEYS[1], string.format('%.0f', new_tat),"
+          + " 'PX', math.ceil((new_tat - now) / 1000) + 1)\n"
+          + "return {permits, math.floor((tolerance - (new_tat - now)) / interval), 0}";
+
+  // KEYS[1]=窗口计数；ARGV=容量, 窗口毫秒数, 请求数；返回 {取得数, 剩余数, 等待毫秒}
+  // 等待时间与 LocalSlidingWindowCounter.waitMillis 使用同一公式
+  private static final String SLIDING_WINDOW_SCRIPT =
+      "local t = redis.call('TIME')\n"
+          + "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)\n"
+          + "local capacity = tonumber(ARGV[1])\n"
+          + "local window = tonumber(ARGV[2])\n"
+          + "local permits = tonumber(ARGV[3])\n"
+          + "local index = math.floor(now / window)\n"
+          + "local elapsed = now - index * window\n"
+          + "local state = redis.call('HMGET', KEYS[1], 'win', 'prev', 'curr')\n"
+          + "local win = tonumber(state[1])\n"
+          + "local prev = tonumber(state[2]) or 0\n"
+          + "local curr = tonumber(state[3]) or 0\n"
+          + "if win ~= index then\n"
+          + "  if win == index - 1 then prev = curr else prev = 0 end\n"
+          + "  curr = 0\n"
+          + "end\n"
+          + "local estimated = prev * (window - elapsed) / window + curr\n"
+          + "if estimated + permits > capacity then\n"
+          + "  local room = capacity - curr - permits\n"
+          + "  local wait = window - elapsed\n"
+          + "  if prev > 0 and room >= 0 then\n"
+          + "    wait = math.max(1, math.ceil(window * (1 - room / prev) - elapsed))\n"
+          + "  end\n"
+          + "  return {0, math.floor(math.max(0, capacity - estimated)), wait}\n"
+          + "end\n"
+          + "curr = curr + permits\n"
+          + "redis.call('HSET', KEYS[1], 'win', string.format('%.0f', index),"
+          + " 'prev', string.format('%.0f', prev), 'curr', string.format('%.0f', curr))\n"
+          + "redis.call('PEXPIRE', KEYS[1], window * 2)\n"
+          + "return {permits, math.floor(math.max(0, capacity - estimated - permits)), 0}";
+
+  private final StringRedisTemplate redisTemplate;
+  private final RedisScript<List<Long>> tokenBucketScript = script(TOKEN_BUCKET_SCRIPT);
+  private final RedisScript<List<Long>> gcraScript = script(GCRA_SCRIPT);
+  private final RedisScript<List<Long>> slidingWindowScript = script(SLIDING_WINDOW_SCRIPT);
+
+  public RedisRateLimitStore(RedisConnectionFactory connectionFactory) {
+    this.redisTemplate = new StringRedisTemplate(connectionFactory);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static RedisScript<List<Long>> script(String text) {
+    return new DefaultRedisScript<>(text, (Class<List<Long>>) (Class<?>) List.class);
+  }
+
+  @Override
+  public Grant acquireTokens(
+      String key, long capacity, long refillRate, long requested, long minimum, long returned) {
+    List<Long> result =
+        redisTemplate.execute(
+            tokenBucketScript,
+            Collections.singletonList(TOKEN_BUCKET_PREFIX + key),
+            String.valueOf(capacity),
+            String.valueOf(refillRate),
+            String.valueOf(requested),
+            String.valueOf(minimum),
+            String.valueOf(returned));
+    return toGrant(result);
+  }
+
+  @Override
+  public Grant acquireGcra(String key, long capacity, long refillRate, long permits) {
+    List<Long> result =
+        redisTemplate.execute(
+            gcraScript,
+            Collections.singletonList(GCRA_PREFIX + key),
+            String.valueOf(capacity),
+            String.valueOf(refillRate),
+            String.valueOf(permits));
+    return toGrant(result);
+  }
+
+  @Override
+  public Grant acquireSlidingWindow(String key, long capacity, long windowMillis, long permits) {
+    List<Long> result =
+        redisTemplate.execute(
+            slidingWindowScript,
+            Collections.singletonList(SLIDING_WINDOW_PREFIX + key),
+            String.valueOf(capacity),
+            String.valueOf(windowMillis),
+            String.valueOf(permits));
+    return toGrant(result);
+  }
+
+  @Override
+  public void reset(String key) {
+    redisTemplate.delete(
+        List.of(TOKEN_BUCKET_PREFIX + key, GCRA_PREFIX + key, SLIDING_WINDOW_PREFIX + key));
+  }
+
+  private static Grant toGrant(List<Long> result) {
+    if (result == null || result.size() < 3) {
+      throw new IllegalStateException("限流脚本返回结果无效: " + result);
+    }
+    return new Grant(result.get(0), result.get(1), result.get(2));
+  }
+}
@@ -33,6 +33,14 @@ public interface CourseRepository extends JpaRepository<Course, UUID> {
   @Query("SELECT c FROM Course c WHERE c.deletedAt IS NULL ORDER BY c.createdAt DESC")
   List<Course> findAllNotDeletedUnlimited();
 
+  /**
+   * 查找所有未删除课程的ID 只取ID列，用于启动时登记防穿透过滤器
+   *
+   * @return 课程ID列表
+   */
+  @Query("SELECT c.id FROM Course c WHERE c.deletedAt IS NULL")
+  List<UUID> findAllNotDeletedIds();
+
   /**
    * 根据ID查找课程（排除已删除的课程）
    *
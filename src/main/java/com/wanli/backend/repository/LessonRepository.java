@@ -58,6 +58,14 @@ public interface LessonRepository extends JpaRepository<Lesson, UUID> {
       "SELECT l FROM Lesson l WHERE l.courseId = :courseId AND l.deletedAt IS NULL ORDER BY l.orderIndex ASC")
   List<Lesson> findByCourseIdAndNotDeletedOrderByOrderIndex(@Param("courseId") UUID courseId);
 
+  /**
+   * 查找所有未删除课时的ID 只取ID列，用于启动时登记防穿透过滤器
+   *
+   * @return 课时ID列表
+   */
+  @Query("SELECT l.id FROM Lesson l WHERE l.deletedAt IS NULL")
+  List<UUID> findAllNotDeletedIds();
+
   /**
    * 根据ID查找课时（排除已删除的课时） 使用JOIN FETCH预加载Course关联
    *
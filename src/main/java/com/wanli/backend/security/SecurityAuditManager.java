@@ -11,6 +11,7 @@ import org.springframework.stereotype.Component;
 
 import com.wanli.backend.config.ApplicationConfigManager;
 import com.wanli.backend.util.CacheUtil;
+import com.wanli.backend.util.ClientIpUtil;
 import com.wanli.backend.util.LogUtil;
 
 import jakarta.annotation.PostConstruct;
@@ -24,6 +25,8 @@ public class SecurityAuditManager {
 
   @Autowired private ApplicationConfigManager configManager;
 
+  @Autowired private ClientIpUtil clientIpUtil;
+
   private final Map<String, SecurityEvent> recentEvents = new ConcurrentHashMap<>();
   private final Map<String, ThreatPattern> threatPatterns = new ConcurrentHashMap<>();
   private final AtomicLong eventCounter = new AtomicLong(0);
@@ -674,19 +677,7 @@ public class SecurityAuditManager {
 
   /** 获取客户端IP地址 */
   private String getClientIpAddress(HttpServletRequest request) {
-    String xForwardedFor = request.getHeader("X-Forwarded-For");
-    if (xForwardedFor != null
-        && !xForwardedFor.isEmpty()
-        && !"unknown".equalsIgnoreCase(xForwardedFor)) {
-      return xForwardedFor.split(",")[0].trim();
-    }
-
-    String xRealIp = request.getHeader("X-Real-IP");
-    if (xRealIp != null && !xRealIp.isEmpty() && !"unknown".equalsIgnoreCase(xRealIp)) {
-      return xRealIp;
-    }
-
-    return request.getRemoteAddr();
+    return clientIpUtil.resolve(request);
   }
 
   /** 处理实时事件 */
@@ -11,6 +11,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.wanli.backend.cache.CacheManager;
 import com.wanli.backend.entity.Course;
 import com.wanli.backend.entity.User;
 import com.wanli.backend.event.CourseDeletedEvent;
@@ -35,6 +36,7 @@ public class CourseService {
   private final CourseRepository courseRepository;
   private final UserRepository userRepository;
   private final CacheUtil cacheUtil;
+  private final CacheManager cacheManager;
   private final ConfigUtil configUtil;
   private final ApplicationEventPublisher eventPublisher;
 
@@ -43,22 +45,26 @@ public class CourseService {
   private static final String COURSE_LIST_CACHE_PREFIX = "course:list:";
   private static final String COURSE_LIST_CACHE_KEY = "course:list:all";
   private static final String COURSE_LIST_PAGINATED_PREFIX = "course:list:page:";
-  private static final String COURSE_USER_LIST_PREFIX = "course:user:";
 
   // 缓存TTL配置（分钟）
   private static final int COURSE_DETAIL_TTL = 30; // 课程详情缓存30分钟
   private static final int COURSE_LIST_TTL = 15; // 课程列表缓存15分钟
   private static final int COURSE_PAGINATED_TTL = 10; // 分页列表缓存10分钟
 
+  // 批量查询的最大ID数
+  private static final int MAX_BATCH_QUERY_SIZE = 100;
+
   public CourseService(
       CourseRepository courseRepository,
       UserRepository userRepository,
       CacheUtil cacheUtil,
+      CacheManager cacheManager,
       ConfigUtil configUtil,
       ApplicationEventPublisher eventPublisher) {
     this.courseRepository = courseRepository;
     this.userRepository = userRepository;
     this.cacheUtil = cacheUtil;
+    this.cacheManager = cacheManager;
     this.configUtil = configUtil;
     this.eventPublisher = eventPublisher;
   }
@@ -138,9 +144,10 @@ public class CourseService {
         // 构建分页参数
         Pageable pageable = createPageable(page, size, sortBy, sortDirection);
 
-        // 构建缓存键
+        // 构建缓存键（带课程集合代际）
         String cacheKey =
-            COURSE_LIST_PAGINATED_PREFIX + page + ":" + size + ":" + sortBy + ":" + sortDirection;
+            cacheManager.generationKey(
+                COURSE_LIST_PAGINATED_PREFIX, page + ":" + size + ":" + sortBy + ":" + sortDirection);
 
         // 优先从缓存获取
         @SuppressWarnings("unchecked")
@@ -268,6 +275,11 @@ public class CourseService {
               "获取课程详情成功", Map.of("course", createCourseResponse(cachedCourse)));
         }
 
+        // 防穿透过滤器确认不存在的ID直接返回未找到，不访问数据库
+        if (cacheUtil.rejectKnownAbsent(cacheKey)) {
+          throw new ResourceNotFoundException("COURSE_NOT_FOUND", "Course", courseId.toString());
+        }
+
         // 从数据库查询
         Optional<Course> courseOptional =
             DatabaseUtil.findByIdSafely(courseRepository, courseId, "Course", courseId.toString())
@@ -299,6 +311,71 @@ public class CourseService {
     }
   }
 
+  /**
+   * 根据ID批量获取课程详情 已缓存的课程一次取出，其余课程合并为一次数据库查询
+   *
+   * @param courseIds 课程ID列表
+   * @return 按输入顺序排列的课程详情，不存在或已删除的课程被忽略
+   */
+  @Transactional(readOnly = true)
+  public Map<String, Object> getCoursesByIds(List<UUID> courseIds) {
+    try (PerformanceMonitor.Monitor monitor = PerformanceMonitor.monitor("COURSE_GET_BY_IDS")) {
+
+      try {
+        // 输入验证
+        ServiceValidationUtil.validateNotNull(courseIds, "课程ID列表不能为空");
+        if (courseIds.size() > MAX_BATCH_QUERY_SIZE) {
+          throw new BusinessException(
+              "TOO_MANY_COURSE_IDS", "单次最多只能查询" + MAX_BATCH_QUERY_SIZE + "门课程");
+        }
+
+        Map<UUID, Course> courses =
+            cacheManager.getAll(
+                courseIds,
+                id -> COURSE_CACHE_PREFIX + id,
+                this::loadCoursesByIds,
+                CacheManager.CacheStrategy.MEDIUM);
+
+        List<Map<String, Object>> courseResponses = new ArrayList<>();
+        for (Course course : courses.values()) {
+          if (course.getDeletedAt() == null) {
+            courseResponses.add(createCourseResponse(course));
+          }
+        }
+
+        LogUtil.logBusinessOperation(
+            "COURSE_GET_BY_IDS",
+            "",
+            "批量获取课程详情，请求" + courseIds.size() + "门，返回" + courseResponses.size() + "门");
+
+        return ServiceResponseUtil.success(
+            "获取课程详情成功",
+            Map.of("courses", courseResponses, "total", courseResponses.size()));
+
+      } catch (BusinessException e) {
+        throw e;
+      } catch (Exception e) {
+        LogUtil.logError("COURSE_GET_BY_IDS", "", "COURSE_QUERY_ERROR", "批量查询课程失败", e);
+        throw new BusinessException("COURSE_GET_FAILED", "获取课程详情失败，请稍后重试");
+      }
+    }
+  }
+
+  /** 批量加载缓存未命中的课程 */
+  private Map<UUID, Course> loadCoursesByIds(Set<UUID> courseIds) {
+    List<Course> courses =
+        DatabaseUtil.executeQuery(
+            "FIND_COURSES_BY_IDS",
+            "Course",
+            null,
+            () -> courseRepository.findByIdsAndNotDeletedUnlimited(new ArrayList<>(courseIds)));
+    Map<UUID, Course> result = new HashMap<>();
+    for (Course course : courses) {
+      result.put(course.getId(), course);
+    }
+    return result;
+  }
+
   /**
    * 批量创建课程
    *
@@ -661,7 +738,6 @@ public class CourseService {
         // 清除相关缓存
         clearCourseCache(courseId);
         clearCourseListCache();
-        clearUserCourseCache(userId);
 
         // 发布课程删除事件
         eventPublisher.publishEvent(new CourseDeletedEvent(courseId, course.getTitle(), userId));
@@ -771,40 +847,28 @@ public class CourseService {
   /** 清除课程缓存 */
   private void clearCourseCache(UUID courseId) {
     if (courseId != null) {
-      String cacheKey = COURSE_CACHE_PREFIX + courseId.toString();
-      cacheUtil.remove(cacheKey);
+      // 经CacheManager删除，启用L2时同时删除L2并通知其他实例丢弃L1副本
+      cacheManager.evict(COURSE_CACHE_PREFIX + courseId.toString());
     }
   }
 
   /** 清除课程列表缓存 */
   private void clearCourseListCache() {
     // 清除全量列表缓存
-    cacheUtil.remove(COURSE_LIST_CACHE_KEY);
+    cacheManager.evict(COURSE_LIST_CACHE_KEY);
 
-    // 清除分页列表缓存（使用模式匹配）
-    cacheUtil.removeByPattern(COURSE_LIST_PAGINATED_PREFIX + "*");
-  }
-
-  /** 清除用户相关的课程缓存 */
-  private void clearUserCourseCache(UUID userId) {
-    if (userId != null) {
-      String pattern = COURSE_USER_LIST_PREFIX + userId + ":*";
-      cacheUtil.removeByPattern(pattern);
-    }
+    // 分页列表缓存递增代际即可失效，旧键随淘汰自然回收
+    cacheManager.invalidateGeneration(COURSE_LIST_PAGINATED_PREFIX);
   }
 
   /** 批量清除课程缓存 */
   private void batchClearCourseCache(List<UUID> courseIds) {
     if (courseIds != null && !courseIds.isEmpty()) {
-      List<String> cacheKeys =
-          courseIds.stream()
-              .map(id -> COURSE_CACHE_PREFIX + id.toString())
-              .collect(java.util.stream.Collectors.toList());
-
-      // 使用批量删除提高性能
-      for (String key : cacheKeys) {
-        cacheUtil.remove(key);
-      }
+      String[] cacheKeys =
+          courseIds.stream().map(id -> COURSE_CACHE_PREFIX + id.toString()).toArray(String[]::new);
+
+      // 批量删除，启用L2时合并为一次删除与一条广播
+      cacheManager.evictAll(cacheKeys);
     }
   }
 
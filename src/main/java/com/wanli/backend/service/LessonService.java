@@ -11,6 +11,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.wanli.backend.cache.CacheManager;
 import com.wanli.backend.entity.Course;
 import com.wanli.backend.entity.Lesson;
 import com.wanli.backend.entity.User;
@@ -38,6 +39,7 @@ public class LessonService {
   private final CourseRepository courseRepository;
   private final UserRepository userRepository;
   private final CacheUtil cacheUtil;
+  private final CacheManager cacheManager;
   private final ConfigUtil configUtil;
 
   // 缓存键前缀和策略
@@ -56,11 +58,13 @@ public class LessonService {
       CourseRepository courseRepository,
       UserRepository userRepository,
       CacheUtil cacheUtil,
+      CacheManager cacheManager,
       ConfigUtil configUtil) {
     this.lessonRepository = lessonRepository;
     this.courseRepository = courseRepository;
     this.userRepository = userRepository;
     this.cacheUtil = cacheUtil;
+    this.cacheManager = cacheManager;
     this.configUtil = configUtil;
   }
 
@@ -124,8 +128,9 @@ public class LessonService {
       // 清除相关缓存
       clearLessonListCache(courseUuid);
 
-      // 清除课时详情缓存
+      // 清除课时详情缓存，并登记新课时使防穿透过滤器放行
       clearLessonDetailCache(savedLesson.getId());
+      cacheUtil.markPresent(LESSON_CACHE_PREFIX + savedLesson.getId());
 
       // 记录操作日志
       LogUtil.logBusinessOperation(
@@ -165,17 +170,11 @@ public class LessonService {
       // 创建分页对象
       Pageable pageable = createPageable(page, size, sortBy, sortDir);
 
+      // 缓存键带课程的课时集合代际
       String cacheKey =
-          LESSON_LIST_PAGINATED_PREFIX
-              + courseUuid
-              + ":"
-              + page
-              + ":"
-              + size
-              + ":"
-              + sortBy
-              + ":"
-              + sortDir;
+          cacheManager.generationKey(
+              LESSON_LIST_PAGINATED_PREFIX + courseUuid + ":",
+              page + ":" + size + ":" + sortBy + ":" + sortDir);
 
       // 尝试从缓存获取
       Map<String, Object> cachedResult = cacheUtil.get(cacheKey);
@@ -312,6 +311,11 @@ public class LessonService {
         return ServiceResponseUtil.success("获取课时详情成功", "lesson", cachedLesson);
       }
 
+      // 防穿透过滤器确认不存在的ID直接返回未找到，不访问数据库
+      if (cacheUtil.rejectKnownAbsent(cacheKey)) {
+        throw new ResourceNotFoundException("LESSON_NOT_FOUND", "Lesson", lessonUuid.toString());
+      }
+
       // 验证用户
       User user = findUserById(userId);
 
@@ -493,8 +497,9 @@ public class LessonService {
       // 批量保存
       List<Lesson> savedLessons = lessonRepository.saveAll(lessonsToSave);
 
-      // 清除相关缓存
+      // 清除相关缓存，并登记新课时使防穿透过滤器放行
       clearLessonListCache(courseUuid);
+      savedLessons.forEach(saved -> cacheUtil.markPresent(LESSON_CACHE_PREFIX + saved.getId()));
 
       // 记录操作日志
       LogUtil.logBusinessOperation(
@@ -781,20 +786,18 @@ public class LessonService {
   private void clearLessonListCache(UUID courseId) {
     if (courseId != null) {
       // 清除课程相关的课时列表缓存
-      String cacheKey = LESSON_COURSE_LIST_PREFIX + courseId.toString();
-      cacheUtil.remove(cacheKey);
+      cacheManager.evict(LESSON_COURSE_LIST_PREFIX + courseId.toString());
 
-      // 清除分页列表缓存（使用模式匹配）
-      String pagePattern = LESSON_LIST_PAGINATED_PREFIX + courseId + ":*";
-      cacheUtil.removeByPattern(pagePattern);
+      // 分页列表缓存递增代际即可失效，旧键随淘汰自然回收
+      cacheManager.invalidateGeneration(LESSON_LIST_PAGINATED_PREFIX + courseId + ":");
     }
   }
 
   /** 清除单个课时详情缓存 */
   private void clearLessonDetailCache(UUID lessonId) {
     if (lessonId != null) {
-      String cacheKey = LESSON_CACHE_PREFIX + lessonId.toString();
-      cacheUtil.remove(cacheKey);
+      // 经CacheManager删除，启用L2时同时删除L2并通知其他实例丢弃L1副本
+      cacheManager.evict(LESSON_CACHE_PREFIX + lessonId.toString());
     }
   }
 
@@ -810,11 +813,11 @@ public class LessonService {
   /** 清除所有课时相关缓存 */
   private void clearAllLessonCache() {
     // 清除所有课时详情缓存
-    cacheUtil.removeByPattern(LESSON_CACHE_PREFIX + "*");
+    cacheManager.evictNamespace(LESSON_CACHE_PREFIX);
 
     // 清除所有课时列表缓存
-    cacheUtil.removeByPattern(LESSON_COURSE_LIST_PREFIX + "*");
-    cacheUtil.removeByPattern(LESSON_LIST_PAGINATED_PREFIX + "*");
+    cacheManager.evictNamespace(LESSON_COURSE_LIST_PREFIX);
+    cacheManager.evictNamespace(LESSON_LIST_PAGINATED_PREFIX);
   }
 
   /** 构建课时对象 */
@@ -1,82 +1,416 @@
 package com.wanli.backend.util;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
-import java.util.BitSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
+import com.wanli.backend.cache.BoundedLocalCache;
+import com.wanli.backend.cache.CacheAccessListener;
+import com.wanli.backend.cache.CacheCodec;
+import com.wanli.backend.cache.CacheEvent;
+import com.wanli.backend.cache.CacheEventCounters;
+import com.wanli.backend.cache.CacheManager;
+import com.wanli.backend.cache.CacheRegionStats;
+import com.wanli.backend.cache.CacheSnapshot;
+import com.wanli.backend.cache.CacheTracer;
+import com.wanli.backend.cache.CompressingCodec;
+import com.wanli.backend.cache.HotKeyNearCache;
+import com.wanli.backend.cache.JsonbCodec;
+import com.wanli.backend.cache.ObjectSizeEstimator;
+import com.wanli.backend.cache.OffHeapStore;
+import com.wanli.backend.cache.RefreshPolicy;
+import com.wanli.backend.cache.RegionedLocalCache;
+import com.wanli.backend.cache.ScalableBloomFilter;
+import com.wanli.backend.cache.TtlAdvisor;
+import com.wanli.backend.cache.TtlBoundedValue;
+import com.wanli.backend.exception.BusinessException;
+
+import jakarta.annotation.PostConstruct;
+
 /** 缓存工具类 提供统一的缓存管理功能，支持多种缓存策略 包含防缓存穿透、缓存雪崩、缓存击穿等优化机制 */
 @Component
 public class CacheUtil {
 
   @Autowired private ConfigUtil configUtil;
 
-  private final ConcurrentHashMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
-  private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
-  private final ConcurrentMap<String, ReentrantLock> keyLocks = new ConcurrentHashMap<>();
-  private final BitSet bloomFilter = new BitSet(1000000); // 简单布隆过滤器
+  private final ObjectSizeEstimator sizeEstimator = new ObjectSizeEstimator();
+  // 写入时间、新鲜期与过期判断使用的毫秒时钟，须在缓存引擎之前初始化
+  private LongSupplier clock = System::currentTimeMillis;
+  // 按内存估算值计权，课程、课时与其他数据各自占用独立的预算
+  private final RegionedLocalCache cache =
+      new RegionedLocalCache(
+          List.of(
+              RegionedLocalCache.Region.of(
+                  COURSE_REGION, "course:", DEFAULT_REGION_MAX_BYTES * 2),
+              RegionedLocalCache.Region.of(
+                  LESSON_REGION, "lesson:", DEFAULT_REGION_MAX_BYTES * 2)),
+          DEFAULT_REGION_MAX_BYTES,
+          sizeEstimator,
+          this::onEviction,
+          this::now);
+  // 大体积响应的堆外存储，堆上只保留索引，减少老年代占用
+  private final OffHeapStore offHeapStore =
+      new OffHeapStore(DEFAULT_OFF_HEAP_MAX_BYTES, OFF_HEAP_SLAB_BYTES);
+  private volatile long offHeapThresholdBytes = DEFAULT_OFF_HEAP_THRESHOLD_BYTES;
+  private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+  private final ConcurrentMap<String, CompletableFuture<Object>> inFlightLoads =
+      new ConcurrentHashMap<>();
+  // 按命名空间注册的防穿透布隆过滤器，只对完成全量登记的命名空间生效
+  private final ConcurrentMap<String, PenetrationGuard> penetrationGuards =
+      new ConcurrentHashMap<>();
+  // 热路径只累加事件计数，不拼接字符串、不输出日志；需要排查时开启采样追踪
+  private final CacheEventCounters eventCounters = new CacheEventCounters();
+  private final CacheTracer tracer = new CacheTracer();
+  // 按分区统计命中率、加载耗时与移除原因，分区在构造后不再增减
+  private final Map<String, CacheRegionStats> regionStats = new LinkedHashMap<>();
+  // 被提升的热点键按线程分组保存短TTL副本，读取时先于主缓存检查
+  private final HotKeyNearCache nearCache =
+      new HotKeyNearCache(
+          DEFAULT_NEAR_MAX_KEYS,
+          DEFAULT_NEAR_TTL_MILLIS,
+          Math.min(NEAR_CACHE_MAX_STRIPES, Runtime.getRuntime().availableProcessors()));
+  // 访问监听（热点键与键族统计），读取每readSampleRate次回调一次
+  private volatile CacheAccessListener accessListener;
+  private volatile int readSampleRate = DEFAULT_READ_SAMPLE_RATE;
+  // 写入时的TTL调整，未设置时按调用方请求的TTL
+  private volatile TtlAdvisor ttlAdvisor;
+  // 各分区堆外存储与二级缓存使用的编解码
+  private final Map<String, CacheCodec> regionCodecs = new ConcurrentHashMap<>();
+  // 各分区配置的内存预算，堆内存紧张时实际预算按容量系数缩小
+  private final Map<String, Long> regionBaseMaxBytes = new LinkedHashMap<>();
+  private volatile double capacityScale = 1.0;
 
   // 默认缓存时间（分钟）
   private static final int DEFAULT_EXPIRE_MINUTES = 30;
   // 空值缓存时间（分钟）
   private static final int NULL_CACHE_EXPIRE_MINUTES = 5;
-  // 缓存大小限制
+  // 缓存大小限制（布隆过滤器的预期容量）
   private static final int MAX_CACHE_SIZE = 10000;
+  // 缓存分区
+  public static final String COURSE_REGION = "course";
+  public static final String LESSON_REGION = "lesson";
+  // 默认分区内存预算（字节），课程与课时分区为其两倍
+  private static final long DEFAULT_REGION_MAX_BYTES = 16L * 1024 * 1024;
+  // 堆外存储：直接内存上限、slab大小与写入阈值（字节）
+  private static final long DEFAULT_OFF_HEAP_MAX_BYTES = 64L * 1024 * 1024;
+  private static final int OFF_HEAP_SLAB_BYTES = 1024 * 1024;
+  private static final long DEFAULT_OFF_HEAP_THRESHOLD_BYTES = 16 * 1024;
+  // 容量收缩时每个分区至少保留配置预算的比例
+  private static final double MIN_REGION_BUDGET_FRACTION = 0.1;
+  // 课时正文与描述是大段文本，默认按该阈值（字节）压缩
+  private static final int DEFAULT_COMPRESSION_THRESHOLD_BYTES = 1024;
+  // 近端缓存：最多提升的键数、副本存活时间（毫秒）与线程分组上限
+  private static final int DEFAULT_NEAR_MAX_KEYS = 32;
+  private static final long DEFAULT_NEAR_TTL_MILLIS = 1000;
+  private static final int NEAR_CACHE_MAX_STRIPES = 16;
+  // 读取采样比例
+  private static final int DEFAULT_READ_SAMPLE_RATE = 16;
+  // 写穿、批量回填等加载耗时未知的写入，在分区没有加载记录时按此耗时（毫秒）参与概率提前过期
+  private static final long DEFAULT_LOAD_MILLIS = 20;
+  // 按分钟TTL批量写入时的TTL抖动比例
+  private static final double MULTI_PUT_TTL_JITTER = 0.10;
+  // 等待进行中加载的最长时间（毫秒）
+  private static final long LOAD_WAIT_TIMEOUT_MILLIS = 3000;
   // 空值标识
   private static final Object NULL_VALUE = new Object();
 
-  /** 缓存条目内部类 */
-  private static class CacheEntry {
-    private final Object value;
-    private final long expireTime;
-    private volatile long lastAccessTime;
-    private volatile int accessCount;
+  /** 构造函数，启动时间轮推进任务 */
+  public CacheUtil() {
+    for (String region : cache.regionNames()) {
+      regionStats.put(region, new CacheRegionStats(region));
+      regionCodecs.put(region, JsonbCodec.INSTANCE);
+      regionBaseMaxBytes.put(region, cache.region(region).getMaximum());
+    }
+    regionCodecs.put(
+        LESSON_REGION,
+        new CompressingCodec(JsonbCodec.INSTANCE, DEFAULT_COMPRESSION_THRESHOLD_BYTES));
+    // 每秒推进一次时间轮，只处理到期的桶，不再全量扫描
+    scheduler.scheduleAtFixedRate(cache::cleanUp, 1, 1, TimeUnit.SECONDS);
+  }
 
-    public CacheEntry(Object value, long expireTime) {
-      this.value = value;
-      this.expireTime = expireTime;
-      this.lastAccessTime = System.currentTimeMillis();
-      this.accessCount = 0;
+  /** 按配置应用各分区的内存预算、堆外存储与采样追踪参数 */
+  @PostConstruct
+  public void applyCacheConfig() {
+    if (configUtil == null) {
+      return;
+    }
+    setRegionMaxBytes(COURSE_REGION, configUtil.getCacheCourseRegionMaxBytes());
+    setRegionMaxBytes(LESSON_REGION, configUtil.getCacheLessonRegionMaxBytes());
+    setRegionMaxBytes(
+        RegionedLocalCache.DEFAULT_REGION, configUtil.getCacheDefaultRegionMaxBytes());
+    Long offHeapMaxBytes = configUtil.getCacheOffHeapMaxBytes();
+    if (offHeapMaxBytes != null) {
+      offHeapStore.setMaxBytes(offHeapMaxBytes);
+    }
+    Long thresholdBytes = configUtil.getCacheOffHeapThresholdBytes();
+    if (thresholdBytes != null) {
+      setOffHeapThresholdBytes(thresholdBytes);
+    }
+    applyCodecConfig(
+        configUtil.getCacheCodecCompressedRegions(),
+        configUtil.getCacheCodecCompressionThresholdBytes());
+    Integer sampleRate = configUtil.getCacheTraceSampleRate();
+    if (sampleRate != null && sampleRate > 0) {
+      configureTracing(sampleRate, configUtil.getCacheTraceKeyPrefix());
+    }
+    Integer nearMaxKeys = configUtil.getCacheNearMaxKeys();
+    Long nearTtlMillis = configUtil.getCacheNearTtlMillis();
+    if (nearMaxKeys != null && nearTtlMillis != null) {
+      nearCache.configure(nearMaxKeys, nearTtlMillis);
     }
+    Integer readSampleRate = configUtil.getCacheHotKeySampleRate();
+    if (readSampleRate != null) {
+      this.readSampleRate = readSampleRate;
+    }
+  }
+
+  /** 设置写入堆外存储的值大小阈值（估算字节数），0表示不使用堆外存储 */
+  public void setOffHeapThresholdBytes(long thresholdBytes) {
+    this.offHeapThresholdBytes = thresholdBytes;
+    LogUtil.logBusinessOperation(
+        "CACHE_OFFHEAP_THRESHOLD", "", "thresholdBytes=" + thresholdBytes);
+  }
+
+  /** 堆外存储（统计与容量调整用） */
+  public OffHeapStore getOffHeapStore() {
+    return offHeapStore;
+  }
 
-    public boolean isExpired() {
-      return System.currentTimeMillis() > expireTime;
+  /** 调整缓存分区的内存预算（字节），超出部分立即按W-TinyLFU淘汰 */
+  public synchronized void setRegionMaxBytes(String region, Long maxBytes) {
+    if (maxBytes == null || maxBytes <= 0) {
+      return;
     }
+    if (!regionBaseMaxBytes.containsKey(region)) {
+      throw new IllegalArgumentException("未知的缓存分区: " + region);
+    }
+    regionBaseMaxBytes.put(region, maxBytes);
+    applyCapacityScale(capacityScale);
+    LogUtil.logBusinessOperation(
+        "CACHE_REGION_BUDGET", "", "region=" + region + ", maxBytes=" + maxBytes);
+  }
 
-    public Object getValue() {
-      this.lastAccessTime = System.currentTimeMillis();
-      this.accessCount++;
-      return value;
+  /**
+   * 按容量系数缩放总内存预算 需要收缩的部分从价值最低的分区开始扣减（每KB占用的累计命中数最少），
+   * 每个分区至少保留配置预算的10%；系数为1时恢复配置预算
+   *
+   * @param scale 容量系数（0-1]
+   */
+  public synchronized void applyCapacityScale(double scale) {
+    double clamped = Math.max(0.0, Math.min(1.0, scale));
+    long totalBase = 0;
+    for (long base : regionBaseMaxBytes.values()) {
+      totalBase += base;
     }
+    long excess = totalBase - (long) (totalBase * clamped);
 
-    public long getLastAccessTime() {
-      return lastAccessTime;
+    List<String> byValue = new ArrayList<>(regionBaseMaxBytes.keySet());
+    Map<String, Double> values = new HashMap<>();
+    for (String region : byValue) {
+      long kilobytes = Math.max(1, getRegionWeightedSize(region) / 1024);
+      values.put(region, (double) regionStats.get(region).getHitCount() / kilobytes);
+    }
+    byValue.sort((a, b) -> Double.compare(values.get(a), values.get(b)));
+
+    for (String region : byValue) {
+      long base = regionBaseMaxBytes.get(region);
+      long cut = Math.min(excess, base - (long) (base * MIN_REGION_BUDGET_FRACTION));
+      cut = Math.max(0, cut);
+      excess -= cut;
+      cache.setMaximum(region, base - cut);
     }
+    capacityScale = clamped;
+  }
+
+  /** 当前容量系数，1表示按配置预算 */
+  public double getCapacityScale() {
+    return capacityScale;
+  }
 
-    public int getAccessCount() {
-      return accessCount;
+  /** 各分区当前生效的内存预算（字节） */
+  public Map<String, Long> getRegionMaxBytes() {
+    Map<String, Long> budgets = new LinkedHashMap<>();
+    for (String region : cache.regionNames()) {
+      budgets.put(region, cache.region(region).getMaximum());
     }
+    return budgets;
+  }
 
-    public void updateAccess() {
-      this.lastAccessTime = System.currentTimeMillis();
-      this.accessCount++;
+  /** 各缓存分区当前占用的估算字节数 */
+  public Map<String, Long> getRegionWeightedSizes() {
+    Map<String, Long> sizes = new LinkedHashMap<>();
+    for (String region : cache.regionNames()) {
+      sizes.put(region, cache.region(region).getWeightedSize());
     }
+    return sizes;
   }
 
-  /** 构造函数，启动定期清理任务 */
-  public CacheUtil() {
-    // 每5分钟清理一次过期缓存
-    scheduler.scheduleAtFixedRate(this::cleanExpiredEntries, 5, 5, TimeUnit.MINUTES);
-    // 每小时清理一次长时间未访问的缓存
-    scheduler.scheduleAtFixedRate(this::cleanUnusedEntries, 1, 1, TimeUnit.HOURS);
+  /** 某个分区当前占用的估算字节数，分区不存在时返回0 */
+  public long getRegionWeightedSize(String region) {
+    BoundedLocalCache engine = cache.region(region);
+    return engine == null ? 0 : engine.getWeightedSize();
+  }
+
+  /** 各缓存分区的统计 */
+  public Map<String, CacheRegionStats> getRegionStats() {
+    return Collections.unmodifiableMap(regionStats);
+  }
+
+  /** 键所属分区的统计 */
+  private CacheRegionStats statsFor(String key) {
+    return regionStats.get(cache.regionOf(key));
+  }
+
+  /** 列出的分区使用压缩编解码，其余分区使用JSONB */
+  private void applyCodecConfig(String compressedRegions, Integer thresholdBytes) {
+    if (compressedRegions == null || thresholdBytes == null) {
+      return;
+    }
+    List<String> compressed = new ArrayList<>();
+    for (String region : compressedRegions.split(",")) {
+      compressed.add(region.trim());
+    }
+    for (String region : cache.regionNames()) {
+      setRegionCodec(
+          region,
+          compressed.contains(region)
+              ? new CompressingCodec(JsonbCodec.INSTANCE, thresholdBytes)
+              : JsonbCodec.INSTANCE);
+    }
+  }
+
+  /** 设置分区的编解码，只影响之后写入的值 */
+  public void setRegionCodec(String region, CacheCodec codec) {
+    if (regionCodecs.containsKey(region)) {
+      regionCodecs.put(region, codec);
+    }
+  }
+
+  /** 键所属分区的编解码，用于堆外存储与二级缓存 */
+  public CacheCodec codecFor(String key) {
+    return regionCodecs.get(cache.regionOf(key));
+  }
+
+  /** 各分区当前的编解码 */
+  public Map<String, CacheCodec> getRegionCodecs() {
+    return Collections.unmodifiableMap(regionCodecs);
+  }
+
+  /** 热点键近端缓存（提升、取消提升与统计） */
+  public HotKeyNearCache getNearCache() {
+    return nearCache;
+  }
+
+  /**
+   * 注册访问监听 读取每sampleRate次回调一次（weight即采样比例），写入与主动删除逐次回调
+   *
+   * @param listener 监听器，null表示取消
+   */
+  public void setAccessListener(CacheAccessListener listener) {
+    this.accessListener = listener;
+  }
+
+  /**
+   * 上报不经删除键完成的失效（如集合代际递增），访问监听按键所属的键族计入一次主动失效
+   *
+   * @param key 失效的键或集合命名空间
+   */
+  public void recordInvalidation(String key) {
+    CacheAccessListener listener = accessListener;
+    if (listener != null) {
+      listener.onInvalidate(key);
+    }
+  }
+
+  /**
+   * 设置TTL调整 之后的写入按其建议的TTL过期
+   *
+   * @param advisor TTL调整，null表示按请求的TTL
+   */
+  public void setTtlAdvisor(TtlAdvisor advisor) {
+    this.ttlAdvisor = advisor;
+  }
+
+  /** 写入实际使用的TTL（毫秒） */
+  private long effectiveTtlMillis(String key, long requestedMillis) {
+    TtlAdvisor advisor = ttlAdvisor;
+    return advisor == null ? requestedMillis : advisor.adviseTtlMillis(key, requestedMillis);
+  }
+
+  /** 记录缓存事件：累加计数，被采样时输出追踪日志 */
+  private void record(CacheEvent event, String key) {
+    eventCounters.increment(event);
+    if (event == CacheEvent.HIT || event == CacheEvent.HIT_NULL) {
+      statsFor(key).recordHit();
+      sampleRead(key, true);
+    } else if (event == CacheEvent.MISS) {
+      statsFor(key).recordMiss();
+      sampleRead(key, false);
+    } else if (event == CacheEvent.PUT || event == CacheEvent.LOAD) {
+      CacheAccessListener listener = accessListener;
+      if (listener != null) {
+        listener.onWrite(key);
+      }
+    }
+    if (tracer.isSampled(key)) {
+      tracer.trace(event, key);
+    }
+  }
+
+  private void sampleRead(String key, boolean hit) {
+    CacheAccessListener listener = accessListener;
+    int rate = readSampleRate;
+    if (listener != null
+        && rate > 0
+        && (rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0)) {
+      listener.onRead(key, hit, rate);
+    }
+  }
+
+  /**
+   * 配置采样追踪
+   *
+   * @param sampleRate 每N次操作追踪一次，0表示关闭
+   * @param keyPrefix 只追踪该前缀的键，空字符串表示不限
+   */
+  public void configureTracing(int sampleRate, String keyPrefix) {
+    tracer.configure(sampleRate, keyPrefix);
+    LogUtil.logBusinessOperation(
+        "CACHE_TRACE_CONFIG", "", "sampleRate=" + sampleRate + ", keyPrefix=" + keyPrefix);
+  }
+
+  /** 各类缓存事件的累计次数 */
+  public Map<CacheEvent, Long> getEventCounts() {
+    return eventCounters.snapshot();
+  }
+
+  /** 单类缓存事件的累计次数 */
+  public long getEventCount(CacheEvent event) {
+    return eventCounters.get(event);
   }
 
   /** 检查缓存是否启用 */
@@ -84,10 +418,19 @@ public class CacheUtil {
     return configUtil != null && configUtil.isCacheEnabled();
   }
 
+  private long now() {
+    return clock.getAsLong();
+  }
+
+  /** 替换毫秒时钟，测试中推进时间而不依赖真实等待；须在写入任何条目之前调用 */
+  void setClock(LongSupplier clock) {
+    this.clock = clock;
+  }
+
   /** 存储缓存（使用默认过期时间） */
   public void put(String key, Object value) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation("CACHE_DISABLED", "", "key=" + key + ", operation=put");
+      record(CacheEvent.DISABLED, key);
       return;
     }
     put(key, value, DEFAULT_EXPIRE_MINUTES);
@@ -96,91 +439,171 @@ public class CacheUtil {
   /** 存储缓存（指定过期时间，分钟） 包含缓存大小限制 */
   public void put(String key, Object value, int expireMinutes) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation("CACHE_DISABLED", "", "key=" + key + ", operation=put");
+      record(CacheEvent.DISABLED, key);
       return;
     }
 
-    // 检查缓存大小限制
-    if (cache.size() >= MAX_CACHE_SIZE) {
-      evictLRU();
-    }
-
-    long expireTime = System.currentTimeMillis() + Duration.ofMinutes(expireMinutes).toMillis();
-    cache.put(key, new CacheEntry(value, expireTime));
+    // 容量由W-TinyLFU引擎维护，超限时O(1)淘汰
+    long expireTime = now() + effectiveTtlMillis(key, TimeUnit.MINUTES.toMillis(expireMinutes));
+    putStored(key, value, expireTime, expireTime, 0);
     addToBloomFilter(key);
-    LogUtil.logBusinessOperation(
-        "CACHE_PUT", "", "key=" + key + ", expire=" + expireMinutes + "min");
+    record(CacheEvent.PUT, key);
   }
 
   /** 存储缓存（指定过期时间，Duration） */
   public void put(String key, Object value, Duration duration) {
-    long expireTime = System.currentTimeMillis() + duration.toMillis();
-    cache.put(key, new CacheEntry(value, expireTime));
-    LogUtil.logBusinessOperation("CACHE_PUT", "", "key=" + key + ", expire=" + duration.toString());
+    long expireTime = now() + effectiveTtlMillis(key, duration.toMillis());
+    putStored(key, value, expireTime, expireTime, 0);
+    addToBloomFilter(key);
+    record(CacheEvent.PUT, key);
+  }
+
+  /** 存储缓存（按刷新策略），TTL按策略抖动，避免同批写入的条目同时过期 */
+  public void put(String key, Object value, RefreshPolicy policy) {
+    put(key, value, policy, Long.MAX_VALUE);
+  }
+
+  /**
+   * 存储缓存（按刷新策略），TTL不超过给定上限 用于从二级缓存回填，本地副本不比二级缓存中的原值活得更久
+   *
+   * @param key 缓存键
+   * @param value 缓存值
+   * @param policy 刷新策略
+   * @param maxTtlMillis TTL上限（毫秒），{@link Long#MAX_VALUE} 表示不限
+   */
+  public void put(String key, Object value, RefreshPolicy policy, long maxTtlMillis) {
+    if (!isCacheEnabled()) {
+      record(CacheEvent.DISABLED, key);
+      return;
+    }
+    putWithPolicy(key, value, policy, 0, maxTtlMillis);
+    record(CacheEvent.PUT, key);
+  }
+
+  /** 按策略写入，loadMillis为0表示加载耗时未知（写穿、批量回填），改用估计值使概率提前过期仍然生效 */
+  private void putWithPolicy(
+      String key, Object value, RefreshPolicy policy, long loadMillis, long maxTtlMillis) {
+    if (loadMillis <= 0 && policy.getEarlyExpirationBeta() > 0) {
+      loadMillis = estimatedLoadMillis(key);
+    }
+    long ttlMillis = Math.min(effectiveTtlMillis(key, policy.nextTtlMillis()), maxTtlMillis);
+    long freshUntil = now() + ttlMillis;
+    putStored(key, value, freshUntil, freshUntil + policy.getStaleMillis(), loadMillis);
+    addToBloomFilter(key);
+  }
+
+  /** 加载耗时估计：沿用该键上次记录的耗时，其次为所属分区的平均加载耗时 */
+  private long estimatedLoadMillis(String key) {
+    BoundedLocalCache.Node prior = cache.getQuietly(key);
+    if (prior != null && prior.getLoadMillis() > 0) {
+      return prior.getLoadMillis();
+    }
+    CacheRegionStats stats = statsFor(key);
+    // 总耗时包含失败的加载
+    long loads = stats.getLoadCount() + stats.getLoadFailureCount();
+    if (loads == 0) {
+      return DEFAULT_LOAD_MILLIS;
+    }
+    return Math.max(1, TimeUnit.NANOSECONDS.toMillis(stats.getTotalLoadNanos() / loads));
   }
 
   /** 获取缓存 支持空值缓存处理 */
   @SuppressWarnings("unchecked")
   public <T> T get(String key, Class<T> type) {
-    CacheEntry entry = cache.get(key);
-    if (entry == null || entry.isExpired()) {
-      if (entry != null && entry.isExpired()) {
-        cache.remove(key);
-        LogUtil.logBusinessOperation("CACHE_EXPIRED", "", "key=" + key);
-      }
+    Object near = nearCache.get(key);
+    if (near != null) {
+      record(CacheEvent.HIT, key);
+      return (T) near;
+    }
+    BoundedLocalCache.Node entry = cache.get(key);
+    if (entry == null) {
+      record(CacheEvent.MISS, key);
+      return null;
+    }
+    long now = now();
+    if (entry.isExpired(now)) {
+      // 过期由移除回调计数，本次读取按未命中统计
+      cache.remove(key, entry);
+      record(CacheEvent.MISS, key);
+      return null;
+    }
+    // 旧值窗口内的条目只对带刷新策略的读取可见
+    if (entry.isStale(now)) {
+      record(CacheEvent.MISS, key);
       return null;
     }
 
-    Object value = entry.getValue();
+    Object value = readValue(key, entry);
+    if (value == null) {
+      return null;
+    }
     // 处理空值缓存
     if (value == NULL_VALUE) {
-      LogUtil.logBusinessOperation(
-          "CACHE_HIT_NULL", "", "key=" + key + ", accessCount=" + entry.getAccessCount());
+      record(CacheEvent.HIT_NULL, key);
       return null;
     }
 
-    LogUtil.logBusinessOperation(
-        "CACHE_HIT", "", "key=" + key + ", accessCount=" + entry.getAccessCount());
+    nearCache.fill(key, value);
+    record(CacheEvent.HIT, key);
     return (T) value;
   }
 
+  /** 加载前的双重检查，不计入命中/未命中统计 */
+  @SuppressWarnings("unchecked")
+  private <T> T peekFresh(String key) {
+    BoundedLocalCache.Node entry = cache.getQuietly(key);
+    // 新鲜期不晚于过期时间，已过新鲜期即包含已过期
+    if (entry == null || entry.isStale(now())) {
+      return null;
+    }
+    Object value = readValue(key, entry);
+    return value == NULL_VALUE ? null : (T) value;
+  }
+
   /** 获取缓存（不指定类型） */
   @SuppressWarnings("unchecked")
   public <T> T get(String key) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation("CACHE_DISABLED", "", "key=" + key + ", operation=get");
+      record(CacheEvent.DISABLED, key);
       return null;
     }
-
-    // 使用布隆过滤器快速判断key是否可能存在
-    if (!mightContain(key)) {
-      LogUtil.logBusinessOperation("CACHE_MISS_BLOOM", "", "key=" + key);
-      return null;
+    Object near = nearCache.get(key);
+    if (near != null) {
+      record(CacheEvent.HIT, key);
+      return (T) near;
     }
 
-    CacheEntry entry = cache.get(key);
+    BoundedLocalCache.Node entry = cache.get(key);
     if (entry == null) {
-      LogUtil.logBusinessOperation("CACHE_MISS", "", "key=" + key);
+      record(CacheEvent.MISS, key);
       return null;
     }
 
     // 检查是否过期
-    if (entry.isExpired()) {
-      cache.remove(key);
-      LogUtil.logBusinessOperation("CACHE_EXPIRED", "", "key=" + key);
+    long now = now();
+    if (entry.isExpired(now)) {
+      cache.remove(key, entry);
+      record(CacheEvent.MISS, key);
+      return null;
+    }
+    // 旧值窗口内的条目只对带刷新策略的读取可见，与 get(key, type) 一样按未命中统计
+    if (entry.isStale(now)) {
+      record(CacheEvent.MISS, key);
       return null;
     }
 
-    Object value = entry.getValue();
+    Object value = readValue(key, entry);
+    if (value == null) {
+      return null;
+    }
     // 处理空值缓存
     if (value == NULL_VALUE) {
-      LogUtil.logBusinessOperation(
-          "CACHE_HIT_NULL", "", "key=" + key + ", accessCount=" + entry.getAccessCount());
+      record(CacheEvent.HIT_NULL, key);
       return null;
     }
 
-    LogUtil.logBusinessOperation(
-        "CACHE_HIT", "", "key=" + key + ", accessCount=" + entry.getAccessCount());
+    nearCache.fill(key, value);
+    record(CacheEvent.HIT, key);
     return (T) value;
   }
 
@@ -192,10 +615,7 @@ public class CacheUtil {
   /** 获取缓存，如果不存在则计算并缓存 防止缓存击穿和缓存穿透 */
   public <T> T getOrCompute(String key, Supplier<T> supplier) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation(
-          "CACHE_DISABLED",
-          "",
-          "key=" + key + ", operation=getOrCompute, executing supplier directly");
+      record(CacheEvent.DISABLED, key);
       return supplier.get();
     }
     return getOrCompute(key, supplier, DEFAULT_EXPIRE_MINUTES);
@@ -205,10 +625,7 @@ public class CacheUtil {
   @SuppressWarnings("unchecked")
   public <T> T getOrCompute(String key, Supplier<T> supplier, int expireMinutes) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation(
-          "CACHE_DISABLED",
-          "",
-          "key=" + key + ", operation=getOrCompute, executing supplier directly");
+      record(CacheEvent.DISABLED, key);
       return supplier.get();
     }
     return (T) getOrCompute(key, (Class<T>) Object.class, supplier, expireMinutes);
@@ -217,65 +634,291 @@ public class CacheUtil {
   /** 获取缓存，如果不存在则使用供应商函数获取并缓存（指定类型） 包含防缓存穿透和击穿优化 */
   @SuppressWarnings("unchecked")
   public <T> T getOrCompute(String key, Class<T> type, Supplier<T> supplier, int expireMinutes) {
-    // 先检查布隆过滤器，防止缓存穿透
-    if (!mightContain(key)) {
-      LogUtil.logBusinessOperation("CACHE_BLOOM_FILTER_REJECT", "", "key=" + key);
+    T cachedValue = get(key, type);
+    if (cachedValue != null) {
+      return cachedValue;
+    }
+    // 后端存储中确定不存在的键直接返回，防止缓存穿透（只在未命中时检查，命中路径不做哈希计算）
+    if (isKnownAbsent(key)) {
+      record(CacheEvent.PENETRATION_REJECT, key);
+      return null;
+    }
+    return loadOnMiss(key, type, supplier, RefreshPolicy.of(Duration.ofMinutes(expireMinutes)));
+  }
+
+  /**
+   * 获取缓存并按刷新策略提前刷新 超过刷新点的条目照常返回并在执行器上异步重新加载，
+   * stale-while-revalidate窗口内返回旧值，只有真正过期或不存在时才同步加载
+   *
+   * @param key 缓存键
+   * @param type 数据类型
+   * @param supplier 数据加载器
+   * @param policy 刷新策略
+   * @param refreshExecutor 异步刷新执行器（应为有界线程池）
+   * @return 缓存数据
+   */
+  public <T> T getOrCompute(
+      String key,
+      Class<T> type,
+      Supplier<T> supplier,
+      RefreshPolicy policy,
+      Executor refreshExecutor) {
+    return getOrCompute(key, type, supplier, supplier, policy, refreshExecutor);
+  }
+
+  /**
+   * 获取缓存并按刷新策略提前刷新，提前刷新使用单独的加载器 未命中时的加载器可以先查其他缓存层，
+   * 提前刷新则应直接回源，否则会把其他缓存层中即将过期的值重新写入
+   *
+   * @param key 缓存键
+   * @param type 数据类型
+   * @param supplier 未命中时的数据加载器，可返回 {@link TtlBoundedValue} 限制写入的TTL
+   * @param refresher 提前刷新时的数据加载器
+   * @param policy 刷新策略
+   * @param refreshExecutor 异步刷新执行器（应为有界线程池）
+   * @return 缓存数据
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T getOrCompute(
+      String key,
+      Class<T> type,
+      Supplier<T> supplier,
+      Supplier<T> refresher,
+      RefreshPolicy policy,
+      Executor refreshExecutor) {
+    if (!isCacheEnabled()) {
+      record(CacheEvent.DISABLED, key);
+      Object value = supplier.get();
+      return value instanceof TtlBoundedValue
+          ? (T) ((TtlBoundedValue) value).getValue()
+          : (T) value;
+    }
+    Object near = nearCache.get(key);
+    if (near != null) {
+      record(CacheEvent.HIT, key);
+      return (T) near;
+    }
+    BoundedLocalCache.Node entry = cache.get(key);
+    long now = now();
+    if (entry != null && !entry.isExpired(now)) {
+      Object value = readValue(key, entry);
+      if (value != null) {
+        if (value == NULL_VALUE) {
+          record(CacheEvent.HIT_NULL, key);
+        } else {
+          nearCache.fill(key, value);
+          record(CacheEvent.HIT, key);
+        }
+        if (policy.shouldRefresh(entry, now)) {
+          refreshAsync(key, type, refresher, policy, refreshExecutor);
+        }
+        return value == NULL_VALUE ? null : (T) value;
+      }
+    }
+    record(CacheEvent.MISS, key);
+    if (isKnownAbsent(key)) {
+      record(CacheEvent.PENETRATION_REJECT, key);
       return null;
     }
+    return loadOnMiss(key, type, supplier, policy);
+  }
+
+  /** 未命中时加入或发起单飞加载 */
+  @SuppressWarnings("unchecked")
+  private <T> T loadOnMiss(String key, Class<T> type, Supplier<T> supplier, RefreshPolicy policy) {
+    // 单飞加载：同一键的并发未命中共享同一个加载任务，防止缓存击穿
+    CompletableFuture<Object> loading = new CompletableFuture<>();
+    CompletableFuture<Object> inFlight = inFlightLoads.putIfAbsent(key, loading);
+    if (inFlight != null) {
+      record(CacheEvent.COALESCED_LOAD, key);
+      return (T) awaitLoad(key, inFlight);
+    }
+    return load(key, type, supplier, policy, loading, false);
+  }
 
+  /** 异步重新加载，同一键同时只有一个加载任务；执行器饱和时放弃本次刷新，下次读取再尝试 */
+  private <T> void refreshAsync(
+      String key, Class<T> type, Supplier<T> supplier, RefreshPolicy policy, Executor executor) {
+    CompletableFuture<Object> loading = new CompletableFuture<>();
+    if (inFlightLoads.putIfAbsent(key, loading) != null) {
+      return;
+    }
+    try {
+      executor.execute(
+          () -> {
+            try {
+              load(key, type, supplier, policy, loading, true);
+            } catch (RuntimeException e) {
+              // 刷新失败保留旧值，由过期或下一次刷新兜底
+              LogUtil.logWarn("CACHE_REFRESH", "CACHE_REFRESH_FAILED", "缓存异步刷新失败: " + key);
+            }
+          });
+      record(CacheEvent.REFRESH, key);
+    } catch (RejectedExecutionException e) {
+      inFlightLoads.remove(key, loading);
+      loading.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * 异步获取缓存，未命中时在指定执行器上加载 与同步调用共享同一个单飞加载任务，调用方无需阻塞等待
+   *
+   * @param key 缓存键
+   * @param type 数据类型
+   * @param supplier 数据加载器
+   * @param expireMinutes 过期时间（分钟）
+   * @param executor 加载执行器
+   * @return 加载结果
+   */
+  @SuppressWarnings("unchecked")
+  public <T> CompletableFuture<T> getOrComputeAsync(
+      String key, Class<T> type, Supplier<T> supplier, int expireMinutes, Executor executor) {
+    if (!isCacheEnabled()) {
+      return CompletableFuture.supplyAsync(supplier, executor);
+    }
     T cachedValue = get(key, type);
     if (cachedValue != null) {
-      return cachedValue;
+      return CompletableFuture.completedFuture(cachedValue);
+    }
+    if (isKnownAbsent(key)) {
+      record(CacheEvent.PENETRATION_REJECT, key);
+      return CompletableFuture.completedFuture(null);
     }
 
-    // 使用分布式锁防止缓存击穿
-    ReentrantLock lock = keyLocks.computeIfAbsent(key, k -> new ReentrantLock());
-    lock.lock();
+    CompletableFuture<Object> loading = new CompletableFuture<>();
+    CompletableFuture<Object> inFlight = inFlightLoads.putIfAbsent(key, loading);
+    if (inFlight != null) {
+      record(CacheEvent.COALESCED_LOAD, key);
+      return (CompletableFuture<T>) inFlight.thenApply(value -> value);
+    }
+    RefreshPolicy policy = RefreshPolicy.of(Duration.ofMinutes(expireMinutes));
     try {
-      // 双重检查
-      cachedValue = get(key, type);
-      if (cachedValue != null) {
-        return cachedValue;
-      }
-
-      // 缓存未命中，计算新值
-      LogUtil.PerformanceMonitor monitor = LogUtil.startPerformanceMonitor("CACHE_COMPUTE_" + key);
-      T newValue = supplier.get();
-      monitor.end();
+      executor.execute(
+          () -> {
+            try {
+              load(key, type, supplier, policy, loading, false);
+            } catch (RuntimeException e) {
+              // 异常已传递给等待方
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      inFlightLoads.remove(key, loading);
+      loading.completeExceptionally(e);
+    }
+    return (CompletableFuture<T>) loading.thenApply(value -> value);
+  }
 
-      // 缓存新值（包括null值以防止缓存穿透）
-      if (newValue != null) {
-        put(key, newValue, expireMinutes);
-        addToBloomFilter(key);
-      } else {
-        // 缓存空值，防止缓存穿透
-        putNullValue(key);
+  /**
+   * 执行加载，结果（或异常）通过future交给合并的等待方；刷新时跳过双重检查
+   *
+   * <p>加载器返回 {@link TtlBoundedValue} 时解包，写入的TTL不超过其上限。
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T load(
+      String key,
+      Class<T> type,
+      Supplier<T> supplier,
+      RefreshPolicy policy,
+      CompletableFuture<Object> loading,
+      boolean refresh) {
+    long startNanos = 0;
+    try {
+      // 双重检查：上一轮加载可能刚刚写入
+      T newValue = refresh ? null : peekFresh(key);
+      if (newValue == null) {
+        LogUtil.PerformanceMonitor monitor =
+            LogUtil.startPerformanceMonitor("CACHE_COMPUTE_" + key);
+        record(CacheEvent.LOAD, key);
+        startNanos = System.nanoTime();
+        newValue = supplier.get();
+        long maxTtlMillis = Long.MAX_VALUE;
+        if (newValue instanceof TtlBoundedValue) {
+          maxTtlMillis = ((TtlBoundedValue) newValue).getMaxTtlMillis();
+          newValue = (T) ((TtlBoundedValue) newValue).getValue();
+        }
+        long loadNanos = System.nanoTime() - startNanos;
+        // 不足1毫秒的加载按1毫秒记录，0保留给耗时未知的写入
+        long loadMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(loadNanos));
+        monitor.end();
+        statsFor(key).recordLoad(loadNanos, true);
+
+        // 缓存新值（包括null值以防止缓存穿透），记录加载耗时供概率提前过期使用
+        if (newValue != null) {
+          putWithPolicy(key, newValue, policy, loadMillis, maxTtlMillis);
+        } else {
+          // 缓存空值，防止缓存穿透
+          putNullValue(key);
+        }
       }
-
-      LogUtil.logBusinessOperation(
-          "CACHE_MISS",
-          "",
-          "key=" + key + ", computed=true, value=" + (newValue != null ? "not null" : "null"));
+      loading.complete(newValue);
       return newValue;
-
+    } catch (RuntimeException | Error e) {
+      // 加载失败不写入缓存，下一次请求重新加载
+      record(CacheEvent.LOAD_FAILURE, key);
+      if (startNanos != 0) {
+        statsFor(key).recordLoad(System.nanoTime() - startNanos, false);
+      }
+      loading.completeExceptionally(e);
+      throw e;
     } finally {
-      lock.unlock();
-      // 清理锁映射，避免内存泄漏
-      if (!lock.hasQueuedThreads()) {
-        keyLocks.remove(key, lock);
+      inFlightLoads.remove(key, loading);
+    }
+  }
+
+  /** 等待进行中的加载，超时后放弃等待而不是占用线程直到数据库返回 */
+  private Object awaitLoad(String key, CompletableFuture<Object> inFlight) {
+    try {
+      return inFlight.get(LOAD_WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      LogUtil.logWarn("CACHE_LOAD", "CACHE_LOAD_TIMEOUT", "等待缓存加载超时: " + key);
+      throw new BusinessException(
+          "缓存加载超时: " + key, "CACHE_LOAD_TIMEOUT", HttpStatus.SERVICE_UNAVAILABLE);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BusinessException(
+          "缓存加载被中断: " + key, "CACHE_LOAD_INTERRUPTED", HttpStatus.SERVICE_UNAVAILABLE);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
       }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new BusinessException(
+          "缓存加载失败: " + key, "CACHE_LOAD_FAILED", HttpStatus.SERVICE_UNAVAILABLE, cause);
     }
   }
 
+  /** 被合并到进行中加载的调用次数 */
+  public long getCoalescedLoadCount() {
+    return eventCounters.get(CacheEvent.COALESCED_LOAD);
+  }
+
+  /** 实际执行的加载次数 */
+  public long getLoadCount() {
+    return eventCounters.get(CacheEvent.LOAD);
+  }
+
+  /** 触发的异步刷新次数 */
+  public long getRefreshCount() {
+    return eventCounters.get(CacheEvent.REFRESH);
+  }
+
+  /** 加载失败次数 */
+  public long getLoadFailureCount() {
+    return eventCounters.get(CacheEvent.LOAD_FAILURE);
+  }
+
   /** 删除缓存 */
   public void remove(String key) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation("CACHE_DISABLED", "", "key=" + key + ", operation=remove");
+      record(CacheEvent.DISABLED, key);
       return;
     }
-    CacheEntry removed = cache.remove(key);
+    BoundedLocalCache.Node removed = cache.remove(key);
     if (removed != null) {
-      LogUtil.logBusinessOperation("CACHE_REMOVE", "", "key=" + key);
+      record(CacheEvent.REMOVE, key);
     }
   }
 
@@ -287,27 +930,27 @@ public class CacheUtil {
   /** 清空所有缓存 */
   public void clear() {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation("CACHE_DISABLED", "", "operation=clear");
+      record(CacheEvent.DISABLED, "");
       return;
     }
     int size = cache.size();
     cache.clear();
-    keyLocks.clear();
     LogUtil.logBusinessOperation("CACHE_CLEAR", "", "cleared " + size + " entries");
   }
 
   /** 检查缓存是否存在且未过期 */
   public boolean exists(String key) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation("CACHE_DISABLED", "", "key=" + key + ", operation=exists");
+      record(CacheEvent.DISABLED, key);
       return false;
     }
 
-    CacheEntry entry = cache.get(key);
-    if (entry == null || entry.isExpired()) {
-      if (entry != null && entry.isExpired()) {
-        cache.remove(key);
-      }
+    BoundedLocalCache.Node entry = cache.getQuietly(key);
+    if (entry == null) {
+      return false;
+    }
+    if (entry.isExpired(now())) {
+      cache.remove(key, entry);
       return false;
     }
     return true;
@@ -315,54 +958,81 @@ public class CacheUtil {
 
   /** 获取缓存统计信息 */
   public CacheStats getStats() {
-    int totalEntries = cache.size();
-    int expiredEntries = 0;
-    long totalAccessCount = 0;
-
-    for (CacheEntry entry : cache.values()) {
-      if (entry.isExpired()) {
-        expiredEntries++;
-      }
-      totalAccessCount += entry.getAccessCount();
-    }
+    int totalEntries = cache.liveSize();
+    // 由命中计数得出，不再遍历全部条目
+    long totalAccessCount =
+        eventCounters.get(CacheEvent.HIT) + eventCounters.get(CacheEvent.HIT_NULL);
 
-    return new CacheStats(totalEntries, expiredEntries, totalAccessCount);
+    return new CacheStats(
+        totalEntries, (int) eventCounters.get(CacheEvent.EXPIRED), totalAccessCount);
   }
 
-  /** 清理过期缓存条目 */
-  private void cleanExpiredEntries() {
-    int cleanedCount = 0;
-    for (String key : cache.keySet()) {
-      CacheEntry entry = cache.get(key);
-      if (entry != null && entry.isExpired()) {
-        cache.remove(key);
-        cleanedCount++;
-      }
-    }
-
-    if (cleanedCount > 0) {
-      LogUtil.logBusinessOperation(
-          "CACHE_CLEANUP_EXPIRED", "", "cleaned=" + cleanedCount + " entries");
-    }
+  /** 立即推进时间轮，回收已过期的缓存条目 */
+  public void cleanExpiredEntries() {
+    cache.cleanUp();
   }
 
-  /** 清理长时间未访问的缓存条目 */
-  private void cleanUnusedEntries() {
-    long oneHourAgo = System.currentTimeMillis() - Duration.ofHours(1).toMillis();
-    int cleanedCount = 0;
-
-    for (String key : cache.keySet()) {
-      CacheEntry entry = cache.get(key);
-      if (entry != null && entry.getLastAccessTime() < oneHourAgo && entry.getAccessCount() == 0) {
-        cache.remove(key);
-        cleanedCount++;
+  /**
+   * 把存活条目写入快照文件 空值标记、已过期条目与带代际的键不写入，堆外条目先反序列化
+   *
+   * @param file 快照文件
+   * @param schemaVersion 缓存值的模式版本
+   * @return 写入的条目数
+   */
+  public int saveSnapshot(Path file, long schemaVersion) throws IOException {
+    long now = now();
+    List<CacheSnapshot.Entry> entries = new ArrayList<>();
+    for (BoundedLocalCache.Node entry : cache.nodes()) {
+      if (entry.isExpired(now)
+          || entry.getValue() == NULL_VALUE
+          || CacheManager.isGenerationKey(entry.getKey())) {
+        continue;
+      }
+      Object value = readValue(entry.getKey(), entry);
+      if (value != null) {
+        entries.add(
+            new CacheSnapshot.Entry(
+                entry.getKey(), value, entry.getFreshUntil() - now, entry.getExpireTime() - now));
       }
     }
+    int written = CacheSnapshot.write(file, schemaVersion, entries);
+    LogUtil.logBusinessOperation(
+        "CACHE_SNAPSHOT_SAVE", "", "file=" + file + ", entries=" + written);
+    return written;
+  }
 
-    if (cleanedCount > 0) {
-      LogUtil.logBusinessOperation(
-          "CACHE_CLEANUP_UNUSED", "", "cleaned=" + cleanedCount + " entries");
+  /**
+   * 从快照文件恢复条目，按快照中的剩余TTL写入 已存在的键与带代际的键（旧版本快照中可能存在）不会被恢复
+   *
+   * @param file 快照文件
+   * @param schemaVersion 当前缓存值的模式版本，与快照不一致时跳过
+   * @return 恢复的条目数
+   */
+  public int loadSnapshot(Path file, long schemaVersion) throws IOException {
+    if (!isCacheEnabled()) {
+      return 0;
     }
+    long now = now();
+    int restored =
+        CacheSnapshot.read(
+            file,
+            schemaVersion,
+            entry -> {
+              if (cache.getQuietly(entry.getKey()) != null
+                  || CacheManager.isGenerationKey(entry.getKey())) {
+                return;
+              }
+              putStored(
+                  entry.getKey(),
+                  entry.getValue(),
+                  now + entry.getFreshRemainingMillis(),
+                  now + entry.getExpireRemainingMillis(),
+                  0);
+              addToBloomFilter(entry.getKey());
+            });
+    LogUtil.logBusinessOperation(
+        "CACHE_SNAPSHOT_LOAD", "", "file=" + file + ", entries=" + restored);
+    return restored;
   }
 
   /** 缓存统计信息类 */
@@ -403,73 +1073,193 @@ public class CacheUtil {
 
   /** 缓存空值，防止缓存穿透 */
   private void putNullValue(String key) {
-    long expireTime =
-        System.currentTimeMillis() + Duration.ofMinutes(NULL_CACHE_EXPIRE_MINUTES).toMillis();
-    cache.put(key, new CacheEntry(NULL_VALUE, expireTime));
-    LogUtil.logBusinessOperation(
-        "CACHE_PUT_NULL", "", "key=" + key + ", expire=" + NULL_CACHE_EXPIRE_MINUTES + "min");
+    long expireTime = now() + Duration.ofMinutes(NULL_CACHE_EXPIRE_MINUTES).toMillis();
+    cache.put(key, NULL_VALUE, expireTime);
+    record(CacheEvent.PUT_NULL, key);
   }
 
-  /** 添加键到布隆过滤器 */
+  /** 登记键到所属命名空间的防穿透过滤器 */
   private void addToBloomFilter(String key) {
-    int hash1 = key.hashCode() % bloomFilter.size();
-    int hash2 = (key.hashCode() * 31) % bloomFilter.size();
-    int hash3 = (key.hashCode() * 37) % bloomFilter.size();
+    if (penetrationGuards.isEmpty()) {
+      return;
+    }
+    PenetrationGuard guard = penetrationGuards.get(namespaceOf(key));
+    if (guard != null) {
+      guard.filter.put(key);
+    }
+  }
 
-    if (hash1 < 0) hash1 += bloomFilter.size();
-    if (hash2 < 0) hash2 += bloomFilter.size();
-    if (hash3 < 0) hash3 += bloomFilter.size();
+  /** 键所属命名空间已完成全量登记且过滤器未命中时，键在后端存储中确定不存在 */
+  private boolean isKnownAbsent(String key) {
+    if (penetrationGuards.isEmpty()) {
+      return false;
+    }
+    PenetrationGuard guard = penetrationGuards.get(namespaceOf(key));
+    return guard != null && guard.complete && !guard.filter.mightContain(key);
+  }
 
-    bloomFilter.set(hash1);
-    bloomFilter.set(hash2);
-    bloomFilter.set(hash3);
+  /**
+   * 供直接查询数据库的详情读取在回源前检查 键确定不存在时记录一次拦截并返回true，调用方按不存在处理
+   *
+   * <p>缓存关闭时写入不会登记到过滤器，此时不做拦截。
+   *
+   * @param key 缓存键
+   * @return 键在后端存储中确定不存在
+   */
+  public boolean rejectKnownAbsent(String key) {
+    if (!isCacheEnabled() || !isKnownAbsent(key)) {
+      return false;
+    }
+    record(CacheEvent.PENETRATION_REJECT, key);
+    return true;
+  }
+
+  /** 登记后端存储中新增的键，新建后未写入缓存的数据也不会被防穿透过滤器拒绝 */
+  public void markPresent(String key) {
+    addToBloomFilter(key);
+  }
+
+  private static String namespaceOf(String key) {
+    return key.substring(0, key.lastIndexOf(':') + 1);
+  }
+
+  /**
+   * 为命名空间注册防穿透布隆过滤器 先注册过滤器使并发写入被记录，再载入后端存储中该命名空间的全部键，
+   * 载入完成后过滤器未命中的键才会被直接拒绝；未注册的命名空间不做拦截
+   *
+   * @param namespace 命名空间，如 course:detail:
+   * @param existingKeysLoader 返回后端存储中该命名空间全部缓存键的加载器
+   * @param targetFpp 目标误判率
+   */
+  public void registerPenetrationGuard(
+      String namespace, Supplier<? extends Collection<String>> existingKeysLoader, double targetFpp) {
+    PenetrationGuard guard =
+        new PenetrationGuard(new ScalableBloomFilter(MAX_CACHE_SIZE, targetFpp));
+    penetrationGuards.put(namespace, guard);
+    try {
+      Collection<String> existingKeys = existingKeysLoader.get();
+      for (String key : existingKeys) {
+        guard.filter.put(key);
+      }
+      guard.complete = true;
+      LogUtil.logBusinessOperation(
+          "CACHE_PENETRATION_GUARD_REGISTERED",
+          "",
+          "namespace=" + namespace + ", keys=" + existingKeys.size() + ", fpp=" + targetFpp);
+    } catch (RuntimeException e) {
+      penetrationGuards.remove(namespace, guard);
+      throw e;
+    }
   }
 
-  /** 检查键是否可能存在于布隆过滤器中 */
-  private boolean mightContain(String key) {
-    int hash1 = key.hashCode() % bloomFilter.size();
-    int hash2 = (key.hashCode() * 31) % bloomFilter.size();
-    int hash3 = (key.hashCode() * 37) % bloomFilter.size();
+  /** 防穿透过滤器 complete为true前只记录不拦截 */
+  private static final class PenetrationGuard {
+    private final ScalableBloomFilter filter;
+    private volatile boolean complete;
 
-    if (hash1 < 0) hash1 += bloomFilter.size();
-    if (hash2 < 0) hash2 += bloomFilter.size();
-    if (hash3 < 0) hash3 += bloomFilter.size();
+    PenetrationGuard(ScalableBloomFilter filter) {
+      this.filter = filter;
+    }
+  }
 
-    return bloomFilter.get(hash1) && bloomFilter.get(hash2) && bloomFilter.get(hash3);
+  /** 写入条目 值的对象图只估算一次，同时用于堆外存储判断与条目权重 */
+  private void putStored(
+      String key, Object value, long freshUntil, long expireTime, long loadMillis) {
+    long valueSize = sizeEstimator.sizeOf(value);
+    Object stored = toStoredValue(key, value, valueSize);
+    int weight =
+        stored == value
+            ? sizeEstimator.weighSized(key, valueSize)
+            : sizeEstimator.weigh(key, stored);
+    cache.put(key, stored, freshUntil, expireTime, loadMillis, weight);
   }
 
-  /** LRU淘汰策略 */
-  private void evictLRU() {
-    String oldestKey = null;
-    long oldestTime = Long.MAX_VALUE;
+  /** 大体积的Map/Collection响应写入堆外存储，返回堆上的索引；不满足条件或写入失败时原样返回 */
+  private Object toStoredValue(String key, Object value, long valueSize) {
+    long threshold = offHeapThresholdBytes;
+    if (threshold <= 0 || !(value instanceof Map || value instanceof Collection)) {
+      return value;
+    }
+    if (valueSize < threshold) {
+      return value;
+    }
+    OffHeapStore.Ref ref = offHeapStore.store(value, codecFor(key));
+    return ref != null ? ref : value;
+  }
+
+  /** 取出条目的值，堆外记录在此反序列化；记录已被slab回收时删除条目并返回null */
+  private Object readValue(String key, BoundedLocalCache.Node entry) {
+    Object value = entry.getValue();
+    if (!(value instanceof OffHeapStore.Ref)) {
+      return value;
+    }
+    Object loaded = offHeapStore.load((OffHeapStore.Ref) value);
+    if (loaded == null) {
+      cache.remove(key, entry);
+      record(CacheEvent.OFFHEAP_INVALIDATED, key);
+    }
+    return loaded;
+  }
 
-    for (String key : cache.keySet()) {
-      CacheEntry entry = cache.get(key);
-      if (entry != null && entry.getLastAccessTime() < oldestTime) {
-        oldestTime = entry.getLastAccessTime();
-        oldestKey = key;
+  /** 移除回调（由缓存引擎在持有淘汰锁时调用） */
+  private void onEviction(
+      String key, BoundedLocalCache.Node node, BoundedLocalCache.RemovalCause cause) {
+    if (node.getValue() instanceof OffHeapStore.Ref) {
+      OffHeapStore.Ref ref = (OffHeapStore.Ref) node.getValue();
+      // expire()会用同一索引写入新节点，此时记录仍被引用
+      BoundedLocalCache.Node current = cache.getQuietly(key);
+      if (current == null || current.getValue() != ref) {
+        offHeapStore.release(ref);
       }
     }
+    statsFor(key).recordRemoval(cause);
+    nearCache.invalidate(key);
+    if (cause == BoundedLocalCache.RemovalCause.EXPLICIT) {
+      CacheAccessListener listener = accessListener;
+      if (listener != null) {
+        listener.onInvalidate(key);
+      }
+    }
+    if (cause == BoundedLocalCache.RemovalCause.EXPIRED) {
+      record(CacheEvent.EXPIRED, key);
+    } else if (cause == BoundedLocalCache.RemovalCause.SIZE) {
+      record(CacheEvent.EVICT, key);
+    }
+  }
 
-    if (oldestKey != null) {
-      cache.remove(oldestKey);
-      LogUtil.logBusinessOperation("CACHE_LRU_EVICT", "", "key=" + oldestKey);
+  /** 失效整个命名空间（键前缀），代价为O(命名空间内的键数) */
+  public int removeNamespace(String namespace) {
+    if (!isCacheEnabled()) {
+      record(CacheEvent.DISABLED, "");
+      return 0;
     }
+
+    int removedCount = cache.removeByPrefix(namespace);
+    LogUtil.logBusinessOperation(
+        "CACHE_REMOVE_NAMESPACE", "", "namespace=" + namespace + ", removed=" + removedCount);
+    return removedCount;
   }
 
   /** 根据模式删除缓存 */
   public void removeByPattern(String pattern) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation(
-          "CACHE_DISABLED", "", "pattern=" + pattern + ", operation=removeByPattern");
+      record(CacheEvent.DISABLED, "");
       return;
     }
 
     int removedCount = 0;
-    for (String key : cache.keySet()) {
-      if (key.matches(pattern.replace("*", ".*"))) {
-        cache.remove(key);
-        removedCount++;
+    int wildcard = pattern.indexOf('*');
+    if (wildcard < 0) {
+      removedCount = cache.remove(pattern) != null ? 1 : 0;
+    } else if (wildcard == pattern.length() - 1) {
+      // 前缀失效：只触及对应命名空间内的键
+      removedCount = cache.removeByPrefix(pattern.substring(0, wildcard));
+    } else {
+      // 中间含通配符：以首个通配符前的字面前缀缩小候选范围
+      for (BoundedLocalCache.Node node : cache.nodesWithPrefix(pattern.substring(0, wildcard))) {
+        if (matchesGlob(node.getKey(), pattern) && cache.remove(node.getKey(), node)) {
+          removedCount++;
+        }
       }
     }
     LogUtil.logBusinessOperation(
@@ -478,24 +1268,22 @@ public class CacheUtil {
 
   /** 设置缓存过期时间 */
   public void expire(String key, int expireMinutes) {
-    CacheEntry entry = cache.get(key);
+    BoundedLocalCache.Node entry = cache.getQuietly(key);
     if (entry != null) {
-      long newExpireTime =
-          System.currentTimeMillis() + Duration.ofMinutes(expireMinutes).toMillis();
-      cache.put(key, new CacheEntry(entry.value, newExpireTime));
-      LogUtil.logBusinessOperation(
-          "CACHE_EXPIRE_SET", "", "key=" + key + ", expire=" + expireMinutes + "min");
+      long newExpireTime = now() + Duration.ofMinutes(expireMinutes).toMillis();
+      cache.put(key, entry.getValue(), newExpireTime);
+      record(CacheEvent.PUT, key);
     }
   }
 
   /** 获取缓存剩余过期时间（秒） */
   public long getExpire(String key) {
-    CacheEntry entry = cache.get(key);
+    BoundedLocalCache.Node entry = cache.getQuietly(key);
     if (entry == null) {
       return -2; // 键不存在
     }
 
-    long remainingTime = entry.expireTime - System.currentTimeMillis();
+    long remainingTime = entry.getExpireTime() - now();
     if (remainingTime <= 0) {
       return -2; // 已过期
     }
@@ -506,8 +1294,7 @@ public class CacheUtil {
   /** 批量获取缓存 */
   public java.util.Map<String, Object> multiGet(java.util.List<String> keys) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation(
-          "CACHE_DISABLED", "", "keys=" + keys.size() + ", operation=multiGet");
+      record(CacheEvent.DISABLED, "");
       return new java.util.HashMap<>();
     }
 
@@ -518,8 +1305,6 @@ public class CacheUtil {
         result.put(key, value);
       }
     }
-    LogUtil.logBusinessOperation(
-        "CACHE_MULTI_GET", "", "keys=" + keys.size() + ", hits=" + result.size());
     return result;
   }
 
@@ -536,63 +1321,102 @@ public class CacheUtil {
     return result;
   }
 
-  /** 批量设置缓存 */
+  /** 批量设置缓存，每个条目的TTL独立抖动，同批写入的条目不会同时过期 */
   public void multiPut(java.util.Map<String, Object> keyValues, int expireMinutes) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation(
-          "CACHE_DISABLED", "", "keys=" + keyValues.size() + ", operation=multiPut");
+      record(CacheEvent.DISABLED, "");
       return;
     }
 
+    RefreshPolicy policy =
+        RefreshPolicy.of(Duration.ofMinutes(expireMinutes))
+            .withEarlyExpiration(0, MULTI_PUT_TTL_JITTER);
     for (java.util.Map.Entry<String, Object> entry : keyValues.entrySet()) {
-      put(entry.getKey(), entry.getValue(), expireMinutes);
+      putWithPolicy(entry.getKey(), entry.getValue(), policy, 0, Long.MAX_VALUE);
+      record(CacheEvent.PUT, entry.getKey());
+    }
+  }
+
+  /** 批量设置缓存（按刷新策略），每个条目的TTL独立抖动 */
+  public void multiPut(java.util.Map<String, Object> keyValues, RefreshPolicy policy) {
+    if (!isCacheEnabled()) {
+      record(CacheEvent.DISABLED, "");
+      return;
+    }
+
+    for (java.util.Map.Entry<String, Object> entry : keyValues.entrySet()) {
+      putWithPolicy(entry.getKey(), entry.getValue(), policy, 0, Long.MAX_VALUE);
     }
-    LogUtil.logBusinessOperation(
-        "CACHE_MULTI_PUT", "", "keys=" + keyValues.size() + ", expire=" + expireMinutes + "min");
   }
 
   /** 仅当键不存在时设置缓存 */
   public boolean setIfAbsent(String key, String value, long expireTimeMs) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation("CACHE_DISABLED", "", "key=" + key + ", operation=setIfAbsent");
+      record(CacheEvent.DISABLED, key);
       return false;
     }
 
-    // 检查键是否已存在且未过期
-    if (exists(key)) {
+    // 原子写入：键已存在且未过期时失败
+    long expireTime = now() + expireTimeMs;
+    if (!cache.putIfAbsent(key, value, expireTime)) {
       return false;
     }
-
-    // 设置缓存
-    long expireTime = System.currentTimeMillis() + expireTimeMs;
-    cache.put(key, new CacheEntry(value, expireTime));
     addToBloomFilter(key);
-    LogUtil.logBusinessOperation(
-        "CACHE_SET_IF_ABSENT", "", "key=" + key + ", expire=" + expireTimeMs + "ms");
+    record(CacheEvent.PUT, key);
     return true;
   }
 
   /** 检查是否有匹配模式的键 */
   public boolean hasKeysMatching(String pattern) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation(
-          "CACHE_DISABLED", "", "pattern=" + pattern + ", operation=hasKeysMatching");
+      record(CacheEvent.DISABLED, "");
       return false;
     }
 
-    String regex = pattern.replace("*", ".*");
-    for (String key : cache.keySet()) {
-      if (key.matches(regex) && exists(key)) {
+    int wildcard = pattern.indexOf('*');
+    if (wildcard < 0) {
+      return exists(pattern);
+    }
+    boolean prefixOnly = wildcard == pattern.length() - 1;
+    long now = now();
+    for (BoundedLocalCache.Node node : cache.nodesWithPrefix(pattern.substring(0, wildcard))) {
+      if (!node.isExpired(now) && (prefixOnly || matchesGlob(node.getKey(), pattern))) {
         return true;
       }
     }
     return false;
   }
 
+  /** 通配符匹配，仅支持'*'（匹配任意长度字符） */
+  private static boolean matchesGlob(String key, String pattern) {
+    int k = 0;
+    int p = 0;
+    int starIndex = -1;
+    int matchIndex = 0;
+    while (k < key.length()) {
+      if (p < pattern.length() && pattern.charAt(p) != '*' && pattern.charAt(p) == key.charAt(k)) {
+        k++;
+        p++;
+      } else if (p < pattern.length() && pattern.charAt(p) == '*') {
+        starIndex = p++;
+        matchIndex = k;
+      } else if (starIndex >= 0) {
+        p = starIndex + 1;
+        k = ++matchIndex;
+      } else {
+        return false;
+      }
+    }
+    while (p < pattern.length() && pattern.charAt(p) == '*') {
+      p++;
+    }
+    return p == pattern.length();
+  }
+
   /** 执行脚本（简化实现，用于分布式锁的原子操作） */
   public Object executeScript(String script, String[] keys, String[] args) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation("CACHE_DISABLED", "", "operation=executeScript");
+      record(CacheEvent.DISABLED, "");
       return "0";
     }
 
@@ -614,7 +1438,7 @@ public class CacheUtil {
   /** 增加计数器 */
   public long increment(String key, long delta) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation("CACHE_DISABLED", "", "key=" + key + ", operation=increment");
+      record(CacheEvent.DISABLED, key);
       return 0L;
     }
 
@@ -622,30 +1446,26 @@ public class CacheUtil {
     long newValue = (currentValue != null ? Long.parseLong(currentValue) : 0L) + delta;
     put(key, String.valueOf(newValue));
 
-    LogUtil.logBusinessOperation(
-        "CACHE_INCREMENT", "", "key=" + key + ", delta=" + delta + ", newValue=" + newValue);
     return newValue;
   }
 
   /** 设置缓存并指定过期时间 */
   public void setWithExpire(String key, String value, long expireTimeMs) {
     if (!isCacheEnabled()) {
-      LogUtil.logBusinessOperation(
-          "CACHE_DISABLED", "", "key=" + key + ", operation=setWithExpire");
+      record(CacheEvent.DISABLED, key);
       return;
     }
 
-    long expireTime = System.currentTimeMillis() + expireTimeMs;
-    cache.put(key, new CacheEntry(value, expireTime));
+    long expireTime = now() + expireTimeMs;
+    cache.put(key, value, expireTime);
     addToBloomFilter(key);
 
-    LogUtil.logBusinessOperation(
-        "CACHE_SET_WITH_EXPIRE", "", "key=" + key + ", expire=" + expireTimeMs + "ms");
+    record(CacheEvent.PUT, key);
   }
 
-  /** 获取缓存大小 */
+  /** 获取缓存大小（精确的未过期条目数） */
   public int size() {
-    return cache.size();
+    return cache.liveSize();
   }
 
   /** 检查缓存是否为空 */
@@ -656,8 +1476,7 @@ public class CacheUtil {
   /** 关闭缓存工具（清理资源） */
   public void shutdown() {
     scheduler.shutdown();
-    keyLocks.clear();
-    bloomFilter.clear();
+    penetrationGuards.clear();
     clear();
   }
 }
@@ -0,0 +1,134 @@
+package com.wanli.backend.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * 客户端IP解析 限流、安全审计与异常日志共用
+ *
+ * <p>X-Forwarded-For、X-Real-IP 可由客户端任意填写，只有连接地址属于配置的可信代理（security.trusted-proxies）时才采用：
+ * 从X-Forwarded-For末尾向前跳过可信代理，第一个不可信的地址即客户端。未配置可信代理时一律以连接地址为准。
+ */
+@Component
+public class ClientIpUtil {
+
+  private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+  private static final String X_REAL_IP = "X-Real-IP";
+  private static final String UNKNOWN = "unknown";
+
+  private final List<IpAddressMatcher> trustedProxies;
+
+  @Autowired
+  public ClientIpUtil(ConfigUtil configUtil) {
+    this(configUtil.getTrustedProxies());
+  }
+
+  /**
+   * @param trustedProxies 逗号分隔的可信代理IP或CIDR，null或空表示不信任任何转发头
+   * @throws IllegalArgumentException 地址格式无效时
+   */
+  public ClientIpUtil(String trustedProxies) {
+    List<IpAddressMatcher> matchers = new ArrayList<>();
+    if (trustedProxies != null) {
+      for (String proxy : trustedProxies.split(",")) {
+        if (!proxy.trim().isEmpty()) {
+          matchers.add(new IpAddressMatcher(proxy.trim()));
+        }
+      }
+    }
+    this.trustedProxies = Collections.unmodifiableList(matchers);
+  }
+
+  /**
+   * 获取客户端IP地址
+   *
+   * @param request HTTP请求
+   * @return 客户端IP
+   */
+  public String resolve(HttpServletRequest request) {
+    String remoteAddr = request.getRemoteAddr();
+    if (!isTrustedProxy(remoteAddr)) {
+      return remoteAddr;
+    }
+
+    String forwardedFor = request.getHeader(X_FORWARDED_FOR);
+    if (hasAddress(forwardedFor)) {
+      String[] hops = forwardedFor.split(",");
+      for (int i = hops.length - 1; i >= 0; i--) {
+        String hop = hops[i].trim();
+        if (!hasAddress(hop)) {
+          break;
+        }
+        if (i == 0 || !isTrustedProxy(hop)) {
+          return hop;
+        }
+      }
+    }
+
+    String realIp = request.getHeader(X_REAL_IP);
+    return hasAddress(realIp) ? realIp.trim() : remoteAddr;
+  }
+
+  /** 地址是否属于可信代理，非IP字面量（如主机名）一律视为不可信，不做DNS解析 */
+  public boolean isTrustedProxy(String address) {
+    if (address == null || trustedProxies.isEmpty() || !isIpLiteral(address)) {
+      return false;
+    }
+    for (IpAddressMatcher matcher : trustedProxies) {
+      try {
+        if (matcher.matches(address)) {
+          return true;
+        }
+      } catch (IllegalArgumentException e) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 是否为IP字面量：IPv4为4段0-255的十进制数，IPv6含冒号且只含十六进制字符、冒号与点
+   *
+   * <p>InetAddress把不合法的IPv4形式当作主机名解析，这里先行过滤，客户端填写的转发头不会触发DNS查询。
+   */
+  private static boolean isIpLiteral(String address) {
+    if (address.indexOf(':') >= 0) {
+      for (int i = 0; i < address.length(); i++) {
+        char c = address.charAt(i);
+        if (Character.digit(c, 16) < 0 && c != ':' && c != '.') {
+          return false;
+        }
+      }
+      return true;
+    }
+    String[] parts = address.split("\\.", -1);
+    if (parts.length != 4) {
+      return false;
+    }
+    for (String part : parts) {
+      if (part.isEmpty() || part.length() > 3) {
+        return false;
+      }
+      for (int i = 0; i < part.length(); i++) {
+        if (part.charAt(i) < '0' || part.charAt(i) > '9') {
+          return false;
+        }
+      }
+      if (Integer.parseInt(part) > 255) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean hasAddress(String value) {
+    return value != null && !value.trim().isEmpty() && !UNKNOWN.equalsIgnoreCase(value.trim());
+  }
+}
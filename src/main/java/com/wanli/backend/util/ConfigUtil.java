@@ -37,6 +37,87 @@ public class ConfigUtil {
   @Value("${cache.max-size:1000}")
   private Integer cacheMaxSize;
 
+  // 本地缓存各分区的内存预算（字节）
+  @Value("${cache.region.course.max-bytes:33554432}")
+  private Long cacheCourseRegionMaxBytes;
+
+  @Value("${cache.region.lesson.max-bytes:33554432}")
+  private Long cacheLessonRegionMaxBytes;
+
+  @Value("${cache.region.default.max-bytes:16777216}")
+  private Long cacheDefaultRegionMaxBytes;
+
+  // 堆外缓存配置（字节）
+  @Value("${cache.offheap.max-bytes:67108864}")
+  private Long cacheOffHeapMaxBytes;
+
+  @Value("${cache.offheap.threshold-bytes:16384}")
+  private Long cacheOffHeapThresholdBytes;
+
+  // 缓存值编解码配置：启用压缩的分区（逗号分隔）与压缩阈值（字节）
+  @Value("${cache.codec.compressed-regions:lesson}")
+  private String cacheCodecCompressedRegions;
+
+  @Value("${cache.codec.compression-threshold-bytes:1024}")
+  private Integer cacheCodecCompressionThresholdBytes;
+
+  // 缓存快照配置
+  @Value("${cache.snapshot.enabled:false}")
+  private Boolean cacheSnapshotEnabled;
+
+  @Value("${cache.snapshot.path:${java.io.tmpdir}/wanli-backend/cache.snapshot}")
+  private String cacheSnapshotPath;
+
+  @Value("${cache.snapshot.interval-minutes:0}")
+  private Integer cacheSnapshotIntervalMinutes;
+
+  // 缓存采样追踪配置
+  @Value("${cache.trace.sample-rate:0}")
+  private Integer cacheTraceSampleRate;
+
+  @Value("${cache.trace.key-prefix:}")
+  private String cacheTraceKeyPrefix;
+
+  // 热点Key近端缓存配置
+  @Value("${cache.near.max-keys:32}")
+  private Integer cacheNearMaxKeys;
+
+  @Value("${cache.near.ttl-millis:1000}")
+  private Long cacheNearTtlMillis;
+
+  @Value("${cache.hot-key.sample-rate:16}")
+  private Integer cacheHotKeySampleRate;
+
+  // 堆内存压力配置：老年代GC后占用达到阈值比例开始收缩缓存，达到临界比例时收缩到最小
+  @Value("${cache.heap-pressure.enabled:true}")
+  private Boolean cacheHeapPressureEnabled;
+
+  @Value("${cache.heap-pressure.threshold-ratio:0.75}")
+  private Double cacheHeapPressureThresholdRatio;
+
+  @Value("${cache.heap-pressure.critical-ratio:0.95}")
+  private Double cacheHeapPressureCriticalRatio;
+
+  // 自适应TTL配置
+  @Value("${cache.adaptive-ttl.enabled:true}")
+  private Boolean cacheAdaptiveTtlEnabled;
+
+  @Value("${cache.adaptive-ttl.min-minutes:1}")
+  private Long cacheAdaptiveTtlMinMinutes;
+
+  @Value("${cache.adaptive-ttl.max-minutes:1440}")
+  private Long cacheAdaptiveTtlMaxMinutes;
+
+  // 并发数限制配置
+  @Value("${rate-limit.concurrency.enabled:true}")
+  private Boolean concurrencyLimitEnabled;
+
+  @Value("${rate-limit.concurrency.min-limit:5}")
+  private Integer concurrencyLimitMin;
+
+  @Value("${rate-limit.concurrency.max-limit:100}")
+  private Integer concurrencyLimitMax;
+
   // 日志相关配置
   @Value("${logging.level.com.wanli:INFO}")
   private String logLevel;
@@ -54,6 +135,10 @@ public class ConfigUtil {
   @Value("${security.session.timeout:3600}")
   private Integer sessionTimeout;
 
+  // 可信反向代理（逗号分隔的IP或CIDR），只有来自这些地址的请求才采用X-Forwarded-For
+  @Value("${security.trusted-proxies:}")
+  private String trustedProxies;
+
   // 业务相关配置
   @Value("${business.course.max-lessons:100}")
   private Integer maxLessonsPerCourse;
@@ -104,6 +189,140 @@ public class ConfigUtil {
     return getCachedConfig("cache.max-size", cacheMaxSize, Integer.class);
   }
 
+  /** 获取课程缓存分区内存预算（字节） */
+  public Long getCacheCourseRegionMaxBytes() {
+    return getCachedConfig(
+        "cache.region.course.max-bytes", cacheCourseRegionMaxBytes, Long.class);
+  }
+
+  /** 获取课时缓存分区内存预算（字节） */
+  public Long getCacheLessonRegionMaxBytes() {
+    return getCachedConfig(
+        "cache.region.lesson.max-bytes", cacheLessonRegionMaxBytes, Long.class);
+  }
+
+  /** 获取默认缓存分区内存预算（字节） */
+  public Long getCacheDefaultRegionMaxBytes() {
+    return getCachedConfig(
+        "cache.region.default.max-bytes", cacheDefaultRegionMaxBytes, Long.class);
+  }
+
+  /** 获取堆外缓存直接内存上限（字节） */
+  public Long getCacheOffHeapMaxBytes() {
+    return getCachedConfig("cache.offheap.max-bytes", cacheOffHeapMaxBytes, Long.class);
+  }
+
+  /** 获取写入堆外缓存的值大小阈值（字节），0表示不使用堆外缓存 */
+  public Long getCacheOffHeapThresholdBytes() {
+    return getCachedConfig(
+        "cache.offheap.threshold-bytes", cacheOffHeapThresholdBytes, Long.class);
+  }
+
+  /** 获取启用压缩的缓存分区（逗号分隔） */
+  public String getCacheCodecCompressedRegions() {
+    return getCachedConfig(
+        "cache.codec.compressed-regions", cacheCodecCompressedRegions, String.class);
+  }
+
+  /** 获取缓存值的压缩阈值（字节） */
+  public Integer getCacheCodecCompressionThresholdBytes() {
+    return getCachedConfig(
+        "cache.codec.compression-threshold-bytes",
+        cacheCodecCompressionThresholdBytes,
+        Integer.class);
+  }
+
+  /** 是否启用缓存快照 */
+  public Boolean isCacheSnapshotEnabled() {
+    return getCachedConfig("cache.snapshot.enabled", cacheSnapshotEnabled, Boolean.class);
+  }
+
+  /** 获取缓存快照文件路径 */
+  public String getCacheSnapshotPath() {
+    return getCachedConfig("cache.snapshot.path", cacheSnapshotPath, String.class);
+  }
+
+  /** 获取定时写入缓存快照的间隔（分钟），0表示只在停机时写入 */
+  public Integer getCacheSnapshotIntervalMinutes() {
+    return getCachedConfig(
+        "cache.snapshot.interval-minutes", cacheSnapshotIntervalMinutes, Integer.class);
+  }
+
+  /** 获取缓存采样追踪比例（每N次操作追踪一次），0表示关闭 */
+  public Integer getCacheTraceSampleRate() {
+    return getCachedConfig("cache.trace.sample-rate", cacheTraceSampleRate, Integer.class);
+  }
+
+  /** 获取缓存采样追踪的键前缀 */
+  public String getCacheTraceKeyPrefix() {
+    return getCachedConfig("cache.trace.key-prefix", cacheTraceKeyPrefix, String.class);
+  }
+
+  /** 获取近端缓存最多提升的热点键数 */
+  public Integer getCacheNearMaxKeys() {
+    return getCachedConfig("cache.near.max-keys", cacheNearMaxKeys, Integer.class);
+  }
+
+  /** 获取近端缓存副本的存活时间（毫秒） */
+  public Long getCacheNearTtlMillis() {
+    return getCachedConfig("cache.near.ttl-millis", cacheNearTtlMillis, Long.class);
+  }
+
+  /** 获取热点键统计的读取采样比例（每N次读取上报一次），0表示不上报 */
+  public Integer getCacheHotKeySampleRate() {
+    return getCachedConfig("cache.hot-key.sample-rate", cacheHotKeySampleRate, Integer.class);
+  }
+
+  /** 是否按堆内存压力收缩缓存 */
+  public Boolean getCacheHeapPressureEnabled() {
+    return getCachedConfig("cache.heap-pressure.enabled", cacheHeapPressureEnabled, Boolean.class);
+  }
+
+  /** 获取开始收缩缓存的老年代占用比例 */
+  public Double getCacheHeapPressureThresholdRatio() {
+    return getCachedConfig(
+        "cache.heap-pressure.threshold-ratio", cacheHeapPressureThresholdRatio, Double.class);
+  }
+
+  /** 获取缓存收缩到最小的老年代占用比例 */
+  public Double getCacheHeapPressureCriticalRatio() {
+    return getCachedConfig(
+        "cache.heap-pressure.critical-ratio", cacheHeapPressureCriticalRatio, Double.class);
+  }
+
+  /** 是否启用自适应TTL */
+  public Boolean getCacheAdaptiveTtlEnabled() {
+    return getCachedConfig("cache.adaptive-ttl.enabled", cacheAdaptiveTtlEnabled, Boolean.class);
+  }
+
+  /** 获取自适应TTL的下限（分钟） */
+  public Long getCacheAdaptiveTtlMinMinutes() {
+    return getCachedConfig(
+        "cache.adaptive-ttl.min-minutes", cacheAdaptiveTtlMinMinutes, Long.class);
+  }
+
+  /** 获取自适应TTL的上限（分钟） */
+  public Long getCacheAdaptiveTtlMaxMinutes() {
+    return getCachedConfig(
+        "cache.adaptive-ttl.max-minutes", cacheAdaptiveTtlMaxMinutes, Long.class);
+  }
+
+  /** 是否启用课程、课时接口的自适应并发数限制 */
+  public Boolean getConcurrencyLimitEnabled() {
+    return getCachedConfig(
+        "rate-limit.concurrency.enabled", concurrencyLimitEnabled, Boolean.class);
+  }
+
+  /** 获取每组接口并发上限的下界 */
+  public Integer getConcurrencyLimitMin() {
+    return getCachedConfig("rate-limit.concurrency.min-limit", concurrencyLimitMin, Integer.class);
+  }
+
+  /** 获取每组接口并发上限的上界 */
+  public Integer getConcurrencyLimitMax() {
+    return getCachedConfig("rate-limit.concurrency.max-limit", concurrencyLimitMax, Integer.class);
+  }
+
   /** 获取日志级别 */
   public String getLogLevel() {
     return getCachedConfig("log.level", logLevel, String.class);
@@ -129,6 +348,11 @@ public class ConfigUtil {
     return getCachedConfig("security.session.timeout", sessionTimeout, Integer.class);
   }
 
+  /** 获取可信反向代理列表（逗号分隔的IP或CIDR） */
+  public String getTrustedProxies() {
+    return getCachedConfig("security.trusted-proxies", trustedProxies, String.class);
+  }
+
   /** 获取每个课程最大课时数 */
   public Integer getMaxLessonsPerCourse() {
     return getCachedConfig("business.course.max-lessons", maxLessonsPerCourse, Integer.class);
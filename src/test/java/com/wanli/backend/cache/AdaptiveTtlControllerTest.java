@@ -0,0 +1,174 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.wanli.backend.config.ApplicationConfigManager;
+import com.wanli.backend.monitor.MetricsCollector;
+import com.wanli.backend.util.CacheUtil;
+import com.wanli.backend.util.ConfigUtil;
+
+/** AdaptiveTtlController 按键族调整TTL 单元测试 */
+@ExtendWith(MockitoExtension.class)
+class AdaptiveTtlControllerTest {
+
+  private static final long THIRTY_MINUTES = TimeUnit.MINUTES.toMillis(30);
+
+  @Mock private ApplicationConfigManager configManager;
+  @Mock private MetricsCollector metricsCollector;
+  @Mock private RedisTemplate<String, Object> redisTemplate;
+  @Mock private ConfigUtil configUtil;
+
+  private final CacheUtil cacheUtil = new CacheUtil();
+  private CacheOptimizer optimizer;
+  private AdaptiveTtlController controller;
+
+  @BeforeEach
+  void setUp() {
+    when(configManager.getCacheConfig())
+        .thenReturn(new ApplicationConfigManager.CacheConfig(60, 10000, true));
+    when(configUtil.getCacheAdaptiveTtlEnabled()).thenReturn(true);
+    when(configUtil.getCacheAdaptiveTtlMinMinutes()).thenReturn(1L);
+    when(configUtil.getCacheAdaptiveTtlMaxMinutes()).thenReturn(60L);
+    optimizer = new CacheOptimizer(configManager, metricsCollector, redisTemplate, cacheUtil);
+    controller = new AdaptiveTtlController(optimizer, cacheUtil, configUtil);
+    controller.init();
+  }
+
+  @AfterEach
+  void tearDown() {
+    cacheUtil.shutdown();
+  }
+
+  @Test
+  void testFrequentlyInvalidatedFamilyShrinks() {
+    for (int i = 0; i < 100; i++) {
+      optimizer.onWrite("course:list:" + i);
+      optimizer.onInvalidate("course:list:" + i);
+      optimizer.onRead("course:list:" + i, true, 1);
+    }
+
+    controller.adjust();
+
+    assertEquals(0.5, controller.getFactor("course:list"));
+    assertEquals(THIRTY_MINUTES / 2, controller.adviseTtlMillis("course:list:7", THIRTY_MINUTES));
+    // 其他键族不受影响
+    assertEquals(THIRTY_MINUTES, controller.adviseTtlMillis("user:profile:1", THIRTY_MINUTES));
+  }
+
+  @Test
+  void testStableFamilyGrowsWithinBounds() {
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 20; i++) {
+        optimizer.onWrite("config:global:" + i);
+        optimizer.onRead("config:global:" + i, true, 16);
+      }
+      controller.adjust();
+    }
+
+    // 1.5^5 超过上限，倍率封顶为4；30分钟*4 再受60分钟上限约束
+    assertEquals(4.0, controller.getFactor("config:global"));
+    assertEquals(
+        TimeUnit.MINUTES.toMillis(60),
+        controller.adviseTtlMillis("config:global:1", THIRTY_MINUTES));
+  }
+
+  @Test
+  void testLowHitRateShrinksAndSmallWindowsAreIgnored() {
+    for (int i = 0; i < 50; i++) {
+      optimizer.onRead("lesson:detail:" + i, false, 1);
+    }
+    controller.adjust();
+    assertEquals(1.0, controller.getFactor("lesson:detail"));
+
+    // 写入后很少被读取
+    for (int i = 0; i < 200; i++) {
+      optimizer.onWrite("lesson:detail:" + i);
+      optimizer.onRead("lesson:detail:" + i, i % 10 == 0, 1);
+    }
+    controller.adjust();
+
+    assertEquals(0.5, controller.getFactor("lesson:detail"));
+    List<AdaptiveTtlController.TtlDecision> decisions = controller.getEffectiveTtls();
+    assertTrue(decisions.get(0).getReason().startsWith("命中率低"));
+  }
+
+  @Test
+  void testLowHitRateWithOnlyRefillsDoesNotShrink() {
+    // 未命中后回填，写入少于读取：命中率低可能是TTL过短所致，连续多个周期倍率也不变
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 200; i++) {
+        boolean hit = i % 10 == 0;
+        optimizer.onRead("lesson:detail:" + i, hit, 1);
+        if (!hit) {
+          optimizer.onWrite("lesson:detail:" + i);
+        }
+      }
+      controller.adjust();
+    }
+
+    assertEquals(1.0, controller.getFactor("lesson:detail"));
+  }
+
+  @Test
+  void testGenerationBumpsCountAsInvalidations() {
+    CacheManager cacheManager = new CacheManager(cacheUtil);
+    for (int i = 0; i < 100; i++) {
+      optimizer.onWrite("course:list:page:g" + i + ":0:10");
+      optimizer.onRead("course:list:page:g" + i + ":0:10", true, 1);
+      cacheManager.invalidateGeneration("course:list:page:");
+    }
+
+    controller.adjust();
+
+    assertEquals(100, optimizer.getKeyFamilyStats().get("course:list").getInvalidationCount());
+    assertEquals(0.5, controller.getFactor("course:list"));
+  }
+
+  @Test
+  void testAdvisorAppliedToCacheWrites() {
+    for (int i = 0; i < 100; i++) {
+      optimizer.onWrite("course:list:" + i);
+      optimizer.onInvalidate("course:list:" + i);
+      optimizer.onRead("course:list:" + i, true, 1);
+    }
+    controller.adjust();
+    ReflectionTestUtils.setField(cacheUtil, "configUtil", configUtil);
+    when(configUtil.isCacheEnabled()).thenReturn(true);
+
+    cacheUtil.put("course:list:1", "v", 30);
+
+    AdaptiveTtlController.TtlDecision decision = controller.getEffectiveTtls().get(0);
+    assertEquals(THIRTY_MINUTES, decision.getBaseTtlMillis());
+    assertEquals(THIRTY_MINUTES / 2, decision.getEffectiveTtlMillis());
+  }
+
+  @Test
+  void testDisabledControllerDoesNotAdjust() {
+    when(configUtil.getCacheAdaptiveTtlEnabled()).thenReturn(false);
+    controller.init();
+    for (int i = 0; i < 100; i++) {
+      optimizer.onWrite("course:list:" + i);
+      optimizer.onInvalidate("course:list:" + i);
+      optimizer.onRead("course:list:" + i, true, 1);
+    }
+
+    controller.adjust();
+
+    assertFalse(controller.isEnabled());
+    assertEquals(1.0, controller.getFactor("course:list"));
+    assertEquals(THIRTY_MINUTES, controller.adviseTtlMillis("course:list:1", THIRTY_MINUTES));
+  }
+}
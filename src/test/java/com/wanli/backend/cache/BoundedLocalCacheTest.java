@@ -0,0 +1,233 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** BoundedLocalCache 单元测试 */
+class BoundedLocalCacheTest {
+
+  private static final long FAR_FUTURE = Long.MAX_VALUE;
+
+  private BoundedLocalCache cache;
+  private List<String> evictedKeys;
+
+  @BeforeEach
+  void setUp() {
+    evictedKeys = new ArrayList<>();
+    cache = new BoundedLocalCache(100, (key, node, cause) -> evictedKeys.add(key));
+  }
+
+  @Test
+  void testSizeNeverExceedsMaximum() {
+    for (int i = 0; i < 1000; i++) {
+      cache.put("key" + i, i, FAR_FUTURE);
+    }
+
+    assertEquals(100, cache.size());
+    assertEquals(900, evictedKeys.size());
+  }
+
+  @Test
+  void testFrequentKeysSurviveScan() {
+    // 预热一批热点Key
+    for (int i = 0; i < 50; i++) {
+      cache.put("hot" + i, i, FAR_FUTURE);
+    }
+    for (int round = 0; round < 20; round++) {
+      for (int i = 0; i < 50; i++) {
+        cache.get("hot" + i);
+      }
+      // 写操作会重放读缓冲区
+      cache.put("hot0", 0, FAR_FUTURE);
+    }
+
+    // 一次性扫描大量冷数据
+    for (int i = 0; i < 5000; i++) {
+      cache.put("scan" + i, i, FAR_FUTURE);
+    }
+
+    int survivors = 0;
+    for (int i = 0; i < 50; i++) {
+      if (cache.getQuietly("hot" + i) != null) {
+        survivors++;
+      }
+    }
+    assertTrue(survivors >= 40, "热点数据应在扫描后保留，实际保留: " + survivors);
+  }
+
+  @Test
+  void testReplaceAndRemove() {
+    cache.put("key", "v1", FAR_FUTURE);
+    BoundedLocalCache.Node prior = cache.put("key", "v2", FAR_FUTURE);
+
+    assertEquals("v1", prior.getValue());
+    assertFalse(prior.isAlive());
+    assertEquals("v2", cache.get("key").getValue());
+    assertEquals(1, cache.evictionOrderSnapshot().size());
+
+    assertNotNull(cache.remove("key"));
+    assertNull(cache.get("key"));
+    assertTrue(cache.evictionOrderSnapshot().isEmpty());
+  }
+
+  @Test
+  void testPutIfAbsentReplacesExpiredEntry() {
+    assertTrue(cache.putIfAbsent("lock", "a", FAR_FUTURE));
+    assertFalse(cache.putIfAbsent("lock", "b", FAR_FUTURE));
+
+    cache.put("expired", "old", System.currentTimeMillis() - 1);
+    assertTrue(cache.putIfAbsent("expired", "new", FAR_FUTURE));
+    assertEquals("new", cache.getQuietly("expired").getValue());
+  }
+
+  @Test
+  void testTimerWheelExpiresWithoutReads() throws InterruptedException {
+    long now = System.currentTimeMillis();
+    cache.put("short", "v", now + 50);
+    cache.put("long", "v", now + 60_000);
+    cache.put("forever", "v", FAR_FUTURE);
+
+    assertEquals(3, cache.liveSize());
+
+    Thread.sleep(1200);
+    cache.cleanUp();
+
+    // 过期条目无需读请求触发即被回收
+    assertNull(cache.getQuietly("short"));
+    assertTrue(evictedKeys.contains("short"));
+    assertEquals(2, cache.liveSize());
+    assertEquals(2, cache.evictionOrderSnapshot().size());
+  }
+
+  @Test
+  void testLiveSizeExcludesEntriesExpiredWithinCurrentTick() throws InterruptedException {
+    cache.put("key", "v", System.currentTimeMillis() + 10);
+    Thread.sleep(30);
+
+    assertEquals(0, cache.liveSize());
+  }
+
+  @Test
+  void testShrinkMaximum() {
+    for (int i = 0; i < 100; i++) {
+      cache.put("key" + i, i, FAR_FUTURE);
+    }
+
+    cache.setMaximum(10);
+
+    assertEquals(10, cache.size());
+    assertEquals(10, cache.evictionOrderSnapshot().size());
+  }
+
+  @Test
+  void testWeightedEvictionRespectsTotalWeight() {
+    BoundedLocalCache weighted =
+        new BoundedLocalCache(
+            1000, (key, value) -> (Integer) value, (key, node, cause) -> evictedKeys.add(key));
+    for (int i = 0; i < 50; i++) {
+      weighted.put("small" + i, 10, FAR_FUTURE);
+    }
+    weighted.put("large", 600, FAR_FUTURE);
+
+    assertTrue(weighted.getWeightedSize() <= 1000);
+    // 超过总预算的条目不会被保留
+    weighted.put("huge", 2000, FAR_FUTURE);
+    assertNull(weighted.getQuietly("huge"));
+    assertTrue(weighted.getWeightedSize() <= 1000);
+  }
+
+  @Test
+  void testWeightedGrowthKeepsFrequencyHistory() {
+    BoundedLocalCache weighted =
+        new BoundedLocalCache(
+            10L * 1024 * 1024, (key, value) -> 1, (key, node, cause) -> evictedKeys.add(key));
+    for (int i = 0; i < 5; i++) {
+      weighted.put("hot", i, FAR_FUTURE);
+    }
+    int before = weighted.frequency("hot");
+    assertTrue(before > 0);
+
+    // 条目数增长、预算收缩与恢复都不会重建频率草图
+    for (int i = 0; i < 5000; i++) {
+      weighted.put("cold" + i, i, FAR_FUTURE);
+    }
+    weighted.setMaximum(1024 * 1024);
+    weighted.setMaximum(10L * 1024 * 1024);
+    assertTrue(weighted.frequency("hot") >= before);
+  }
+
+  @Test
+  void testPrecomputedWeightIsUsed() {
+    BoundedLocalCache weighted =
+        new BoundedLocalCache(
+            1000, (key, value) -> fail("不应重新计算权重"), (key, node, cause) -> {});
+    weighted.put("key", "value", FAR_FUTURE, FAR_FUTURE, 0, 42);
+
+    assertEquals(42, weighted.getQuietly("key").getWeight());
+    assertEquals(42, weighted.getWeightedSize());
+  }
+
+  @Test
+  void testRemoveByPrefixOnlyTouchesNamespace() {
+    cache.put("course:list:all", "all", FAR_FUTURE);
+    cache.put("course:list:page:0:10", "p0", FAR_FUTURE);
+    cache.put("course:list:page:1:10", "p1", FAR_FUTURE);
+    cache.put("course:user:42:page:0", "u42", FAR_FUTURE);
+    cache.put("course:user:43:page:0", "u43", FAR_FUTURE);
+    cache.put("course:detail:1", "d1", FAR_FUTURE);
+
+    assertEquals(2, cache.removeByPrefix("course:list:page:"));
+    assertNotNull(cache.getQuietly("course:list:all"));
+
+    assertEquals(1, cache.removeByPrefix("course:user:42:"));
+    assertNotNull(cache.getQuietly("course:user:43:page:0"));
+
+    // 前缀最后一段不完整时按字面前缀匹配
+    assertEquals(1, cache.removeByPrefix("course:det"));
+    assertEquals(0, cache.removeByPrefix("missing:"));
+
+    assertEquals(2, cache.size());
+    assertEquals(2, cache.evictionOrderSnapshot().size());
+  }
+
+  @Test
+  void testEvictedEntriesLeaveNamespace() {
+    for (int i = 0; i < 1000; i++) {
+      cache.put("ns:" + i, i, FAR_FUTURE);
+    }
+
+    assertEquals(100, cache.nodesWithPrefix("ns:").size());
+    cache.clear();
+    assertTrue(cache.nodesWithPrefix("ns:").isEmpty());
+  }
+
+  @Test
+  void testConcurrentWritesStayConsistent() throws Exception {
+    CompletableFuture<?>[] futures = new CompletableFuture[8];
+    for (int t = 0; t < futures.length; t++) {
+      final int thread = t;
+      futures[t] =
+          CompletableFuture.runAsync(
+              () -> {
+                for (int i = 0; i < 2000; i++) {
+                  String key = "key" + ((thread * 7919 + i) % 500);
+                  cache.put(key, i, FAR_FUTURE);
+                  cache.get(key);
+                  if (i % 10 == 0) {
+                    cache.remove(key);
+                  }
+                }
+              });
+    }
+    CompletableFuture.allOf(futures).get();
+
+    assertTrue(cache.size() <= 100);
+    assertEquals(cache.size(), cache.evictionOrderSnapshot().size());
+  }
+}
@@ -0,0 +1,88 @@
+package com.wanli.backend.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * 缓存编解码基准 对比各编解码在课程列表、课时详情上的编码大小与编解码吞吐
+ *
+ * <p>默认不运行：mvn test -Dtest=CacheCodecBenchmarkTest -Dcache.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "cache.benchmark", matches = "true")
+class CacheCodecBenchmarkTest {
+
+  private static final int WARMUP_ROUNDS = 2_000;
+  private static final int MEASURE_ROUNDS = 10_000;
+
+  @Test
+  void benchmarkCodecs() {
+    Map<String, Object> samples = new LinkedHashMap<>();
+    samples.put("课时详情(小)", CacheCodecTest.lessonResponse(3));
+    samples.put("课时详情(大)", CacheCodecTest.lessonResponse(300));
+    List<Object> courses = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      courses.add(CacheCodecTest.lessonResponse(1));
+    }
+    samples.put("课程列表(50条)", Map.of("courses", courses, "total", 50));
+
+    Map<String, CacheCodec> codecs = new LinkedHashMap<>();
+    codecs.put("jsonb", JsonbCodec.INSTANCE);
+    codecs.put("jsonb+deflate(1)", new CompressingCodec(JsonbCodec.INSTANCE, 1024));
+    codecs.put(
+        "jsonb+deflate(6)",
+        new CompressingCodec(JsonbCodec.INSTANCE, 1024, Deflater.DEFAULT_COMPRESSION));
+
+    System.out.printf("%-16s %-18s %10s %14s %14s%n", "样本", "编解码", "字节", "编码(ops/s)", "解码(ops/s)");
+    for (Map.Entry<String, Object> sample : samples.entrySet()) {
+      for (Map.Entry<String, CacheCodec> codec : codecs.entrySet()) {
+        byte[] encoded = codec.getValue().encode(sample.getValue());
+        System.out.printf(
+            "%-16s %-18s %10d %14.0f %14.0f%n",
+            sample.getKey(),
+            codec.getKey(),
+            encoded.length,
+            encodeThroughput(codec.getValue(), sample.getValue()),
+            decodeThroughput(codec.getValue(), encoded));
+      }
+    }
+  }
+
+  private static double encodeThroughput(CacheCodec codec, Object value) {
+    long sink = 0;
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      sink += codec.encode(value).length;
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURE_ROUNDS; i++) {
+      sink += codec.encode(value).length;
+    }
+    return opsPerSecond(start, sink);
+  }
+
+  private static double decodeThroughput(CacheCodec codec, byte[] encoded) {
+    long sink = 0;
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      sink += codec.decode(encoded).hashCode();
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURE_ROUNDS; i++) {
+      sink += codec.decode(encoded).hashCode();
+    }
+    return opsPerSecond(start, sink);
+  }
+
+  private static double opsPerSecond(long startNanos, long sink) {
+    long elapsed = System.nanoTime() - startNanos;
+    // 使用sink避免循环被优化掉
+    if (sink == Long.MIN_VALUE) {
+      System.out.println(sink);
+    }
+    return MEASURE_ROUNDS * 1e9 / elapsed;
+  }
+}
@@ -0,0 +1,98 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+
+/** CacheCodec JSONB与压缩编解码 单元测试 */
+class CacheCodecTest {
+
+  private final CompressingCodec codec = new CompressingCodec(JsonbCodec.INSTANCE, 1024);
+
+  /** 与课时响应结构相同、正文为大段文本的Map */
+  static Map<String, Object> lessonResponse(int paragraphs) {
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < paragraphs; i++) {
+      content
+          .append("<p>第")
+          .append(i + 1)
+          .append("节：本节介绍二次函数的图像与性质，包括开口方向、对称轴、顶点坐标，")
+          .append("并通过例题")
+          .append(i * 7 % 13)
+          .append("讲解如何根据图像求解析式。</p>\n");
+    }
+    Map<String, Object> lesson = new HashMap<>();
+    lesson.put("id", UUID.randomUUID());
+    lesson.put("title", "二次函数的图像与性质");
+    lesson.put("description", "本课时复习二次函数的基础知识，适合初三学生。".repeat(8));
+    lesson.put("content", content.toString());
+    lesson.put("orderIndex", 3);
+    return lesson;
+  }
+
+  @Test
+  void testJsonbRoundTripKeepsTypes() {
+    Map<String, Object> lesson = lessonResponse(2);
+
+    Object decoded = JsonbCodec.INSTANCE.decode(JsonbCodec.INSTANCE.encode(lesson));
+
+    assertEquals(lesson, decoded);
+    assertTrue(((Map<?, ?>) decoded).get("id") instanceof UUID);
+  }
+
+  @Test
+  void testSmallValuesAreNotCompressed() {
+    byte[] encoded = codec.encode(Map.of("title", "短标题"));
+
+    assertEquals(0, encoded[0]);
+    assertEquals(Map.of("title", "短标题"), codec.decode(encoded));
+    assertEquals(1, codec.getUncompressedCount());
+  }
+
+  @Test
+  void testLargeTextCompressedAndRestored() {
+    Map<String, Object> lesson = lessonResponse(200);
+    int plainSize = JsonbCodec.INSTANCE.encode(lesson).length;
+
+    byte[] encoded = codec.encode(lesson);
+
+    assertEquals(1, encoded[0]);
+    assertTrue(encoded.length * 4 < plainSize, encoded.length + " vs " + plainSize);
+    assertEquals(lesson, codec.decode(encoded));
+    assertTrue(codec.getCompressionRatio() < 0.25);
+  }
+
+  @Test
+  void testIncompressibleValueKeptRaw() {
+    byte[] random = new byte[8192];
+    ThreadLocalRandom.current().nextBytes(random);
+
+    byte[] encoded = codec.encode(random);
+
+    assertEquals(0, encoded[0]);
+    assertArrayEquals(random, (byte[]) codec.decode(encoded));
+  }
+
+  @Test
+  void testUnknownFormatRejected() {
+    assertThrows(IllegalArgumentException.class, () -> codec.decode(new byte[] {9, 1, 2}));
+  }
+
+  @Test
+  void testOffHeapStoreUsesGivenCodec() {
+    OffHeapStore store = new OffHeapStore(1024 * 1024, 256 * 1024);
+    Map<String, Object> lesson = lessonResponse(200);
+
+    OffHeapStore.Ref plain = store.store(lesson);
+    OffHeapStore.Ref compressed = store.store(lesson, codec);
+
+    assertTrue(compressed.getLength() * 4 < plain.getLength());
+    assertEquals(lesson, store.load(compressed));
+    assertEquals(lesson, store.load(plain));
+  }
+}
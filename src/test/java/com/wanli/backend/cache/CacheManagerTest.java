@@ -0,0 +1,229 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.wanli.backend.exception.BusinessException;
+import com.wanli.backend.util.CacheUtil;
+
+/** CacheManager 单元测试 */
+class CacheManagerTest {
+
+  private CacheUtil cacheUtil;
+  private CacheManager cacheManager;
+
+  @BeforeEach
+  void setUp() {
+    cacheUtil = mock(CacheUtil.class);
+    cacheManager = new CacheManager(cacheUtil);
+  }
+
+  @Test
+  void testGenerationKeyChangesAfterInvalidate() {
+    String collection = "course:list:page:";
+    String before = cacheManager.generationKey(collection, "0:10");
+    assertEquals("course:list:page:g0:0:10", before);
+
+    assertEquals(1, cacheManager.invalidateGeneration(collection));
+
+    assertEquals("course:list:page:g1:0:10", cacheManager.generationKey(collection, "0:10"));
+    // 失效只递增计数器并上报一次失效，不逐个删除旧键
+    verify(cacheUtil).recordInvalidation(collection);
+    verifyNoMoreInteractions(cacheUtil);
+  }
+
+  @Test
+  void testRecognizesGenerationKeys() {
+    String pageKey = cacheManager.generationKey("course:list:page:", "0:10");
+    assertTrue(CacheManager.isGenerationKey(pageKey));
+    assertTrue(CacheManager.isGenerationKey("lesson:list:page:42:g12:0:10"));
+    assertFalse(CacheManager.isGenerationKey("course:list:all"));
+    assertFalse(CacheManager.isGenerationKey("course:detail:g1"));
+    assertFalse(CacheManager.isGenerationKey("course:group:0:10"));
+  }
+
+  @Test
+  void testGenerationsAreIndependentPerCollection() {
+    cacheManager.invalidateGeneration("lesson:list:page:a:");
+    cacheManager.invalidateGeneration("lesson:list:page:a:");
+
+    assertEquals(2, cacheManager.currentGeneration("lesson:list:page:a:"));
+    assertEquals(0, cacheManager.currentGeneration("lesson:list:page:b:"));
+  }
+
+  @Test
+  void testGetAllLoadsOnlyMissingKeysInOneBatch() {
+    when(cacheUtil.get("course:detail:1")).thenReturn("课程1");
+    when(cacheUtil.get("course:detail:3")).thenReturn("课程3");
+    List<Set<Integer>> loaderCalls = new ArrayList<>();
+
+    Map<Integer, String> result =
+        cacheManager.getAll(
+            Arrays.asList(1, 2, 3, 4, 2),
+            id -> "course:detail:" + id,
+            missing -> {
+              loaderCalls.add(missing);
+              Map<Integer, String> loaded = new HashMap<>();
+              loaded.put(2, "课程2");
+              return loaded;
+            },
+            CacheManager.CacheStrategy.MEDIUM);
+
+    // 保持输入顺序，重复ID只出现一次，加载结果中没有的ID被忽略
+    assertEquals(Arrays.asList(1, 2, 3), new ArrayList<>(result.keySet()));
+    assertEquals("课程2", result.get(2));
+    assertEquals(1, loaderCalls.size());
+    assertEquals(Set.of(2, 4), loaderCalls.get(0));
+    verify(cacheUtil)
+        .multiPut(
+            eq(Map.of("course:detail:2", (Object) "课程2")),
+            eq(CacheManager.CacheStrategy.MEDIUM.getRefreshPolicy()));
+  }
+
+  @Test
+  void testGetAllSkipsLoaderWhenEverythingCached() {
+    when(cacheUtil.get(anyString())).thenReturn("cached");
+
+    Map<String, String> result =
+        cacheManager.getAll(
+            Arrays.asList("a", "b"),
+            missing -> {
+              throw new AssertionError("不应回源");
+            });
+
+    assertEquals(2, result.size());
+    verify(cacheUtil, never()).multiPut(anyMap(), any(RefreshPolicy.class));
+  }
+
+  @Test
+  void testEvictInTransactionRepeatsAfterCommit() {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      cacheManager.evict("course:detail:1");
+      verify(cacheUtil, times(1)).remove("course:detail:1");
+
+      // 提交前并发读取写回的旧值在提交后被再次删除
+      for (TransactionSynchronization synchronization :
+          TransactionSynchronizationManager.getSynchronizations()) {
+        synchronization.afterCommit();
+      }
+      verify(cacheUtil, times(2)).remove("course:detail:1");
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  private void stubGetOrCompute(Answer<Object> answer) {
+    when(cacheUtil.getOrCompute(
+            anyString(), any(), any(), any(), any(RefreshPolicy.class), any(Executor.class)))
+        .thenAnswer(answer);
+  }
+
+  @Test
+  void testLoaderFailurePropagatesWithoutSecondLoad() {
+    // 单飞加载中加载器抛出的异常直接抛给调用方，不再绕过缓存回源
+    stubGetOrCompute(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+    AtomicInteger loads = new AtomicInteger();
+    IllegalStateException failure = new IllegalStateException("数据库超时");
+
+    IllegalStateException thrown =
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                cacheManager.getOrLoad(
+                    "course:detail:1",
+                    () -> {
+                      loads.incrementAndGet();
+                      throw failure;
+                    },
+                    CacheManager.CacheStrategy.MEDIUM));
+
+    assertSame(failure, thrown);
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void testLoadWaitTimeoutPropagatesWithoutLoading() {
+    stubGetOrCompute(
+        invocation -> {
+          throw new BusinessException("缓存加载超时", "CACHE_LOAD_TIMEOUT");
+        });
+
+    BusinessException thrown =
+        assertThrows(
+            BusinessException.class,
+            () ->
+                cacheManager.getOrLoad(
+                    "course:detail:1",
+                    () -> {
+                      throw new AssertionError("等待超时后不应回源");
+                    },
+                    CacheManager.CacheStrategy.MEDIUM));
+    assertEquals("CACHE_LOAD_TIMEOUT", thrown.getErrorCode());
+  }
+
+  @Test
+  void testCacheFailureFallsBackToLoader() {
+    stubGetOrCompute(
+        invocation -> {
+          throw new IllegalStateException("缓存故障");
+        });
+
+    assertEquals(
+        "课程1",
+        cacheManager.getOrLoad("course:detail:1", () -> "课程1", CacheManager.CacheStrategy.MEDIUM));
+  }
+
+  @Test
+  void testL2HitCarriesRemainingTtl() {
+    InMemoryRemoteCacheStore redis = new InMemoryRemoteCacheStore();
+    cacheManager.setRemoteCacheStore(redis);
+    cacheManager.getTwoTierCache().fill("course:detail:1", "L2课程", 60_000);
+    stubGetOrCompute(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+
+    // 未命中的加载器把L2的剩余TTL交给L1作为上限
+    Object loaded =
+        cacheManager.getOrLoad(
+            "course:detail:1",
+            () -> {
+              throw new AssertionError("L2命中时不应回源");
+            },
+            CacheManager.CacheStrategy.MEDIUM);
+
+    TtlBoundedValue bounded = assertInstanceOf(TtlBoundedValue.class, loaded);
+    assertEquals("L2课程", bounded.getValue());
+    assertTrue(bounded.getMaxTtlMillis() <= 60_000);
+  }
+
+  @Test
+  void testRefreshLoadsFromSourceInsteadOfL2() {
+    InMemoryRemoteCacheStore redis = new InMemoryRemoteCacheStore();
+    cacheManager.setRemoteCacheStore(redis);
+    cacheManager.getTwoTierCache().fill("course:detail:1", "L2旧值", 60_000);
+    stubGetOrCompute(invocation -> ((Supplier<?>) invocation.getArgument(3)).get());
+
+    String refreshed =
+        cacheManager.getOrLoad("course:detail:1", () -> "新值", CacheManager.CacheStrategy.MEDIUM);
+
+    // 提前刷新直接回源，并用新值覆盖L2
+    assertEquals("新值", refreshed);
+    assertEquals("新值", cacheManager.getTwoTierCache().get("course:detail:1").getValue());
+  }
+}
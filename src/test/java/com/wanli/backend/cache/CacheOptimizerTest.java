@@ -0,0 +1,128 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import com.wanli.backend.config.ApplicationConfigManager;
+import com.wanli.backend.monitor.MetricsCollector;
+import com.wanli.backend.util.CacheUtil;
+
+/** CacheOptimizer 热点与低效Key分析 单元测试 */
+@ExtendWith(MockitoExtension.class)
+class CacheOptimizerTest {
+
+  @Mock private ApplicationConfigManager configManager;
+  @Mock private MetricsCollector metricsCollector;
+  @Mock private RedisTemplate<String, Object> redisTemplate;
+
+  private final CacheUtil cacheUtil = new CacheUtil();
+  private CacheOptimizer optimizer;
+
+  @BeforeEach
+  void setUp() {
+    when(configManager.getCacheConfig())
+        .thenReturn(new ApplicationConfigManager.CacheConfig(60, 10000, true));
+    optimizer = new CacheOptimizer(configManager, metricsCollector, redisTemplate, cacheUtil);
+  }
+
+  @AfterEach
+  void tearDown() {
+    cacheUtil.shutdown();
+  }
+
+  @Test
+  void testHotKeysReportedAmongManyDistinctKeys() {
+    for (int i = 0; i < 20_000; i++) {
+      optimizer.recordCacheAccess("course:" + i, CacheOptimizer.CacheOperation.GET, true, 1);
+      if (i % 10 == 0) {
+        optimizer.recordCacheAccess("course:hot", CacheOptimizer.CacheOperation.GET, true, 1);
+      }
+    }
+    for (int i = 0; i < 100; i++) {
+      optimizer.recordCacheAccess("lesson:slow", CacheOptimizer.CacheOperation.GET, false, 200);
+    }
+
+    CacheOptimizer.CacheOptimizationReport report = optimizer.performOptimizationAnalysis();
+
+    assertEquals(1, report.hotKeys.size());
+    assertEquals("course:hot", report.hotKeys.get(0).key);
+    assertTrue(report.hotKeys.get(0).accessCount >= 2000);
+    assertEquals(
+        1, report.inefficientKeys.stream().filter(k -> k.key.equals("lesson:slow")).count());
+    assertEquals("命中率过低", report.inefficientKeys.get(0).reason);
+    verify(metricsCollector, times(1)).incrementCounter("cache_hot_key_detected");
+  }
+
+  @Test
+  void testDecayAgesOutHotKeys() {
+    for (int i = 0; i < 1500; i++) {
+      optimizer.recordCacheAccess("course:hot", CacheOptimizer.CacheOperation.GET, true, 1);
+    }
+    assertEquals(1, optimizer.performOptimizationAnalysis().hotKeys.size());
+
+    optimizer.decayStatistics();
+
+    assertEquals(750, optimizer.estimateAccessCount("course:hot"));
+    assertTrue(optimizer.performOptimizationAnalysis().hotKeys.isEmpty());
+  }
+
+  @Test
+  void testHotKeyPromotedAndDemotedAfterCooling() {
+    HotKeyNearCache nearCache = cacheUtil.getNearCache();
+    // 采样读取，每次代表16次真实读取
+    for (int i = 0; i < 70; i++) {
+      optimizer.onRead("course:detail:42", true, 16);
+    }
+    assertTrue(nearCache.isPromoted("course:detail:42"));
+    verify(metricsCollector).incrementCounter("cache_near_cache_promoted");
+
+    // 1120 -> 560 -> 280，低于阈值一半后取消提升
+    optimizer.decayStatistics();
+    assertTrue(nearCache.isPromoted("course:detail:42"));
+    optimizer.decayStatistics();
+    assertFalse(nearCache.isPromoted("course:detail:42"));
+    assertEquals(1, nearCache.getDemotionCount());
+    verify(metricsCollector).incrementCounter("cache_near_cache_demoted");
+  }
+
+  @Test
+  void testSampledReadsBufferedUntilDrained() {
+    for (int i = 0; i < 100; i++) {
+      optimizer.onRead("course:detail:7", true, 16);
+    }
+    optimizer.onRead("course:list:1", false, 16);
+
+    // 键族计数与Sketch在读取线程上即时更新
+    assertEquals(1600, optimizer.getKeyFamilyStats().get("course:detail").getHitCount());
+    assertEquals(16, optimizer.getKeyFamilyStats().get("course:list").getReadCount());
+    assertEquals(0, optimizer.getKeyFamilyStats().get("course:list").getHitCount());
+    assertEquals(1600, optimizer.estimateAccessCount("course:detail:7"));
+
+    // 分析前计入缓冲的读取，访问次数取自Sketch
+    CacheOptimizer.CacheOptimizationReport report = optimizer.performOptimizationAnalysis();
+    assertEquals(1, report.hotKeys.size());
+    assertEquals("course:detail:7", report.hotKeys.get(0).key);
+    assertEquals(1600, report.hotKeys.get(0).accessCount);
+    assertTrue(report.hotKeys.get(0).readCount > 0);
+    assertNotNull(report.hotKeys.get(0).lastAccessTime);
+    assertEquals(
+        1, report.inefficientKeys.stream().filter(k -> k.key.equals("course:list:1")).count());
+  }
+
+  @Test
+  void testWriteHeavyHotKeyNotPromoted() {
+    for (int i = 0; i < 1100; i++) {
+      optimizer.recordCacheAccess("course:counter", CacheOptimizer.CacheOperation.SET, true, 1);
+    }
+
+    assertFalse(cacheUtil.getNearCache().isPromoted("course:counter"));
+  }
+}
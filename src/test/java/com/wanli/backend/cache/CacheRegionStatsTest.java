@@ -0,0 +1,55 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/** CacheRegionStats 计数与加载耗时直方图 单元测试 */
+class CacheRegionStatsTest {
+
+  @Test
+  void testHitRateAndEvictions() {
+    CacheRegionStats stats = new CacheRegionStats("course");
+    stats.recordHit();
+    stats.recordHit();
+    stats.recordHit();
+    stats.recordMiss();
+    stats.recordRemoval(BoundedLocalCache.RemovalCause.SIZE);
+    stats.recordRemoval(BoundedLocalCache.RemovalCause.EXPIRED);
+    stats.recordRemoval(BoundedLocalCache.RemovalCause.EXPLICIT);
+
+    assertEquals(0.75, stats.getHitRate(), 1e-9);
+    // 主动删除不计入淘汰
+    assertEquals(2, stats.getEvictionCount());
+    assertEquals(1L, stats.getRemovalCounts().get(BoundedLocalCache.RemovalCause.EXPLICIT));
+  }
+
+  @Test
+  void testLoadTimeCumulativeBuckets() {
+    CacheRegionStats stats = new CacheRegionStats("course");
+    long[] bounds = CacheRegionStats.getLoadTimeBucketBoundsMillis();
+    assertEquals(0, stats.getCumulativeLoadCount(bounds.length));
+
+    for (int i = 0; i < 98; i++) {
+      stats.recordLoad(TimeUnit.MILLISECONDS.toNanos(3), true);
+    }
+    stats.recordLoad(TimeUnit.MILLISECONDS.toNanos(80), true);
+    stats.recordLoad(TimeUnit.SECONDS.toNanos(30), false);
+
+    assertEquals(99, stats.getLoadCount());
+    assertEquals(1, stats.getLoadFailureCount());
+    // 桶上界依次为1、2、5、10…毫秒，计数逐桶累加
+    assertEquals(0, stats.getCumulativeLoadCount(1));
+    assertEquals(98, stats.getCumulativeLoadCount(2));
+    assertEquals(99, stats.getCumulativeLoadCount(6));
+    assertEquals(99, stats.getCumulativeLoadCount(bounds.length - 1));
+    // 超出最大桶的加载只计入 +Inf
+    assertEquals(100, stats.getCumulativeLoadCount(bounds.length));
+
+    long[] buckets = stats.getLoadTimeBucketCounts();
+    assertEquals(bounds.length + 1, buckets.length);
+    assertEquals(1, buckets[buckets.length - 1]);
+  }
+}
@@ -0,0 +1,93 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.wanli.backend.entity.Course;
+import com.wanli.backend.entity.Lesson;
+
+/** CacheSnapshot 单元测试 */
+class CacheSnapshotTest {
+
+  private static final long SCHEMA = CacheSnapshot.schemaVersion(Course.class, Lesson.class);
+
+  @TempDir Path tempDir;
+
+  @Test
+  void testRoundTripRestoresValuesAndRemainingTtl() throws IOException {
+    Path file = tempDir.resolve("cache.snapshot");
+    Course course = new Course();
+    course.setId(UUID.randomUUID());
+    course.setTitle("课程");
+    Map<String, Object> page = new HashMap<>();
+    page.put("total", 1L);
+
+    int written =
+        CacheSnapshot.write(
+            file,
+            SCHEMA,
+            List.of(
+                new CacheSnapshot.Entry("course:detail:1", course, 60_000, 120_000),
+                new CacheSnapshot.Entry("course:list:all", page, 60_000, 120_000)));
+    List<CacheSnapshot.Entry> restored = new ArrayList<>();
+    int read = CacheSnapshot.read(file, SCHEMA, restored::add);
+
+    assertEquals(2, written);
+    assertEquals(2, read);
+    Course restoredCourse = (Course) restored.get(0).getValue();
+    assertEquals(course.getId(), restoredCourse.getId());
+    assertEquals("课程", restoredCourse.getTitle());
+    assertEquals(page, restored.get(1).getValue());
+    assertTrue(restored.get(0).getExpireRemainingMillis() <= 120_000);
+    assertTrue(restored.get(0).getExpireRemainingMillis() > 100_000);
+  }
+
+  @Test
+  void testIncompatibleSchemaIsSkipped() throws IOException {
+    Path file = tempDir.resolve("cache.snapshot");
+    CacheSnapshot.write(file, SCHEMA, List.of(new CacheSnapshot.Entry("k", "v", 1000, 1000)));
+
+    long otherSchema = CacheSnapshot.schemaVersion(Course.class);
+    assertNotEquals(SCHEMA, otherSchema);
+    assertEquals(0, CacheSnapshot.read(file, otherSchema, entry -> fail("不应恢复条目")));
+  }
+
+  @Test
+  void testCorruptedFileIsSkipped() throws IOException {
+    Path file = tempDir.resolve("cache.snapshot");
+    CacheSnapshot.write(file, SCHEMA, List.of(new CacheSnapshot.Entry("k", "value", 1000, 1000)));
+    byte[] bytes = Files.readAllBytes(file);
+    bytes[bytes.length - 12] ^= 0x5A;
+    Files.write(file, bytes);
+
+    assertEquals(0, CacheSnapshot.read(file, SCHEMA, entry -> fail("不应恢复条目")));
+  }
+
+  @Test
+  void testExpiredEntriesAndMissingFileAreIgnored() throws IOException {
+    Path file = tempDir.resolve("cache.snapshot");
+    CacheSnapshot.write(
+        file,
+        SCHEMA,
+        List.of(
+            new CacheSnapshot.Entry("expired", "v", -1000, -1),
+            new CacheSnapshot.Entry("live", "v", 1000, 60_000)));
+
+    List<String> keys = new ArrayList<>();
+    CacheSnapshot.read(file, SCHEMA, entry -> keys.add(entry.getKey()));
+
+    assertEquals(List.of("live"), keys);
+    assertEquals(0, CacheSnapshot.read(tempDir.resolve("missing"), SCHEMA, entry -> {}));
+  }
+}
@@ -0,0 +1,45 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/** CacheTracer 采样判断 单元测试 */
+class CacheTracerTest {
+
+  @Test
+  void testDisabledByDefault() {
+    CacheTracer tracer = new CacheTracer();
+
+    assertFalse(tracer.isEnabled());
+    assertFalse(tracer.isSampled("course:1"));
+  }
+
+  @Test
+  void testKeyPrefixFilter() {
+    CacheTracer tracer = new CacheTracer();
+    tracer.configure(1, "course:");
+
+    assertTrue(tracer.isSampled("course:1"));
+    assertFalse(tracer.isSampled("lesson:1"));
+  }
+
+  @Test
+  void testSampleRate() {
+    CacheTracer tracer = new CacheTracer();
+    tracer.configure(10, "");
+
+    int sampled = 0;
+    for (int i = 0; i < 10_000; i++) {
+      if (tracer.isSampled("course:" + i)) {
+        sampled++;
+      }
+    }
+    // 期望约1000次
+    assertTrue(sampled > 700 && sampled < 1300, "sampled=" + sampled);
+
+    tracer.configure(0, null);
+    assertFalse(tracer.isEnabled());
+    assertEquals("", tracer.getKeyPrefix());
+  }
+}
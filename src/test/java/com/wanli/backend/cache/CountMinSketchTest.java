@@ -0,0 +1,41 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/** CountMinSketch 单元测试 */
+class CountMinSketchTest {
+
+  @Test
+  void testEstimateNeverUnderCounts() {
+    CountMinSketch sketch = new CountMinSketch(1024, 4);
+    for (int i = 0; i < 5000; i++) {
+      sketch.increment("course:" + (i % 500));
+    }
+    for (int i = 0; i < 300; i++) {
+      sketch.increment("course:hot");
+    }
+
+    assertTrue(sketch.estimate("course:hot") >= 300);
+    // 误差约为 总次数 × e / width ≈ 14
+    assertTrue(sketch.estimate("course:hot") < 340);
+    for (int i = 0; i < 500; i++) {
+      assertTrue(sketch.estimate("course:" + i) >= 10);
+    }
+  }
+
+  @Test
+  void testFixedMemoryAndDecay() {
+    CountMinSketch sketch = new CountMinSketch(1000, 4);
+    assertEquals(1024 * 4, sketch.capacity());
+
+    assertEquals(1, sketch.increment("lesson:1"));
+    sketch.add("lesson:1", 99);
+    sketch.decay();
+    assertEquals(50, sketch.estimate("lesson:1"));
+
+    sketch.clear();
+    assertEquals(0, sketch.estimate("lesson:1"));
+  }
+}
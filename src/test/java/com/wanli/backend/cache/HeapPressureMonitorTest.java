@@ -0,0 +1,101 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.wanli.backend.util.CacheUtil;
+import com.wanli.backend.util.ConfigUtil;
+
+/** HeapPressureMonitor 按堆内存压力收缩与恢复缓存容量 单元测试 */
+class HeapPressureMonitorTest {
+
+  private static final long MB = 1024 * 1024;
+
+  private final ConfigUtil configUtil = mock(ConfigUtil.class);
+  private final CacheUtil cacheUtil = new CacheUtil();
+  private HeapPressureMonitor monitor;
+  private Map<String, Long> baseBudgets;
+
+  @BeforeEach
+  void setUp() {
+    when(configUtil.isCacheEnabled()).thenReturn(true);
+    ReflectionTestUtils.setField(cacheUtil, "configUtil", configUtil);
+    monitor = new HeapPressureMonitor(cacheUtil, configUtil);
+    baseBudgets = cacheUtil.getRegionMaxBytes();
+
+    // 课时分区命中最多，课程分区次之，默认分区没有命中
+    cacheUtil.put("lesson:detail:1", "课时", 30);
+    cacheUtil.put("course:detail:1", "课程", 30);
+    cacheUtil.put("misc:1", "其他", 30);
+    for (int i = 0; i < 100; i++) {
+      cacheUtil.get("lesson:detail:1");
+    }
+    cacheUtil.get("course:detail:1");
+  }
+
+  @AfterEach
+  void tearDown() {
+    cacheUtil.shutdown();
+  }
+
+  @Test
+  void testTargetScaleFollowsUsage() {
+    assertEquals(1.0, monitor.targetScale(0.70));
+    assertEquals(0.5, monitor.targetScale(0.85), 1e-9);
+    assertEquals(0.1, monitor.targetScale(0.99));
+  }
+
+  @Test
+  void testShrinksLowestValueRegionsFirst() {
+    monitor.onHeapUsage(0.85, 100_000);
+
+    assertEquals(0.5, cacheUtil.getCapacityScale(), 1e-9);
+    Map<String, Long> budgets = cacheUtil.getRegionMaxBytes();
+    long total = budgets.values().stream().mapToLong(Long::longValue).sum();
+    long baseTotal = baseBudgets.values().stream().mapToLong(Long::longValue).sum();
+    assertEquals(baseTotal / 2, total, 1);
+    // 默认分区先降到下限，不足部分再从课程分区扣减，课时分区不受影响
+    assertEquals(
+        (long) (baseBudgets.get(RegionedLocalCache.DEFAULT_REGION) * 0.1),
+        budgets.get(RegionedLocalCache.DEFAULT_REGION));
+    assertTrue(budgets.get(CacheUtil.COURSE_REGION) < baseBudgets.get(CacheUtil.COURSE_REGION));
+    assertEquals(baseBudgets.get(CacheUtil.LESSON_REGION), budgets.get(CacheUtil.LESSON_REGION));
+  }
+
+  @Test
+  void testCapacityGrowsBackGradually() {
+    monitor.onHeapUsage(0.85, 100_000);
+
+    monitor.onHeapUsage(0.5, 100_000);
+    assertEquals(0.6, cacheUtil.getCapacityScale(), 1e-9);
+    // 恢复间隔内不再增长
+    monitor.onHeapUsage(0.5, 110_000);
+    assertEquals(0.6, cacheUtil.getCapacityScale(), 1e-9);
+
+    long now = 130_000;
+    while (cacheUtil.getCapacityScale() < 1.0) {
+      monitor.onHeapUsage(0.5, now);
+      now += 30_000;
+    }
+
+    assertEquals(baseBudgets, cacheUtil.getRegionMaxBytes());
+  }
+
+  @Test
+  void testRegionBudgetChangeKeepsCurrentScale() {
+    monitor.onHeapUsage(0.99, 100_000);
+
+    cacheUtil.setRegionMaxBytes(CacheUtil.LESSON_REGION, 64 * MB);
+
+    assertEquals(0.1, cacheUtil.getCapacityScale(), 1e-9);
+    long total = cacheUtil.getRegionMaxBytes().values().stream().mapToLong(Long::longValue).sum();
+    assertTrue(total <= 112 * MB / 10 + 1, "total=" + total);
+  }
+}
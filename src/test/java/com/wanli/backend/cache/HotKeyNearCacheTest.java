@@ -0,0 +1,58 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/** HotKeyNearCache 单元测试 */
+class HotKeyNearCacheTest {
+
+  @Test
+  void testOnlyPromotedKeysAreFilled() {
+    HotKeyNearCache nearCache = new HotKeyNearCache(2, 60_000, 4);
+    nearCache.fill("course:1", "c1");
+    assertNull(nearCache.get("course:1"));
+
+    assertTrue(nearCache.promote("course:1"));
+    nearCache.fill("course:1", "c1");
+    assertEquals("c1", nearCache.get("course:1"));
+    assertEquals(1, nearCache.getHitCount());
+
+    nearCache.invalidate("course:1");
+    assertNull(nearCache.get("course:1"));
+    assertTrue(nearCache.isPromoted("course:1"));
+  }
+
+  @Test
+  void testCapacityAndDemotion() {
+    HotKeyNearCache nearCache = new HotKeyNearCache(1, 60_000, 4);
+    assertTrue(nearCache.promote("course:1"));
+    assertFalse(nearCache.promote("course:2"));
+
+    nearCache.fill("course:1", "c1");
+    assertTrue(nearCache.demote("course:1"));
+    assertNull(nearCache.get("course:1"));
+    assertFalse(nearCache.demote("course:1"));
+    assertTrue(nearCache.promote("course:2"));
+    assertEquals(2, nearCache.getPromotionCount());
+  }
+
+  @Test
+  void testCopiesExpireAndArePerThreadGroup() throws InterruptedException {
+    HotKeyNearCache nearCache = new HotKeyNearCache(4, 30, 1024);
+    nearCache.promote("course:1");
+    nearCache.fill("course:1", "c1");
+
+    // 其他线程分组没有副本，需要各自从主缓存填充
+    AtomicReference<Object> other = new AtomicReference<>("unset");
+    Thread reader = new Thread(() -> other.set(nearCache.get("course:1")));
+    reader.start();
+    reader.join();
+    assertNull(other.get());
+
+    Thread.sleep(50);
+    assertNull(nearCache.get("course:1"));
+  }
+}
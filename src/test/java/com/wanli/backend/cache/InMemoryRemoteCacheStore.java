@@ -0,0 +1,122 @@
+package com.wanli.backend.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/** 测试用的进程内Redis替身 多个节点共享同一实例，发布的消息同步投递给所有订阅者 */
+class InMemoryRemoteCacheStore implements RemoteCacheStore {
+
+  private static final class Entry {
+    private final byte[] value;
+    private final long expireAt;
+
+    Entry(byte[] value, long expireAt) {
+      this.value = value;
+      this.expireAt = expireAt;
+    }
+  }
+
+  private final Map<String, Entry> data = new ConcurrentHashMap<>();
+  private final Map<String, Long> counters = new ConcurrentHashMap<>();
+  private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+  private final AtomicInteger multiGetCalls = new AtomicInteger();
+  private volatile boolean unavailable;
+
+  @Override
+  public Map<String, RemoteValue> multiGet(List<String> keys) {
+    checkAvailable();
+    multiGetCalls.incrementAndGet();
+    Map<String, RemoteValue> result = new HashMap<>();
+    long now = System.currentTimeMillis();
+    for (String key : keys) {
+      Entry entry = data.get(key);
+      if (entry != null && entry.expireAt > now) {
+        result.put(key, new RemoteValue(entry.value, entry.expireAt - now));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void multiSet(Map<String, byte[]> values, long ttlMillis) {
+    checkAvailable();
+    long expireAt = System.currentTimeMillis() + ttlMillis;
+    values.forEach((key, value) -> data.put(key, new Entry(value, expireAt)));
+  }
+
+  @Override
+  public void delete(Collection<String> keys) {
+    checkAvailable();
+    keys.forEach(data::remove);
+  }
+
+  @Override
+  public void deleteByPattern(String pattern) {
+    checkAvailable();
+    String regex = pattern.replace(".", "\\.").replace("*", ".*").replace("?", ".");
+    data.keySet().removeIf(key -> key.matches(regex));
+  }
+
+  @Override
+  public long increment(String key) {
+    checkAvailable();
+    return counters.merge(key, 1L, Long::sum);
+  }
+
+  @Override
+  public long getCounter(String key) {
+    checkAvailable();
+    return counters.getOrDefault(key, 0L);
+  }
+
+  @Override
+  public long raiseCounter(String key, long value) {
+    checkAvailable();
+    return counters.merge(key, value, Math::max);
+  }
+
+  @Override
+  public void publish(String channel, String message) {
+    checkAvailable();
+    for (Consumer<String> listener :
+        new ArrayList<>(subscribers.getOrDefault(channel, new ArrayList<>()))) {
+      listener.accept(message);
+    }
+  }
+
+  @Override
+  public void subscribe(String channel, Consumer<String> listener) {
+    subscribers.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(listener);
+  }
+
+  boolean contains(String key) {
+    return data.containsKey(key);
+  }
+
+  /** 重设键的剩余TTL，模拟L2中即将过期的条目 */
+  void expireIn(String key, long ttlMillis) {
+    data.computeIfPresent(
+        key, (k, entry) -> new Entry(entry.value, System.currentTimeMillis() + ttlMillis));
+  }
+
+  int getMultiGetCalls() {
+    return multiGetCalls.get();
+  }
+
+  void setUnavailable(boolean unavailable) {
+    this.unavailable = unavailable;
+  }
+
+  private void checkAvailable() {
+    if (unavailable) {
+      throw new IllegalStateException("redis unavailable");
+    }
+  }
+}
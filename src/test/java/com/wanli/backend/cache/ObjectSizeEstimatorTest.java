@@ -0,0 +1,70 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.wanli.backend.entity.Course;
+
+/** ObjectSizeEstimator 单元测试 */
+class ObjectSizeEstimatorTest {
+
+  private final ObjectSizeEstimator estimator = new ObjectSizeEstimator();
+
+  @Test
+  void testStringSizeGrowsWithLengthAndEncoding() {
+    long ascii = estimator.sizeOf("abcdefgh");
+    long chinese = estimator.sizeOf("课程课程课程课程");
+
+    assertTrue(estimator.sizeOf("abcdefgh".repeat(100)) > ascii);
+    // 非Latin-1字符每字符占2字节
+    assertTrue(chinese > ascii);
+  }
+
+  @Test
+  void testCourseSizeReflectsContent() {
+    Course small = course("短标题", "");
+    Course large = course("短标题", "描述".repeat(1000));
+
+    assertTrue(estimator.sizeOf(large) - estimator.sizeOf(small) >= 4000);
+  }
+
+  @Test
+  void testPagedResponseCountsNestedEntities() {
+    List<Course> courses = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      courses.add(course("课程" + i, "描述" + i));
+    }
+    Map<String, Object> page = new HashMap<>();
+    page.put("courses", courses);
+    page.put("total", 20L);
+
+    assertTrue(estimator.sizeOf(page) > 20 * estimator.sizeOf(courses.get(0)));
+  }
+
+  @Test
+  void testRegisteredEstimatorOverridesDefault() {
+    estimator.register(StringBuilder.class, (value, sizer) -> 1000);
+
+    assertEquals(1000, estimator.sizeOf(new StringBuilder()));
+    assertTrue(estimator.weigh("key", new StringBuilder()) > 1000);
+  }
+
+  private static Course course(String title, String description) {
+    Course course = new Course();
+    course.setId(UUID.randomUUID());
+    course.setCreatorId(UUID.randomUUID());
+    course.setTitle(title);
+    course.setDescription(description);
+    course.setStatus("DRAFT");
+    course.setCreatedAt(LocalDateTime.now());
+    return course;
+  }
+}
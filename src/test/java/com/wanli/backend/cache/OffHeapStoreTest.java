@@ -0,0 +1,82 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/** OffHeapStore 单元测试 */
+class OffHeapStoreTest {
+
+  private static final int SLAB_SIZE = 4096;
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testRoundTripKeepsValueTypes() {
+    OffHeapStore store = new OffHeapStore(4 * SLAB_SIZE, SLAB_SIZE);
+    UUID id = UUID.randomUUID();
+    LocalDateTime createdAt = LocalDateTime.now();
+    Map<String, Object> course = new HashMap<>();
+    course.put("id", id);
+    course.put("title", "课程");
+    course.put("createdAt", createdAt);
+    List<Map<String, Object>> courses = new ArrayList<>();
+    courses.add(course);
+    Map<String, Object> page = new HashMap<>();
+    page.put("courses", courses);
+    page.put("total", 1L);
+
+    OffHeapStore.Ref ref = store.store(page);
+    Map<String, Object> loaded = (Map<String, Object>) store.load(ref);
+
+    assertEquals(1L, loaded.get("total"));
+    Map<String, Object> loadedCourse = ((List<Map<String, Object>>) loaded.get("courses")).get(0);
+    assertEquals(id, loadedCourse.get("id"));
+    assertEquals(createdAt, loadedCourse.get("createdAt"));
+    assertEquals("课程", loadedCourse.get("title"));
+  }
+
+  @Test
+  void testReleasedSlabsAreReused() {
+    OffHeapStore store = new OffHeapStore(2 * SLAB_SIZE, SLAB_SIZE);
+    List<OffHeapStore.Ref> refs = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      refs.add(store.store(List.of("value" + i, "x".repeat(100))));
+    }
+    for (OffHeapStore.Ref ref : refs) {
+      store.release(ref);
+    }
+
+    assertEquals(0, store.getLiveBytes());
+    assertTrue(store.getAllocatedBytes() <= 2 * SLAB_SIZE);
+    assertEquals(0, store.getInvalidatedCount());
+  }
+
+  @Test
+  void testFullArenaReclaimsSlabAndInvalidatesRecords() {
+    OffHeapStore store = new OffHeapStore(2 * SLAB_SIZE, SLAB_SIZE);
+    OffHeapStore.Ref first = store.store(List.of("x".repeat(1000)));
+    for (int i = 0; i < 20; i++) {
+      assertNotNull(store.store(List.of("y".repeat(1000))));
+    }
+
+    assertEquals(2 * SLAB_SIZE, store.getAllocatedBytes());
+    assertTrue(store.getReclaimedSlabCount() > 0);
+    // 最早的记录所在slab已被回收
+    assertNull(store.load(first));
+  }
+
+  @Test
+  void testOversizedValueIsRejected() {
+    OffHeapStore store = new OffHeapStore(2 * SLAB_SIZE, SLAB_SIZE);
+
+    assertNull(store.store(List.of("x".repeat(SLAB_SIZE * 2))));
+    assertEquals(1, store.getRejectedCount());
+  }
+}
@@ -0,0 +1,147 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * RedisRemoteCacheStore 在真实Redis上的pipeline读写、SCAN删除、计数器脚本与pub/sub 测试
+ *
+ * <p>需要本机Docker，默认不运行：mvn test -Dtest=RedisRemoteCacheStoreTest -Dredis.tests=true
+ */
+@EnabledIfSystemProperty(named = "redis.tests", matches = "true")
+class RedisRemoteCacheStoreTest {
+
+  private static GenericContainer<?> redis;
+  private static LettuceConnectionFactory connectionFactory;
+  private static RedisRemoteCacheStore store;
+
+  private String prefix;
+
+  @BeforeAll
+  static void startRedis() {
+    redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+    redis.start();
+    connectionFactory =
+        new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+    connectionFactory.afterPropertiesSet();
+    store = new RedisRemoteCacheStore(connectionFactory);
+  }
+
+  @AfterAll
+  static void stopRedis() throws Exception {
+    if (store != null) {
+      store.shutdown();
+    }
+    if (connectionFactory != null) {
+      connectionFactory.destroy();
+    }
+    if (redis != null) {
+      redis.stop();
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    prefix = "course:" + UUID.randomUUID() + ":";
+  }
+
+  @Test
+  void testMultiGetReturnsValuesWithRemainingTtl() {
+    Map<String, byte[]> values = new HashMap<>();
+    values.put(prefix + "1", bytes("课程1"));
+    values.put(prefix + "2", bytes("课程2"));
+    store.multiSet(values, 60_000);
+
+    Map<String, RemoteCacheStore.RemoteValue> result =
+        store.multiGet(Arrays.asList(prefix + "1", prefix + "2", prefix + "3"));
+
+    assertEquals(2, result.size());
+    assertArrayEquals(bytes("课程1"), result.get(prefix + "1").getValue());
+    long ttl = result.get(prefix + "2").getTtlMillis();
+    assertTrue(ttl > 0 && ttl <= 60_000);
+    assertFalse(result.containsKey(prefix + "3"));
+  }
+
+  @Test
+  void testMultiGetReportsKeyWithoutExpiry() {
+    try (RedisConnection connection = connectionFactory.getConnection()) {
+      connection.stringCommands().set(bytes("wanli:cache:" + prefix + "1"), bytes("课程1"));
+    }
+
+    RemoteCacheStore.RemoteValue value = store.multiGet(List.of(prefix + "1")).get(prefix + "1");
+
+    assertEquals(Long.MAX_VALUE, value.getTtlMillis());
+  }
+
+  @Test
+  void testDeleteAndDeleteByPattern() {
+    Map<String, byte[]> values = new HashMap<>();
+    values.put(prefix + "detail:1", bytes("1"));
+    values.put(prefix + "detail:2", bytes("2"));
+    values.put(prefix + "list:1", bytes("3"));
+    values.put(prefix + "list:2", bytes("4"));
+    store.multiSet(values, 60_000);
+
+    store.delete(List.of(prefix + "list:1"));
+    store.deleteByPattern(prefix + "detail:*");
+
+    Map<String, RemoteCacheStore.RemoteValue> result =
+        store.multiGet(
+            Arrays.asList(
+                prefix + "detail:1", prefix + "detail:2", prefix + "list:1", prefix + "list:2"));
+    assertEquals(List.of(prefix + "list:2"), List.copyOf(result.keySet()));
+  }
+
+  @Test
+  void testCounters() {
+    String key = prefix + "generation";
+    assertEquals(0, store.getCounter(key));
+
+    assertEquals(5, store.raiseCounter(key, 5));
+    // 小于当前值时不回退
+    assertEquals(5, store.raiseCounter(key, 3));
+    assertEquals(6, store.increment(key));
+    assertEquals(6, store.getCounter(key));
+  }
+
+  @Test
+  void testPublishReachesSubscriber() throws InterruptedException {
+    String channel = "wanli:test:" + prefix;
+    BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    store.subscribe(channel, received::add);
+
+    // 订阅在监听容器上异步生效，未收到时重发
+    String message = null;
+    for (int i = 0; i < 50 && message == null; i++) {
+      store.publish(channel, "node|K|" + prefix + "1");
+      message = received.poll(100, TimeUnit.MILLISECONDS);
+    }
+
+    assertEquals("node|K|" + prefix + "1", message);
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
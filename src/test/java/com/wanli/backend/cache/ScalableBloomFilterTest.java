@@ -0,0 +1,73 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+/** ScalableBloomFilter 单元测试 */
+class ScalableBloomFilterTest {
+
+  @Test
+  void testNoFalseNegatives() {
+    ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+    for (int i = 0; i < 1000; i++) {
+      filter.put("course:detail:" + i);
+    }
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(filter.mightContain("course:detail:" + i));
+    }
+  }
+
+  @Test
+  void testFalsePositiveRateStaysNearTargetWhileGrowing() {
+    ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+    for (int i = 0; i < 20_000; i++) {
+      filter.put("present:" + i);
+    }
+
+    int falsePositives = 0;
+    int probes = 100_000;
+    for (int i = 0; i < probes; i++) {
+      if (filter.mightContain("absent:" + i)) {
+        falsePositives++;
+      }
+    }
+
+    assertTrue(filter.getStageCount() > 1, "超出首级容量后应扩容");
+    assertTrue((double) falsePositives / probes < 0.02, "误判率过高: " + falsePositives);
+    assertTrue(filter.expectedFpp() <= filter.getTargetFpp());
+  }
+
+  @Test
+  void testConcurrentPutsAreVisible() throws Exception {
+    ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+    CompletableFuture<?>[] futures = new CompletableFuture[8];
+    for (int t = 0; t < futures.length; t++) {
+      final int thread = t;
+      futures[t] =
+          CompletableFuture.runAsync(
+              () -> {
+                for (int i = 0; i < 2000; i++) {
+                  filter.put(thread + ":" + i);
+                }
+              });
+    }
+    CompletableFuture.allOf(futures).get();
+
+    for (int t = 0; t < futures.length; t++) {
+      for (int i = 0; i < 2000; i++) {
+        assertTrue(filter.mightContain(t + ":" + i));
+      }
+    }
+  }
+
+  @Test
+  void testMurmur3IsStableAndSpreadsSimilarKeys() {
+    long[] first = ScalableBloomFilter.murmur3("course:detail:1");
+    assertArrayEquals(first, ScalableBloomFilter.murmur3("course:detail:1"));
+    assertNotEquals(first[0], ScalableBloomFilter.murmur3("course:detail:2")[0]);
+    assertNotEquals(first[1], ScalableBloomFilter.murmur3("course:detail:2")[1]);
+  }
+}
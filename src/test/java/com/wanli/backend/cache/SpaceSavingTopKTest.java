@@ -0,0 +1,64 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+
+/** SpaceSavingTopK 单元测试 */
+class SpaceSavingTopKTest {
+
+  @Test
+  void testHeavyHittersSurviveLongTail() {
+    SpaceSavingTopK<LongAdder> topK = new SpaceSavingTopK<>(32, key -> new LongAdder());
+    for (int i = 0; i < 10_000; i++) {
+      topK.offer("tail:" + i, 1);
+      if (i % 10 == 0) {
+        topK.offer("hot:a", 1);
+      }
+      if (i % 20 == 0) {
+        topK.offer("hot:b", 1);
+      }
+    }
+
+    assertEquals(32, topK.size());
+    List<SpaceSavingTopK.Entry<LongAdder>> top = topK.top(2);
+    assertEquals("hot:a", top.get(0).getKey());
+    assertEquals("hot:b", top.get(1).getKey());
+    assertTrue(top.get(0).getCount() - top.get(0).getError() <= 1000);
+    assertTrue(top.get(0).getCount() >= 1000);
+  }
+
+  @Test
+  void testZeroWeightOnlyUpdatesTrackedKeys() {
+    SpaceSavingTopK<LongAdder> topK = new SpaceSavingTopK<>(2, key -> new LongAdder());
+
+    assertNull(topK.offer("course:1", 0));
+    topK.offer("course:1", 1).getStats().increment();
+    topK.offer("course:1", 0).getStats().increment();
+
+    assertEquals(1, topK.size());
+    SpaceSavingTopK.Entry<LongAdder> entry = topK.top(1).get(0);
+    assertEquals(1, entry.getCount());
+    assertEquals(2, entry.getStats().sum());
+  }
+
+  @Test
+  void testReplacementInheritsMinimumAndDecay() {
+    SpaceSavingTopK<LongAdder> topK = new SpaceSavingTopK<>(2, key -> new LongAdder());
+    topK.offer("a", 5);
+    topK.offer("b", 2);
+    SpaceSavingTopK.Entry<LongAdder> c = topK.offer("c", 1);
+
+    assertEquals(3, c.getCount());
+    assertEquals(2, c.getError());
+    assertEquals(List.of("a", "c"), topK.top(2).stream().map(e -> e.getKey()).toList());
+
+    topK.decay();
+    topK.decay();
+    // a: 5 -> 1，c: 3 -> 0 被移出
+    assertEquals(1, topK.size());
+  }
+}
@@ -0,0 +1,301 @@
+package com.wanli.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.wanli.backend.entity.Course;
+import com.wanli.backend.entity.User;
+import com.wanli.backend.repository.CourseRepository;
+import com.wanli.backend.repository.UserRepository;
+import com.wanli.backend.service.CourseService;
+import com.wanli.backend.util.CacheUtil;
+import com.wanli.backend.util.ConfigUtil;
+
+/** 两级缓存 多节点共享L2与失效广播 测试（L2使用进程内替身） */
+class TwoTierCacheTest {
+
+  private final InMemoryRemoteCacheStore redis = new InMemoryRemoteCacheStore();
+  private final List<CacheUtil> localCaches = new ArrayList<>();
+  private CacheManager nodeA;
+  private CacheManager nodeB;
+
+  @BeforeEach
+  void setUp() {
+    nodeA = startNode();
+    nodeB = startNode();
+  }
+
+  @AfterEach
+  void tearDown() {
+    for (CacheUtil cacheUtil : localCaches) {
+      cacheUtil.shutdown();
+    }
+  }
+
+  private CacheManager startNode() {
+    ConfigUtil configUtil = mock(ConfigUtil.class);
+    when(configUtil.isCacheEnabled()).thenReturn(true);
+    CacheUtil cacheUtil = new CacheUtil();
+    ReflectionTestUtils.setField(cacheUtil, "configUtil", configUtil);
+    localCaches.add(cacheUtil);
+    CacheManager manager = new CacheManager(cacheUtil);
+    manager.setRemoteCacheStore(redis);
+    return manager;
+  }
+
+  @Test
+  void testSecondNodeLoadsFromL2InsteadOfSource() {
+    AtomicInteger sourceLoads = new AtomicInteger();
+
+    String first =
+        nodeA.getOrLoad(
+            "course:detail:1",
+            () -> "课程" + sourceLoads.incrementAndGet(),
+            CacheManager.CacheStrategy.MEDIUM);
+    String second =
+        nodeB.getOrLoad(
+            "course:detail:1",
+            () -> "课程" + sourceLoads.incrementAndGet(),
+            CacheManager.CacheStrategy.MEDIUM);
+
+    assertEquals("课程1", first);
+    assertEquals("课程1", second);
+    assertEquals(1, sourceLoads.get());
+    assertEquals(1, nodeB.getTwoTierCache().getHitCount());
+  }
+
+  @Test
+  void testL1FilledFromL2DoesNotOutliveL2Copy() {
+    nodeA.put("course:detail:1", "课程1", CacheManager.CacheStrategy.MEDIUM);
+    nodeA.put("course:detail:2", "课程2", CacheManager.CacheStrategy.MEDIUM);
+    redis.expireIn("course:detail:1", 2_000);
+    redis.expireIn("course:detail:2", 2_000);
+
+    assertEquals(
+        "课程1",
+        nodeB.getOrLoad("course:detail:1", () -> "回源", CacheManager.CacheStrategy.MEDIUM));
+    assertEquals("课程2", nodeB.get("course:detail:2"));
+
+    // L1的新鲜期不超过L2的剩余TTL，过期时间只多出策略的旧值窗口（5分钟），而不是再续一个30分钟TTL
+    CacheUtil l1 = localCaches.get(1);
+    assertTrue(l1.getExpire("course:detail:1") <= 2 + 5 * 60);
+    assertTrue(l1.getExpire("course:detail:2") <= 2 + 5 * 60);
+  }
+
+  @Test
+  void testWriteOnOneNodeInvalidatesOtherNodesL1() {
+    nodeA.put("course:detail:2", "旧标题", CacheManager.CacheStrategy.MEDIUM);
+    assertEquals("旧标题", nodeB.get("course:detail:2"));
+
+    nodeA.put("course:detail:2", "新标题", CacheManager.CacheStrategy.MEDIUM);
+
+    // B的L1副本已被广播丢弃，重新从L2读到新值
+    assertEquals("新标题", nodeB.get("course:detail:2"));
+    assertEquals(0, nodeA.getTwoTierCache().getInvalidationsReceived());
+    assertEquals(2, nodeB.getTwoTierCache().getInvalidationsReceived());
+  }
+
+  @Test
+  void testEvictRemovesFromL2AndAllNodes() {
+    nodeA.put("lesson:detail:3", "课时", CacheManager.CacheStrategy.MEDIUM);
+    assertEquals("课时", nodeB.get("lesson:detail:3"));
+
+    nodeB.evict("lesson:detail:3");
+
+    assertFalse(redis.contains("lesson:detail:3"));
+    assertNull(nodeA.get("lesson:detail:3"));
+    assertNull(nodeB.get("lesson:detail:3"));
+  }
+
+  @Test
+  void testEvictByPatternReachesOtherNodes() {
+    nodeA.put("course:list:page:1", "第一页", CacheManager.CacheStrategy.SHORT);
+    nodeA.put("course:list:page:2", "第二页", CacheManager.CacheStrategy.SHORT);
+    assertEquals("第一页", nodeB.get("course:list:page:1"));
+
+    nodeA.evictByPattern("course:list:*");
+
+    assertNull(nodeB.get("course:list:page:1"));
+    assertFalse(redis.contains("course:list:page:2"));
+  }
+
+  @Test
+  void testGenerationSharedAcrossNodesAndNewcomers() {
+    String collection = "course:list:page:";
+    assertEquals(0, nodeB.currentGeneration(collection));
+
+    assertEquals(1, nodeA.invalidateGeneration(collection));
+    assertEquals(2, nodeA.invalidateGeneration(collection));
+
+    assertEquals(2, nodeB.currentGeneration(collection));
+    // 失效之后才启动的节点从L2读取当前代际
+    assertEquals("course:list:page:g2:0:10", startNode().generationKey(collection, "0:10"));
+  }
+
+  @Test
+  void testGenerationAdvancesAfterOutageLeftLocalAhead() {
+    String collection = "course:list:page:";
+    redis.setUnavailable(true);
+    assertEquals(1, nodeA.invalidateGeneration(collection));
+    redis.setUnavailable(false);
+
+    // 共享计数落后于本地：恢复后的失效仍使本地代际前进，并把共享计数抬上来
+    assertEquals(2, nodeA.invalidateGeneration(collection));
+    assertEquals(2, nodeB.currentGeneration(collection));
+    assertEquals("course:list:page:g2:0:10", startNode().generationKey(collection, "0:10"));
+  }
+
+  @Test
+  void testRemoteInvalidationNotSwallowedWhileLocalAhead() {
+    String collection = "course:list:page:";
+    assertEquals(0, nodeB.currentGeneration(collection));
+    redis.setUnavailable(true);
+    nodeA.invalidateGeneration(collection);
+    redis.setUnavailable(false);
+
+    // B的失效得到的共享代际不超过A的本地代际，A须再前进一步而不是继续使用写入前的列表
+    String before = nodeA.generationKey(collection, "0:10");
+    nodeB.invalidateGeneration(collection);
+
+    assertNotEquals(before, nodeA.generationKey(collection, "0:10"));
+    assertEquals(nodeA.currentGeneration(collection), nodeB.currentGeneration(collection));
+  }
+
+  @Test
+  void testNodesWithDifferentCompressionShareL2() {
+    // 只有A对课时分区启用压缩
+    CacheUtil cacheA = localCaches.get(0);
+    cacheA.setRegionCodec(CacheUtil.LESSON_REGION, new CompressingCodec(JsonbCodec.INSTANCE, 64));
+    String content = "课时内容".repeat(100);
+
+    nodeA.put("lesson:detail:11", content, CacheManager.CacheStrategy.MEDIUM);
+    nodeB.put("lesson:detail:12", 1, CacheManager.CacheStrategy.MEDIUM);
+
+    assertEquals(content, nodeB.get("lesson:detail:11"));
+    assertEquals(Integer.valueOf(1), nodeA.get("lesson:detail:12"));
+    assertEquals(0, nodeA.getTwoTierCache().getErrorCount());
+    assertEquals(0, nodeB.getTwoTierCache().getErrorCount());
+  }
+
+  @Test
+  void testMultiGetFetchesMissingKeysInOneRoundTrip() {
+    Map<String, Object> values = new HashMap<>();
+    for (int i = 0; i < 5; i++) {
+      values.put("course:detail:" + i, "课程" + i);
+    }
+    nodeA.multiPut(values, CacheManager.CacheStrategy.MEDIUM);
+    int callsBefore = redis.getMultiGetCalls();
+
+    Map<String, String> result =
+        nodeB.multiGet(
+            Arrays.asList(
+                "course:detail:0", "course:detail:3", "course:detail:4", "course:detail:9"),
+            String.class);
+
+    assertEquals(3, result.size());
+    assertEquals("课程3", result.get("course:detail:3"));
+    assertEquals(1, redis.getMultiGetCalls() - callsBefore);
+  }
+
+  @Test
+  void testL2OutageFallsBackToLocalCache() {
+    redis.setUnavailable(true);
+    AtomicInteger sourceLoads = new AtomicInteger();
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(
+          "课程",
+          nodeA.getOrLoad(
+              "course:detail:5",
+              () -> {
+                sourceLoads.incrementAndGet();
+                return "课程";
+              },
+              CacheManager.CacheStrategy.MEDIUM));
+    }
+    nodeA.invalidateGeneration("course:list:page:");
+
+    assertEquals(1, sourceLoads.get());
+    assertEquals(1, nodeA.currentGeneration("course:list:page:"));
+    assertTrue(nodeA.getTwoTierCache().getErrorCount() > 0);
+  }
+
+  @Test
+  void testGetAllUsesL2BeforeBulkLoader() {
+    nodeA.put("course:detail:7", "课程7", CacheManager.CacheStrategy.MEDIUM);
+    List<Integer> loaded = new ArrayList<>();
+
+    Map<Integer, String> result =
+        nodeB.getAll(
+            Arrays.asList(7, 8),
+            id -> "course:detail:" + id,
+            missing -> {
+              loaded.addAll(missing);
+              Map<Integer, String> values = new HashMap<>();
+              missing.forEach(id -> values.put(id, "课程" + id));
+              return values;
+            },
+            CacheManager.CacheStrategy.MEDIUM);
+
+    assertEquals("课程7", result.get(7));
+    assertEquals("课程8", result.get(8));
+    assertEquals(List.of(8), loaded);
+    // 批量加载的结果写入L2，其他节点不再回源
+    assertTrue(redis.contains("course:detail:8"));
+    assertEquals("课程8", nodeA.get("course:detail:8"));
+  }
+
+  @Test
+  void testCourseUpdateOnOneNodeMakesOtherNodesMiss() {
+    UUID courseId = UUID.randomUUID();
+    UUID userId = UUID.randomUUID();
+    User user = new User();
+    user.setId(userId);
+    user.setRole("TEACHER");
+    Course course = new Course();
+    course.setId(courseId);
+    course.setCreatorId(userId);
+    course.setTitle("旧标题");
+    course.setStatus("PUBLISHED");
+
+    CourseRepository courseRepository = mock(CourseRepository.class);
+    UserRepository userRepository = mock(UserRepository.class);
+    when(courseRepository.findById(courseId)).thenReturn(Optional.of(course));
+    when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+    when(courseRepository.save(any(Course.class))).thenReturn(course);
+    CourseService courseServiceA =
+        new CourseService(
+            courseRepository,
+            userRepository,
+            localCaches.get(0),
+            nodeA,
+            mock(ConfigUtil.class),
+            mock(ApplicationEventPublisher.class));
+
+    String cacheKey = "course:detail:" + courseId;
+    nodeA.put(cacheKey, course, CacheManager.CacheStrategy.MEDIUM);
+    assertNotNull(nodeB.get(cacheKey));
+
+    courseServiceA.updateCourse(courseId, userId, "新标题", "新描述", "PUBLISHED");
+
+    // L2中的旧值已删除，B的L1副本已被广播丢弃
+    assertFalse(redis.contains(cacheKey));
+    assertNull(localCaches.get(1).get(cacheKey));
+    assertNull(nodeB.get(cacheKey));
+  }
+}
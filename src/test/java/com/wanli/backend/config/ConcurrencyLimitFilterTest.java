@@ -0,0 +1,107 @@
+package com.wanli.backend.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.wanli.backend.ratelimit.RateLimitManager;
+import com.wanli.backend.util.ConfigUtil;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+/** ConcurrencyLimitFilter 课程、课时接口并发数限制 单元测试 */
+class ConcurrencyLimitFilterTest {
+
+  private final RateLimitManager rateLimitManager = new RateLimitManager();
+  private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter();
+
+  @BeforeEach
+  void setUp() {
+    ConfigUtil configUtil = mock(ConfigUtil.class);
+    when(configUtil.getConcurrencyLimitEnabled()).thenReturn(true);
+    when(configUtil.getConcurrencyLimitMin()).thenReturn(1);
+    when(configUtil.getConcurrencyLimitMax()).thenReturn(1);
+    ReflectionTestUtils.setField(filter, "rateLimitManager", rateLimitManager);
+    ReflectionTestUtils.setField(filter, "configUtil", configUtil);
+    filter.init();
+  }
+
+  private MockHttpServletResponse get(String path, FilterChain chain)
+      throws IOException, ServletException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", path), response, chain);
+    return response;
+  }
+
+  @Test
+  void testRejectsWhileGroupSaturated() throws Exception {
+    // 课程接口的请求处理期间，同组的第二个请求被拒绝，课时接口不受影响
+    MockHttpServletResponse[] nested = new MockHttpServletResponse[2];
+    MockHttpServletResponse outer =
+        get(
+            "/api/courses/1",
+            (request, response) -> {
+              nested[0] = get("/api/courses/2", new MockFilterChain());
+              nested[1] = get("/api/lessons/1", new MockFilterChain());
+            });
+
+    assertEquals(200, outer.getStatus());
+    assertEquals(503, nested[0].getStatus());
+    assertEquals("1", nested[0].getHeader("Retry-After"));
+    assertTrue(nested[0].getContentAsString().contains("CONCURRENCY_LIMITED"));
+    assertEquals(200, nested[1].getStatus());
+
+    // 请求结束后名额释放
+    assertEquals(200, get("/api/courses/2", new MockFilterChain()).getStatus());
+  }
+
+  @Test
+  void testSlotReleasedWhenHandlerThrows() throws Exception {
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            get(
+                "/api/lessons/1",
+                (request, response) -> {
+                  throw new IllegalStateException("数据库超时");
+                }));
+
+    assertEquals(200, get("/api/lessons/1", new MockFilterChain()).getStatus());
+  }
+
+  @Test
+  void testMatchesPathWithinContextPath() throws Exception {
+    // 部署时context-path为/api，控制器映射/api/courses，实际URI为/api/api/courses
+    MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+    MockHttpServletRequest outer = new MockHttpServletRequest("GET", "/api/api/courses/1");
+    outer.setContextPath("/api");
+    filter.doFilter(
+        outer,
+        new MockHttpServletResponse(),
+        (request, response) -> {
+          MockHttpServletRequest inner = new MockHttpServletRequest("GET", "/api/api/courses/2");
+          inner.setContextPath("/api");
+          nested[0] = new MockHttpServletResponse();
+          filter.doFilter(inner, nested[0], new MockFilterChain());
+        });
+
+    assertEquals(503, nested[0].getStatus());
+  }
+
+  @Test
+  void testOtherPathsNotLimited() throws Exception {
+    get(
+        "/api/auth/login",
+        (request, response) ->
+            assertEquals(200, get("/api/auth/login", new MockFilterChain()).getStatus()));
+  }
+}
@@ -0,0 +1,129 @@
+package com.wanli.backend.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import com.wanli.backend.ratelimit.RateLimitManager;
+import com.wanli.backend.ratelimit.RateLimited;
+import com.wanli.backend.util.ClientIpUtil;
+
+/** RateLimitInterceptor 注解限流 单元测试 */
+class RateLimitInterceptorTest {
+
+  private final RateLimitManager rateLimitManager = new RateLimitManager();
+  private final RateLimitInterceptor interceptor = new RateLimitInterceptor();
+  private final SampleController controller = new SampleController();
+
+  static class SampleController {
+    @RateLimited(capacity = 2, refillRate = 1)
+    public void update() {}
+
+    @RateLimited(capacity = 10, refillRate = 1, weightParam = "ids")
+    public void batch() {}
+
+    @RateLimited(type = RateLimitManager.LimitType.CONCURRENT)
+    public void concurrent() {}
+
+    public void unlimited() {}
+  }
+
+  @BeforeEach
+  void setUp() throws Exception {
+    ReflectionTestUtils.setField(interceptor, "rateLimitManager", rateLimitManager);
+    ReflectionTestUtils.setField(interceptor, "clientIpUtil", new ClientIpUtil(""));
+    interceptor.registerRoutes(
+        Arrays.asList(handler("update"), handler("batch"), handler("unlimited")));
+  }
+
+  private HandlerMethod handler(String name) throws NoSuchMethodException {
+    return new HandlerMethod(controller, SampleController.class.getMethod(name));
+  }
+
+  private MockHttpServletResponse call(String handlerName, MockHttpServletRequest request)
+      throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    boolean proceed = interceptor.preHandle(request, response, handler(handlerName));
+    assertEquals(proceed, response.getStatus() == 200);
+    return response;
+  }
+
+  private MockHttpServletRequest asUser(UUID userId) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setAttribute("currentUserId", userId);
+    return request;
+  }
+
+  @Test
+  void testLimitsPerUserWithHeaders() throws Exception {
+    UUID alice = UUID.randomUUID();
+
+    MockHttpServletResponse first = call("update", asUser(alice));
+    assertEquals("2", first.getHeader("RateLimit-Limit"));
+    assertEquals("1", first.getHeader("RateLimit-Remaining"));
+    assertEquals("2;w=2", first.getHeader("RateLimit-Policy"));
+    call("update", asUser(alice));
+
+    MockHttpServletResponse rejected = call("update", asUser(alice));
+    assertEquals(429, rejected.getStatus());
+    assertEquals("0", rejected.getHeader("RateLimit-Remaining"));
+    assertEquals("1", rejected.getHeader("Retry-After"));
+    assertEquals("1", rejected.getHeader("RateLimit-Reset"));
+    assertTrue(rejected.getContentAsString().contains("RATE_LIMITED"));
+
+    // 其他用户与未登录请求各自计数
+    assertEquals(200, call("update", asUser(UUID.randomUUID())).getStatus());
+    assertEquals(200, call("update", anonymous("10.0.0.1, 10.0.0.2")).getStatus());
+  }
+
+  private MockHttpServletRequest anonymous(String forwardedFor) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setRemoteAddr("203.0.113.9");
+    request.addHeader("X-Forwarded-For", forwardedFor);
+    return request;
+  }
+
+  @Test
+  void testForgedForwardedForDoesNotGetFreshBucket() throws Exception {
+    // 连接地址不是可信代理，X-Forwarded-For被忽略，按连接地址计数
+    assertEquals(200, call("update", anonymous("198.51.100.1")).getStatus());
+    assertEquals(200, call("update", anonymous("198.51.100.2")).getStatus());
+    assertEquals(429, call("update", anonymous("198.51.100.3")).getStatus());
+  }
+
+  @Test
+  void testBatchConsumesPermitsBySize() throws Exception {
+    MockHttpServletRequest request = asUser(UUID.randomUUID());
+    request.addParameter("ids", "a,b,c");
+    request.addParameter("ids", "d");
+    assertEquals("6", call("batch", request).getHeader("RateLimit-Remaining"));
+
+    // 超过容量的批量按容量计，桶满时仍可通过
+    MockHttpServletRequest oversized = asUser(UUID.randomUUID());
+    oversized.addParameter("ids", String.join(",", Collections.nCopies(50, "x")));
+    assertEquals("0", call("batch", oversized).getHeader("RateLimit-Remaining"));
+  }
+
+  @Test
+  void testUnannotatedHandlerNotLimited() throws Exception {
+    MockHttpServletResponse response = call("unlimited", new MockHttpServletRequest());
+    assertNull(response.getHeader("RateLimit-Limit"));
+    assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, new Object()));
+  }
+
+  @Test
+  void testConcurrentTypeRejectedAtRegistration() {
+    assertThrows(
+        IllegalStateException.class,
+        () -> interceptor.registerRoutes(Arrays.asList(handler("concurrent"))));
+  }
+}
@@ -0,0 +1,87 @@
+package com.wanli.backend.monitor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.wanli.backend.util.CacheUtil;
+import com.wanli.backend.util.ConfigUtil;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/** CacheMetricsBinder 单元测试 */
+@ExtendWith(MockitoExtension.class)
+class CacheMetricsBinderTest {
+
+  @Mock private ConfigUtil configUtil;
+
+  @InjectMocks private CacheUtil cacheUtil;
+
+  @AfterEach
+  void tearDown() {
+    cacheUtil.shutdown();
+  }
+
+  @Test
+  void testRegionMetersReadLiveStats() {
+    when(configUtil.isCacheEnabled()).thenReturn(true);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    new CacheMetricsBinder(cacheUtil).bindTo(registry);
+
+    cacheUtil.getOrCompute("course:1", String.class, () -> "c1", 10);
+    cacheUtil.get("course:1", String.class);
+    cacheUtil.get("lesson:1", String.class);
+
+    assertEquals(1.0, counter(registry, CacheUtil.COURSE_REGION, "hit"));
+    assertEquals(1.0, counter(registry, CacheUtil.COURSE_REGION, "miss"));
+    assertEquals(1.0, counter(registry, CacheUtil.LESSON_REGION, "miss"));
+    assertEquals(0.0, counter(registry, CacheUtil.LESSON_REGION, "hit"));
+    assertEquals(
+        1.0,
+        registry
+            .get("wanli.cache.load.duration")
+            .tag("region", CacheUtil.COURSE_REGION)
+            .functionTimer()
+            .count());
+    assertTrue(
+        registry.get("wanli.cache.weighted.size").tag("region", "course").gauge().value() > 0);
+  }
+
+  @Test
+  void testLoadDurationExportedAsCumulativeBuckets() {
+    when(configUtil.isCacheEnabled()).thenReturn(true);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    new CacheMetricsBinder(cacheUtil).bindTo(registry);
+
+    cacheUtil.getOrCompute("course:1", String.class, () -> "c1", 10);
+
+    assertEquals(1.0, loadBucket(registry, CacheUtil.COURSE_REGION, "+Inf"));
+    assertEquals(1.0, loadBucket(registry, CacheUtil.COURSE_REGION, "10.0"));
+    assertEquals(0.0, loadBucket(registry, CacheUtil.LESSON_REGION, "+Inf"));
+    // 不再导出按累计数据计算的分位数
+    assertNull(registry.find("wanli.cache.load.duration.percentile").gauge());
+  }
+
+  private static double loadBucket(MeterRegistry registry, String region, String le) {
+    return registry
+        .get("wanli.cache.load.duration.bucket")
+        .tags("region", region, "le", le)
+        .functionCounter()
+        .count();
+  }
+
+  private static double counter(MeterRegistry registry, String region, String result) {
+    return registry
+        .get("wanli.cache.gets")
+        .tags("region", region, "result", result)
+        .functionCounter()
+        .count();
+  }
+}
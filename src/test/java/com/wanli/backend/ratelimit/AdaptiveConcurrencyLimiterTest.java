@@ -0,0 +1,80 @@
+package com.wanli.backend.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/** AdaptiveConcurrencyLimiter 自适应并发数限制 单元测试 */
+class AdaptiveConcurrencyLimiterTest {
+
+  private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 20);
+
+  private void hold(int slots) {
+    for (int i = 0; i < slots; i++) {
+      assertTrue(limiter.tryAcquire());
+    }
+  }
+
+  private void complete(int requests, long latencyMillis, boolean dropped) {
+    for (int i = 0; i < requests; i++) {
+      if (limiter.tryAcquire()) {
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(latencyMillis), dropped);
+      }
+    }
+  }
+
+  @Test
+  void testRejectsBeyondLimit() {
+    hold(20);
+
+    assertFalse(limiter.tryAcquire());
+    assertEquals(1, limiter.getRejectedCount());
+
+    limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+    assertTrue(limiter.tryAcquire());
+  }
+
+  @Test
+  void testRisingLatencyShrinksLimitAndRecovers() {
+    hold(10);
+    complete(600, 10, false);
+    assertEquals(20, limiter.getLimit());
+
+    // 数据库变慢，延迟升到5倍
+    complete(600, 50, false);
+    int shrunk = limiter.getLimit();
+    assertTrue(shrunk <= 11, "limit=" + shrunk);
+
+    // 延迟恢复后上限回升
+    for (int i = 0; i < 5; i++) {
+      limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+    }
+    complete(600, 10, false);
+    assertTrue(limiter.getLimit() > shrunk, "limit=" + limiter.getLimit());
+  }
+
+  @Test
+  void testDroppedRequestsBackOffMultiplicatively() {
+    hold(10);
+    complete(10, 10, true);
+
+    assertEquals(18, limiter.getLimit());
+  }
+
+  @Test
+  void testIdleTrafficDoesNotAdjustLimit() {
+    complete(600, 10, false);
+    complete(600, 100, false);
+
+    assertEquals(20, limiter.getLimit());
+    assertEquals(100.0, limiter.getShortRttMillis(), 0.001);
+  }
+
+  @Test
+  void testInvalidBoundsRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(0, 10));
+    assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(10, 5));
+  }
+}
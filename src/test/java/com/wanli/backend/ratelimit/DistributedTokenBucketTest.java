@@ -0,0 +1,150 @@
+package com.wanli.backend.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.wanli.backend.ratelimit.RateLimitManager.LimitType;
+
+/** DistributedTokenBucket 集群范围限流与本地租借 单元测试 */
+class DistributedTokenBucketTest {
+
+  private final AtomicLong clock = new AtomicLong(5_000_000_000L);
+  private final InMemoryRateLimitStore store = new InMemoryRateLimitStore(clock::get);
+
+  private DistributedTokenBucket node(LimitType type, long capacity, long rate, long leaseSize) {
+    return new DistributedTokenBucket(store, type, capacity, rate, leaseSize, clock::get);
+  }
+
+  private void advanceMillis(long millis) {
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+
+  @Test
+  void testNodesShareOneBucket() {
+    DistributedTokenBucket nodeA = node(LimitType.TOKEN_BUCKET, 10, 1, 0);
+    DistributedTokenBucket nodeB = node(LimitType.TOKEN_BUCKET, 10, 1, 0);
+
+    for (int i = 0; i < 6; i++) {
+      assertTrue(nodeA.tryAcquire("api:course", 1));
+    }
+    for (int i = 0; i < 4; i++) {
+      assertTrue(nodeB.tryAcquire("api:course", 1));
+    }
+
+    assertFalse(nodeA.tryAcquire("api:course", 1));
+    assertFalse(nodeB.tryAcquire("api:course", 1));
+    assertEquals(1000, nodeA.getWaitMillis("api:course"));
+  }
+
+  @Test
+  void testLeasingCutsRoundTrips() {
+    DistributedTokenBucket bucket = node(LimitType.TOKEN_BUCKET, 1000, 100, 50);
+
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(bucket.tryAcquire("api:course", 1));
+    }
+    assertEquals(20, store.getCalls());
+
+    // 拒绝后在等待时间内本地拒绝，不再访问存储
+    assertFalse(bucket.tryAcquire("api:course", 1));
+    for (int i = 0; i < 100; i++) {
+      assertFalse(bucket.tryAcquire("api:course", 1));
+    }
+    assertEquals(21, store.getCalls());
+    assertEquals(10, bucket.getWaitMillis("api:course"));
+
+    advanceMillis(10);
+    assertTrue(bucket.tryAcquire("api:course", 1));
+    assertEquals(22, store.getCalls());
+  }
+
+  @Test
+  void testLeasedNodesNeverExceedGlobalCapacity() {
+    DistributedTokenBucket nodeA = node(LimitType.TOKEN_BUCKET, 100, 1, 30);
+    DistributedTokenBucket nodeB = node(LimitType.TOKEN_BUCKET, 100, 1, 30);
+
+    int allowed = 0;
+    for (int i = 0; i < 200; i++) {
+      DistributedTokenBucket node = i % 2 == 0 ? nodeA : nodeB;
+      if (node.tryAcquire("global", 1)) {
+        allowed++;
+      }
+    }
+
+    assertEquals(100, allowed);
+  }
+
+  @Test
+  void testUnusedLeaseReturnedToStore() {
+    DistributedTokenBucket bucket = node(LimitType.TOKEN_BUCKET, 100, 1, 20);
+    DistributedTokenBucket other = node(LimitType.TOKEN_BUCKET, 100, 1, 0);
+    assertTrue(bucket.tryAcquire("api", 1));
+    assertTrue(bucket.tryAcquire("api", 1));
+    assertEquals(1, store.getCalls());
+
+    // 租借过期，余下的18个随下一次租借放回：81 + 18 - 20 = 79
+    advanceMillis(1000);
+    assertTrue(bucket.tryAcquire("api", 1));
+    assertEquals(2, store.getCalls());
+    assertEquals(0, bucket.evictExpired());
+
+    // 清理时放回余下的19个：79 + 1 + 19 = 99
+    advanceMillis(1000);
+    assertEquals(1, bucket.evictExpired());
+    assertEquals(3, store.getCalls());
+
+    // 全局只扣除了实际使用的3个
+    int allowed = 0;
+    while (other.tryAcquire("api", 1)) {
+      allowed++;
+    }
+    assertEquals(99, allowed);
+  }
+
+  @Test
+  void testGcraChecksEveryRequest() {
+    DistributedTokenBucket bucket = node(LimitType.GCRA, 5, 10, 50);
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(bucket.tryAcquire("login:ip", 1));
+    }
+    assertFalse(bucket.tryAcquire("login:ip", 1));
+    assertEquals(100, bucket.getWaitMillis("login:ip"));
+    assertEquals(6, store.getCalls());
+
+    advanceMillis(100);
+    assertTrue(bucket.tryAcquire("login:ip", 1));
+    assertFalse(bucket.tryAcquire("login:ip", 1));
+  }
+
+  @Test
+  void testFallsBackToLocalBucketWhileStoreUnavailable() {
+    DistributedTokenBucket bucket = node(LimitType.TOKEN_BUCKET, 3, 1, 0);
+    store.setUnavailable(true);
+
+    assertTrue(bucket.tryAcquire("api", 1));
+    assertTrue(bucket.isDegraded());
+    assertTrue(bucket.tryAcquire("api", 1));
+    assertTrue(bucket.tryAcquire("api", 1));
+    assertFalse(bucket.tryAcquire("api", 1));
+    // 重试间隔内不再访问存储
+    assertEquals(1, store.getCalls());
+    assertEquals(1, bucket.getRemoteErrorCount());
+
+    store.setUnavailable(false);
+    advanceMillis(5000);
+    assertTrue(bucket.tryAcquire("api", 1));
+    assertFalse(bucket.isDegraded());
+    assertEquals(2, store.getCalls());
+  }
+
+  @Test
+  void testUnsupportedAlgorithmRejected() {
+    assertThrows(
+        IllegalArgumentException.class, () -> node(LimitType.SLIDING_WINDOW, 10, 1, 0));
+  }
+}
@@ -0,0 +1,103 @@
+package com.wanli.backend.ratelimit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/** 测试用的进程内Redis替身 按与Lua脚本相同的规则判定，多个节点共享同一实例 */
+class InMemoryRateLimitStore implements RateLimitStore {
+
+  private final LongSupplier nanoClock;
+  private final Map<String, double[]> buckets = new HashMap<>();
+  private final Map<String, Double> arrivalTimes = new HashMap<>();
+  private final Map<String, LocalSlidingWindowCounter> slidingWindows = new HashMap<>();
+  private final AtomicInteger calls = new AtomicInteger();
+  private volatile boolean unavailable;
+
+  InMemoryRateLimitStore(LongSupplier nanoClock) {
+    this.nanoClock = nanoClock;
+  }
+
+  private double nowMicros() {
+    return nanoClock.getAsLong() / 1000.0;
+  }
+
+  private void checkAvailable() {
+    calls.incrementAndGet();
+    if (unavailable) {
+      throw new IllegalStateException("Redis unavailable");
+    }
+  }
+
+  @Override
+  public synchronized Grant acquireTokens(
+      String key, long capacity, long refillRate, long requested, long minimum, long returned) {
+    checkAvailable();
+    double now = nowMicros();
+    double[] state = buckets.get(key);
+    double tokens = capacity;
+    if (state != null) {
+      tokens = Math.min(capacity, state[0] + Math.max(0, now - state[1]) * refillRate / 1e6);
+    }
+    tokens = Math.min(capacity, tokens + returned);
+    long granted = 0;
+    long wait = 0;
+    if (tokens < minimum) {
+      wait = (long) Math.ceil((minimum - tokens) * 1000 / refillRate);
+    } else {
+      granted = Math.min(requested, (long) tokens);
+      tokens -= granted;
+    }
+    buckets.put(key, new double[] {tokens, now});
+    return new Grant(granted, (long) tokens, wait);
+  }
+
+  @Override
+  public synchronized Grant acquireGcra(String key, long capacity, long refillRate, long permits) {
+    checkAvailable();
+    double now = nowMicros();
+    double interval = 1e6 / refillRate;
+    double tolerance = capacity * interval;
+    double tat = Math.max(now, arrivalTimes.getOrDefault(key, now));
+    double newTat = tat + permits * interval;
+    double allowAt = newTat - tolerance;
+    if (allowAt > now) {
+      return new Grant(
+          0,
+          (long) Math.floor((tolerance - (tat - now)) / interval),
+          (long) Math.ceil((allowAt - now) / 1000));
+    }
+    arrivalTimes.put(key, newTat);
+    return new Grant(permits, (long) Math.floor((tolerance - (newTat - now)) / interval), 0);
+  }
+
+  @Override
+  public synchronized Grant acquireSlidingWindow(
+      String key, long capacity, long windowMillis, long permits) {
+    checkAvailable();
+    return slidingWindows
+        .computeIfAbsent(
+            key,
+            k ->
+                new LocalSlidingWindowCounter(
+                    capacity, windowMillis, () -> nanoClock.getAsLong() / 1_000_000))
+        .tryAcquire(key, permits);
+  }
+
+  @Override
+  public synchronized void reset(String key) {
+    checkAvailable();
+    buckets.remove(key);
+    arrivalTimes.remove(key);
+    slidingWindows.remove(key);
+  }
+
+  int getCalls() {
+    return calls.get();
+  }
+
+  void setUnavailable(boolean unavailable) {
+    this.unavailable = unavailable;
+  }
+}
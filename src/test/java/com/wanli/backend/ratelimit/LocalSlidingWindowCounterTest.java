@@ -0,0 +1,67 @@
+package com.wanli.backend.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/** LocalSlidingWindowCounter 滑动窗口计数 单元测试 */
+class LocalSlidingWindowCounterTest {
+
+  private final AtomicLong clock = new AtomicLong(1_000_000);
+  private final LocalSlidingWindowCounter counter =
+      new LocalSlidingWindowCounter(100, 1000, clock::get);
+
+  private int acquireAll(String key) {
+    int allowed = 0;
+    while (counter.tryAcquire(key, 1).getGranted() > 0) {
+      allowed++;
+    }
+    return allowed;
+  }
+
+  @Test
+  void testPreviousWindowWeightedByOverlap() {
+    assertEquals(100, acquireAll("api"));
+
+    // 进入下一窗口250ms，上一窗口仍有75%在滑动窗口内
+    clock.addAndGet(1250);
+    assertEquals(25, acquireAll("api"));
+
+    RateLimitStore.Grant denied = counter.tryAcquire("api", 1);
+    assertEquals(0, denied.getGranted());
+    assertEquals(0, denied.getRemaining());
+    // 上一窗口权重降到 (100-25-1)/100 时才有空间
+    assertEquals(10, denied.getWaitMillis());
+  }
+
+  @Test
+  void testFullCurrentWindowWaitsForWindowEnd() {
+    clock.addAndGet(400);
+    assertEquals(100, acquireAll("api"));
+
+    assertEquals(600, counter.tryAcquire("api", 1).getWaitMillis());
+  }
+
+  @Test
+  void testSkippedWindowsClearBothCounts() {
+    assertEquals(100, acquireAll("api"));
+
+    clock.addAndGet(2000);
+
+    assertEquals(100, acquireAll("api"));
+  }
+
+  @Test
+  void testEvictIdleRemovesExpiredKeys() {
+    counter.tryAcquire("a", 1);
+    clock.addAndGet(1000);
+    counter.tryAcquire("b", 1);
+
+    assertEquals(0, counter.evictIdle());
+    clock.addAndGet(1000);
+    assertEquals(1, counter.evictIdle());
+    assertEquals(1, counter.size());
+  }
+}
@@ -0,0 +1,117 @@
+package com.wanli.backend.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/** LocalTokenBucket 进程内无锁令牌桶 单元测试 */
+class LocalTokenBucketTest {
+
+  private final AtomicLong clock = new AtomicLong(123_456_789L);
+
+  private void advanceMillis(long millis) {
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+
+  @Test
+  void testBurstUpToCapacityThenRejects() {
+    LocalTokenBucket bucket = new LocalTokenBucket(5, 10, clock::get);
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(bucket.tryAcquire("user:1", 1));
+    }
+    assertFalse(bucket.tryAcquire("user:1", 1));
+    assertEquals(0, bucket.availablePermits("user:1"));
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.nanosUntilAvailable("user:1", 1));
+    // 其他键不受影响
+    assertTrue(bucket.tryAcquire("user:2", 5));
+  }
+
+  @Test
+  void testRefillIsSubSecond() {
+    LocalTokenBucket bucket = new LocalTokenBucket(10, 10, clock::get);
+    assertTrue(bucket.tryAcquire("api", 10));
+
+    advanceMillis(150);
+    assertEquals(1, bucket.availablePermits("api"));
+    assertTrue(bucket.tryAcquire("api", 1));
+    assertFalse(bucket.tryAcquire("api", 1));
+
+    // 剩余的50ms不丢失
+    advanceMillis(50);
+    assertTrue(bucket.tryAcquire("api", 1));
+  }
+
+  @Test
+  void testRefillCappedAtCapacity() {
+    LocalTokenBucket bucket = new LocalTokenBucket(3, 100, clock::get);
+    assertTrue(bucket.tryAcquire("api", 3));
+
+    advanceMillis(10_000);
+
+    assertEquals(3, bucket.availablePermits("api"));
+    assertTrue(bucket.tryAcquire("api", 3));
+    assertFalse(bucket.tryAcquire("api", 1));
+  }
+
+  @Test
+  void testConcurrentAcquireNeverOverspends() throws Exception {
+    LocalTokenBucket bucket = new LocalTokenBucket(1000, 1, clock::get);
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> futures = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                start.await();
+                int acquired = 0;
+                for (int i = 0; i < 500; i++) {
+                  if (bucket.tryAcquire("hot", 1)) {
+                    acquired++;
+                  }
+                }
+                return acquired;
+              }));
+    }
+    start.countDown();
+    int total = 0;
+    for (Future<Integer> future : futures) {
+      total += future.get(10, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    assertEquals(1000, total);
+  }
+
+  @Test
+  void testEvictIdleRemovesFullBuckets() {
+    LocalTokenBucket bucket = new LocalTokenBucket(2, 10, clock::get);
+    bucket.tryAcquire("a", 2);
+    bucket.tryAcquire("b", 1);
+
+    advanceMillis(100);
+    assertEquals(1, bucket.evictIdle());
+    assertEquals(1, bucket.size());
+
+    advanceMillis(100);
+    assertEquals(1, bucket.evictIdle());
+    assertEquals(0, bucket.size());
+  }
+
+  @Test
+  void testInvalidParametersRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new LocalTokenBucket(0, 10));
+    assertThrows(IllegalArgumentException.class, () -> new LocalTokenBucket(10, 0));
+  }
+}
@@ -0,0 +1,120 @@
+package com.wanli.backend.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/** RateLimitManager 限流器选择与分布式滑动窗口 单元测试 */
+class RateLimitManagerTest {
+
+  private final AtomicLong clock = new AtomicLong(1_000_000_000_000L);
+  private final InMemoryRateLimitStore store = new InMemoryRateLimitStore(clock::get);
+
+  private RateLimitManager node(RateLimitStore rateLimitStore) {
+    RateLimitManager manager = new RateLimitManager();
+    ReflectionTestUtils.setField(manager, "rateLimitStore", rateLimitStore);
+    return manager;
+  }
+
+  private RateLimitManager.RateLimitConfig slidingWindow(boolean distributed) {
+    RateLimitManager.RateLimitConfig config =
+        RateLimitManager.createDefaultConfig(RateLimitManager.LimitType.SLIDING_WINDOW);
+    config.setCapacity(10);
+    config.setDistributed(distributed);
+    return config;
+  }
+
+  @Test
+  void testDistributedSlidingWindowSharedAcrossNodes() {
+    RateLimitManager nodeA = node(store);
+    RateLimitManager nodeB = node(store);
+    RateLimitManager.RateLimitConfig config = slidingWindow(true);
+
+    int allowed = 0;
+    for (int i = 0; i < 20; i++) {
+      RateLimitManager node = i % 2 == 0 ? nodeA : nodeB;
+      if (node.checkLimit("api:course", config).isAllowed()) {
+        allowed++;
+      }
+    }
+
+    assertEquals(10, allowed);
+    assertEquals(20, store.getCalls());
+  }
+
+  @Test
+  void testSlidingWindowFallsBackToLocalCounter() {
+    RateLimitManager manager = node(store);
+    store.setUnavailable(true);
+
+    int allowed = 0;
+    for (int i = 0; i < 20; i++) {
+      if (manager.checkLimit("api:course", slidingWindow(true)).isAllowed()) {
+        allowed++;
+      }
+    }
+
+    assertEquals(10, allowed);
+    assertEquals(1, store.getCalls());
+  }
+
+  @Test
+  void testLocalSlidingWindowWithoutStore() {
+    RateLimitManager manager = node(null);
+
+    for (int i = 0; i < 10; i++) {
+      assertTrue(manager.checkLimit("api:course", slidingWindow(true)).isAllowed());
+    }
+    RateLimitManager.RateLimitResult denied = manager.checkLimit("api:course", slidingWindow(true));
+
+    assertFalse(denied.isAllowed());
+    assertTrue(denied.getWaitTime() > 0);
+    assertEquals(
+        11,
+        manager
+            .getGlobalStatistics()
+            .getLimiterStatistics()
+            .get("sliding_window:api:course")
+            .getTotalRequests());
+  }
+
+  @Test
+  void testConcurrencyLimitReleasedAfterRequest() {
+    RateLimitManager manager = node(null);
+    RateLimitManager.RateLimitConfig config =
+        RateLimitManager.createDefaultConfig(RateLimitManager.LimitType.CONCURRENT);
+    config.setMaxConcurrent(2);
+
+    assertTrue(manager.checkLimit("api:course", config).isAllowed());
+    assertTrue(manager.checkLimit("api:course", config).isAllowed());
+    assertFalse(manager.checkLimit("api:course", config).isAllowed());
+
+    manager.releaseConcurrency("api:course", 1_000_000, false);
+    assertTrue(manager.checkLimit("api:course", config).isAllowed());
+  }
+
+  @Test
+  void testRouteLimiterRegisteredOnceAndCounted() {
+    RateLimitManager manager = node(null);
+    RateLimitManager.RateLimitConfig config =
+        RateLimitManager.createDefaultConfig(RateLimitManager.LimitType.TOKEN_BUCKET);
+    config.setCapacity(1);
+
+    RateLimitManager.RateLimiter limiter = manager.registerRouteLimiter("course.update", config);
+    assertSame(limiter, manager.registerRouteLimiter("course.update", config));
+
+    assertTrue(manager.checkLimit(limiter, "user:a", 1, config).isAllowed());
+    assertFalse(manager.checkLimit(limiter, "user:a", 1, config).isAllowed());
+    assertTrue(manager.checkLimit(limiter, "user:b", 1, config).isAllowed());
+    assertEquals(
+        2,
+        manager
+            .getGlobalStatistics()
+            .getLimiterStatistics()
+            .get("route:token_bucket:course.update")
+            .getAllowedRequests());
+  }
+}
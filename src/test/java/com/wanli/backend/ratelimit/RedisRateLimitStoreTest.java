@@ -0,0 +1,139 @@
+package com.wanli.backend.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import com.wanli.backend.ratelimit.RateLimitStore.Grant;
+
+/**
+ * RedisRateLimitStore 在真实Redis上执行令牌桶、GCRA与滑动窗口Lua脚本 测试
+ *
+ * <p>需要本机Docker，默认不运行：mvn test -Dtest=RedisRateLimitStoreTest -Dredis.tests=true
+ */
+@EnabledIfSystemProperty(named = "redis.tests", matches = "true")
+class RedisRateLimitStoreTest {
+
+  private static GenericContainer<?> redis;
+  private static LettuceConnectionFactory connectionFactory;
+
+  private RedisRateLimitStore store;
+  private String key;
+
+  @BeforeAll
+  static void startRedis() {
+    redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+    redis.start();
+    connectionFactory =
+        new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+    connectionFactory.afterPropertiesSet();
+  }
+
+  @AfterAll
+  static void stopRedis() {
+    if (connectionFactory != null) {
+      connectionFactory.destroy();
+    }
+    if (redis != null) {
+      redis.stop();
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    store = new RedisRateLimitStore(connectionFactory);
+    key = "api:course:" + UUID.randomUUID();
+  }
+
+  @Test
+  void testTokenBucketRejectsWhenEmpty() {
+    for (int i = 0; i < 5; i++) {
+      assertEquals(1, store.acquireTokens(key, 5, 1, 1, 1, 0).getGranted());
+    }
+
+    Grant rejected = store.acquireTokens(key, 5, 1, 1, 1, 0);
+    assertEquals(0, rejected.getGranted());
+    assertEquals(0, rejected.getRemaining());
+    // 每秒补充1个，等待时间不超过一个令牌的补充间隔
+    assertTrue(rejected.getWaitMillis() > 0 && rejected.getWaitMillis() <= 1000);
+  }
+
+  @Test
+  void testTokenBucketReturnsUnusedLease() {
+    Grant lease = store.acquireTokens(key, 5, 1, 5, 1, 0);
+    assertEquals(5, lease.getGranted());
+    assertEquals(0, lease.getRemaining());
+
+    // 放回上一次租借未用完的3个，再取2个
+    Grant next = store.acquireTokens(key, 5, 1, 2, 2, 3);
+    assertEquals(2, next.getGranted());
+    assertTrue(next.getRemaining() >= 1);
+  }
+
+  @Test
+  void testTokenBucketKeepsMicrosecondState() {
+    // 微秒时间戳超过Lua默认的14位有效数字，写回后须能读出原值，否则补充按错误的经过时间计算
+    assertEquals(5, store.acquireTokens(key, 5, 1000, 5, 1, 0).getGranted());
+    sleepMillis(20);
+
+    Grant refilled = store.acquireTokens(key, 5, 1000, 5, 1, 0);
+    assertEquals(5, refilled.getGranted());
+  }
+
+  @Test
+  void testGcraAllowsBurstThenRejects() {
+    Grant first = store.acquireGcra(key, 3, 1, 1);
+    assertEquals(1, first.getGranted());
+    assertEquals(2, first.getRemaining());
+    assertEquals(1, store.acquireGcra(key, 3, 1, 1).getGranted());
+    assertEquals(1, store.acquireGcra(key, 3, 1, 1).getGranted());
+
+    Grant rejected = store.acquireGcra(key, 3, 1, 1);
+    assertEquals(0, rejected.getGranted());
+    assertTrue(rejected.getWaitMillis() > 0 && rejected.getWaitMillis() <= 1000);
+  }
+
+  @Test
+  void testSlidingWindowRejectsOverCapacity() {
+    for (int i = 0; i < 3; i++) {
+      assertEquals(1, store.acquireSlidingWindow(key, 3, 60_000, 1).getGranted());
+    }
+
+    Grant rejected = store.acquireSlidingWindow(key, 3, 60_000, 1);
+    assertEquals(0, rejected.getGranted());
+    assertEquals(0, rejected.getRemaining());
+    assertTrue(rejected.getWaitMillis() > 0 && rejected.getWaitMillis() <= 60_000);
+  }
+
+  @Test
+  void testResetClearsAllAlgorithms() {
+    store.acquireTokens(key, 1, 1, 1, 1, 0);
+    store.acquireGcra(key, 1, 1, 1);
+    store.acquireSlidingWindow(key, 1, 60_000, 1);
+
+    store.reset(key);
+
+    assertEquals(1, store.acquireTokens(key, 1, 1, 1, 1, 0).getGranted());
+    assertEquals(1, store.acquireGcra(key, 1, 1, 1).getGranted());
+    assertEquals(1, store.acquireSlidingWindow(key, 1, 60_000, 1).getGranted());
+  }
+
+  private static void sleepMillis(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -12,11 +12,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.wanli.backend.cache.CacheManager;
 import com.wanli.backend.entity.Course;
 import com.wanli.backend.entity.User;
 import com.wanli.backend.exception.BusinessException;
@@ -36,6 +39,8 @@ class CourseServiceTest {
 
   @Mock private CacheUtil cacheUtil;
 
+  @Spy private CacheManager cacheManager = new CacheManager(null);
+
   @Mock private ConfigUtil configUtil;
 
   @InjectMocks private CourseService courseService;
@@ -47,6 +52,9 @@ class CourseServiceTest {
 
   @BeforeEach
   void setUp() {
+    // 缓存失效经CacheManager进行，使其作用于同一个CacheUtil替身
+    ReflectionTestUtils.setField(cacheManager, "cacheUtil", cacheUtil);
+
     testUserId = UUID.randomUUID();
     testCourseId = UUID.randomUUID();
 
@@ -237,7 +245,7 @@ class CourseServiceTest {
     assertEquals("课程更新成功", result.get("message"));
 
     verify(courseRepository).save(any(Course.class));
-    verify(cacheUtil).remove(anyString());
+    verify(cacheUtil).remove("course:detail:" + testCourseId);
   }
 
   @Test
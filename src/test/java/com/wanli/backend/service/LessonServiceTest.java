@@ -12,8 +12,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.wanli.backend.cache.CacheManager;
 import com.wanli.backend.entity.Course;
 import com.wanli.backend.entity.Lesson;
 import com.wanli.backend.entity.User;
@@ -38,6 +41,8 @@ class LessonServiceTest {
 
   @Mock private CacheUtil cacheUtil;
 
+  @Spy private CacheManager cacheManager = new CacheManager(null);
+
   @Mock private ConfigUtil configUtil;
 
   @InjectMocks private LessonService lessonService;
@@ -51,6 +56,9 @@ class LessonServiceTest {
 
   @BeforeEach
   void setUp() {
+    // 缓存失效经CacheManager进行，使其作用于同一个CacheUtil替身
+    ReflectionTestUtils.setField(cacheManager, "cacheUtil", cacheUtil);
+
     testUserId = UUID.randomUUID();
     testCourseId = UUID.randomUUID();
     testLessonId = UUID.randomUUID();
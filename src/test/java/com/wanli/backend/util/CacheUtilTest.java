@@ -1,22 +1,46 @@
 package com.wanli.backend.util;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.wanli.backend.cache.BoundedLocalCache;
+import com.wanli.backend.cache.CacheEvent;
+import com.wanli.backend.cache.CacheRegionStats;
+import com.wanli.backend.cache.HotKeyNearCache;
+import com.wanli.backend.cache.RefreshPolicy;
 
 /** CacheUtil 单元测试 */
-@SpringBootTest
-@SpringJUnitConfig
+@ExtendWith(MockitoExtension.class)
 class CacheUtilTest {
 
   private CacheUtil cacheUtil;
@@ -342,4 +366,562 @@ class CacheUtilTest {
     String wrongType = cacheUtil.get(key, String.class);
     assertNull(wrongType);
   }
+
+  /** 使用模拟配置、启用缓存的实例 */
+  private CacheUtil enabledCacheUtil() {
+    CacheUtil enabled = new CacheUtil();
+    ReflectionTestUtils.setField(enabled, "configUtil", configUtil);
+    return enabled;
+  }
+
+  /** 以下各组共用的夹具：启用缓存的实例，每个用例结束后关闭 */
+  abstract class EnabledCacheFixture {
+
+    protected CacheUtil cacheUtil;
+
+    @BeforeEach
+    void setUpEnabledCache() {
+      when(configUtil.isCacheEnabled()).thenReturn(true);
+      cacheUtil = enabledCacheUtil();
+    }
+
+    @AfterEach
+    void tearDownEnabledCache() {
+      cacheUtil.shutdown();
+    }
+  }
+
+  /** 单飞加载 */
+  @Nested
+  class SingleFlight extends EnabledCacheFixture {
+
+    private static final String KEY = "course:detail:1";
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUpExecutor() {
+      executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDownExecutor() {
+      executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+      AtomicInteger loads = new AtomicInteger();
+      CountDownLatch release = new CountDownLatch(1);
+      CompletableFuture<?>[] callers = new CompletableFuture[8];
+      for (int i = 0; i < callers.length; i++) {
+        callers[i] =
+            CompletableFuture.supplyAsync(
+                () ->
+                    cacheUtil.getOrCompute(
+                        KEY,
+                        String.class,
+                        () -> {
+                          loads.incrementAndGet();
+                          await(release);
+                          return "course";
+                        },
+                        30),
+                executor);
+      }
+
+      // 等待所有调用方进入加载或合并等待
+      while (cacheUtil.getLoadCount() + cacheUtil.getCoalescedLoadCount() < callers.length) {
+        Thread.sleep(5);
+      }
+      release.countDown();
+
+      for (CompletableFuture<?> caller : callers) {
+        assertEquals("course", caller.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, loads.get());
+      assertEquals(7, cacheUtil.getCoalescedLoadCount());
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() {
+      assertThrows(
+          IllegalStateException.class,
+          () ->
+              cacheUtil.getOrCompute(
+                  KEY,
+                  String.class,
+                  () -> {
+                    throw new IllegalStateException("db down");
+                  },
+                  30));
+
+      assertEquals(1, cacheUtil.getLoadFailureCount());
+      assertFalse(cacheUtil.exists(KEY));
+      assertEquals("course", cacheUtil.getOrCompute(KEY, String.class, () -> "course", 30));
+    }
+
+    @Test
+    void testAsyncLoadCompletesCallers() throws Exception {
+      CompletableFuture<String> result =
+          cacheUtil.getOrComputeAsync(KEY, String.class, () -> "course", 30, executor);
+
+      assertEquals("course", result.get(5, TimeUnit.SECONDS));
+      assertEquals("course", cacheUtil.get(KEY, String.class));
+    }
+
+    private static void await(CountDownLatch latch) {
+      try {
+        latch.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /** 提前刷新、stale-while-revalidate与概率提前过期 */
+  @Nested
+  class Refresh extends EnabledCacheFixture {
+
+    private static final String KEY = "course:list:all";
+
+    // 手动执行的刷新任务队列，便于观察刷新完成前的读取结果
+    private final Queue<Runnable> pendingRefreshes = new ArrayDeque<>();
+    private final Executor refreshExecutor = pendingRefreshes::add;
+    private final AtomicInteger version = new AtomicInteger();
+    // 手动推进的时钟，过期与刷新判断不依赖真实等待
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+
+    @BeforeEach
+    void setUpClock() {
+      cacheUtil.setClock(clock::get);
+    }
+
+    @Test
+    void testRefreshAheadServesCachedValueAndReloadsAsync() {
+      RefreshPolicy policy = RefreshPolicy.of(Duration.ofMillis(200), 0.5, Duration.ZERO);
+
+      assertEquals("v1", read(policy));
+      assertEquals("v1", read(policy));
+      assertTrue(pendingRefreshes.isEmpty());
+
+      clock.addAndGet(120);
+      // 超过刷新点：立即返回旧值，只提交一个刷新任务
+      assertEquals("v1", read(policy));
+      assertEquals("v1", read(policy));
+      assertEquals(1, pendingRefreshes.size());
+
+      pendingRefreshes.poll().run();
+      assertEquals("v2", read(policy));
+      assertEquals(1, cacheUtil.getRefreshCount());
+    }
+
+    @Test
+    void testStaleValueServedWithinRevalidateWindow() {
+      RefreshPolicy policy = RefreshPolicy.of(Duration.ofMillis(50), 1.0, Duration.ofSeconds(5));
+
+      assertEquals("v1", read(policy));
+      clock.addAndGet(80);
+
+      // TTL已过但仍在窗口内：返回旧值并触发重新加载
+      assertEquals("v1", read(policy));
+      assertEquals(1, pendingRefreshes.size());
+
+      pendingRefreshes.poll().run();
+      assertEquals("v2", read(policy));
+    }
+
+    @Test
+    void testFailedRefreshKeepsStaleValue() {
+      RefreshPolicy policy = RefreshPolicy.of(Duration.ofMillis(50), 0.5, Duration.ofSeconds(5));
+
+      assertEquals("v1", read(policy));
+      clock.addAndGet(80);
+      cacheUtil.getOrCompute(
+          KEY,
+          String.class,
+          () -> {
+            throw new IllegalStateException("db down");
+          },
+          policy,
+          refreshExecutor);
+
+      pendingRefreshes.poll().run();
+      assertEquals(1, cacheUtil.getLoadFailureCount());
+      assertEquals("v1", read(policy));
+      // 旧值窗口内的条目对普通读取不可见
+      assertNull(cacheUtil.get(KEY, String.class));
+    }
+
+    @Test
+    void testPlainReadsCountStaleEntriesAsMisses() {
+      RefreshPolicy policy = RefreshPolicy.of(Duration.ofMillis(50), 1.0, Duration.ofSeconds(5));
+      cacheUtil.put(KEY, "v0", policy);
+      clock.addAndGet(80);
+
+      // 两种普通读取对旧值窗口内的条目统计一致
+      assertNull(cacheUtil.get(KEY));
+      assertNull(cacheUtil.get(KEY, String.class));
+      assertEquals(2, cacheUtil.getEventCount(CacheEvent.MISS));
+    }
+
+    @Test
+    void testSlowLoadsRecomputeEarlyBeforeExpiry() {
+      RefreshPolicy policy =
+          RefreshPolicy.of(Duration.ofMillis(300), 1.0, Duration.ZERO)
+              .withEarlyExpiration(10_000, 0);
+
+      cacheUtil.getOrCompute(
+          KEY,
+          String.class,
+          () -> {
+            sleep(20);
+            return "v1";
+          },
+          policy,
+          refreshExecutor);
+      clock.addAndGet(200);
+
+      // 刷新概率为 exp(-剩余时间/(加载耗时×β))，上次加载耗时20ms时约为99.9%
+      assertEquals("v1", read(policy));
+      assertEquals(1, pendingRefreshes.size());
+    }
+
+    @Test
+    void testPolicyPutWithoutLoadStillExpiresEarly() {
+      RefreshPolicy policy =
+          RefreshPolicy.of(Duration.ofMinutes(30), 1.0, Duration.ofMinutes(5))
+              .withEarlyExpiration(1000, 0);
+
+      // 写穿的条目没有加载耗时，按默认耗时参与概率提前过期：β足够大时到期前1毫秒几乎必然刷新
+      cacheUtil.put(KEY, "v0", policy);
+      clock.addAndGet(Duration.ofMinutes(30).toMillis() - 1);
+      assertEquals("v0", read(policy));
+      assertEquals(1, pendingRefreshes.size());
+    }
+
+    @Test
+    void testPolicyPutFarFromExpiryDoesNotRefresh() {
+      RefreshPolicy policy =
+          RefreshPolicy.of(Duration.ofMinutes(30), 1.0, Duration.ofMinutes(5))
+              .withEarlyExpiration(1.0, 0);
+
+      // 不再有固定的提前刷新点，新鲜期的80%处远未到XFetch的触发范围
+      cacheUtil.put(KEY, "v0", policy);
+      clock.addAndGet(Duration.ofMinutes(24).toMillis());
+      assertEquals("v0", read(policy));
+      assertTrue(pendingRefreshes.isEmpty());
+    }
+
+    @Test
+    void testMultiPutJittersExpiry() {
+      Map<String, Object> values = new HashMap<>();
+      for (int i = 0; i < 50; i++) {
+        values.put("course:detail:" + i, "c" + i);
+      }
+      cacheUtil.multiPut(values, 10);
+
+      Set<Long> expiries = new HashSet<>();
+      for (String key : values.keySet()) {
+        long expire = cacheUtil.getExpire(key);
+        assertTrue(expire >= 539 && expire <= 600, "expire=" + expire);
+        expiries.add(expire);
+      }
+      assertTrue(expiries.size() > 1);
+    }
+
+    @Test
+    void testTtlJitterSpreadsExpiry() {
+      RefreshPolicy policy =
+          RefreshPolicy.of(Duration.ofMinutes(10), 1.0, Duration.ZERO).withEarlyExpiration(0, 0.2);
+
+      Set<Long> ttls = new HashSet<>();
+      for (int i = 0; i < 100; i++) {
+        long ttl = policy.nextTtlMillis();
+        assertTrue(
+            ttl > Duration.ofMinutes(8).toMillis() && ttl <= Duration.ofMinutes(10).toMillis());
+        ttls.add(ttl);
+      }
+      assertTrue(ttls.size() > 1);
+    }
+
+    private static void sleep(long millis) {
+      try {
+        Thread.sleep(millis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private String read(RefreshPolicy policy) {
+      return cacheUtil.getOrCompute(
+          KEY, String.class, () -> "v" + version.incrementAndGet(), policy, refreshExecutor);
+    }
+  }
+
+  /** 防穿透过滤器 */
+  @Nested
+  class PenetrationGuard extends EnabledCacheFixture {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void testUnguardedNamespaceAlwaysLoads() {
+      // 从未写入过的新键也会调用加载器
+      assertEquals("course", load("course:detail:new"));
+      assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGuardRejectsOnlyKeysKnownAbsent() {
+      cacheUtil.registerPenetrationGuard(
+          "course:detail:", () -> List.of("course:detail:1", "course:detail:2"), 0.001);
+
+      assertEquals("course", load("course:detail:1"));
+      assertNull(load("course:detail:missing"));
+      assertEquals(1, loads.get());
+
+      // 其他命名空间不受影响
+      assertEquals("course", load("lesson:detail:1"));
+      assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testKeysWrittenAfterRegistrationAreAdmitted() {
+      cacheUtil.registerPenetrationGuard("course:detail:", List::of, 0.001);
+
+      // 新建课程写入缓存后即登记到过滤器
+      cacheUtil.put("course:detail:3", "course");
+      cacheUtil.remove("course:detail:3");
+
+      assertEquals("course", load("course:detail:3"));
+    }
+
+    @Test
+    void testRejectKnownAbsentForDirectReads() {
+      assertFalse(cacheUtil.rejectKnownAbsent("lesson:detail:missing"));
+
+      cacheUtil.registerPenetrationGuard("lesson:detail:", () -> List.of("lesson:detail:1"), 0.001);
+      assertFalse(cacheUtil.rejectKnownAbsent("lesson:detail:1"));
+      assertTrue(cacheUtil.rejectKnownAbsent("lesson:detail:missing"));
+      assertEquals(1, cacheUtil.getEventCount(CacheEvent.PENETRATION_REJECT));
+
+      // 新建后未写入缓存的课时登记后放行
+      cacheUtil.markPresent("lesson:detail:2");
+      assertFalse(cacheUtil.rejectKnownAbsent("lesson:detail:2"));
+    }
+
+    private String load(String key) {
+      return cacheUtil.getOrCompute(
+          key,
+          String.class,
+          () -> {
+            loads.incrementAndGet();
+            return "course";
+          },
+          30);
+    }
+  }
+
+  /** 堆外存储 */
+  @Nested
+  class OffHeap extends EnabledCacheFixture {
+
+    private static final String KEY = "course:list:paginated:g0:0:20";
+
+    @Test
+    void testLargeResponseIsStoredOffHeap() {
+      Map<String, Object> page = page(200);
+      cacheUtil.put(KEY, page, 30);
+
+      assertEquals(1, cacheUtil.getOffHeapStore().getStoredCount());
+      assertEquals(page, cacheUtil.get(KEY, Map.class));
+
+      cacheUtil.remove(KEY);
+      assertEquals(0, cacheUtil.getOffHeapStore().getLiveBytes());
+    }
+
+    @Test
+    void testSmallResponseStaysOnHeap() {
+      Map<String, Object> page = page(1);
+      cacheUtil.put(KEY, page, 30);
+
+      assertEquals(0, cacheUtil.getOffHeapStore().getStoredCount());
+      assertSame(page, cacheUtil.get(KEY, Map.class));
+    }
+
+    private static Map<String, Object> page(int size) {
+      List<Map<String, Object>> courses = new ArrayList<>();
+      for (int i = 0; i < size; i++) {
+        Map<String, Object> course = new HashMap<>();
+        course.put("title", "课程" + i);
+        course.put("description", "课程描述" + i);
+        courses.add(course);
+      }
+      Map<String, Object> page = new HashMap<>();
+      page.put("courses", courses);
+      page.put("total", (long) size);
+      return page;
+    }
+  }
+
+  /** 快照写入与恢复 */
+  @Nested
+  class Snapshot extends EnabledCacheFixture {
+
+    private static final long SCHEMA = 1L;
+
+    private CacheUtil restartedCacheUtil;
+
+    @TempDir Path tempDir;
+
+    @BeforeEach
+    void setUpRestarted() {
+      restartedCacheUtil = enabledCacheUtil();
+    }
+
+    @AfterEach
+    void tearDownRestarted() {
+      restartedCacheUtil.shutdown();
+    }
+
+    @Test
+    void testRestartRestoresLiveEntriesWithTtl() throws Exception {
+      Path file = tempDir.resolve("cache.snapshot");
+      cacheUtil.put("course:detail:1", "课程", 30);
+      cacheUtil.put("course:detail:2", "即将过期", Duration.ofMillis(1));
+      Thread.sleep(5);
+
+      assertEquals(1, cacheUtil.saveSnapshot(file, SCHEMA));
+      assertEquals(1, restartedCacheUtil.loadSnapshot(file, SCHEMA));
+
+      assertEquals("课程", restartedCacheUtil.get("course:detail:1", String.class));
+      long ttlSeconds = restartedCacheUtil.getExpire("course:detail:1");
+      assertTrue(ttlSeconds > 29 * 60 && ttlSeconds <= 30 * 60);
+      assertFalse(restartedCacheUtil.exists("course:detail:2"));
+    }
+
+    @Test
+    void testGenerationStampedKeysAreNotSnapshotted() throws Exception {
+      Path file = tempDir.resolve("cache.snapshot");
+      cacheUtil.put("course:list:all", "全部课程", 30);
+      cacheUtil.put("course:list:page:g0:0:10", "旧代际分页", 30);
+      cacheUtil.put("lesson:list:page:42:g3:0:10", "旧代际课时分页", 30);
+
+      // 代际计数重启后归零，旧代际的分页不能恢复
+      assertEquals(1, cacheUtil.saveSnapshot(file, SCHEMA));
+      restartedCacheUtil.loadSnapshot(file, SCHEMA);
+      assertEquals("全部课程", restartedCacheUtil.get("course:list:all", String.class));
+      assertFalse(restartedCacheUtil.exists("course:list:page:g0:0:10"));
+      assertFalse(restartedCacheUtil.exists("lesson:list:page:42:g3:0:10"));
+    }
+  }
+
+  /** 事件计数 */
+  @Nested
+  class EventCount extends EnabledCacheFixture {
+
+    @Test
+    void testHitAndMissCounted() {
+      cacheUtil.put("course:1", "c1");
+      cacheUtil.get("course:1", String.class);
+      cacheUtil.get("course:1", String.class);
+      cacheUtil.get("course:2", String.class);
+
+      assertEquals(1, cacheUtil.getEventCount(CacheEvent.PUT));
+      assertEquals(2, cacheUtil.getEventCount(CacheEvent.HIT));
+      assertEquals(1, cacheUtil.getEventCount(CacheEvent.MISS));
+      assertEquals(2L, cacheUtil.getEventCounts().get(CacheEvent.HIT));
+    }
+
+    @Test
+    void testGetOrComputeCountsLoadOnce() {
+      for (int i = 0; i < 3; i++) {
+        assertEquals("c1", cacheUtil.getOrCompute("course:1", String.class, () -> "c1", 10));
+      }
+
+      assertEquals(1, cacheUtil.getEventCount(CacheEvent.MISS));
+      assertEquals(1, cacheUtil.getEventCount(CacheEvent.LOAD));
+      assertEquals(2, cacheUtil.getEventCount(CacheEvent.HIT));
+    }
+
+    @Test
+    void testStatsRoutedByRegion() throws InterruptedException {
+      cacheUtil.put("course:1", "c1");
+      cacheUtil.put("lesson:1", "l1", Duration.ofMillis(1));
+      cacheUtil.get("course:1", String.class);
+      Thread.sleep(5);
+      cacheUtil.get("lesson:1", String.class);
+      cacheUtil.remove("course:1");
+
+      CacheRegionStats course = cacheUtil.getRegionStats().get(CacheUtil.COURSE_REGION);
+      CacheRegionStats lesson = cacheUtil.getRegionStats().get(CacheUtil.LESSON_REGION);
+      assertEquals(1, course.getHitCount());
+      assertEquals(1, course.getRemovalCount(BoundedLocalCache.RemovalCause.EXPLICIT));
+      // 读取时发现已过期：计为未命中，并按过期移除
+      assertEquals(1, lesson.getMissCount());
+      assertEquals(1, lesson.getRemovalCount(BoundedLocalCache.RemovalCause.EXPIRED));
+      assertEquals(1, cacheUtil.getEventCount(CacheEvent.EXPIRED));
+    }
+  }
+
+  /** 热点键近端缓存 */
+  @Nested
+  class NearCache extends EnabledCacheFixture {
+
+    private static final String KEY = "course:detail:42";
+
+    @Test
+    void testPromotedKeyServedFromNearCacheUntilReplaced() {
+      HotKeyNearCache nearCache = cacheUtil.getNearCache();
+      nearCache.promote(KEY);
+      cacheUtil.put(KEY, "v1");
+
+      assertEquals("v1", cacheUtil.get(KEY, String.class));
+      assertEquals("v1", cacheUtil.get(KEY, String.class));
+      assertEquals(1, nearCache.getHitCount());
+      assertEquals(2, cacheUtil.getEventCount(CacheEvent.HIT));
+
+      // 覆盖写入使副本失效
+      cacheUtil.put(KEY, "v2");
+      assertEquals("v2", cacheUtil.get(KEY, String.class));
+      cacheUtil.remove(KEY);
+      assertNull(cacheUtil.get(KEY, String.class));
+    }
+
+    @Test
+    void testOffHeapValueDecodedOncePerThreadGroup() {
+      cacheUtil.setOffHeapThresholdBytes(1024);
+      List<Map<String, Object>> lessons = new ArrayList<>();
+      for (int i = 0; i < 50; i++) {
+        Map<String, Object> lesson = new HashMap<>();
+        lesson.put("title", "课时" + i);
+        lessons.add(lesson);
+      }
+      cacheUtil.getNearCache().promote(KEY);
+      cacheUtil.put(KEY, lessons);
+
+      Object first = cacheUtil.get(KEY, List.class);
+      Object second = cacheUtil.get(KEY, List.class);
+
+      assertEquals(lessons, first);
+      // 第二次读取直接返回已解码的副本
+      assertSame(first, second);
+    }
+
+    @Test
+    void testReadListenerSampled() {
+      List<String> sampled = new ArrayList<>();
+      cacheUtil.setAccessListener(
+          (key, hit, weight) -> sampled.add(key + ":" + hit + ":" + weight));
+      cacheUtil.put(KEY, "v1");
+      for (int i = 0; i < 1600; i++) {
+        cacheUtil.get(KEY, String.class);
+      }
+
+      // 默认每16次读取采样一次
+      assertTrue(sampled.size() > 50 && sampled.size() < 200, "sampled=" + sampled.size());
+      assertEquals(KEY + ":true:16", sampled.get(0));
+    }
+  }
 }
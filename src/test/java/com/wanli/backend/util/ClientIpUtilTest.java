@@ -0,0 +1,57 @@
+package com.wanli.backend.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/** ClientIpUtil 客户端IP解析 单元测试 */
+class ClientIpUtilTest {
+
+  private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setRemoteAddr(remoteAddr);
+    if (forwardedFor != null) {
+      request.addHeader("X-Forwarded-For", forwardedFor);
+    }
+    return request;
+  }
+
+  @Test
+  void testForwardedHeadersIgnoredWithoutTrustedProxies() {
+    ClientIpUtil clientIpUtil = new ClientIpUtil("");
+    MockHttpServletRequest forged = request("203.0.113.9", "198.51.100.1");
+    forged.addHeader("X-Real-IP", "198.51.100.2");
+
+    assertEquals("203.0.113.9", clientIpUtil.resolve(forged));
+  }
+
+  @Test
+  void testSkipsTrustedProxiesFromTheRight() {
+    ClientIpUtil clientIpUtil = new ClientIpUtil("10.0.0.0/8, 192.168.1.5");
+
+    // 客户端自填的首个地址不被采用，取最后一个不可信的地址
+    assertEquals(
+        "203.0.113.9",
+        clientIpUtil.resolve(request("10.0.0.2", "198.51.100.1, 203.0.113.9, 192.168.1.5")));
+    assertEquals("203.0.113.9", clientIpUtil.resolve(request("10.1.2.3", "203.0.113.9")));
+    // 不可信的连接地址发来的转发头被忽略
+    assertEquals("192.0.2.7", clientIpUtil.resolve(request("192.0.2.7", "203.0.113.9")));
+    // 没有转发头时取X-Real-IP，再没有时取连接地址
+    MockHttpServletRequest realIp = request("10.0.0.2", null);
+    realIp.addHeader("X-Real-IP", "203.0.113.10");
+    assertEquals("203.0.113.10", clientIpUtil.resolve(realIp));
+    assertEquals("10.0.0.2", clientIpUtil.resolve(request("10.0.0.2", "unknown")));
+  }
+
+  @Test
+  void testHostNamesNeverTrusted() {
+    ClientIpUtil clientIpUtil = new ClientIpUtil("10.0.0.0/8");
+
+    assertFalse(clientIpUtil.isTrustedProxy("proxy.internal"));
+    assertFalse(clientIpUtil.isTrustedProxy("10.0.0.256"));
+    assertTrue(clientIpUtil.isTrustedProxy("10.0.0.255"));
+    assertEquals(
+        "proxy.internal", clientIpUtil.resolve(request("10.0.0.2", "1.2.3.4, proxy.internal")));
+  }
+}